@@ -255,8 +255,14 @@ public class AmazonS3Runnable implements Runnable {
           }
         }
       } catch (AmazonClientException e) {
-        LOG.error("Error processing object with key '{}' offset '{}'", s3Object.getKey(), offset, e);
-        throw new StageException(Errors.S3_SPOOLDIR_25, e.toString(), e);
+        if (AmazonS3Util.isObjectNotFound(e)) {
+          // deleted after it was listed, move on to the next object instead of failing on it after every restart
+          LOG.warn("Object with key '{}' does not exist anymore, skipping it", s3Object.getKey());
+          offset.setOffset(S3Constants.MINUS_ONE);
+        } else {
+          LOG.error("Error processing object with key '{}' offset '{}'", s3Object.getKey(), offset, e);
+          throw new StageException(Errors.S3_SPOOLDIR_25, e.toString(), e);
+        }
       } catch (IOException | DataParserException ex) {
         if (!(ex.getCause() instanceof AbortedException)) {
           offset.setOffset(S3Constants.MINUS_ONE);
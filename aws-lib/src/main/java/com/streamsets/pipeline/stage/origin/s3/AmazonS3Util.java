@@ -19,11 +19,13 @@ import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.iterable.S3Objects;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.CopyObjectRequest;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.Owner;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.model.SSECustomerKey;
@@ -32,6 +34,8 @@ import com.streamsets.pipeline.api.credential.CredentialValue;
 import com.streamsets.pipeline.common.InterfaceAudience;
 import com.streamsets.pipeline.common.InterfaceStability;
 import com.streamsets.pipeline.lib.util.AntPathMatcher;
+import com.streamsets.pipeline.lib.util.ChronologicalObjectIndex;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -44,6 +48,8 @@ import java.util.TreeSet;
 public class AmazonS3Util {
 
   public static final int BATCH_SIZE = 1000;
+  // error code of requests for objects that don't exist
+  private static final String NO_SUCH_KEY = "NoSuchKey";
 
   private AmazonS3Util() {}
 
@@ -162,6 +168,73 @@ public class AmazonS3Util {
     return new ArrayList<>(treeSet);
   }
 
+  /**
+   * Lists objects from AmazonS3 in the same order as {@link #listObjectsChronologically(AmazonS3, S3ConfigBean,
+   * AntPathMatcher, S3Offset, int)}, from the given index, which does a full listing of the objects only once it has
+   * returned all the objects found by the previous one.
+   *
+   * @param s3Client
+   * @param s3ConfigBean
+   * @param pathMatcher glob patterns to match file name against
+   * @param s3Offset current offset which provides the timestamp of the previous object
+   * @param fetchSize number of objects to fetch in one go
+   * @param index index of the objects of the bucket and prefix
+   * @return
+   * @throws AmazonClientException
+   * @throws IOException if the index could not be read or written
+   */
+  static List<S3ObjectSummary> listObjectsChronologically(
+      AmazonS3 s3Client,
+      S3ConfigBean s3ConfigBean,
+      AntPathMatcher pathMatcher,
+      S3Offset s3Offset,
+      int fetchSize,
+      ChronologicalObjectIndex index
+  ) throws IOException {
+    List<ChronologicalObjectIndex.Entry> entries = index.next(
+        consumer -> {
+          S3Objects s3ObjectSummaries = S3Objects
+              .withPrefix(s3Client, s3ConfigBean.s3Config.bucket, s3ConfigBean.s3Config.commonPrefix);
+          for (S3ObjectSummary s : s3ObjectSummaries) {
+            String remainingPrefix = s.getKey().substring(s3ConfigBean.s3Config.commonPrefix.length());
+            if (!remainingPrefix.isEmpty() &&
+                pathMatcher.match(s3ConfigBean.s3FileConfig.prefixPattern, remainingPrefix)) {
+              Owner owner = s.getOwner();
+              consumer.accept(new ChronologicalObjectIndex.Entry(
+                  s.getKey(),
+                  s.getLastModified().getTime(),
+                  s.getSize(),
+                  s.getETag(),
+                  s.getStorageClass(),
+                  owner == null ? null : owner.getId(),
+                  owner == null ? null : owner.getDisplayName()
+              ));
+            }
+          }
+        },
+        Long.parseLong(s3Offset.getTimestamp()),
+        s3Offset.getKey(),
+        !S3Constants.MINUS_ONE.equals(s3Offset.getOffset()),
+        fetchSize
+    );
+
+    List<S3ObjectSummary> list = new ArrayList<>(entries.size());
+    for (ChronologicalObjectIndex.Entry entry : entries) {
+      S3ObjectSummary s = new S3ObjectSummary();
+      s.setBucketName(s3ConfigBean.s3Config.bucket);
+      s.setKey(entry.getKey());
+      s.setLastModified(new Date(entry.getLastModified()));
+      s.setSize(entry.getSize());
+      s.setETag(entry.getAttribute(0));
+      s.setStorageClass(entry.getAttribute(1));
+      if (entry.getAttribute(2) != null || entry.getAttribute(3) != null) {
+        s.setOwner(new Owner(entry.getAttribute(2), entry.getAttribute(3)));
+      }
+      list.add(s);
+    }
+    return list;
+  }
+
   private static boolean isEligible(S3ObjectSummary s, S3Offset s3Offset) {
 
     //The object is eligible if
@@ -263,6 +336,14 @@ public class AmazonS3Util {
     return s3Client.getObject(getObjectRequest);
   }
 
+  /**
+   * Returns whether the request failed because the object does not exist (anymore), as it happens when an object is
+   * deleted after it was listed or indexed. A missing bucket is not a missing object.
+   */
+  static boolean isObjectNotFound(AmazonClientException e) {
+    return e instanceof AmazonS3Exception && NO_SUCH_KEY.equals(((AmazonS3Exception) e).getErrorCode());
+  }
+
   static S3ObjectSummary getObjectSummary(AmazonS3 s3Client, String bucket, String objectKey) {
     S3ObjectSummary s3ObjectSummary = null;
     S3Objects s3ObjectSummaries = S3Objects.withPrefix(s3Client, bucket, objectKey);
@@ -25,9 +25,12 @@ import com.streamsets.pipeline.api.PushSource;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.config.PostProcessingOptions;
 import com.streamsets.pipeline.lib.util.AntPathMatcher;
+import com.streamsets.pipeline.lib.util.ChronologicalObjectIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
@@ -37,6 +40,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class S3Spooler {
 
   private static final Logger LOG = LoggerFactory.getLogger(S3Spooler.class);
+  private static final String OBJECT_INDEX_FILE = "s3-object-index";
 
   private final PushSource.Context context;
   private final S3ConfigBean s3ConfigBean;
@@ -57,6 +61,7 @@ public class S3Spooler {
   private volatile S3ObjectSummary currentObject;
   private ArrayBlockingQueue<S3ObjectSummary> objectQueue;
   private Meter spoolQueueMeter;
+  private ChronologicalObjectIndex objectIndex;
 
   public void init() {
     try {
@@ -64,12 +69,57 @@ public class S3Spooler {
       objectQueue = new ArrayBlockingQueue<>(s3ConfigBean.s3FileConfig.poolSize);
       spoolQueueMeter = context.createMeter("spoolQueue");
       pathMatcher = new AntPathMatcher(s3ConfigBean.s3Config.delimiter);
+      if (s3ConfigBean.s3FileConfig.objectOrdering == ObjectOrdering.TIMESTAMP && !context.isPreview()) {
+        objectIndex = createObjectIndex();
+      }
     } catch (Exception ex) {
       throw new RuntimeException(ex);
     }
   }
 
+  private ChronologicalObjectIndex createObjectIndex() {
+    File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+    String relativePath = context.getSdcId() + "/" + context.getPipelineId() + "/" +
+        context.getStageInfo().getInstanceName() + "/" + OBJECT_INDEX_FILE;
+    // the index is only valid for the objects it was built from
+    String signature = String.join("\n",
+        s3ConfigBean.s3Config.bucket,
+        s3ConfigBean.s3Config.commonPrefix,
+        s3ConfigBean.s3Config.delimiter,
+        s3ConfigBean.s3FileConfig.prefixPattern
+    );
+    return new ChronologicalObjectIndex(new File(tmpDir, relativePath), signature);
+  }
+
+  private List<S3ObjectSummary> listObjectsChronologically(S3Offset s3offset) {
+    if (objectIndex != null) {
+      try {
+        return AmazonS3Util.listObjectsChronologically(s3Client,
+            s3ConfigBean,
+            pathMatcher,
+            s3offset,
+            objectQueue.remainingCapacity(),
+            objectIndex
+        );
+      } catch (IOException ex) {
+        LOG.warn("Could not use the object index, listing all the objects from now on: {}", ex.toString(), ex);
+        objectIndex.close();
+        objectIndex = null;
+      }
+    }
+    return AmazonS3Util.listObjectsChronologically(s3Client,
+        s3ConfigBean,
+        pathMatcher,
+        s3offset,
+        objectQueue.remainingCapacity()
+    );
+  }
+
   public void destroy() {
+    if (objectIndex != null) {
+      objectIndex.close();
+      objectIndex = null;
+    }
     if(objectQueue != null) {
       objectQueue.clear();
       objectQueue = null;
@@ -90,12 +140,7 @@ public class S3Spooler {
     ObjectOrdering objectOrdering = s3ConfigBean.s3FileConfig.objectOrdering;
     switch (objectOrdering) {
       case TIMESTAMP:
-        s3ObjectSummaries = AmazonS3Util.listObjectsChronologically(s3Client,
-            s3ConfigBean,
-            pathMatcher,
-            s3offset,
-            objectQueue.remainingCapacity()
-        );
+        s3ObjectSummaries = listObjectsChronologically(s3offset);
         break;
       case LEXICOGRAPHICAL:
         s3ObjectSummaries = AmazonS3Util.listObjectsLexicographically(s3Client,
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.s3;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListNextBatchOfObjectsRequest;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.streamsets.pipeline.lib.util.AntPathMatcher;
+import com.streamsets.pipeline.lib.util.ChronologicalObjectIndex;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestAmazonS3Util {
+  private static final String BUCKET = "bucket";
+  private static final int PAGE_SIZE = 10;
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  // in process stand-in of the S3 API, listing the objects by key in pages
+  private final TreeMap<String, S3ObjectSummary> objects = new TreeMap<>();
+  private final AtomicInteger listCalls = new AtomicInteger();
+  private AmazonS3 s3Client;
+
+  private ObjectListing list(String prefix, String marker) {
+    listCalls.incrementAndGet();
+    ObjectListing listing = new ObjectListing();
+    listing.setBucketName(BUCKET);
+    listing.setPrefix(prefix);
+    for (S3ObjectSummary s : (marker == null ? objects : objects.tailMap(marker, false)).values()) {
+      if (s.getKey().startsWith(prefix)) {
+        if (listing.getObjectSummaries().size() == PAGE_SIZE) {
+          listing.setTruncated(true);
+          listing.setNextMarker(listing.getObjectSummaries().get(PAGE_SIZE - 1).getKey());
+          break;
+        }
+        listing.getObjectSummaries().add(s);
+      }
+    }
+    return listing;
+  }
+
+  @Before
+  public void setUp() {
+    s3Client = Mockito.mock(AmazonS3.class);
+    Mockito.when(s3Client.listObjects(Mockito.any(ListObjectsRequest.class))).thenAnswer(invocation -> {
+      ListObjectsRequest request = (ListObjectsRequest) invocation.getArguments()[0];
+      return list(request.getPrefix(), request.getMarker());
+    });
+    Mockito.when(s3Client.listNextBatchOfObjects(Mockito.any(ObjectListing.class))).thenAnswer(invocation -> {
+      ObjectListing previous = (ObjectListing) invocation.getArguments()[0];
+      return list(previous.getPrefix(), previous.getNextMarker());
+    });
+    Mockito.when(s3Client.listNextBatchOfObjects(Mockito.any(ListNextBatchOfObjectsRequest.class))).thenAnswer(
+        invocation -> {
+          ObjectListing previous = ((ListNextBatchOfObjectsRequest) invocation.getArguments()[0])
+              .getPreviousObjectListing();
+          return list(previous.getPrefix(), previous.getNextMarker());
+        }
+    );
+    Mockito.when(s3Client.getObject(Mockito.any(GetObjectRequest.class))).thenAnswer(invocation -> {
+      GetObjectRequest request = (GetObjectRequest) invocation.getArguments()[0];
+      if (!objects.containsKey(request.getKey())) {
+        AmazonS3Exception e = new AmazonS3Exception("The specified key does not exist.");
+        e.setStatusCode(404);
+        e.setErrorCode("NoSuchKey");
+        throw e;
+      }
+      S3Object object = new S3Object();
+      object.setBucketName(request.getBucketName());
+      object.setKey(request.getKey());
+      return object;
+    });
+  }
+
+  private void putObject(String key, long lastModified) {
+    S3ObjectSummary s = new S3ObjectSummary();
+    s.setBucketName(BUCKET);
+    s.setKey(key);
+    s.setLastModified(new Date(lastModified));
+    s.setSize(key.length());
+    s.setETag("etag-" + key);
+    objects.put(key, s);
+  }
+
+  private static S3ConfigBean createConfig() {
+    S3ConfigBean config = new S3ConfigBean();
+    config.s3Config = new S3ConnectionSourceConfig();
+    config.s3Config.bucket = BUCKET;
+    config.s3Config.commonPrefix = "dir/";
+    config.s3Config.delimiter = "/";
+    config.s3FileConfig = new S3FileConfig();
+    config.s3FileConfig.objectOrdering = ObjectOrdering.TIMESTAMP;
+    config.s3FileConfig.prefixPattern = "*";
+    return config;
+  }
+
+  private void putObjects() {
+    objects.clear();
+    long base = 1546300800000L;
+    for (int i = 0; i < 50; i++) {
+      // timestamps not in key order, some of them shared by several objects
+      putObject(String.format("dir/file-%02d", i), base + ((i * 7) % 20) * 1000);
+    }
+    putObject("dir/", base);
+    putObject("dir/sub/file", base);
+    putObject("other/file", base);
+  }
+
+  /**
+   * Fetches all the objects as the origin does, with or without an index, adding a new object after a few fetches.
+   */
+  private List<String> fetchAll(ChronologicalObjectIndex index, AtomicInteger fetches) throws Exception {
+    putObjects();
+    S3ConfigBean config = createConfig();
+    AntPathMatcher pathMatcher = new AntPathMatcher(config.s3Config.delimiter);
+    S3Offset offset = new S3Offset(S3Constants.EMPTY, S3Constants.ZERO, S3Constants.EMPTY, S3Constants.ZERO);
+    List<String> keys = new ArrayList<>();
+    List<S3ObjectSummary> list;
+    do {
+      if (index == null) {
+        list = AmazonS3Util.listObjectsChronologically(s3Client, config, pathMatcher, offset, 7);
+      } else {
+        list = AmazonS3Util.listObjectsChronologically(s3Client, config, pathMatcher, offset, 7, index);
+      }
+      for (S3ObjectSummary s : list) {
+        S3ObjectSummary listed = objects.get(s.getKey());
+        Assert.assertEquals(listed.getLastModified(), s.getLastModified());
+        Assert.assertEquals(listed.getSize(), s.getSize());
+        Assert.assertEquals(listed.getETag(), s.getETag());
+        Assert.assertEquals(BUCKET, s.getBucketName());
+        keys.add(s.getKey());
+      }
+      if (!list.isEmpty()) {
+        S3ObjectSummary last = list.get(list.size() - 1);
+        offset = new S3Offset(last.getKey(), S3Constants.MINUS_ONE, last.getETag(),
+            String.valueOf(last.getLastModified().getTime()));
+      }
+      if (fetches.incrementAndGet() == 3) {
+        // uploaded after the first listing, newer than all the other objects
+        putObject("dir/file-new", System.currentTimeMillis() - 60000);
+      }
+    } while (!list.isEmpty());
+    return keys;
+  }
+
+  @Test
+  public void testListObjectsChronologicallyWithIndex() throws Exception {
+    // objects under the prefix are listed in 6 pages
+    int pages = 6;
+
+    listCalls.set(0);
+    AtomicInteger fetches = new AtomicInteger();
+    List<String> expected = fetchAll(null, fetches);
+    Assert.assertEquals(51, expected.size());
+    Assert.assertEquals("dir/file-new", expected.get(50));
+    Assert.assertEquals(fetches.get() * pages, listCalls.get());
+
+    listCalls.set(0);
+    ChronologicalObjectIndex index = new ChronologicalObjectIndex(new File(tempFolder.newFolder(), "index"), BUCKET);
+    Assert.assertEquals(expected, fetchAll(index, new AtomicInteger()));
+    // one listing for the objects indexed first, one for the new object, and one finding nothing left
+    Assert.assertEquals(3 * pages, listCalls.get());
+    index.close();
+  }
+
+  @Test
+  public void testIndexedObjectDeleted() throws Exception {
+    putObjects();
+    S3ConfigBean config = createConfig();
+    AntPathMatcher pathMatcher = new AntPathMatcher(config.s3Config.delimiter);
+    ChronologicalObjectIndex index = new ChronologicalObjectIndex(new File(tempFolder.newFolder(), "index"), BUCKET);
+    S3Offset offset = new S3Offset(S3Constants.EMPTY, S3Constants.ZERO, S3Constants.EMPTY, S3Constants.ZERO);
+
+    List<S3ObjectSummary> list =
+        AmazonS3Util.listObjectsChronologically(s3Client, config, pathMatcher, offset, 7, index);
+    Assert.assertEquals(7, list.size());
+    // deleted after it was indexed, but before it was read
+    String deleted = list.get(3).getKey();
+    objects.remove(deleted);
+
+    List<String> read = new ArrayList<>();
+    List<String> skipped = new ArrayList<>();
+    while (!list.isEmpty()) {
+      for (S3ObjectSummary s : list) {
+        try {
+          AmazonS3Util.getObject(s3Client, BUCKET, s.getKey(), false, null, null);
+          read.add(s.getKey());
+        } catch (AmazonClientException e) {
+          Assert.assertTrue(AmazonS3Util.isObjectNotFound(e));
+          skipped.add(s.getKey());
+        }
+        // the origin moves past the object either way
+        offset = new S3Offset(s.getKey(), S3Constants.MINUS_ONE, s.getETag(),
+            String.valueOf(s.getLastModified().getTime()));
+      }
+      list = AmazonS3Util.listObjectsChronologically(s3Client, config, pathMatcher, offset, 7, index);
+    }
+    Assert.assertEquals(Collections.singletonList(deleted), skipped);
+    Assert.assertEquals(49, read.size());
+    Assert.assertFalse(read.contains(deleted));
+    index.close();
+
+    Assert.assertFalse(AmazonS3Util.isObjectNotFound(new AmazonClientException("timeout")));
+    AmazonS3Exception denied = new AmazonS3Exception("Access Denied");
+    denied.setStatusCode(403);
+    Assert.assertFalse(AmazonS3Util.isObjectNotFound(denied));
+    // a wrong bucket must stop the origin rather than skip every object
+    AmazonS3Exception noBucket = new AmazonS3Exception("The specified bucket does not exist");
+    noBucket.setStatusCode(404);
+    noBucket.setErrorCode("NoSuchBucket");
+    Assert.assertFalse(AmazonS3Util.isObjectNotFound(noBucket));
+  }
+}
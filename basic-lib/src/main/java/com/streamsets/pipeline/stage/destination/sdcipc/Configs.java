@@ -22,6 +22,8 @@ import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.credential.CredentialValue;
 import com.streamsets.pipeline.api.ConfigDef;
 import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.ext.ContextExtensions;
+import com.streamsets.pipeline.api.ext.RecordWriter;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.tls.TlsConfigBean;
 import com.streamsets.pipeline.lib.util.ThreadUtil;
@@ -31,12 +33,14 @@ import org.slf4j.LoggerFactory;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLSocketFactory;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.InetAddress;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -147,6 +151,9 @@ public class Configs {
 
   private SSLSocketFactory sslSocketFactory;
 
+  // encoding of the records sent, set by the pipeline and verified to be accepted by the hosts
+  String recordEncoding;
+
   public List<Stage.ConfigIssue> init(Stage.Context context) {
     List<Stage.ConfigIssue> issues = new ArrayList<>();
 
@@ -157,6 +164,7 @@ public class Configs {
         sslSocketFactory = createSSLSocketFactory(context);
       }
       if (ok && !context.isPreview()) {
+        recordEncoding = getRecordEncoding(context);
         List<Stage.ConfigIssue> moreIssues = new ArrayList<>();
         validateConnectivity(context, moreIssues);
 
@@ -320,7 +328,16 @@ public class Configs {
         conn.setDefaultUseCaches(false);
         if (conn.getResponseCode() == HttpURLConnection.HTTP_OK) {
           if (Constants.X_SDC_PING_VALUE.equals(conn.getHeaderField(Constants.X_SDC_PING_HEADER))) {
-            ok = true;
+            String encodings = conn.getHeaderField(Constants.X_SDC_RECORD_ENCODINGS_HEADER);
+            if (encodings == null) {
+              encodings = Constants.LEGACY_RECORD_ENCODINGS;
+            }
+            if (recordEncoding == null || Arrays.asList(encodings.split(",")).contains(recordEncoding)) {
+              ok = true;
+            } else {
+              issues.add(context.createConfigIssue(Groups.RPC.name(), HOST_PORTS,
+                                                   Errors.IPC_DEST_13, hostPort, recordEncoding, encodings));
+            }
           } else {
             issues.add(context.createConfigIssue(Groups.RPC.name(), HOST_PORTS,
                                                  Errors.IPC_DEST_12, hostPort ));
@@ -337,4 +354,16 @@ public class Configs {
     }
   }
 
+  private static String getRecordEncoding(Stage.Context context) {
+    String encoding = null;
+    try {
+      RecordWriter writer = ((ContextExtensions) context).createRecordWriter(new ByteArrayOutputStream());
+      encoding = writer.getEncoding();
+      writer.close();
+    } catch (IOException ex) {
+      LOG.warn("Could not determine the record encoding: {}", ex.toString(), ex);
+    }
+    return encoding;
+  }
+
 }
@@ -24,6 +24,11 @@ public interface Constants {
   String CONTENT_TYPE_HEADER = "Content-Type";
   String APPLICATION_BINARY = "application/binary";
   String X_SDC_JSON1_FRAGMENTABLE_HEADER = "X-SDC-JSON1-FRAGMENTABLE";
+  // record encodings accepted by an SDC RPC origin, returned on ping
+  String X_SDC_RECORD_ENCODINGS_HEADER = "X-SDC-RECORD-ENCODINGS";
+  String RECORD_ENCODINGS = "JSON1,KRYO1,DICT1";
+  // accepted by origins from before the encodings were returned on ping
+  String LEGACY_RECORD_ENCODINGS = "JSON1,KRYO1";
 
   String PING_PATH = "/ping";
 
@@ -151,6 +151,8 @@ public class SdcIpcTarget extends BaseTarget {
           Record record = it.next();
           writer.write(record);
         }
+        // close() does not report errors, flushing first so a failed write is retried
+        writer.flush();
         writer.close();
         os.close();
         ok = conn.getResponseCode() == HttpURLConnection.HTTP_OK;
@@ -73,6 +73,7 @@ public class IpcServlet extends HttpServlet {
     } else {
       LOG.debug("Validation from '{}', OK", req.getRemoteAddr());
       resp.setHeader(Constants.X_SDC_PING_HEADER, Constants.X_SDC_PING_VALUE);
+      resp.setHeader(Constants.X_SDC_RECORD_ENCODINGS_HEADER, Constants.RECORD_ENCODINGS);
       resp.setStatus(HttpServletResponse.SC_OK);
     }
   }
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.sdcipc;
+
+import com.streamsets.pipeline.api.ConfigDef;
+
+/**
+ * Configuration of the multithreaded SDC RPC origin, which bounds the requests processed concurrently instead of
+ * waiting for batches.
+ */
+public class PushConfigs extends Configs {
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "10",
+      label = "Max Concurrent Requests",
+      description = "Maximum number of batches processed concurrently, across all the SDC RPC destinations. " +
+          "Each batch is processed by its own pipeline runner.",
+      displayPosition = 30,
+      group = "RPC",
+      min = 1,
+      max = 200
+  )
+  public int maxConcurrentRequests = 10;
+
+  @Override
+  public int getMaxConcurrentRequests() {
+    return maxConcurrentRequests;
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.sdcipc;
+
+import com.streamsets.pipeline.api.ConfigDefBean;
+import com.streamsets.pipeline.api.ConfigGroups;
+import com.streamsets.pipeline.api.ExecutionMode;
+import com.streamsets.pipeline.api.GenerateResourceBundle;
+import com.streamsets.pipeline.api.HideConfigs;
+import com.streamsets.pipeline.api.PushSource;
+import com.streamsets.pipeline.api.StageDef;
+import com.streamsets.pipeline.api.base.configurablestage.DPushSource;
+
+@StageDef(
+    version = 1,
+    label = "SDC RPC Multithreaded",
+    execution = ExecutionMode.STANDALONE,
+    description = "Receives records via SDC RPC from Data Collector pipelines that use an SDC RPC destination, " +
+        "processing concurrent batches in multiple threads",
+    icon="sdcipc.png",
+    recordsByRef = true,
+    onlineHelpRefUrl ="index.html?contextID=task_lxh_1w2_ct"
+)
+@ConfigGroups(Groups.class)
+@HideConfigs({
+    "configs.maxWaitTimeSecs",
+    "configs.tlsConfigBean.trustStoreFilePath",
+    "configs.tlsConfigBean.trustStoreType",
+    "configs.tlsConfigBean.trustStorePassword",
+    "configs.tlsConfigBean.trustStoreAlgorithm"
+})
+@GenerateResourceBundle
+public class SdcIpcDPushSource extends DPushSource {
+
+  @ConfigDefBean
+  public PushConfigs configs;
+
+  @Override
+  protected PushSource createPushSource() {
+    return new SdcIpcPushSource(configs);
+  }
+}
@@ -30,13 +30,14 @@ import com.streamsets.pipeline.api.base.configurablestage.DProcessor;
 import java.util.List;
 
 @StageDef(
-    version = 1,
+    version = 3,
     label = "Record Deduplicator",
     description = "Separates unique and duplicate records based on field comparison",
     icon="dedup.png",
     outputStreams = OutputStreams.class,
     execution = ExecutionMode.STANDALONE,
     flags = StageBehaviorFlags.PASSTHROUGH,
+    upgrader = DeDupProcessorUpgrader.class,
     onlineHelpRefUrl ="index.html?contextID=task_ikr_c2f_zq"
 )
 @ConfigGroups(Groups.class)
@@ -92,9 +93,58 @@ public class DeDupDProcessor extends DProcessor {
   @FieldSelectorModel
   public List<String> fieldsToCompare;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      defaultValue = "HEAP",
+      label = "Hash Storage",
+      description = "Where the hashes of the records in the window are kept. Off-heap storage needs 56 to 88 bytes of " +
+          "direct memory per record (see -XX:MaxDirectMemorySize). A memory-mapped file keeps the window across " +
+          "pipeline restarts.",
+      displayPosition = 50,
+      group = "DE_DUP"
+  )
+  @ValueChooserModel(HashStorageChooserValues.class)
+  public HashStorage hashStorage = HashStorage.HEAP;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.STRING,
+      label = "Window File",
+      description = "Local file holding the window, it is recreated if the window size changes. Relative paths are " +
+          "resolved under the resources directory",
+      displayPosition = 60,
+      group = "DE_DUP",
+      dependsOn = "hashStorage",
+      triggeredByValue = "MEMORY_MAPPED_FILE"
+  )
+  public String windowFile;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "0.001",
+      label = "False Positive Probability",
+      description = "Probability of sending a unique record to the duplicate stream. Lower probabilities need more " +
+          "memory, about 3 bytes per record for 0.001",
+      displayPosition = 70,
+      group = "DE_DUP",
+      dependsOn = "hashStorage",
+      triggeredByValue = "BLOOM_FILTER"
+  )
+  public double falsePositiveProbability = 0.001;
+
   @Override
   protected Processor createProcessor() {
-    return new DeDupProcessor(recordCountWindow, timeWindowSecs, compareFields, fieldsToCompare);
+    return new DeDupProcessor(
+        recordCountWindow,
+        timeWindowSecs,
+        compareFields,
+        fieldsToCompare,
+        hashStorage,
+        windowFile,
+        falsePositiveProbability
+    );
   }
 
 }
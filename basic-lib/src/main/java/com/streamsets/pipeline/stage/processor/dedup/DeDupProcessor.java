@@ -25,12 +25,15 @@ import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
 import com.streamsets.pipeline.api.base.RecordProcessor;
+import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.cache.CacheCleaner;
 import com.streamsets.pipeline.lib.hashing.HashingUtil;
 import com.streamsets.pipeline.lib.queue.XEvictingQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -39,20 +42,41 @@ import java.util.concurrent.TimeUnit;
 
 public class DeDupProcessor extends RecordProcessor {
   private static final String CACHE_KEY = "cache";
+  private static final String WINDOW_KEY = "window";
+  private static final String BLOOM_FILTER_KEY = "bloomFilter";
+  private static final String GAUGE_NAME = "Hash Window";
+  private static final String HASHES = "Hashes";
+  private static final String OCCUPANCY = "Table Occupancy (%)";
+  private static final String AVG_PROBE_LENGTH = "Average Probe Length";
+  private static final String MAX_PROBE_LENGTH = "Max Probe Length";
+  private static final String GENERATIONS = "Generations";
+  private static final String MEMORY = "Memory (bytes)";
   private static final Logger LOG = LoggerFactory.getLogger(DeDupProcessor.class);
 
   private final  int recordCountWindow;
   private final  int timeWindowSecs;
   private final  SelectFields compareFields;
   private final  List<String> fieldsToCompare;
+  private final  HashStorage hashStorage;
+  private final  String windowFile;
+  private final  double falsePositiveProbability;
   private CacheCleaner cacheCleaner;
 
   public DeDupProcessor(int recordCountWindow, int timeWindowSecs,
       SelectFields compareFields, List<String> fieldsToCompare) {
+    this(recordCountWindow, timeWindowSecs, compareFields, fieldsToCompare, HashStorage.HEAP, null, 0.001);
+  }
+
+  public DeDupProcessor(int recordCountWindow, int timeWindowSecs,
+      SelectFields compareFields, List<String> fieldsToCompare, HashStorage hashStorage, String windowFile,
+      double falsePositiveProbability) {
     this.recordCountWindow = recordCountWindow;
     this.timeWindowSecs = timeWindowSecs;
     this.compareFields = compareFields;
     this.fieldsToCompare = fieldsToCompare;
+    this.hashStorage = hashStorage;
+    this.windowFile = windowFile;
+    this.falsePositiveProbability = falsePositiveProbability;
   }
 
   private static final Object VOID = new Object();
@@ -61,6 +85,9 @@ public class DeDupProcessor extends RecordProcessor {
   private HashingUtil.RecordFunnel funnel;
   private Cache<HashCode, HashCode> hashCache;
   private XEvictingQueue<HashCode> hashBuffer;
+  private OffHeapHashWindow hashWindow;
+  private RotatingBloomFilter bloomFilter;
+  private Map<String, Object> gaugeMap;
   private String uniqueLane;
   private String duplicateLane;
 
@@ -81,6 +108,13 @@ public class DeDupProcessor extends RecordProcessor {
     if (compareFields == SelectFields.SPECIFIED_FIELDS && fieldsToCompare.isEmpty()) {
       issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "compareFields", Errors.DEDUP_02));
     }
+    if (hashStorage == HashStorage.MEMORY_MAPPED_FILE && (windowFile == null || windowFile.isEmpty())) {
+      issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "windowFile", Errors.DEDUP_06));
+    }
+    if (hashStorage == HashStorage.BLOOM_FILTER && (falsePositiveProbability <= 0 || falsePositiveProbability >= 1)) {
+      issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "falsePositiveProbability", Errors.DEDUP_07,
+                                                falsePositiveProbability));
+    }
 
     if (issues.isEmpty()) {
       hasher = HashingUtil.getHasher(HashingUtil.HashType.MURMUR3_128);
@@ -92,26 +126,19 @@ public class DeDupProcessor extends RecordProcessor {
           '\u0000'
       ) : HashingUtil.getRecordFunnel(fieldsToCompare, false, true, '\u0000');
 
-      Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
-      synchronized (runnerSharedMap) {
-        if(!runnerSharedMap.containsKey(CACHE_KEY)) {
-          CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
-          if (timeWindowSecs > 0) {
-            cacheBuilder.expireAfterWrite(timeWindowSecs, TimeUnit.SECONDS);
-          }
-          if(LOG.isDebugEnabled()) {
-            cacheBuilder.recordStats();
-          }
-          hashCache = cacheBuilder.build();
-
-          runnerSharedMap.put(CACHE_KEY, hashCache);
-        } else {
-          hashCache = (Cache<HashCode, HashCode>) runnerSharedMap.get(CACHE_KEY);
-        }
+      switch (hashStorage) {
+        case OFF_HEAP:
+        case MEMORY_MAPPED_FILE:
+          initHashWindow(issues);
+          break;
+        case BLOOM_FILTER:
+          initBloomFilter(issues);
+          break;
+        case HEAP:
+        default:
+          initHashCache();
+          break;
       }
-      cacheCleaner = new CacheCleaner(hashCache, "DeDupProcessor", 10 * 60 * 1000);
-
-      hashBuffer = XEvictingQueue.create(recordCountWindow);
       hashAttrName = getInfo() + ".hash";
       uniqueLane = getContext().getOutputLanes().get(OutputStreams.UNIQUE.ordinal());
       duplicateLane = getContext().getOutputLanes().get(OutputStreams.DUPLICATE.ordinal());
@@ -119,10 +146,118 @@ public class DeDupProcessor extends RecordProcessor {
     return issues;
   }
 
+  @SuppressWarnings("unchecked")
+  private void initHashCache() {
+    Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+    synchronized (runnerSharedMap) {
+      if(!runnerSharedMap.containsKey(CACHE_KEY)) {
+        CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
+        if (timeWindowSecs > 0) {
+          cacheBuilder.expireAfterWrite(timeWindowSecs, TimeUnit.SECONDS);
+        }
+        if(LOG.isDebugEnabled()) {
+          cacheBuilder.recordStats();
+        }
+        hashCache = cacheBuilder.build();
+
+        runnerSharedMap.put(CACHE_KEY, hashCache);
+      } else {
+        hashCache = (Cache<HashCode, HashCode>) runnerSharedMap.get(CACHE_KEY);
+      }
+    }
+    cacheCleaner = new CacheCleaner(hashCache, "DeDupProcessor", 10 * 60 * 1000);
+
+    hashBuffer = XEvictingQueue.create(recordCountWindow);
+  }
+
+  // the window is shared by all the pipeline runners, the last one to be destroyed closes it
+  private void initHashWindow(List<ConfigIssue> issues) {
+    Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+    synchronized (runnerSharedMap) {
+      hashWindow = (OffHeapHashWindow) runnerSharedMap.get(WINDOW_KEY);
+      if (hashWindow == null || !hashWindow.isOpen()) {
+        long timeWindowMillis = TimeUnit.SECONDS.toMillis(timeWindowSecs);
+        if (hashStorage == HashStorage.MEMORY_MAPPED_FILE) {
+          try {
+            File file = resolveWindowFile();
+            if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs()) {
+              throw new IOException(Utils.format("Could not create directory '{}'", file.getParentFile()));
+            }
+            hashWindow = OffHeapHashWindow.open(file, recordCountWindow, timeWindowMillis);
+          } catch (IOException ex) {
+            LOG.error("Could not open window file '{}': {}", windowFile, ex.toString(), ex);
+            issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "windowFile", Errors.DEDUP_05,
+                                                      windowFile, ex.toString()));
+            return;
+          }
+        } else {
+          hashWindow = OffHeapHashWindow.create(recordCountWindow, timeWindowMillis);
+        }
+        runnerSharedMap.put(WINDOW_KEY, hashWindow);
+      } else {
+        hashWindow.retain();
+      }
+    }
+    gaugeMap = getContext().createGauge(GAUGE_NAME).getValue();
+    updateGauge();
+  }
+
+  // relative paths are resolved under the resources directory, like the other files used by stages
+  private File resolveWindowFile() {
+    File file = new File(windowFile);
+    if (!file.isAbsolute()) {
+      file = new File(getContext().getResourcesDirectory(), windowFile);
+    }
+    return file.getAbsoluteFile();
+  }
+
+  // the filter is lock free, it is shared by all the pipeline runners
+  private void initBloomFilter(List<ConfigIssue> issues) {
+    Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+    synchronized (runnerSharedMap) {
+      bloomFilter = (RotatingBloomFilter) runnerSharedMap.get(BLOOM_FILTER_KEY);
+      if (bloomFilter == null) {
+        try {
+          bloomFilter = new RotatingBloomFilter(
+              recordCountWindow,
+              TimeUnit.SECONDS.toMillis(timeWindowSecs),
+              falsePositiveProbability
+          );
+        } catch (IllegalArgumentException ex) {
+          issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "falsePositiveProbability",
+                                                    Errors.DEDUP_08, ex.getMessage()));
+          return;
+        }
+        runnerSharedMap.put(BLOOM_FILTER_KEY, bloomFilter);
+      }
+    }
+    gaugeMap = getContext().createGauge(GAUGE_NAME).getValue();
+    updateGauge();
+  }
+
+  private void updateGauge() {
+    if (hashWindow != null) {
+      gaugeMap.put(HASHES, hashWindow.size());
+      gaugeMap.put(OCCUPANCY, hashWindow.getOccupancy());
+      gaugeMap.put(AVG_PROBE_LENGTH, hashWindow.getAverageProbeLength());
+      gaugeMap.put(MAX_PROBE_LENGTH, hashWindow.getMaxProbeLength());
+    } else {
+      gaugeMap.put(HASHES, bloomFilter.size());
+      gaugeMap.put(GENERATIONS, bloomFilter.getGenerations());
+      gaugeMap.put(MEMORY, bloomFilter.getMemory());
+    }
+  }
+
   boolean duplicateCheck(Record record) throws ExecutionException {
     HashCode hash = hasher.hashObject(record, funnel);
     record.getHeader().setAttribute(hashAttrName, hash.toString());
 
+    if (hashWindow != null) {
+      return !hashWindow.add(hash);
+    } else if (bloomFilter != null) {
+      return !bloomFilter.add(hash);
+    }
+
     HashCode hashInstance = hashCache.get(hash, () -> hash);
     // We are riding on the fact that if the instance is the same we just added and it is not a dup
     boolean dup = hashInstance != hash;
@@ -141,11 +276,14 @@ public class DeDupProcessor extends RecordProcessor {
 
   @Override
   public void process(Batch batch, BatchMaker batchMaker) throws StageException {
-    if (!batch.getRecords().hasNext()) {
+    if (cacheCleaner != null && !batch.getRecords().hasNext()) {
       // No records - take the opportunity to clean up the cache so that we don't hold on to memory indefinitely
       cacheCleaner.periodicCleanUp();
     }
     super.process(batch, batchMaker);
+    if (gaugeMap != null) {
+      updateGauge();
+    }
   }
 
   @Override
@@ -162,4 +300,17 @@ public class DeDupProcessor extends RecordProcessor {
     }
   }
 
+  @Override
+  public void destroy() {
+    if (hashWindow != null) {
+      try {
+        hashWindow.close();
+      } catch (IOException ex) {
+        LOG.warn("Error closing window file '{}': {}", windowFile, ex.toString(), ex);
+      }
+      hashWindow = null;
+    }
+    super.destroy();
+  }
+
 }
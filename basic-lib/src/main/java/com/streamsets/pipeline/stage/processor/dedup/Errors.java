@@ -31,6 +31,10 @@ public enum Errors implements ErrorCode {
   DEDUP_03("The estimated required memory for '{}' records is '{}'. The current maximum heap is '{}'. The " +
            "required memory must not exceed the maximum heap."),
   DEDUP_04("Error processing record. Reason: {}"),
+  DEDUP_05("Could not open window file '{}': {}"),
+  DEDUP_06("Specify the window file"),
+  DEDUP_07("False positive probability must be greater than zero and lower than one, it is '{}'"),
+  DEDUP_08("Could not create the Bloom filter: {}"),
   ;
 
 
@@ -0,0 +1,485 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashCode;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+
+/**
+ * Window of 128-bit record hashes kept outside of the Java heap.
+ * <p/>
+ * Hashes are stored as pairs of longs in an open addressing (linear probing) table sized to a load factor of at most
+ * 1/2 of the record count window. The insertion order is kept in a ring buffer of (hash, time added) entries, the
+ * oldest hash is evicted when the window is full or, if there is a time window, once it is older than the time window.
+ * <p/>
+ * The ring buffer can be backed by a memory mapped file, in that case the window survives pipeline restarts: the table
+ * is rebuilt from the ring buffer when the file is opened again, so a partially written entry can never turn into a
+ * hash that is never evicted.
+ * <p/>
+ * Instances are thread safe and reference counted so they can be shared among pipeline runners.
+ */
+public final class OffHeapHashWindow implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(OffHeapHashWindow.class);
+
+  // "SDCDEDUP", the file is reinitialized if it does not match (i.e. different byte order)
+  private static final long MAGIC = 0x5344434445445550L;
+  private static final long VERSION = 1;
+
+  // ring buffer header, in longs
+  private static final int HEADER_SIZE = 8;
+  private static final int HEADER_MAGIC = 0;
+  private static final int HEADER_VERSION = 1;
+  private static final int HEADER_WINDOW = 2;
+  private static final int HEADER_HEAD = 3;
+  private static final int HEADER_SIZE_OFFSET = 4;
+
+  // hash high, hash low, time added
+  private static final int RING_ENTRY_SIZE = 3;
+
+  private final int window;
+  private final long timeWindowMillis;
+  private final long mask;
+  private final LongArray table;
+  private final LongArray ring;
+  private final RandomAccessFile file;
+  private final FileLock lock;
+
+  private long head;
+  private long size;
+  private int references;
+
+  // probe stats since the last call to getAverageProbeLength()
+  private long probes;
+  private long lookups;
+  private long maxProbeLength;
+
+  private OffHeapHashWindow(int window, long timeWindowMillis, RandomAccessFile file, FileLock lock, LongArray ring) {
+    this.window = window;
+    this.timeWindowMillis = timeWindowMillis;
+    this.file = file;
+    this.lock = lock;
+    this.ring = ring;
+    long capacity = Long.highestOneBit(Math.max(2L * window - 1, 1)) << 1;
+    mask = capacity - 1;
+    table = LongArray.allocate(capacity * 2);
+    references = 1;
+  }
+
+  /**
+   * Creates a window kept in direct memory.
+   *
+   * @param window maximum number of hashes in the window.
+   * @param timeWindowMillis maximum time a hash stays in the window, zero for no time window.
+   */
+  public static OffHeapHashWindow create(int window, long timeWindowMillis) {
+    Preconditions.checkArgument(window > 0, "window must be greater than zero");
+    OffHeapHashWindow hashWindow = new OffHeapHashWindow(
+        window,
+        timeWindowMillis,
+        null,
+        null,
+        LongArray.allocate(HEADER_SIZE + (long) window * RING_ENTRY_SIZE)
+    );
+    hashWindow.initialize();
+    return hashWindow;
+  }
+
+  /**
+   * Opens, or creates, a window backed by the given file. If the file holds a window of a different size it is
+   * discarded.
+   *
+   * @param window maximum number of hashes in the window.
+   * @param timeWindowMillis maximum time a hash stays in the window, zero for no time window.
+   * @throws IOException if the file can't be opened or if it is already in use.
+   */
+  public static OffHeapHashWindow open(File file, int window, long timeWindowMillis) throws IOException {
+    Preconditions.checkArgument(window > 0, "window must be greater than zero");
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      FileLock lock;
+      try {
+        lock = raf.getChannel().tryLock();
+      } catch (OverlappingFileLockException ex) {
+        // locked by this JVM
+        lock = null;
+      }
+      if (lock == null) {
+        throw new IOException(Utils.format("File '{}' is in use", file));
+      }
+      long length = (HEADER_SIZE + (long) window * RING_ENTRY_SIZE) * Long.BYTES;
+      boolean reuse = raf.length() == length;
+      if (!reuse) {
+        // zero fills the file
+        raf.setLength(0);
+        raf.setLength(length);
+      }
+      OffHeapHashWindow hashWindow = new OffHeapHashWindow(
+          window,
+          timeWindowMillis,
+          raf,
+          lock,
+          LongArray.map(raf.getChannel(), length / Long.BYTES)
+      );
+      if (reuse && hashWindow.isValid()) {
+        hashWindow.load();
+        LOG.debug("Loaded '{}' hashes from '{}'", hashWindow.size, file);
+      } else {
+        hashWindow.initialize();
+      }
+      return hashWindow;
+    } catch (IOException | RuntimeException ex) {
+      raf.close();
+      throw ex;
+    }
+  }
+
+  private boolean isValid() {
+    long storedHead = ring.get(HEADER_HEAD);
+    long storedSize = ring.get(HEADER_SIZE_OFFSET);
+    return ring.get(HEADER_MAGIC) == MAGIC && ring.get(HEADER_VERSION) == VERSION &&
+        ring.get(HEADER_WINDOW) == window && storedHead >= 0 && storedHead < window && storedSize >= 0 &&
+        storedSize <= window;
+  }
+
+  private void initialize() {
+    ring.set(HEADER_MAGIC, MAGIC);
+    ring.set(HEADER_VERSION, VERSION);
+    ring.set(HEADER_WINDOW, window);
+    ring.set(HEADER_HEAD, 0);
+    ring.set(HEADER_SIZE_OFFSET, 0);
+    head = 0;
+    size = 0;
+  }
+
+  private void load() {
+    head = ring.get(HEADER_HEAD);
+    size = ring.get(HEADER_SIZE_OFFSET);
+    for (long i = 0; i < size; i++) {
+      long entry = ringEntry((head + i) % window);
+      insert(ring.get(entry), ring.get(entry + 1));
+    }
+  }
+
+  /**
+   * Adds the given hash to the window.
+   *
+   * @return <code>true</code> if the hash was not in the window, <code>false</code> if it is a duplicate.
+   */
+  public boolean add(HashCode hash) {
+    ByteBuffer bytes = ByteBuffer.wrap(hash.asBytes());
+    return add(bytes.getLong(0), bytes.getLong(Long.BYTES), System.currentTimeMillis());
+  }
+
+  @VisibleForTesting
+  synchronized boolean add(long hashHigh, long hashLow, long now) {
+    // the buffers are freed once closed
+    Preconditions.checkState(references > 0, "Window already closed");
+    if (hashHigh == 0 && hashLow == 0) {
+      // zero marks an empty slot
+      hashLow = 1;
+    }
+    evictExpired(now);
+    if (find(hashHigh, hashLow) >= 0) {
+      return false;
+    }
+    if (size == window) {
+      evictOldest();
+    }
+    insert(hashHigh, hashLow);
+
+    // ring entry first, header last, a partially written entry is simply lost
+    long entry = ringEntry((head + size) % window);
+    ring.set(entry, hashHigh);
+    ring.set(entry + 1, hashLow);
+    ring.set(entry + 2, now);
+    size++;
+    ring.set(HEADER_SIZE_OFFSET, size);
+    return true;
+  }
+
+  private void evictExpired(long now) {
+    if (timeWindowMillis > 0) {
+      while (size > 0 && ring.get(ringEntry(head) + 2) <= now - timeWindowMillis) {
+        evictOldest();
+      }
+    }
+  }
+
+  private void evictOldest() {
+    long entry = ringEntry(head);
+    remove(ring.get(entry), ring.get(entry + 1));
+    head = (head + 1) % window;
+    size--;
+    ring.set(HEADER_HEAD, head);
+    ring.set(HEADER_SIZE_OFFSET, size);
+  }
+
+  private static long ringEntry(long index) {
+    return HEADER_SIZE + index * RING_ENTRY_SIZE;
+  }
+
+  private long home(long hashHigh) {
+    // murmur3 hashes are evenly distributed, no need to mix the bits
+    return hashHigh & mask;
+  }
+
+  private boolean isEmpty(long slot) {
+    return table.get(slot * 2) == 0 && table.get(slot * 2 + 1) == 0;
+  }
+
+  private long find(long hashHigh, long hashLow) {
+    long slot = home(hashHigh);
+    long probe = 1;
+    try {
+      while (!isEmpty(slot)) {
+        if (table.get(slot * 2) == hashHigh && table.get(slot * 2 + 1) == hashLow) {
+          return slot;
+        }
+        slot = (slot + 1) & mask;
+        probe++;
+      }
+      return -1;
+    } finally {
+      probes += probe;
+      lookups++;
+      maxProbeLength = Math.max(maxProbeLength, probe);
+    }
+  }
+
+  private void insert(long hashHigh, long hashLow) {
+    long slot = home(hashHigh);
+    while (!isEmpty(slot)) {
+      slot = (slot + 1) & mask;
+    }
+    table.set(slot * 2, hashHigh);
+    table.set(slot * 2 + 1, hashLow);
+  }
+
+  private void remove(long hashHigh, long hashLow) {
+    long hole = find(hashHigh, hashLow);
+    if (hole < 0) {
+      return;
+    }
+    // backward shift deletion, moves back the entries of the cluster that can't be reached anymore through the hole
+    long slot = hole;
+    while (true) {
+      slot = (slot + 1) & mask;
+      if (isEmpty(slot)) {
+        break;
+      }
+      long home = home(table.get(slot * 2));
+      boolean reachable = (hole <= slot) ? (hole < home && home <= slot) : (hole < home || home <= slot);
+      if (!reachable) {
+        table.set(hole * 2, table.get(slot * 2));
+        table.set(hole * 2 + 1, table.get(slot * 2 + 1));
+        hole = slot;
+      }
+    }
+    table.set(hole * 2, 0);
+    table.set(hole * 2 + 1, 0);
+  }
+
+  public synchronized long size() {
+    return size;
+  }
+
+  public long getCapacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Returns the table occupancy, as a percentage.
+   */
+  public synchronized double getOccupancy() {
+    return 100.0 * size / (mask + 1);
+  }
+
+  /**
+   * Returns the average probe length of the lookups done since the last call and resets it.
+   */
+  public synchronized double getAverageProbeLength() {
+    double average = (lookups == 0) ? 0 : (double) probes / lookups;
+    probes = 0;
+    lookups = 0;
+    return average;
+  }
+
+  public synchronized long getMaxProbeLength() {
+    return maxProbeLength;
+  }
+
+  public boolean isPersistent() {
+    return file != null;
+  }
+
+  public synchronized boolean isOpen() {
+    return references > 0;
+  }
+
+  /**
+   * Adds a reference to the window, each reference must be closed.
+   */
+  public synchronized OffHeapHashWindow retain() {
+    Preconditions.checkState(references > 0, "Window already closed");
+    references++;
+    return this;
+  }
+
+  /**
+   * Releases a reference to the window, the last one flushes and closes the window file, if any, and frees the direct
+   * memory and file mappings right away rather than when the window is garbage collected.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (references > 0 && --references == 0) {
+      try {
+        if (file != null) {
+          try {
+            ring.force();
+            lock.release();
+          } finally {
+            file.close();
+          }
+        }
+      } finally {
+        table.free();
+        ring.free();
+      }
+    }
+  }
+
+  /**
+   * Array of longs larger than what a single buffer can address, split in segments of 1GB.
+   */
+  @VisibleForTesting
+  static final class LongArray {
+    private static final int SEGMENT_SHIFT = 27;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final ByteBuffer[] buffers;
+    private final LongBuffer[] segments;
+
+    private LongArray(ByteBuffer[] buffers) {
+      this.buffers = buffers;
+      segments = new LongBuffer[buffers.length];
+      for (int i = 0; i < buffers.length; i++) {
+        segments[i] = buffers[i].order(ByteOrder.nativeOrder()).asLongBuffer();
+      }
+    }
+
+    private static int segmentCount(long length) {
+      return (int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    }
+
+    private static int segmentLength(long length, int segment) {
+      return (int) Math.min(SEGMENT_MASK + 1, length - ((long) segment << SEGMENT_SHIFT));
+    }
+
+    static LongArray allocate(long length) {
+      ByteBuffer[] buffers = new ByteBuffer[segmentCount(length)];
+      for (int i = 0; i < buffers.length; i++) {
+        buffers[i] = ByteBuffer.allocateDirect(segmentLength(length, i) * Long.BYTES);
+      }
+      return new LongArray(buffers);
+    }
+
+    static LongArray map(FileChannel channel, long length) throws IOException {
+      ByteBuffer[] buffers = new ByteBuffer[segmentCount(length)];
+      for (int i = 0; i < buffers.length; i++) {
+        buffers[i] = channel.map(
+            FileChannel.MapMode.READ_WRITE,
+            ((long) i << SEGMENT_SHIFT) * Long.BYTES,
+            (long) segmentLength(length, i) * Long.BYTES
+        );
+      }
+      return new LongArray(buffers);
+    }
+
+    long get(long index) {
+      return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+
+    void set(long index, long value) {
+      segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), value);
+    }
+
+    void force() {
+      for (ByteBuffer buffer : buffers) {
+        if (buffer instanceof MappedByteBuffer) {
+          ((MappedByteBuffer) buffer).force();
+        }
+      }
+    }
+
+    /**
+     * Frees the direct memory, or unmaps the file, of all the segments. The array can't be used afterwards.
+     */
+    void free() {
+      for (int i = 0; i < buffers.length; i++) {
+        segments[i] = null;
+        if (buffers[i] != null) {
+          freeBuffer(buffers[i]);
+          buffers[i] = null;
+        }
+      }
+    }
+
+    // Unsafe.invokeCleaner() on Java 9 and later, DirectBuffer.cleaner().clean() on Java 8
+    private static void freeBuffer(ByteBuffer buffer) {
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Method invokeCleaner;
+        try {
+          invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (NoSuchMethodException ex) {
+          invokeCleaner = null;
+        }
+        if (invokeCleaner != null) {
+          Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+          theUnsafe.setAccessible(true);
+          invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        } else {
+          Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+          cleanerMethod.setAccessible(true);
+          Object cleaner = cleanerMethod.invoke(buffer);
+          if (cleaner != null) {
+            cleaner.getClass().getMethod("clean").invoke(cleaner);
+          }
+        }
+      } catch (ReflectiveOperationException | RuntimeException ex) {
+        LOG.debug("Could not free buffer, it will be freed when garbage collected: {}", ex.toString(), ex);
+      }
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashCode;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Probabilistic window of record hashes, a record is never reported as a duplicate when it is not in the window but a
+ * record that is not in the window may be reported as a duplicate, with the configured false positive probability.
+ * <p/>
+ * The window is made of a fixed number of Bloom filter generations. Hashes are added to the newest generation and
+ * looked up in all of them. Once the newest generation holds its share of the record count window, or covers its share
+ * of the time window, the oldest generation is dropped and a new one is started. A hash is therefore remembered for
+ * at least the record count and time windows and at most one extra generation.
+ * <p/>
+ * Instances are thread safe and lock free except when rotating generations, so they can be shared among pipeline
+ * runners. Two runners adding the same hash at the same time may both see it as unique.
+ */
+public final class RotatingBloomFilter {
+  @VisibleForTesting
+  static final int GENERATIONS = 4;
+
+  private final long generationCapacity;
+  private final long generationMillis;
+  private final int numLongs;
+  private final int numHashFunctions;
+  private volatile Generation[] generations;
+
+  /**
+   * @param window minimum number of hashes in the window.
+   * @param timeWindowMillis minimum time a hash stays in the window, zero for no time window.
+   * @param falsePositiveProbability probability of reporting a hash that is not in the window as a duplicate.
+   */
+  public RotatingBloomFilter(long window, long timeWindowMillis, double falsePositiveProbability) {
+    this(window, timeWindowMillis, falsePositiveProbability, System.currentTimeMillis());
+  }
+
+  @VisibleForTesting
+  RotatingBloomFilter(long window, long timeWindowMillis, double falsePositiveProbability, long now) {
+    Preconditions.checkArgument(window > 0, "window must be greater than zero");
+    Preconditions.checkArgument(
+        falsePositiveProbability > 0 && falsePositiveProbability < 1,
+        "falsePositiveProbability must be between 0 and 1"
+    );
+    // the full generations cover the window, the newest one is filling up
+    generationCapacity = (window + GENERATIONS - 2) / (GENERATIONS - 1);
+    generationMillis = timeWindowMillis / (GENERATIONS - 1);
+    // a lookup checks all the generations, each one gets a share of the false positive probability
+    double generationProbability = falsePositiveProbability / GENERATIONS;
+    long bits = (long) Math.ceil(-generationCapacity * Math.log(generationProbability) / (Math.log(2) * Math.log(2)));
+    Preconditions.checkArgument(
+        bits <= (long) Integer.MAX_VALUE * Long.SIZE,
+        "window too large for false positive probability '%s'", falsePositiveProbability
+    );
+    numLongs = (int) ((bits + Long.SIZE - 1) / Long.SIZE);
+    numHashFunctions = Math.max(1, (int) Math.round((double) numLongs * Long.SIZE / generationCapacity * Math.log(2)));
+    generations = new Generation[] {new Generation(numLongs, now)};
+  }
+
+  /**
+   * Adds the given hash to the window.
+   *
+   * @return <code>true</code> if the hash was not in the window, <code>false</code> if it is probably a duplicate.
+   */
+  public boolean add(HashCode hash) {
+    ByteBuffer bytes = ByteBuffer.wrap(hash.asBytes());
+    return add(bytes.getLong(0), bytes.getLong(Long.BYTES), System.currentTimeMillis());
+  }
+
+  @VisibleForTesting
+  boolean add(long hashHigh, long hashLow, long now) {
+    Generation[] current = rotateIfNeeded(now);
+    for (int i = 1; i < current.length; i++) {
+      if (current[i].mightContain(hashHigh, hashLow, numHashFunctions)) {
+        return false;
+      }
+    }
+    Generation newest = current[0];
+    if (newest.put(hashHigh, hashLow, numHashFunctions)) {
+      newest.count.incrementAndGet();
+      return true;
+    }
+    return false;
+  }
+
+  private Generation[] rotateIfNeeded(long now) {
+    Generation[] current = generations;
+    if (current[0].count.get() < generationCapacity &&
+        (generationMillis == 0 || now - current[0].start < generationMillis)) {
+      return current;
+    }
+    synchronized (this) {
+      current = generations;
+      while (current[0].count.get() >= generationCapacity ||
+          (generationMillis > 0 && now - current[0].start >= generationMillis)) {
+        if (generationMillis > 0 && now - current[0].start >= generationMillis * GENERATIONS) {
+          // idle for longer than the whole window
+          current = new Generation[] {new Generation(numLongs, now)};
+          break;
+        }
+        Generation[] rotated = new Generation[Math.min(current.length + 1, GENERATIONS)];
+        // a time based generation starts when the previous one should have ended
+        long start = (current[0].count.get() >= generationCapacity) ? now : current[0].start + generationMillis;
+        rotated[0] = new Generation(numLongs, start);
+        System.arraycopy(current, 0, rotated, 1, rotated.length - 1);
+        current = rotated;
+      }
+      generations = current;
+    }
+    return current;
+  }
+
+  /**
+   * Returns the number of unique hashes added to the generations in the window.
+   */
+  public long size() {
+    long size = 0;
+    for (Generation generation : generations) {
+      size += generation.count.get();
+    }
+    return size;
+  }
+
+  public int getGenerations() {
+    return generations.length;
+  }
+
+  @VisibleForTesting
+  int getNumHashFunctions() {
+    return numHashFunctions;
+  }
+
+  /**
+   * Returns the memory used by the bits of all the generations, in bytes.
+   */
+  public long getMemory() {
+    return (long) numLongs * Long.BYTES * generations.length;
+  }
+
+  /**
+   * Bloom filter over a lock free bit array. Bit indexes are derived from the two halves of the 128-bit hash by double
+   * hashing, the same way Guava's BloomFilter does, so the record hash is not hashed again.
+   */
+  private static final class Generation {
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final long start;
+    private final AtomicLong count = new AtomicLong();
+
+    Generation(int numLongs, long start) {
+      bits = new AtomicLongArray(numLongs);
+      bitSize = (long) numLongs * Long.SIZE;
+      this.start = start;
+    }
+
+    boolean mightContain(long hashHigh, long hashLow, int numHashFunctions) {
+      long combinedHash = hashLow;
+      for (int i = 0; i < numHashFunctions; i++) {
+        long index = (combinedHash & Long.MAX_VALUE) % bitSize;
+        if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+          return false;
+        }
+        combinedHash += hashHigh;
+      }
+      return true;
+    }
+
+    /**
+     * Returns <code>true</code> if any bit changed, meaning the hash was not in the filter.
+     */
+    boolean put(long hashHigh, long hashLow, int numHashFunctions) {
+      boolean changed = false;
+      long combinedHash = hashLow;
+      for (int i = 0; i < numHashFunctions; i++) {
+        long index = (combinedHash & Long.MAX_VALUE) % bitSize;
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long value = bits.get(word);
+        while ((value & mask) == 0) {
+          if (bits.compareAndSet(word, value, value | mask)) {
+            changed = true;
+            break;
+          }
+          value = bits.get(word);
+        }
+        combinedHash += hashHigh;
+      }
+      return changed;
+    }
+  }
+}
@@ -23,9 +23,11 @@ import com.streamsets.pipeline.api.base.SingleLaneRecordProcessor;
 import com.streamsets.pipeline.api.ext.io.OverrunReader;
 import com.streamsets.pipeline.api.ext.json.Mode;
 import com.streamsets.pipeline.lib.parser.json.JsonCharDataParser;
+import com.streamsets.pipeline.lib.util.FieldNameInterner;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.List;
 
 public class JsonParserProcessor extends SingleLaneRecordProcessor {
 
@@ -39,6 +41,13 @@ public class JsonParserProcessor extends SingleLaneRecordProcessor {
     this.parsedFieldPath = parsedFieldPath;
   }
 
+  @Override
+  protected List<ConfigIssue> init() {
+    List<ConfigIssue> issues = super.init();
+    FieldNameInterner.get().registerGauge(getContext());
+    return issues;
+  }
+
   @Override
   protected void process(Record record, SingleLaneBatchMaker batchMaker) throws StageException {
     Field field = record.get(fieldPathToParse);
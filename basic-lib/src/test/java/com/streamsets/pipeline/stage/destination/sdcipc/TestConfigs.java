@@ -319,4 +319,34 @@ public class TestConfigs {
     Assert.assertEquals(1, issues.size());
   }
 
+  @Test
+  public void testValidateRecordEncoding() throws Exception {
+    HttpURLConnection conn = Mockito.mock(MockHttpURLConnection.class);
+    ForTestConfigs config = new ForTestConfigs(conn);
+    injectConfigsHttp(config);
+    config.recordEncoding = "DICT1";
+
+    List<Stage.ConfigIssue> issues = new ArrayList<>();
+    Mockito.when(conn.getResponseCode()).thenReturn(HttpURLConnection.HTTP_OK);
+    Mockito.when(conn.getHeaderField(Mockito.eq(Constants.X_SDC_PING_HEADER))).thenReturn(Constants.X_SDC_PING_VALUE);
+
+    // origin not returning the encodings it accepts
+    config.validateConnectivity(getContext(), issues);
+    Assert.assertEquals(2, issues.size());
+    Assert.assertTrue(issues.get(0).toString().contains(Errors.IPC_DEST_13.name()));
+    Assert.assertTrue(issues.get(1).toString().contains(Errors.IPC_DEST_15.name()));
+    issues.clear();
+
+    Mockito.when(conn.getHeaderField(Mockito.eq(Constants.X_SDC_RECORD_ENCODINGS_HEADER)))
+        .thenReturn(Constants.RECORD_ENCODINGS);
+    config.validateConnectivity(getContext(), issues);
+    Assert.assertEquals(0, issues.size());
+
+    // JSON1 is accepted by all origins
+    Mockito.when(conn.getHeaderField(Mockito.eq(Constants.X_SDC_RECORD_ENCODINGS_HEADER))).thenReturn(null);
+    config.recordEncoding = "JSON1";
+    config.validateConnectivity(getContext(), issues);
+    Assert.assertEquals(0, issues.size());
+  }
+
 }
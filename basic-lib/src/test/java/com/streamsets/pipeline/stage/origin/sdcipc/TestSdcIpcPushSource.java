@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.sdcipc;
+
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.credential.CredentialValue;
+import com.streamsets.pipeline.api.ext.ContextExtensions;
+import com.streamsets.pipeline.api.ext.RecordWriter;
+import com.streamsets.pipeline.lib.http.HttpReceiverServer;
+import com.streamsets.pipeline.sdk.PushSourceRunner;
+import com.streamsets.pipeline.sdk.RecordCreator;
+import com.streamsets.pipeline.stage.destination.sdcipc.Constants;
+import com.streamsets.pipeline.stage.origin.httpserver.TestHttpServerPushSource;
+import com.streamsets.testing.NetworkUtils;
+import org.awaitility.Duration;
+import org.iq80.snappy.SnappyFramedOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+
+public class TestSdcIpcPushSource {
+
+  private static HttpURLConnection getConnection(
+      String path,
+      CredentialValue appId,
+      Stage.Context context,
+      String hostPort
+  ) throws Exception {
+    com.streamsets.pipeline.stage.destination.sdcipc.Configs config =
+        new com.streamsets.pipeline.stage.destination.sdcipc.Configs();
+    // always valid to be able to init the config
+    config.appId = () -> "appId";
+    config.connectionTimeOutMs = 1000;
+    config.readTimeOutMs = 5000;
+    config.hostPorts = ImmutableList.of(hostPort);
+    config.tlsConfigBean.tlsEnabled = false;
+    List<Stage.ConfigIssue> issues = config.init(context);
+    // now setting the appId we want to test
+    config.appId = appId;
+    if (issues.isEmpty()) {
+      return config.createConnection(hostPort, path);
+    } else {
+      throw new IOException(issues.toString());
+    }
+  }
+
+  private static int sendRecords(
+      CredentialValue appId,
+      Stage.Context context,
+      String hostPort,
+      String contentType,
+      boolean compressed,
+      List<Record> records
+  ) throws Exception {
+    HttpURLConnection conn = getConnection(Constants.IPC_PATH, appId, context, hostPort);
+    conn.setRequestMethod("POST");
+    conn.setRequestProperty(Constants.CONTENT_TYPE_HEADER, contentType);
+    if (compressed) {
+      conn.setRequestProperty(Constants.X_SDC_COMPRESSION_HEADER, Constants.SNAPPY_COMPRESSION);
+    }
+    conn.setDefaultUseCaches(false);
+    conn.setDoOutput(true);
+    conn.setDoInput(true);
+    OutputStream os = conn.getOutputStream();
+    if (compressed) {
+      os = new SnappyFramedOutputStream(os);
+    }
+    RecordWriter writer = ((ContextExtensions) context).createRecordWriter(os);
+    for (Record record : records) {
+      writer.write(record);
+    }
+    writer.close();
+    return conn.getResponseCode();
+  }
+
+  private static List<Record> createRecords(int batch) {
+    Record r1 = RecordCreator.create();
+    r1.set(Field.create(batch));
+    Record r2 = RecordCreator.create();
+    r2.set(Field.create(-batch));
+    return ImmutableList.of(r1, r2);
+  }
+
+  @Test
+  public void testConcurrentBatches() throws Exception {
+    PushConfigs configs = new PushConfigs();
+    configs.appId = () -> "appId";
+    configs.port = NetworkUtils.getRandomPort();
+    configs.maxRecordSize = 1;
+    configs.maxConcurrentRequests = 4;
+    configs.tlsConfigBean.tlsEnabled = false;
+    SdcIpcPushSource source = new SdcIpcPushSource(configs);
+    final PushSourceRunner runner =
+        new PushSourceRunner.Builder(SdcIpcDPushSource.class, source).addOutputLane("a").build();
+    runner.runInit();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      Assert.assertEquals(4, source.getNumberOfThreads());
+
+      final List<Record> records = Collections.synchronizedList(new ArrayList<>());
+      runner.runProduce(Collections.emptyMap(), 10, output -> records.addAll(output.getRecords().get("a")));
+
+      // wait for the HTTP server up and running
+      HttpReceiverServer httpServer = (HttpReceiverServer) Whitebox.getInternalState(source, "server");
+      await().atMost(Duration.TEN_SECONDS).until(TestHttpServerPushSource.isServerRunning(httpServer));
+
+      String hostPort = "localhost:" + configs.port;
+
+      // ping done by the destination on init
+      HttpURLConnection conn = getConnection(Constants.IPC_PATH, configs.appId, runner.getContext(), hostPort);
+      conn.setRequestMethod("GET");
+      conn.setDefaultUseCaches(false);
+      conn.setDoOutput(false);
+      Assert.assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+      Assert.assertEquals(Constants.X_SDC_PING_VALUE, conn.getHeaderField(Constants.X_SDC_PING_HEADER));
+      Assert.assertEquals(Constants.RECORD_ENCODINGS, conn.getHeaderField(Constants.X_SDC_RECORD_ENCODINGS_HEADER));
+
+      // batches of several senders in flight at the same time
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        final int batch = i;
+        futures.add(executor.submit(() -> sendRecords(
+            configs.appId,
+            runner.getContext(),
+            hostPort,
+            Constants.APPLICATION_BINARY,
+            batch % 2 == 0,
+            createRecords(batch)
+        )));
+      }
+      for (Future<Integer> future : futures) {
+        Assert.assertEquals(HttpURLConnection.HTTP_OK, (int) future.get(10, TimeUnit.SECONDS));
+      }
+      // every acknowledged batch has been processed
+      Assert.assertEquals(40, records.size());
+      int sum = 0;
+      for (Record record : records) {
+        sum += Math.abs(record.get().getValueAsInteger());
+      }
+      Assert.assertEquals(2 * (19 * 20 / 2), sum);
+
+      Assert.assertEquals(
+          HttpURLConnection.HTTP_FORBIDDEN,
+          sendRecords(() -> "invalid", runner.getContext(), hostPort, Constants.APPLICATION_BINARY, false,
+              createRecords(0))
+      );
+      Assert.assertEquals(
+          HttpURLConnection.HTTP_BAD_REQUEST,
+          sendRecords(configs.appId, runner.getContext(), hostPort, "application/json", false, createRecords(0))
+      );
+      Assert.assertEquals(40, records.size());
+
+      runner.setStop();
+    } finally {
+      executor.shutdownNow();
+      runner.runDestroy();
+    }
+  }
+}
@@ -16,18 +16,23 @@
 package com.streamsets.pipeline.stage.processor.dedup;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.Processor;
 import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.sdk.ProcessorRunner;
 import com.streamsets.pipeline.sdk.RecordCreator;
 import com.streamsets.pipeline.sdk.StageRunner;
+import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -482,6 +487,148 @@ public class TestDeDupProcessor {
     return record;
   }
 
+  private void testDupWithHashStorage(HashStorage hashStorage, String windowFile) throws Exception {
+    testDupWithHashStorage(hashStorage, windowFile, null);
+  }
+
+  private void testDupWithHashStorage(HashStorage hashStorage, String windowFile, String resourcesDir)
+      throws Exception {
+    Processor processor = new DeDupProcessor(2, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST, hashStorage,
+        windowFile, 0.001);
+    ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .setResourcesDir(resourcesDir)
+        .build();
+    runner.runInit();
+    try {
+      List<Record> input = ImmutableList.of(
+          createRecordWithValue("a"),
+          createRecordWithValue("b"),
+          createRecordWithValue("a")
+      );
+      StageRunner.Output output = runner.runProcess(input);
+      Assert.assertEquals(2, output.getRecords().get("unique").size());
+      Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+
+      // 'a' is evicted by 'c'
+      input = ImmutableList.of(createRecordWithValue("c"), createRecordWithValue("a"));
+      output = runner.runProcess(input);
+      Assert.assertEquals(2, output.getRecords().get("unique").size());
+      Assert.assertEquals(0, output.getRecords().get("duplicate").size());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testDupOffHeap() throws Exception {
+    testDupWithHashStorage(HashStorage.OFF_HEAP, null);
+  }
+
+  @Test
+  public void testDupMemoryMappedFile() throws Exception {
+    File dir = Files.createTempDir();
+    try {
+      String windowFile = new File(dir, "window").getAbsolutePath();
+      testDupWithHashStorage(HashStorage.MEMORY_MAPPED_FILE, windowFile);
+
+      // the window ('c', 'a') survives the restart
+      Processor processor = new DeDupProcessor(2, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST,
+          HashStorage.MEMORY_MAPPED_FILE, windowFile, 0.001);
+      ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+          .addOutputLane("unique")
+          .addOutputLane("duplicate")
+          .build();
+      runner.runInit();
+      try {
+        List<Record> input = ImmutableList.of(createRecordWithValue("a"), createRecordWithValue("b"));
+        StageRunner.Output output = runner.runProcess(input);
+        Assert.assertEquals(1, output.getRecords().get("unique").size());
+        Assert.assertEquals("b", output.getRecords().get("unique").get(0).get("/value").getValueAsString());
+        Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+      } finally {
+        runner.runDestroy();
+      }
+    } finally {
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  @Test
+  public void testRelativeWindowFile() throws Exception {
+    File dir = Files.createTempDir();
+    try {
+      testDupWithHashStorage(HashStorage.MEMORY_MAPPED_FILE, "dedup/window", dir.getAbsolutePath());
+      Collection<File> files = FileUtils.listFiles(dir, null, true);
+      Assert.assertEquals(1, files.size());
+      Assert.assertEquals(new File(dir, "dedup/window").getAbsoluteFile(), files.iterator().next());
+    } finally {
+      FileUtils.deleteQuietly(dir);
+    }
+  }
+
+  @Test
+  public void testValidateWindowFile() throws Exception {
+    Processor processor = new DeDupProcessor(4, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST,
+        HashStorage.MEMORY_MAPPED_FILE, "", 0.001);
+    ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .build();
+    List<Stage.ConfigIssue> issues = runner.runValidateConfigs();
+    Assert.assertEquals(1, issues.size());
+    Assert.assertTrue(issues.get(0).toString().contains(Errors.DEDUP_06.name()));
+  }
+
+  @Test
+  public void testDupBloomFilter() throws Exception {
+    Processor processor = new DeDupProcessor(2, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST,
+        HashStorage.BLOOM_FILTER, null, 0.001);
+    ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .build();
+    runner.runInit();
+    try {
+      List<Record> input = ImmutableList.of(
+          createRecordWithValue("a"),
+          createRecordWithValue("b"),
+          createRecordWithValue("a")
+      );
+      StageRunner.Output output = runner.runProcess(input);
+      Assert.assertEquals(2, output.getRecords().get("unique").size());
+      Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+
+      // pushes 'a' out of all the generations
+      input = ImmutableList.of(
+          createRecordWithValue("c"),
+          createRecordWithValue("d"),
+          createRecordWithValue("e"),
+          createRecordWithValue("f"),
+          createRecordWithValue("a")
+      );
+      output = runner.runProcess(input);
+      Assert.assertEquals(5, output.getRecords().get("unique").size());
+      Assert.assertEquals(0, output.getRecords().get("duplicate").size());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testValidateFalsePositiveProbability() throws Exception {
+    Processor processor = new DeDupProcessor(4, 0, SelectFields.ALL_FIELDS, Collections.EMPTY_LIST,
+        HashStorage.BLOOM_FILTER, null, 1);
+    ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .build();
+    List<Stage.ConfigIssue> issues = runner.runValidateConfigs();
+    Assert.assertEquals(1, issues.size());
+    Assert.assertTrue(issues.get(0).toString().contains(Errors.DEDUP_07.name()));
+  }
+
   private long getDefaultMemoryLimitMiB() {
     long maxMemoryMiB = Runtime.getRuntime().maxMemory() / 1000 / 1000;
     return (long)(maxMemoryMiB * 0.65);
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+public class TestOffHeapHashWindow {
+  private File dir;
+
+  @Before
+  public void setUp() {
+    dir = Files.createTempDir();
+  }
+
+  @After
+  public void tearDown() {
+    FileUtils.deleteQuietly(dir);
+  }
+
+  @Test
+  public void testCountWindow() throws Exception {
+    try (OffHeapHashWindow window = OffHeapHashWindow.create(3, 0)) {
+      Assert.assertEquals(8, window.getCapacity());
+      Assert.assertTrue(window.add(1, 1, 0));
+      Assert.assertTrue(window.add(2, 2, 0));
+      Assert.assertFalse(window.add(1, 1, 0));
+      Assert.assertTrue(window.add(3, 3, 0));
+      Assert.assertEquals(3, window.size());
+
+      // evicts 1
+      Assert.assertTrue(window.add(4, 4, 0));
+      Assert.assertEquals(3, window.size());
+      Assert.assertFalse(window.add(2, 2, 0));
+      Assert.assertTrue(window.add(1, 1, 0));
+      Assert.assertEquals(3, window.size());
+      Assert.assertEquals(37.5, window.getOccupancy(), 0.001);
+
+      // zero is a valid hash
+      Assert.assertTrue(window.add(0, 0, 0));
+      Assert.assertFalse(window.add(0, 0, 0));
+    }
+  }
+
+  @Test
+  public void testTimeWindow() throws Exception {
+    try (OffHeapHashWindow window = OffHeapHashWindow.create(10, 1000)) {
+      Assert.assertTrue(window.add(1, 1, 0));
+      Assert.assertTrue(window.add(2, 2, 500));
+      Assert.assertFalse(window.add(1, 1, 999));
+      Assert.assertTrue(window.add(1, 1, 1000));
+      Assert.assertFalse(window.add(2, 2, 1000));
+      Assert.assertEquals(2, window.size());
+      Assert.assertTrue(window.add(3, 3, 5000));
+      Assert.assertEquals(1, window.size());
+    }
+  }
+
+  @Test
+  public void testCollisions() throws Exception {
+    // all the hashes share the same home slot, eviction has to keep the probe chain reachable
+    try (OffHeapHashWindow window = OffHeapHashWindow.create(4, 0)) {
+      for (int i = 1; i <= 4; i++) {
+        Assert.assertTrue(window.add(8, i, 0));
+      }
+      Assert.assertEquals(4, window.getMaxProbeLength());
+      for (int i = 5; i <= 8; i++) {
+        Assert.assertTrue(window.add(8, i, 0));
+        Assert.assertFalse(window.add(8, i - 1, 0));
+        Assert.assertFalse(window.add(8, i - 3, 0));
+      }
+      Assert.assertTrue(window.getAverageProbeLength() > 1);
+      Assert.assertEquals(0, window.getAverageProbeLength(), 0.001);
+    }
+  }
+
+  @Test
+  public void testRandomHashes() throws Exception {
+    Random random = new Random(0);
+    int size = 1000;
+    long[] hashes = new long[size * 2];
+    try (OffHeapHashWindow window = OffHeapHashWindow.create(size, 0)) {
+      for (int i = 0; i < hashes.length; i++) {
+        hashes[i] = random.nextLong();
+        Assert.assertTrue(window.add(hashes[i], i, 0));
+      }
+      Assert.assertEquals(size, window.size());
+      // the second half is in the window, checking for duplicates does not change it
+      for (int i = hashes.length - 1; i >= size; i--) {
+        Assert.assertFalse(window.add(hashes[i], i, 0));
+      }
+      Assert.assertEquals(size, window.size());
+    }
+  }
+
+  @Test
+  public void testPersistence() throws Exception {
+    File file = new File(dir, "window");
+    try (OffHeapHashWindow window = OffHeapHashWindow.open(file, 2, 0)) {
+      Assert.assertTrue(window.isPersistent());
+      Assert.assertTrue(window.add(1, 1, 0));
+      Assert.assertTrue(window.add(2, 2, 0));
+      Assert.assertTrue(window.add(3, 3, 0));
+    }
+
+    try (OffHeapHashWindow window = OffHeapHashWindow.open(file, 2, 0)) {
+      Assert.assertEquals(2, window.size());
+      Assert.assertFalse(window.add(2, 2, 0));
+      Assert.assertFalse(window.add(3, 3, 0));
+      Assert.assertTrue(window.add(1, 1, 0));
+    }
+
+    // a different window size discards the file
+    try (OffHeapHashWindow window = OffHeapHashWindow.open(file, 3, 0)) {
+      Assert.assertEquals(0, window.size());
+      Assert.assertTrue(window.add(1, 1, 0));
+    }
+  }
+
+  @Test
+  public void testSharedReferences() throws Exception {
+    File file = new File(dir, "window");
+    OffHeapHashWindow window = OffHeapHashWindow.open(file, 2, 0);
+    window.retain();
+    window.close();
+    // still open
+    Assert.assertTrue(window.add(1, 1, 0));
+    window.close();
+    try {
+      window.retain();
+      Assert.fail();
+    } catch (IllegalStateException ex) {
+      //expected
+    }
+    // the buffers are freed
+    try {
+      window.add(1, 1, 0);
+      Assert.fail();
+    } catch (IllegalStateException ex) {
+      //expected
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testFileInUse() throws Exception {
+    File file = new File(dir, "window");
+    try (OffHeapHashWindow window = OffHeapHashWindow.open(file, 2, 0)) {
+      OffHeapHashWindow.open(file, 2, 0);
+    }
+  }
+}
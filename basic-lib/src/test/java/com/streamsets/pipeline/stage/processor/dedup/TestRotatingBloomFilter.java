@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestRotatingBloomFilter {
+
+  private static long[] createHashes(int count, long seed) {
+    Random random = new Random(seed);
+    long[] hashes = new long[count];
+    for (int i = 0; i < count; i++) {
+      hashes[i] = random.nextLong();
+    }
+    return hashes;
+  }
+
+  @Test
+  public void testCountWindow() {
+    long[] hashes = createHashes(70, 0);
+    RotatingBloomFilter filter = new RotatingBloomFilter(30, 0, 0.001, 0);
+    for (int i = 0; i < 30; i++) {
+      Assert.assertTrue(filter.add(hashes[i], i, 0));
+    }
+    Assert.assertEquals(3, filter.getGenerations());
+    // the whole window is remembered
+    for (int i = 0; i < 30; i++) {
+      Assert.assertFalse(filter.add(hashes[i], i, 0));
+    }
+
+    // 40 more push the first 10 out
+    for (int i = 30; i < 70; i++) {
+      Assert.assertTrue(filter.add(hashes[i], i, 0));
+    }
+    Assert.assertEquals(RotatingBloomFilter.GENERATIONS, filter.getGenerations());
+    Assert.assertTrue(filter.add(hashes[0], 0, 0));
+  }
+
+  @Test
+  public void testTimeWindow() {
+    RotatingBloomFilter filter = new RotatingBloomFilter(1000, 3000, 0.001, 0);
+    Assert.assertTrue(filter.add(1, 1, 0));
+    Assert.assertFalse(filter.add(1, 1, 2999));
+    Assert.assertFalse(filter.add(1, 1, 3999));
+    Assert.assertTrue(filter.add(1, 1, 4000));
+    Assert.assertFalse(filter.add(1, 1, 4001));
+
+    // idle for longer than the window
+    Assert.assertTrue(filter.add(1, 1, 100000));
+    Assert.assertEquals(1, filter.getGenerations());
+  }
+
+  @Test
+  public void testFalsePositiveProbability() {
+    int window = 100000;
+    double probability = 0.01;
+    RotatingBloomFilter filter = new RotatingBloomFilter(window, 0, probability, 0);
+    Random random = new Random(0);
+    for (int i = 0; i < window; i++) {
+      filter.add(random.nextLong(), random.nextLong(), 0);
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < window; i++) {
+      if (!filter.add(random.nextLong(), random.nextLong(), 0)) {
+        falsePositives++;
+      }
+    }
+    Assert.assertTrue("False positives: " + falsePositives, falsePositives < window * probability * 1.5);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidProbability() {
+    new RotatingBloomFilter(10, 0, 0, 0);
+  }
+
+  @Test
+  public void testConcurrentAdds() throws Exception {
+    final RotatingBloomFilter filter = new RotatingBloomFilter(100000, 0, 0.001, 0);
+    final AtomicInteger unique = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Future[] futures = new Future[4];
+      for (int t = 0; t < futures.length; t++) {
+        final long[] hashes = createHashes(10000, t);
+        futures[t] = executor.submit(() -> {
+          // each thread adds its own hashes twice
+          for (int i = 0; i < 2 * hashes.length; i++) {
+            if (filter.add(hashes[i % hashes.length], i % hashes.length, 0)) {
+              unique.incrementAndGet();
+            }
+          }
+        });
+      }
+      for (Future future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+    Assert.assertTrue(unique.get() <= 40000);
+    Assert.assertTrue(unique.get() > 39000);
+    Assert.assertEquals(unique.get(), filter.size());
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.streamsets.pipeline.api.ProtoConfigurableEntity;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded table of field names, parsers use it so the maps of the records they create share the String instances of
+ * repeated field names instead of holding a copy per record.
+ * <p/>
+ * The table is direct mapped: a name that collides with a different one replaces it, so the table never grows and
+ * names that stop showing up are eventually dropped. Lookups are lock free, two threads interning the same name at
+ * the same time may both keep their own instance, which only costs a miss.
+ * <p/>
+ * The table, and so its hit and miss counts, is shared by all the stages of the stage library.
+ */
+public final class FieldNameInterner {
+  public static final String GAUGE_NAME = "Field Name Interning (Stage Library)";
+  public static final String HITS = "Hits";
+  public static final String MISSES = "Misses";
+  public static final String HIT_RATE = "Hit Rate (%)";
+
+  private static final int DEFAULT_SIZE = 8192;
+  // longer names are unlikely to be repeated field names
+  private static final int MAX_NAME_LENGTH = 128;
+
+  private static final FieldNameInterner INSTANCE = new FieldNameInterner(DEFAULT_SIZE);
+
+  /**
+   * Returns the table shared by all the parsers of the stage library.
+   */
+  public static FieldNameInterner get() {
+    return INSTANCE;
+  }
+
+  private final String[] names;
+  private final int mask;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final HitRate hitRate = new HitRate(hits, misses);
+  // contexts the gauge was registered with, creating a gauge twice in a stage fails
+  private final Set<ProtoConfigurableEntity.Context> registered =
+      Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+  @VisibleForTesting
+  FieldNameInterner(int size) {
+    Preconditions.checkArgument(size > 0 && Integer.bitCount(size) == 1, "size must be a power of two");
+    names = new String[size];
+    mask = size - 1;
+  }
+
+  /**
+   * Returns the instance of the given name held by the table, adding the name to the table if it is not there.
+   */
+  public String intern(String name) {
+    if (name == null || name.length() > MAX_NAME_LENGTH) {
+      return name;
+    }
+    int hash = name.hashCode();
+    int index = (hash ^ (hash >>> 16)) & mask;
+    // Strings are immutable, a racy read sees either null or a fully constructed name
+    String interned = names[index];
+    if (name.equals(interned)) {
+      hits.increment();
+      return interned;
+    }
+    names[index] = name;
+    misses.increment();
+    return name;
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the percentage of interned names that were already in the table.
+   */
+  public double getHitRate() {
+    return hitRate.doubleValue();
+  }
+
+  /**
+   * Registers the hit and miss counts of the table in the <code>Field Name Interning (Stage Library)</code> gauge of
+   * the given stage. The gauge holds the counters themselves, so it shows the current counts without being updated.
+   * <p/>
+   * Stages call it when they are initialized, either directly or by building a parser factory. Calls after the first
+   * one for the same stage do nothing.
+   */
+  public void registerGauge(ProtoConfigurableEntity.Context context) {
+    if (context == null || !registered.add(context)) {
+      return;
+    }
+    Gauge<Map<String, Object>> gauge = context.createGauge(GAUGE_NAME);
+    if (gauge != null) {
+      Map<String, Object> values = gauge.getValue();
+      values.put(HITS, hits);
+      values.put(MISSES, misses);
+      values.put(HIT_RATE, hitRate);
+    }
+  }
+
+  /**
+   * Live hit rate, as a percentage, of the given counters.
+   */
+  private static final class HitRate extends Number {
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    HitRate(LongAdder hits, LongAdder misses) {
+      this.hits = hits;
+      this.misses = misses;
+    }
+
+    @Override
+    public double doubleValue() {
+      long hitCount = hits.sum();
+      long total = hitCount + misses.sum();
+      return (total == 0) ? 0 : (hitCount * 100.0) / total;
+    }
+
+    @Override
+    public float floatValue() {
+      return (float) doubleValue();
+    }
+
+    @Override
+    public long longValue() {
+      return (long) doubleValue();
+    }
+
+    @Override
+    public int intValue() {
+      return (int) doubleValue();
+    }
+
+    @Override
+    public String toString() {
+      return String.valueOf(doubleValue());
+    }
+
+    // serialized as the current value
+    private Object writeReplace() {
+      return doubleValue();
+    }
+  }
+}
@@ -20,6 +20,7 @@ import com.google.common.collect.Lists;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
 import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.util.FieldNameInterner;
 import com.streamsets.pipeline.lib.xml.xpath.MatchStatus;
 import com.streamsets.pipeline.lib.xml.xpath.XPathMatchingEventReader;
 import org.apache.commons.lang3.StringUtils;
@@ -263,7 +264,7 @@ public class StreamingXmlParser {
       sb.append(namePrefix);
     }
     sb.append(getNameAndTrackNs(name));
-    return sb.toString();
+    return FieldNameInterner.get().intern(sb.toString());
   }
 
   Map<String, Field> toField(StartElement startE) {
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.base.Strings;
+import com.streamsets.pipeline.api.Stage;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestFieldNameInterner {
+
+  @Test
+  public void testIntern() {
+    FieldNameInterner interner = new FieldNameInterner(16);
+    String name = interner.intern(new String("a"));
+    Assert.assertSame(name, interner.intern(new String("a")));
+    Assert.assertSame(name, interner.intern(new String("a")));
+    Assert.assertEquals(2, interner.getHits());
+    Assert.assertEquals(1, interner.getMisses());
+    Assert.assertEquals(200.0 / 3, interner.getHitRate(), 0.0001);
+
+    Assert.assertNull(interner.intern(null));
+    String longName = Strings.repeat("x", 200);
+    Assert.assertSame(longName, interner.intern(longName));
+    Assert.assertNotSame(longName, interner.intern(new String(longName)));
+  }
+
+  @Test
+  public void testBounded() {
+    FieldNameInterner interner = new FieldNameInterner(4);
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertEquals("f" + i, interner.intern("f" + i));
+    }
+    Assert.assertEquals(0, interner.getHits());
+    Assert.assertEquals(1000, interner.getMisses());
+    Assert.assertEquals(0, interner.getHitRate(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSize() {
+    new FieldNameInterner(10);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testRegisterGauge() {
+    FieldNameInterner interner = new FieldNameInterner(16);
+    Map<String, Object> values = new HashMap<>();
+    Gauge<Map<String, Object>> gauge = Mockito.mock(Gauge.class);
+    Mockito.when(gauge.getValue()).thenReturn(values);
+    Stage.Context context = Mockito.mock(Stage.Context.class);
+    Mockito.when(context.createGauge(FieldNameInterner.GAUGE_NAME)).thenReturn(gauge);
+
+    interner.registerGauge(context);
+    Assert.assertEquals(0L, ((Number) values.get(FieldNameInterner.HITS)).longValue());
+    Assert.assertEquals(0.0, ((Number) values.get(FieldNameInterner.HIT_RATE)).doubleValue(), 0.001);
+
+    // the gauge shows the counts as they change
+    interner.intern("a");
+    interner.intern(new String("a"));
+    Assert.assertEquals(1L, ((Number) values.get(FieldNameInterner.HITS)).longValue());
+    Assert.assertEquals(1L, ((Number) values.get(FieldNameInterner.MISSES)).longValue());
+    Assert.assertEquals(50.0, ((Number) values.get(FieldNameInterner.HIT_RATE)).doubleValue(), 0.001);
+    Assert.assertEquals("50.0", values.get(FieldNameInterner.HIT_RATE).toString());
+
+    // registered once per stage, however many parsers or factories the stage creates
+    interner.registerGauge(context);
+    Mockito.verify(context, Mockito.times(1)).createGauge(FieldNameInterner.GAUGE_NAME);
+
+    // contexts without metrics
+    interner.registerGauge(Mockito.mock(Stage.Context.class));
+  }
+}
@@ -53,6 +53,13 @@ public abstract class DataGeneratorFactory extends DataFactory {
 
   public abstract DataGenerator getGenerator(OutputStream os) throws IOException;
 
+  /**
+   * Returns a new serializer of records into messages, to be used by a single pipeline runner.
+   */
+  public RecordSerializer getRecordSerializer() {
+    return new RecordSerializer(this);
+  }
+
   public Writer createWriter(OutputStream os) {
     return new OutputStreamWriter(os, getSettings().getCharset());
   }
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.generator;
+
+import com.streamsets.pipeline.api.Record;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Serializes records into messages (byte arrays), reusing its output buffer from one message to the next one.
+ *
+ * A message is written with the generator returned by {@link #getGenerator()}, and once the generator is closed, its
+ * content is returned by {@link #toByteArray()}. Formats whose generators are expensive to create can also reuse them
+ * by overriding {@link #createGenerator(OutputStream)}.
+ *
+ * Serializers are not thread safe, each pipeline runner must get its own from
+ * {@link DataGeneratorFactory#getRecordSerializer()}.
+ */
+public class RecordSerializer {
+  private static final int INITIAL_BUFFER_SIZE = 1024;
+  // a buffer grown larger by a big message is not kept for the next ones
+  private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+  private final DataGeneratorFactory factory;
+  private ByteArrayOutputStream buffer;
+
+  protected RecordSerializer(DataGeneratorFactory factory) {
+    this.factory = factory;
+    this.buffer = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+  }
+
+  /**
+   * Starts a new message, returning the generator to write its records with. The generator must be closed before
+   * getting the message with {@link #toByteArray()}.
+   */
+  public DataGenerator getGenerator() throws IOException {
+    if (buffer.size() > MAX_RETAINED_BUFFER_SIZE) {
+      buffer = new ByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+    } else {
+      buffer.reset();
+    }
+    return createGenerator(buffer);
+  }
+
+  /**
+   * Returns the content of the current message.
+   */
+  public byte[] toByteArray() {
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Returns the message with the given record only.
+   */
+  public byte[] serialize(Record record) throws IOException, DataGeneratorException {
+    try (DataGenerator generator = getGenerator()) {
+      generator.write(record);
+    }
+    return toByteArray();
+  }
+
+  /**
+   * Returns a generator writing a new message in the given (empty) output stream.
+   */
+  protected DataGenerator createGenerator(OutputStream os) throws IOException {
+    return factory.getGenerator(os);
+  }
+}
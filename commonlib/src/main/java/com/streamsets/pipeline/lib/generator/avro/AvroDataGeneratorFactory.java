@@ -20,6 +20,7 @@ import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.config.DestinationAvroSchemaSource;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
 import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
+import com.streamsets.pipeline.lib.generator.RecordSerializer;
 import com.streamsets.pipeline.lib.util.AvroSchemaHelper;
 import com.streamsets.pipeline.lib.util.SchemaRegistryException;
 import org.apache.avro.Schema;
@@ -154,4 +155,12 @@ public class AvroDataGeneratorFactory extends DataGeneratorFactory {
     return dataGenerator;
   }
 
+  @Override
+  public RecordSerializer getRecordSerializer() {
+    if (includeSchema || schemaSource == DestinationAvroSchemaSource.HEADER) {
+      return super.getRecordSerializer();
+    }
+    return new AvroMessageSerializer(this, schema, defaultValuesFromSchema, schemaHelper, schemaId);
+  }
+
 }
@@ -20,7 +20,6 @@ import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.lib.generator.DataGeneratorException;
 import com.streamsets.pipeline.lib.util.AvroJavaSnappyCodec;
 import com.streamsets.pipeline.lib.util.AvroSchemaHelper;
-import com.streamsets.pipeline.lib.util.AvroTypeUtil;
 import org.apache.avro.Schema;
 import org.apache.avro.file.CodecFactory;
 import org.apache.avro.file.DataFileWriter;
@@ -74,7 +73,7 @@ public class AvroDataOutputStreamGenerator extends BaseAvroDataGenerator {
   @Override
   protected void writeRecord(Record record) throws IOException, DataGeneratorException {
     try {
-      dataFileWriter.append((GenericRecord)AvroTypeUtil.sdcRecordToAvro(record, schema, defaultValueMap));
+      dataFileWriter.append((GenericRecord)avroConverter.convert(record, defaultValueMap));
     } catch (StageException e) {
       throw new DataGeneratorException(e.getErrorCode(), e.getParams()); // params includes cause
     }
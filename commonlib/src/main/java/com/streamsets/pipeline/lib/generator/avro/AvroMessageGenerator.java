@@ -19,7 +19,6 @@ import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.lib.generator.DataGeneratorException;
 import com.streamsets.pipeline.lib.util.AvroSchemaHelper;
-import com.streamsets.pipeline.lib.util.AvroTypeUtil;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.io.BinaryEncoder;
@@ -73,7 +72,7 @@ public class AvroMessageGenerator extends BaseAvroDataGenerator {
   public void writeRecord(Record record) throws IOException, DataGeneratorException {
     try {
       datumWriter.write(
-          AvroTypeUtil.sdcRecordToAvro(record, schema, defaultValueMap),
+          avroConverter.convert(record, defaultValueMap),
           binaryEncoder
       );
     } catch (StageException e) {
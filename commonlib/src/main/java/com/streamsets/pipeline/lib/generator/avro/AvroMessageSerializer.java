@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.generator.avro;
+
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorException;
+import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
+import com.streamsets.pipeline.lib.generator.RecordSerializer;
+import com.streamsets.pipeline.lib.util.AvroConverterCompiler;
+import com.streamsets.pipeline.lib.util.AvroSchemaHelper;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+
+/**
+ * Serializer of Avro messages without schema (as written by {@link AvroMessageGenerator}) for a schema known upfront,
+ * reusing the same datum writer and binary encoder for all the messages instead of creating them for each message.
+ */
+class AvroMessageSerializer extends RecordSerializer {
+  private final Map<String, Object> defaultValueMap;
+  private final AvroSchemaHelper schemaHelper;
+  private final int schemaId;
+  private final AvroConverterCompiler.AvroConverter avroConverter;
+  private final DatumWriter<Object> datumWriter;
+  private final Generator generator = new Generator();
+  private BinaryEncoder binaryEncoder;
+
+  AvroMessageSerializer(
+      DataGeneratorFactory factory,
+      Schema schema,
+      Map<String, Object> defaultValueMap,
+      AvroSchemaHelper schemaHelper,
+      int schemaId
+  ) {
+    super(factory);
+    this.defaultValueMap = defaultValueMap;
+    this.schemaHelper = schemaHelper;
+    this.schemaId = schemaId;
+    this.avroConverter = AvroConverterCompiler.toAvro(schema);
+    this.datumWriter = new GenericDatumWriter<>(schema);
+  }
+
+  @Override
+  protected DataGenerator createGenerator(OutputStream os) throws IOException {
+    // If using Confluent Kafka Serializer we must write the magic byte
+    if (schemaHelper != null && schemaHelper.hasRegistryClient() && schemaId > 0) {
+      schemaHelper.writeSchemaId(os, schemaId);
+    }
+    // not buffered, a message that failed half way must not leave anything behind for the next message
+    binaryEncoder = EncoderFactory.get().directBinaryEncoder(os, binaryEncoder);
+    generator.open = true;
+    return generator;
+  }
+
+  private class Generator implements DataGenerator {
+    private boolean open;
+
+    @Override
+    public void write(Record record) throws IOException, DataGeneratorException {
+      if (!open) {
+        throw new IOException("generator has been closed");
+      }
+      try {
+        datumWriter.write(avroConverter.convert(record, defaultValueMap), binaryEncoder);
+      } catch (StageException e) {
+        throw new DataGeneratorException(e.getErrorCode(), e.getParams()); // params includes cause
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (!open) {
+        throw new IOException("generator has been closed");
+      }
+      binaryEncoder.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (open) {
+        open = false;
+        binaryEncoder.flush();
+      }
+    }
+  }
+}
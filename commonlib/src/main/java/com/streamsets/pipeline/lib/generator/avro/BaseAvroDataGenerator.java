@@ -18,6 +18,8 @@ package com.streamsets.pipeline.lib.generator.avro;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
 import com.streamsets.pipeline.lib.generator.DataGeneratorException;
+import com.streamsets.pipeline.lib.util.AvroConverterCompiler;
+import com.streamsets.pipeline.lib.util.AvroSchemaCache;
 import com.streamsets.pipeline.lib.util.AvroSchemaHelper;
 import com.streamsets.pipeline.lib.util.AvroTypeUtil;
 import com.streamsets.pipeline.lib.util.SchemaRegistryException;
@@ -28,7 +30,6 @@ import org.slf4j.LoggerFactory;
 import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
-import java.util.HashSet;
 import java.util.Map;
 
 /**
@@ -76,9 +77,9 @@ abstract public class BaseAvroDataGenerator implements DataGenerator {
   protected boolean schemaInHeader;
 
   /**
-   * Hashcode of the schema that was used to initialize the writer if getting schema from header
+   * Header JSON of the schema that was used to initialize the writer if getting schema from header
    */
-  private int schemaHashCode;
+  private String schemaJson;
 
   /**
    * Avro schema, can be null on creation, will be filled with value before calling initializeWriter()
@@ -105,6 +106,11 @@ abstract public class BaseAvroDataGenerator implements DataGenerator {
    */
   protected final AvroSchemaHelper schemaHelper;
 
+  /**
+   * Converter of records to Avro data compiled from the schema, available once initialized.
+   */
+  protected AvroConverterCompiler.AvroConverter avroConverter;
+
   /**
    * State of the generator
    */
@@ -133,6 +139,7 @@ abstract public class BaseAvroDataGenerator implements DataGenerator {
   }
 
   protected void initialize() throws IOException {
+    avroConverter = AvroConverterCompiler.toAvro(schema);
     initializeWriter();
 
     // Schema registration is delayed with using it in header until this point
@@ -152,10 +159,10 @@ abstract public class BaseAvroDataGenerator implements DataGenerator {
   }
 
   private void initializeSchemaFromRecord(Record record) throws IOException, DataGeneratorException {
-    String jsonSchema = AvroTypeUtil.getAvroSchemaFromHeader(record, AVRO_SCHEMA_HEADER);
-    schemaHashCode = jsonSchema.hashCode();
-    schema = AvroTypeUtil.parseSchema(jsonSchema);
-    defaultValueMap = AvroTypeUtil.getDefaultValuesFromSchema(schema, new HashSet<String>());
+    schemaJson = AvroTypeUtil.getAvroSchemaFromHeader(record, AVRO_SCHEMA_HEADER);
+    AvroSchemaCache.Entry entry = AvroSchemaCache.getEntry(schemaJson);
+    schema = entry.getSchema();
+    defaultValueMap = entry.getDefaultValues();
     initialize();
   }
 
@@ -166,7 +173,8 @@ abstract public class BaseAvroDataGenerator implements DataGenerator {
         initializeSchemaFromRecord(record);
       } else {
         String newAvroSchema = AvroTypeUtil.getAvroSchemaFromHeader(record, AVRO_SCHEMA_HEADER);
-        if (schemaHashCode != newAvroSchema.hashCode()) {
+        // records parsed from the same schema share the header JSON, equals() then doesn't compare the characters
+        if (!schemaJson.equals(newAvroSchema)) {
           LOG.error(
               "Record {} has a different schema. Expected: {}  Actual(Initialized): {}",
               record.getHeader().getSourceId(),
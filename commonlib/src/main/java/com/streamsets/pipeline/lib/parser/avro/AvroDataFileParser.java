@@ -21,6 +21,7 @@ import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.parser.AbstractDataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.util.AvroJavaSnappyCodec;
+import com.streamsets.pipeline.lib.util.AvroSchemaCache;
 import com.streamsets.pipeline.lib.util.AvroTypeUtil;
 import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
 import org.apache.avro.Schema;
@@ -92,7 +93,10 @@ public class AvroDataFileParser extends AbstractDataParser {
       recordCount++;
       Record record = context.createRecord(file.getName() + OFFSET_SEPARATOR + previousSync + OFFSET_SEPARATOR + recordCount);
       record.set(AvroTypeUtil.avroToSdcField(record, avroRecord.getSchema(), avroRecord));
-      record.getHeader().setAttribute(HeaderAttributeConstants.AVRO_SCHEMA, avroRecord.getSchema().toString());
+      record.getHeader().setAttribute(
+          HeaderAttributeConstants.AVRO_SCHEMA,
+          AvroSchemaCache.getJson(avroRecord.getSchema())
+      );
       return record;
     }
     eof = true;
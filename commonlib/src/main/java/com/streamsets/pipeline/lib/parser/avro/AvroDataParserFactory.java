@@ -26,6 +26,7 @@ import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.parser.DataParserFactory;
 import com.streamsets.pipeline.lib.parser.Errors;
 import com.streamsets.pipeline.lib.util.AvroSchemaHelper;
+import com.streamsets.pipeline.lib.util.FieldNameInterner;
 import com.streamsets.pipeline.lib.util.SchemaRegistryException;
 import org.apache.avro.Schema;
 
@@ -82,6 +83,7 @@ public class AvroDataParserFactory extends DataParserFactory {
 
   public AvroDataParserFactory(Settings settings) throws SchemaRegistryException {
     super(settings);
+    FieldNameInterner.get().registerGauge(settings.getContext());
 
     schemaHelper = new AvroSchemaHelper(settings);
     schemaSource = settings.getConfig(SCHEMA_SOURCE_KEY);
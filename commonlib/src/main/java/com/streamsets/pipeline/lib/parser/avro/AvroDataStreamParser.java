@@ -20,6 +20,7 @@ import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.lib.io.OverrunInputStream;
 import com.streamsets.pipeline.lib.parser.AbstractDataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
+import com.streamsets.pipeline.lib.util.AvroSchemaCache;
 import com.streamsets.pipeline.lib.util.AvroTypeUtil;
 import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
 import org.apache.avro.Schema;
@@ -76,7 +77,10 @@ public class AvroDataStreamParser extends AbstractDataParser {
       recordCount++;
       Record record = context.createRecord(streamName + OFFSET_SEPARATOR + recordCount);
       record.set(AvroTypeUtil.avroToSdcField(record, avroRecord.getSchema(), avroRecord));
-      record.getHeader().setAttribute(HeaderAttributeConstants.AVRO_SCHEMA, avroRecord.getSchema().toString());
+      record.getHeader().setAttribute(
+          HeaderAttributeConstants.AVRO_SCHEMA,
+          AvroSchemaCache.getJson(avroRecord.getSchema())
+      );
       return record;
     }
     eof = true;
@@ -20,6 +20,7 @@ import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.config.OriginAvroSchemaSource;
 import com.streamsets.pipeline.lib.parser.AbstractDataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
+import com.streamsets.pipeline.lib.util.AvroSchemaCache;
 import com.streamsets.pipeline.lib.util.AvroTypeUtil;
 import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
 import org.apache.avro.Schema;
@@ -79,7 +80,10 @@ public class AvroMessageParser extends AbstractDataParser {
     if(genericRecord != null) {
       record = context.createRecord(messageId);
       record.set(AvroTypeUtil.avroToSdcField(record, genericRecord.getSchema(), genericRecord));
-      record.getHeader().setAttribute(HeaderAttributeConstants.AVRO_SCHEMA, genericRecord.getSchema().toString());
+      record.getHeader().setAttribute(
+          HeaderAttributeConstants.AVRO_SCHEMA,
+          AvroSchemaCache.getJson(genericRecord.getSchema())
+      );
     }
     return record;
   }
@@ -32,6 +32,7 @@ import com.streamsets.pipeline.lib.parser.AbstractDataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.parser.ParserRuntimeException;
 import com.streamsets.pipeline.lib.parser.RecoverableDataParserException;
+import com.streamsets.pipeline.lib.util.FieldNameInterner;
 import org.apache.commons.lang3.StringEscapeUtils;
 
 import java.io.IOException;
@@ -106,7 +107,7 @@ public class DelimitedCharDataParser extends AbstractDataParser {
     if (header != CsvHeader.IGNORE_HEADER && hs != null) {
       headers = new ArrayList<>();
       for (String h : hs) {
-        headers.add(Field.create(h));
+        headers.add(Field.create(FieldNameInterner.get().intern(h)));
       }
     }
   }
@@ -169,7 +170,7 @@ public class DelimitedCharDataParser extends AbstractDataParser {
         if(header != null) {
           key = header.getValueAsString();
         } else {
-          key = Integer.toString(i);
+          key = FieldNameInterner.get().intern(Integer.toString(i));
         }
         listMap.put(key, getField(columns[i]));
       }
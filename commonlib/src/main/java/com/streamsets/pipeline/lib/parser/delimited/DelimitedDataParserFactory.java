@@ -26,6 +26,7 @@ import com.streamsets.pipeline.lib.parser.DataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.parser.DataParserFactory;
 import com.streamsets.pipeline.lib.util.DelimitedDataConstants;
+import com.streamsets.pipeline.lib.util.FieldNameInterner;
 import org.apache.commons.csv.CSVFormat;
 
 import java.io.IOException;
@@ -63,6 +64,7 @@ public class DelimitedDataParserFactory extends DataParserFactory {
 
   public DelimitedDataParserFactory(Settings settings) {
     super(settings);
+    FieldNameInterner.get().registerGauge(settings.getContext());
   }
 
   @Override
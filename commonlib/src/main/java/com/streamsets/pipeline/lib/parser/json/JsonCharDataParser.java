@@ -25,6 +25,7 @@ import com.streamsets.pipeline.api.ext.io.OverrunReader;
 import com.streamsets.pipeline.api.ext.json.Mode;
 import com.streamsets.pipeline.lib.parser.AbstractDataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
+import com.streamsets.pipeline.lib.util.FieldNameInterner;
 
 import java.io.IOException;
 import java.math.BigDecimal;
@@ -53,12 +54,13 @@ public class JsonCharDataParser extends AbstractDataParser {
     this.context = context;
     this.readerId = readerId;
     this.maxObjectLen = maxObjectLen;
+    // the reader builds the fields directly from the JSON tokens
     parser = ((ContextExtensions) context).createJsonObjectReader(
         reader,
         readerOffset,
         maxObjectLen,
         mode,
-        Object.class
+        Field.class
     );
   }
 
@@ -98,7 +100,9 @@ public class JsonCharDataParser extends AbstractDataParser {
   @SuppressWarnings("unchecked")
   protected Field jsonToField(Object json, long offset) throws DataParserException {
     Field field;
-    if (json == null) {
+    if (json instanceof Field) {
+      field = (Field) json;
+    } else if (json == null) {
       field = Field.create(Field.Type.STRING, null);
     } else if (json instanceof List) {
       List jsonList = (List) json;
@@ -111,7 +115,7 @@ public class JsonCharDataParser extends AbstractDataParser {
       Map<String, Object> jsonMap = (Map<String, Object>) json;
       Map<String, Field> map = new LinkedHashMap<>();
       for (Map.Entry<String, Object> entry : jsonMap.entrySet()) {
-        map.put(entry.getKey(), jsonToField(entry.getValue(), offset));
+        map.put(FieldNameInterner.get().intern(entry.getKey()), jsonToField(entry.getValue(), offset));
       }
       field = Field.create(map);
     } else if (json instanceof String) {
@@ -22,6 +22,7 @@ import com.streamsets.pipeline.config.JsonMode;
 import com.streamsets.pipeline.lib.parser.DataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.parser.DataParserFactory;
+import com.streamsets.pipeline.lib.util.FieldNameInterner;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -38,6 +39,7 @@ public class JsonDataParserFactory extends DataParserFactory {
 
   public JsonDataParserFactory(Settings settings) {
     super(settings);
+    FieldNameInterner.get().registerGauge(settings.getContext());
   }
 
   @Override
@@ -21,6 +21,7 @@ import com.streamsets.pipeline.api.ext.io.OverrunReader;
 import com.streamsets.pipeline.lib.parser.DataParserFactory;
 import com.streamsets.pipeline.lib.parser.DataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
+import com.streamsets.pipeline.lib.util.FieldNameInterner;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -56,6 +57,7 @@ public class XmlDataParserFactory extends DataParserFactory {
 
   public XmlDataParserFactory(Settings settings) {
     super(settings);
+    FieldNameInterner.get().registerGauge(settings.getContext());
   }
 
   @Override
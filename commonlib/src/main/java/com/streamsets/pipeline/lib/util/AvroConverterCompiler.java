@@ -0,0 +1,1074 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.generator.DataGeneratorException;
+import com.streamsets.pipeline.lib.generator.avro.Errors;
+import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.codehaus.jackson.JsonNode;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles Avro schemas into trees of converters between Avro data and SDC fields. All the schema inspection (union
+ * shapes, logical types, field names and paths) is done once per schema, converting a record is then a walk over the
+ * converters of its fields.
+ * <p/>
+ * Compiled converters are immutable and cached by schema, Avro caches the schema hash code so looking up the
+ * converters of a schema instance that was already seen is cheap, and equal schemas parsed again (for example from
+ * the header of each message) share the same converters.
+ * <p/>
+ * The conversions are the same ones {@link AvroTypeUtil} has always done, unions other than <code>[null, type]</code>
+ * are still resolved against each value.
+ */
+public final class AvroConverterCompiler {
+  private static final int CACHE_SIZE = 1000;
+  private static final String FORWARD_SLASH = "/";
+
+  private static final LoadingCache<Schema, FieldConverter> FIELD_CONVERTERS = CacheBuilder.newBuilder()
+      .maximumSize(CACHE_SIZE)
+      .build(new CacheLoader<Schema, FieldConverter>() {
+        @Override
+        public FieldConverter load(Schema schema) {
+          return compileToField(schema, new IdentityHashMap<>());
+        }
+      });
+
+  private static final LoadingCache<Schema, AvroConverter> AVRO_CONVERTERS = CacheBuilder.newBuilder()
+      .maximumSize(CACHE_SIZE)
+      .build(new CacheLoader<Schema, AvroConverter>() {
+        @Override
+        public AvroConverter load(Schema schema) {
+          return compileToAvro(schema, Collections.emptyMap(), new IdentityHashMap<>());
+        }
+      });
+
+  private AvroConverterCompiler() {}
+
+  /**
+   * Returns the converter of Avro data with the given schema to SDC fields.
+   */
+  public static FieldConverter toField(Schema schema) {
+    try {
+      return FIELD_CONVERTERS.getUnchecked(schema);
+    } catch (UncheckedExecutionException | ExecutionError ex) {
+      throw unwrap(ex);
+    }
+  }
+
+  /**
+   * Returns the converter of SDC fields to Avro data with the given schema.
+   */
+  public static AvroConverter toAvro(Schema schema) {
+    try {
+      return AVRO_CONVERTERS.getUnchecked(schema);
+    } catch (UncheckedExecutionException | ExecutionError ex) {
+      throw unwrap(ex);
+    }
+  }
+
+  /**
+   * Rethrows the error a converter failed to compile with, as if it had been compiled by the caller.
+   */
+  private static RuntimeException unwrap(RuntimeException ex) {
+    Throwable cause = ex.getCause();
+    if (cause instanceof RuntimeException) {
+      return (RuntimeException) cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return ex;
+  }
+
+  /**
+   * Converts Avro data of a given schema to a field.
+   */
+  public abstract static class FieldConverter {
+    private final Field.Type nullType;
+
+    FieldConverter(Field.Type nullType) {
+      this.nullType = nullType;
+    }
+
+    /**
+     * Converts the given Avro value, the resolved union branches are recorded in the record header.
+     */
+    public Field convert(Record record, Object value) {
+      return convert(record, "", value);
+    }
+
+    Field convert(Record record, String fieldPath, Object value) {
+      if (value == null) {
+        return Field.create(nullType, null);
+      }
+      return convertValue(record, fieldPath, value);
+    }
+
+    abstract Field convertValue(Record record, String fieldPath, Object value);
+
+    /**
+     * Whether the converter, or any of its children, needs the path of the field it converts.
+     */
+    boolean needsPath() {
+      return false;
+    }
+  }
+
+  /**
+   * Converts fields to Avro data of a given schema.
+   */
+  public abstract static class AvroConverter {
+
+    /**
+     * Converts the root field of the given record.
+     */
+    public Object convert(Record record, Map<String, Object> defaultValueMap) throws StageException {
+      return convert(record, record.get(), "", defaultValueMap);
+    }
+
+    Object convert(
+        Record record,
+        Field field,
+        String avroFieldPath,
+        Map<String, Object> defaultValueMap
+    ) throws StageException {
+      if (field == null || field.getValue() == null) {
+        return null;
+      }
+      return convertValue(record, field, avroFieldPath, defaultValueMap);
+    }
+
+    abstract Object convertValue(
+        Record record,
+        Field field,
+        String avroFieldPath,
+        Map<String, Object> defaultValueMap
+    ) throws StageException;
+
+    boolean needsPath() {
+      return false;
+    }
+  }
+
+  private static String childPath(FieldConverter child, String fieldPath, String suffix) {
+    return child.needsPath() ? fieldPath + suffix : null;
+  }
+
+  private static String childPath(AvroConverter child, String avroFieldPath, String suffix) {
+    return child.needsPath() ? avroFieldPath + suffix : null;
+  }
+
+  /**
+   * Returns the scale or precision of a decimal schema, <code>null</code> if missing so a missing property only
+   * fails when a value has to be converted.
+   */
+  private static Integer getIntProp(JsonNode prop) {
+    return (prop == null) ? null : prop.getIntValue();
+  }
+
+  // Avro to SDC field
+
+  private static FieldConverter compileToField(Schema schema, Map<Schema, RecordFieldConverter> records) {
+    if (schema.getType() == Schema.Type.UNION) {
+      return new UnionFieldConverter(schema, records);
+    }
+
+    String logicalType = schema.getProp(AvroTypeUtil.LOGICAL_TYPE);
+    if (logicalType != null && !logicalType.isEmpty()) {
+      FieldConverter converter = compileLogicalToField(schema, logicalType);
+      if (converter != null) {
+        return converter;
+      }
+    }
+
+    Field.Type nullType = AvroTypeUtil.getFieldType(schema);
+    switch (schema.getType()) {
+      case ARRAY:
+        return new ArrayFieldConverter(compileToField(schema.getElementType(), records));
+      case BOOLEAN:
+        return new SimpleFieldConverter(nullType, Field.Type.BOOLEAN);
+      case BYTES:
+        return new FieldConverter(nullType) {
+          @Override
+          Field convertValue(Record record, String fieldPath, Object value) {
+            return Field.create(Field.Type.BYTE_ARRAY, ((ByteBuffer) value).array());
+          }
+        };
+      case DOUBLE:
+        return new SimpleFieldConverter(nullType, Field.Type.DOUBLE);
+      case ENUM:
+        return new SimpleFieldConverter(nullType, Field.Type.STRING);
+      case FIXED:
+        return new FieldConverter(nullType) {
+          @Override
+          Field convertValue(Record record, String fieldPath, Object value) {
+            return Field.create(Field.Type.BYTE_ARRAY, ((GenericFixed) value).bytes());
+          }
+        };
+      case FLOAT:
+        return new SimpleFieldConverter(nullType, Field.Type.FLOAT);
+      case INT:
+        return new SimpleFieldConverter(nullType, Field.Type.INTEGER);
+      case LONG:
+        return new SimpleFieldConverter(nullType, Field.Type.LONG);
+      case MAP:
+        return new MapFieldConverter(compileToField(schema.getValueType(), records));
+      case NULL:
+        return new FieldConverter(nullType) {
+          @Override
+          Field convertValue(Record record, String fieldPath, Object value) {
+            return Field.create(Field.Type.MAP, null);
+          }
+        };
+      case RECORD:
+        RecordFieldConverter converter = records.get(schema);
+        if (converter == null) {
+          // registered before compiling the fields so recursive schemas reuse it
+          converter = new RecordFieldConverter();
+          records.put(schema, converter);
+          converter.init(schema, records);
+        }
+        return converter;
+      case STRING:
+        return new FieldConverter(nullType) {
+          @Override
+          Field convertValue(Record record, String fieldPath, Object value) {
+            return Field.create(Field.Type.STRING, value.toString());
+          }
+        };
+      default:
+        throw new IllegalStateException("Unexpected schema type " + schema.getType());
+    }
+  }
+
+  private static FieldConverter compileLogicalToField(Schema schema, String logicalType) {
+    Field.Type nullType = AvroTypeUtil.getFieldType(schema);
+    switch (logicalType) {
+      case AvroTypeUtil.LOGICAL_TYPE_DECIMAL:
+        if (schema.getType() != Schema.Type.BYTES) {
+          return new FailingFieldConverter(nullType, "decimal", schema);
+        }
+        final Integer scale = getIntProp(schema.getJsonProp(AvroTypeUtil.LOGICAL_TYPE_ATTR_SCALE));
+        final Integer precision = getIntProp(schema.getJsonProp(AvroTypeUtil.LOGICAL_TYPE_ATTR_PRECISION));
+        return new LogicalFieldConverter(nullType, logicalType) {
+          @Override
+          Field convertLogical(Object value) {
+            if (value instanceof ByteBuffer) {
+              value = AvroTypeUtil.bigDecimalFromBytes(((ByteBuffer) value).array(), scale);
+            }
+            Field field = Field.create(Field.Type.DECIMAL, value);
+            field.setAttribute(HeaderAttributeConstants.ATTR_SCALE, String.valueOf(scale.intValue()));
+            field.setAttribute(HeaderAttributeConstants.ATTR_PRECISION, String.valueOf(precision.intValue()));
+            return field;
+          }
+        };
+      case AvroTypeUtil.LOGICAL_TYPE_DATE:
+        if (schema.getType() != Schema.Type.INT) {
+          return new FailingFieldConverter(nullType, "date", schema);
+        }
+        return new LogicalFieldConverter(nullType, logicalType) {
+          @Override
+          Field convertLogical(Object value) {
+            if (value instanceof Integer) {
+              //Convert days in integer since epoch to millis
+              value = new Date(AvroTypeUtil.daysToMillis((int) value));
+            }
+            return Field.create(Field.Type.DATE, value);
+          }
+        };
+      case AvroTypeUtil.LOGICAL_TYPE_TIME_MILLIS:
+        if (schema.getType() != Schema.Type.INT) {
+          return new FailingFieldConverter(nullType, "time millis", schema);
+        }
+        return new LogicalFieldConverter(nullType, logicalType) {
+          @Override
+          Field convertLogical(Object value) {
+            return Field.create(Field.Type.TIME, (long) (int) value);
+          }
+        };
+      case AvroTypeUtil.LOGICAL_TYPE_TIME_MICROS:
+        if (schema.getType() != Schema.Type.LONG) {
+          return new FailingFieldConverter(nullType, "time micros", schema);
+        }
+        // We don't have a better type to represent microseconds
+        return new LogicalFieldConverter(nullType, logicalType) {
+          @Override
+          Field convertLogical(Object value) {
+            return Field.create(Field.Type.LONG, value);
+          }
+        };
+      case AvroTypeUtil.LOGICAL_TYPE_TIMESTAMP_MILLIS:
+        if (schema.getType() != Schema.Type.LONG) {
+          return new FailingFieldConverter(nullType, "timestamp millis", schema);
+        }
+        return new LogicalFieldConverter(nullType, logicalType) {
+          @Override
+          Field convertLogical(Object value) {
+            return Field.create(Field.Type.DATETIME, value);
+          }
+        };
+      case AvroTypeUtil.LOGICAL_TYPE_TIMESTAMP_MICROS:
+        if (schema.getType() != Schema.Type.LONG) {
+          return new FailingFieldConverter(nullType, "timestamp micros", schema);
+        }
+        // We don't have a better type to represent microseconds
+        return new LogicalFieldConverter(nullType, logicalType) {
+          @Override
+          Field convertLogical(Object value) {
+            return Field.create(Field.Type.LONG, value);
+          }
+        };
+      default:
+        return null;
+    }
+  }
+
+  private static class SimpleFieldConverter extends FieldConverter {
+    private final Field.Type type;
+
+    SimpleFieldConverter(Field.Type nullType, Field.Type type) {
+      super(nullType);
+      this.type = type;
+    }
+
+    @Override
+    Field convertValue(Record record, String fieldPath, Object value) {
+      return Field.create(type, value);
+    }
+  }
+
+  private abstract static class LogicalFieldConverter extends FieldConverter {
+    private final String logicalType;
+
+    LogicalFieldConverter(Field.Type nullType, String logicalType) {
+      super(nullType);
+      this.logicalType = logicalType;
+    }
+
+    @Override
+    Field convertValue(Record record, String fieldPath, Object value) {
+      Field field = convertLogical(value);
+      field.setAttribute(AvroTypeUtil.FIELD_ATTRIBUTE_TYPE, logicalType);
+      return field;
+    }
+
+    abstract Field convertLogical(Object value);
+  }
+
+  private static class FailingFieldConverter extends FieldConverter {
+    private final String message;
+
+    FailingFieldConverter(Field.Type nullType, String logicalType, Schema schema) {
+      super(nullType);
+      message = "Unexpected physical type for logical " + logicalType + " type: " + schema.getType();
+    }
+
+    @Override
+    Field convertValue(Record record, String fieldPath, Object value) {
+      throw new IllegalStateException(message);
+    }
+  }
+
+  private static class UnionFieldConverter extends FieldConverter {
+    private final Schema schema;
+    private final FieldConverter[] branches;
+    private final Field.Type[] branchNullTypes;
+    // union of [null, type] with a null value
+    private final boolean nullable;
+    private final Field.Type nullableType;
+    private final boolean nullableDecimal;
+    private final Integer nullableScale;
+    private final Integer nullablePrecision;
+
+    UnionFieldConverter(Schema schema, Map<Schema, RecordFieldConverter> records) {
+      super(null);
+      this.schema = schema;
+      List<Schema> unionTypes = schema.getTypes();
+      branches = new FieldConverter[unionTypes.size()];
+      branchNullTypes = new Field.Type[unionTypes.size()];
+      for (int i = 0; i < branches.length; i++) {
+        branches[i] = compileToField(unionTypes.get(i), records);
+        branchNullTypes[i] = AvroTypeUtil.getFieldType(unionTypes.get(i));
+      }
+      nullable = unionTypes.size() == 2 && unionTypes.get(0).getType() == Schema.Type.NULL;
+      if (nullable) {
+        Schema type = unionTypes.get(1);
+        nullableType = branchNullTypes[1];
+        nullableDecimal = AvroTypeUtil.LOGICAL_TYPE_DECIMAL.equals(type.getProp(AvroTypeUtil.LOGICAL_TYPE));
+        nullableScale = getIntProp(type.getJsonProp(AvroTypeUtil.LOGICAL_TYPE_ATTR_SCALE));
+        nullablePrecision = getIntProp(type.getJsonProp(AvroTypeUtil.LOGICAL_TYPE_ATTR_PRECISION));
+      } else {
+        nullableType = null;
+        nullableDecimal = false;
+        nullableScale = null;
+        nullablePrecision = null;
+      }
+    }
+
+    @Override
+    Field convert(Record record, String fieldPath, Object value) {
+      if (nullable && value == null) {
+        Field field = Field.create(nullableType, null);
+        if (nullableDecimal) {
+          // We need to set field attributes propagating some schema information
+          field.setAttribute(HeaderAttributeConstants.ATTR_SCALE, String.valueOf(nullableScale.intValue()));
+          field.setAttribute(HeaderAttributeConstants.ATTR_PRECISION, String.valueOf(nullablePrecision.intValue()));
+        }
+        return field;
+      }
+      // By default try to resolve index of the union by the data itself
+      int typeIndex = GenericData.get().resolveUnion(schema, value);
+      record.getHeader().setAttribute(
+          AvroTypeUtil.AVRO_UNION_TYPE_INDEX_PREFIX + fieldPath,
+          String.valueOf(typeIndex)
+      );
+      if (value == null) {
+        return Field.create(branchNullTypes[typeIndex], null);
+      }
+      return branches[typeIndex].convertValue(record, fieldPath, value);
+    }
+
+    @Override
+    Field convertValue(Record record, String fieldPath, Object value) {
+      return convert(record, fieldPath, value);
+    }
+
+    @Override
+    boolean needsPath() {
+      return true;
+    }
+  }
+
+  private static class ArrayFieldConverter extends FieldConverter {
+    private final FieldConverter element;
+
+    ArrayFieldConverter(FieldConverter element) {
+      super(Field.Type.LIST);
+      this.element = element;
+    }
+
+    @Override
+    Field convertValue(Record record, String fieldPath, Object value) {
+      List<?> objectList = (List<?>) value;
+      List<Field> list = new ArrayList<>(objectList.size());
+      for (int i = 0; i < objectList.size(); i++) {
+        list.add(element.convert(record, childPath(element, fieldPath, "[" + i + "]"), objectList.get(i)));
+      }
+      return Field.create(list);
+    }
+
+    @Override
+    boolean needsPath() {
+      return element.needsPath();
+    }
+  }
+
+  private static class MapFieldConverter extends FieldConverter {
+    private final FieldConverter valueConverter;
+
+    MapFieldConverter(FieldConverter valueConverter) {
+      super(Field.Type.MAP);
+      this.valueConverter = valueConverter;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    Field convertValue(Record record, String fieldPath, Object value) {
+      Map<Object, Object> avroMap = (Map<Object, Object>) value;
+      Map<String, Field> map = new LinkedHashMap<>();
+      for (Map.Entry<Object, Object> entry : avroMap.entrySet()) {
+        String key;
+        if (entry.getKey() instanceof Utf8) {
+          key = entry.getKey().toString();
+        } else if (entry.getKey() instanceof String) {
+          key = (String) entry.getKey();
+        } else {
+          throw new IllegalStateException(Utils.format("Unrecognized type for avro value: {}", entry.getKey()
+              .getClass().getName()));
+        }
+        key = FieldNameInterner.get().intern(key);
+        map.put(
+            key,
+            valueConverter.convert(record, childPath(valueConverter, fieldPath, FORWARD_SLASH + key), entry.getValue())
+        );
+      }
+      return Field.create(map);
+    }
+
+    @Override
+    boolean needsPath() {
+      return valueConverter.needsPath();
+    }
+  }
+
+  private static class RecordFieldConverter extends FieldConverter {
+    private String[] names;
+    private String[] pathSuffixes;
+    private FieldConverter[] converters;
+    // until initialized, a recursive reference to the record conservatively needs paths
+    private boolean needsPath = true;
+
+    RecordFieldConverter() {
+      super(Field.Type.MAP);
+    }
+
+    void init(Schema schema, Map<Schema, RecordFieldConverter> records) {
+      List<Schema.Field> fields = schema.getFields();
+      names = new String[fields.size()];
+      pathSuffixes = new String[fields.size()];
+      converters = new FieldConverter[fields.size()];
+      boolean childrenNeedPath = false;
+      for (int i = 0; i < names.length; i++) {
+        Schema.Field field = fields.get(i);
+        names[i] = FieldNameInterner.get().intern(field.name());
+        pathSuffixes[i] = FORWARD_SLASH + field.name();
+        converters[i] = compileToField(field.schema(), records);
+        childrenNeedPath |= converters[i].needsPath();
+      }
+      needsPath = childrenNeedPath;
+    }
+
+    @Override
+    Field convertValue(Record record, String fieldPath, Object value) {
+      GenericRecord avroRecord = (GenericRecord) value;
+      LinkedHashMap<String, Field> recordMap = new LinkedHashMap<>();
+      for (int i = 0; i < names.length; i++) {
+        FieldConverter converter = converters[i];
+        Field field = converter.convert(
+            record,
+            childPath(converter, fieldPath, pathSuffixes[i]),
+            avroRecord.get(names[i])
+        );
+        if (field != null) {
+          recordMap.put(names[i], field);
+        }
+      }
+      return Field.createListMap(recordMap);
+    }
+
+    @Override
+    boolean needsPath() {
+      return needsPath;
+    }
+  }
+
+  // SDC field to Avro
+
+  private static AvroConverter compileToAvro(
+      Schema schema,
+      Map<String, JsonNode> fieldProps,
+      Map<Schema, RecordAvroConverter> records
+  ) {
+    if (schema.getType() == Schema.Type.UNION) {
+      List<Schema> unionTypes = schema.getTypes();
+      if (unionTypes.size() == 2 && unionTypes.get(0).getType() == Schema.Type.NULL) {
+        // Special case where we have union of null and actual type (which is very common) - since we know that the
+        // column is not null, expect the union's second type.
+        return compileToAvro(unionTypes.get(1), Collections.emptyMap(), records);
+      }
+      // the union has to be resolved against each field
+      return new InterpretedAvroConverter(schema);
+    }
+
+    // the properties of a record field apply to the schema of the field
+    JsonNode logicalTypeProp = getJsonProp(schema, fieldProps, AvroTypeUtil.LOGICAL_TYPE);
+    String logicalType = (logicalTypeProp != null && logicalTypeProp.isTextual())
+        ? logicalTypeProp.getTextValue()
+        : null;
+    if (logicalType != null && !logicalType.isEmpty()) {
+      AvroConverter converter = compileLogicalToAvro(schema, fieldProps, logicalType);
+      if (converter != null) {
+        return converter;
+      }
+    }
+
+    switch (schema.getType()) {
+      case ARRAY:
+        return new ArrayAvroConverter(schema, compileToAvro(schema.getElementType(), Collections.emptyMap(), records));
+      case BOOLEAN:
+        return new PrimitiveAvroConverter(schema) {
+          @Override
+          Object convertPrimitive(Field field) {
+            return field.getValueAsBoolean();
+          }
+        };
+      case BYTES:
+        return new PrimitiveAvroConverter(schema) {
+          @Override
+          Object convertPrimitive(Field field) {
+            return ByteBuffer.wrap(field.getValueAsByteArray());
+          }
+        };
+      case DOUBLE:
+        return new PrimitiveAvroConverter(schema) {
+          @Override
+          Object convertPrimitive(Field field) {
+            return field.getValueAsDouble();
+          }
+        };
+      case ENUM:
+        return new PrimitiveAvroConverter(schema) {
+          @Override
+          Object convertPrimitive(Field field) {
+            return new GenericData.EnumSymbol(schema, field.getValueAsString());
+          }
+        };
+      case FIXED:
+        return new PrimitiveAvroConverter(schema) {
+          @Override
+          Object convertPrimitive(Field field) {
+            return new GenericData.Fixed(schema, field.getValueAsByteArray());
+          }
+        };
+      case FLOAT:
+        return new PrimitiveAvroConverter(schema) {
+          @Override
+          Object convertPrimitive(Field field) {
+            return field.getValueAsFloat();
+          }
+        };
+      case INT:
+        return new PrimitiveAvroConverter(schema) {
+          @Override
+          Object convertPrimitive(Field field) {
+            return field.getValueAsInteger();
+          }
+        };
+      case LONG:
+        return new PrimitiveAvroConverter(schema) {
+          @Override
+          Object convertPrimitive(Field field) {
+            return field.getValueAsLong();
+          }
+        };
+      case MAP:
+        return new MapAvroConverter(schema, compileToAvro(schema.getValueType(), Collections.emptyMap(), records));
+      case RECORD:
+        RecordAvroConverter converter = records.get(schema);
+        if (converter == null) {
+          // registered before compiling the fields so recursive schemas reuse it
+          converter = new RecordAvroConverter(schema);
+          records.put(schema, converter);
+          converter.init(records);
+        }
+        return converter;
+      case STRING:
+        return new PrimitiveAvroConverter(schema) {
+          @Override
+          Object convertPrimitive(Field field) {
+            return field.getValueAsString();
+          }
+        };
+      default:
+        return new AvroConverter() {
+          @Override
+          Object convertValue(Record record, Field field, String avroFieldPath, Map<String, Object> defaultValueMap) {
+            return null;
+          }
+        };
+    }
+  }
+
+  static JsonNode getJsonProp(Schema schema, Map<String, JsonNode> fieldProps, String name) {
+    JsonNode prop = schema.getJsonProp(name);
+    return (prop != null) ? prop : fieldProps.get(name);
+  }
+
+  private static AvroConverter compileLogicalToAvro(
+      Schema schema,
+      Map<String, JsonNode> fieldProps,
+      String logicalType
+  ) {
+    final Schema.Type expectedType;
+    final String name;
+    switch (logicalType) {
+      case AvroTypeUtil.LOGICAL_TYPE_DECIMAL:
+        expectedType = Schema.Type.BYTES;
+        name = "decimal";
+        break;
+      case AvroTypeUtil.LOGICAL_TYPE_DATE:
+        expectedType = Schema.Type.INT;
+        name = "date";
+        break;
+      case AvroTypeUtil.LOGICAL_TYPE_TIME_MILLIS:
+        expectedType = Schema.Type.INT;
+        name = "time millis";
+        break;
+      case AvroTypeUtil.LOGICAL_TYPE_TIME_MICROS:
+        expectedType = Schema.Type.LONG;
+        name = "time micros";
+        break;
+      case AvroTypeUtil.LOGICAL_TYPE_TIMESTAMP_MILLIS:
+        expectedType = Schema.Type.LONG;
+        name = "timestamp millis";
+        break;
+      case AvroTypeUtil.LOGICAL_TYPE_TIMESTAMP_MICROS:
+        expectedType = Schema.Type.LONG;
+        name = "timestamp micros";
+        break;
+      default:
+        return null;
+    }
+    if (schema.getType() != expectedType) {
+      final String message = "Unexpected physical type for logical " + name + " type: " + schema.getType();
+      return new AvroConverter() {
+        @Override
+        Object convertValue(Record record, Field field, String avroFieldPath, Map<String, Object> defaultValueMap) {
+          throw new IllegalStateException(message);
+        }
+      };
+    }
+    switch (logicalType) {
+      case AvroTypeUtil.LOGICAL_TYPE_DECIMAL:
+        final Integer scale = getIntProp(getJsonProp(schema, fieldProps, AvroTypeUtil.LOGICAL_TYPE_ATTR_SCALE));
+        return new LogicalAvroConverter(schema, logicalType) {
+          @Override
+          Object convertLogical(Field field) {
+            return ByteBuffer.wrap(field.getValueAsDecimal().setScale(scale).unscaledValue().toByteArray());
+          }
+        };
+      case AvroTypeUtil.LOGICAL_TYPE_DATE:
+        return new LogicalAvroConverter(schema, logicalType) {
+          @Override
+          Object convertLogical(Field field) {
+            return AvroTypeUtil.millisToDays(field.getValueAsDate().getTime());
+          }
+        };
+      case AvroTypeUtil.LOGICAL_TYPE_TIME_MILLIS:
+        return new LogicalAvroConverter(schema, logicalType) {
+          @Override
+          Object convertLogical(Field field) {
+            return (int) field.getValueAsTime().getTime();
+          }
+        };
+      case AvroTypeUtil.LOGICAL_TYPE_TIMESTAMP_MILLIS:
+        return new LogicalAvroConverter(schema, logicalType) {
+          @Override
+          Object convertLogical(Field field) {
+            return field.getValueAsDatetime().getTime();
+          }
+        };
+      default:
+        // microseconds are kept as longs
+        return new LogicalAvroConverter(schema, logicalType) {
+          @Override
+          Object convertLogical(Field field) {
+            return field.getValueAsLong();
+          }
+        };
+    }
+  }
+
+  /**
+   * Converts fields to Avro data of a schema type, reporting values of the wrong type as generator errors.
+   */
+  private abstract static class TypedAvroConverter extends AvroConverter {
+    final Schema schema;
+
+    TypedAvroConverter(Schema schema) {
+      this.schema = schema;
+    }
+
+    @Override
+    Object convertValue(
+        Record record,
+        Field field,
+        String avroFieldPath,
+        Map<String, Object> defaultValueMap
+    ) throws StageException {
+      try {
+        return convertTyped(record, field, avroFieldPath, defaultValueMap);
+      } catch (IllegalArgumentException ex) {
+        throw new DataGeneratorException(
+            Errors.AVRO_GENERATOR_05,
+            schema.getType(),
+            field.getType()
+        );
+      }
+    }
+
+    abstract Object convertTyped(
+        Record record,
+        Field field,
+        String avroFieldPath,
+        Map<String, Object> defaultValueMap
+    ) throws StageException;
+  }
+
+  private abstract static class PrimitiveAvroConverter extends TypedAvroConverter {
+
+    PrimitiveAvroConverter(Schema schema) {
+      super(schema);
+    }
+
+    @Override
+    final Object convertTyped(
+        Record record,
+        Field field,
+        String avroFieldPath,
+        Map<String, Object> defaultValueMap
+    ) {
+      return convertPrimitive(field);
+    }
+
+    abstract Object convertPrimitive(Field field);
+  }
+
+  private abstract static class LogicalAvroConverter extends AvroConverter {
+    private final Schema schema;
+    private final String logicalType;
+
+    LogicalAvroConverter(Schema schema, String logicalType) {
+      this.schema = schema;
+      this.logicalType = logicalType;
+    }
+
+    @Override
+    Object convertValue(
+        Record record,
+        Field field,
+        String avroFieldPath,
+        Map<String, Object> defaultValueMap
+    ) throws StageException {
+      try {
+        return convertLogical(field);
+      } catch (IllegalArgumentException ex) {
+        throw new DataGeneratorException(
+            Errors.AVRO_GENERATOR_05,
+            "logical type: " + logicalType,
+            field.getType()
+        );
+      } catch (ArithmeticException ex) {
+        // Thrown when BigDecimal.setScale() requires rounding
+        throw new DataGeneratorException(
+            Errors.AVRO_GENERATOR_06,
+            field.getValue() != null ? field.getValue().toString() : "null",
+            field.getType(),
+            schema.toString(),
+            ex.toString(),
+            ex
+        );
+      }
+    }
+
+    abstract Object convertLogical(Field field);
+  }
+
+  private static class InterpretedAvroConverter extends AvroConverter {
+    private final Schema schema;
+
+    InterpretedAvroConverter(Schema schema) {
+      this.schema = schema;
+    }
+
+    @Override
+    Object convertValue(
+        Record record,
+        Field field,
+        String avroFieldPath,
+        Map<String, Object> defaultValueMap
+    ) throws StageException {
+      return AvroTypeUtil.sdcRecordToAvro(
+          record,
+          field,
+          avroFieldPath,
+          schema,
+          Collections.<String, JsonNode>emptyMap(),
+          defaultValueMap
+      );
+    }
+
+    @Override
+    boolean needsPath() {
+      return true;
+    }
+  }
+
+  private static class ArrayAvroConverter extends TypedAvroConverter {
+    private final AvroConverter element;
+
+    ArrayAvroConverter(Schema schema, AvroConverter element) {
+      super(schema);
+      this.element = element;
+    }
+
+    @Override
+    Object convertTyped(
+        Record record,
+        Field field,
+        String avroFieldPath,
+        Map<String, Object> defaultValueMap
+    ) throws StageException {
+      List<Field> valueAsList = field.getValueAsList();
+      List<Object> toReturn = new ArrayList<>(valueAsList.size());
+      for (int i = 0; i < valueAsList.size(); i++) {
+        toReturn.add(
+            element.convert(
+                record,
+                valueAsList.get(i),
+                childPath(element, avroFieldPath, "[" + i + "]"),
+                defaultValueMap
+            )
+        );
+      }
+      return toReturn;
+    }
+
+    @Override
+    boolean needsPath() {
+      return element.needsPath();
+    }
+  }
+
+  private static class MapAvroConverter extends TypedAvroConverter {
+    private final AvroConverter valueConverter;
+
+    MapAvroConverter(Schema schema, AvroConverter valueConverter) {
+      super(schema);
+      this.valueConverter = valueConverter;
+    }
+
+    @Override
+    Object convertTyped(
+        Record record,
+        Field field,
+        String avroFieldPath,
+        Map<String, Object> defaultValueMap
+    ) throws StageException {
+      Map<String, Field> map = field.getValueAsMap();
+      Map<String, Object> toReturnMap = new LinkedHashMap<>();
+      if (map != null) {
+        for (Map.Entry<String, Field> e : map.entrySet()) {
+          toReturnMap.put(
+              e.getKey(),
+              valueConverter.convert(
+                  record,
+                  e.getValue(),
+                  childPath(valueConverter, avroFieldPath, FORWARD_SLASH + e.getKey()),
+                  defaultValueMap
+              )
+          );
+        }
+      }
+      return toReturnMap;
+    }
+
+    @Override
+    boolean needsPath() {
+      return valueConverter.needsPath();
+    }
+  }
+
+  private static class RecordAvroConverter extends TypedAvroConverter {
+    private String[] names;
+    private String[] keys;
+    private String[] pathSuffixes;
+    private AvroConverter[] converters;
+    // DatumWriter can handle writing null value for the Union and Null types
+    private boolean[] nullable;
+    // until initialized, a recursive reference to the record conservatively needs paths
+    private boolean needsPath = true;
+
+    RecordAvroConverter(Schema schema) {
+      super(schema);
+    }
+
+    void init(Map<Schema, RecordAvroConverter> records) {
+      List<Schema.Field> fields = schema.getFields();
+      names = new String[fields.size()];
+      keys = new String[fields.size()];
+      pathSuffixes = new String[fields.size()];
+      converters = new AvroConverter[fields.size()];
+      nullable = new boolean[fields.size()];
+      boolean childrenNeedPath = false;
+      for (int i = 0; i < names.length; i++) {
+        Schema.Field f = fields.get(i);
+        names[i] = f.name();
+        keys[i] = schema.getFullName() + AvroTypeUtil.SCHEMA_PATH_SEPARATOR + f.name();
+        pathSuffixes[i] = FORWARD_SLASH + f.name();
+        converters[i] = compileToAvro(f.schema(), f.getJsonProps(), records);
+        nullable[i] = f.schema().getType() == Schema.Type.UNION || f.schema().getType() == Schema.Type.NULL;
+        childrenNeedPath |= converters[i].needsPath();
+      }
+      needsPath = childrenNeedPath;
+    }
+
+    @Override
+    Object convertTyped(
+        Record record,
+        Field field,
+        String avroFieldPath,
+        Map<String, Object> defaultValueMap
+    ) throws StageException {
+      Map<String, Field> valueAsMap = field.getValueAsMap();
+      GenericRecord genericRecord = new GenericData.Record(schema);
+      for (int i = 0; i < names.length; i++) {
+        // If the record does not contain a field corresponding to the schema field, look up the default value from
+        // the schema.
+        // If no default value was specified for the field and record does not contain it, then throw exception.
+        // Its an error record.
+        Field value = valueAsMap.get(names[i]);
+        Object v;
+        if (value != null || valueAsMap.containsKey(names[i])) {
+          AvroConverter converter = converters[i];
+          v = converter.convert(record, value, childPath(converter, avroFieldPath, pathSuffixes[i]), defaultValueMap);
+          // If value in record is null and there is no default value specified, send to error.
+          if (v == null) {
+            if (defaultValueMap.containsKey(keys[i])) {
+              v = defaultValueMap.get(keys[i]);
+            } else if (!nullable[i]) {
+              throw new DataGeneratorException(Errors.AVRO_GENERATOR_01, record.getHeader().getSourceId(), keys[i]);
+            }
+          }
+        } else {
+          if (!defaultValueMap.containsKey(keys[i])) {
+            throw new DataGeneratorException(Errors.AVRO_GENERATOR_00, record.getHeader().getSourceId(), keys[i]);
+          }
+          v = defaultValueMap.get(keys[i]);
+        }
+        genericRecord.put(i, v);
+      }
+      return genericRecord;
+    }
+
+    @Override
+    boolean needsPath() {
+      return needsPath;
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Registry of the Avro schemas carried in the <code>avroSchema</code> record header attribute, indexed by the 64-bit
+ * fingerprint of their JSON.
+ * <p/>
+ * Parsers put the JSON returned by {@link #getJson(Schema)} in the header, all the records with equal schemas then
+ * reference the same String instead of each holding its own copy of the JSON. Generators look the header JSON up with
+ * {@link #getFingerprint(String)}, which is a reference lookup for those shared instances, instead of hashing the
+ * whole JSON of every record, and get the parsed schema and its default values from the registry.
+ * <p/>
+ * The JSON fingerprint covers every property of the schema (unlike the fingerprint of the parsing canonical form, which
+ * drops logical types).
+ */
+public final class AvroSchemaCache {
+  private static final int CACHE_SIZE = 1000;
+
+  private static final Cache<Long, Entry> BY_FINGERPRINT = CacheBuilder.newBuilder()
+      .maximumSize(CACHE_SIZE)
+      .build();
+
+  // both caches compare keys by identity, entries live as long as they are in the fingerprint cache or in use
+  private static final Cache<Schema, Entry> BY_SCHEMA = CacheBuilder.newBuilder()
+      .weakKeys()
+      .weakValues()
+      .build();
+
+  private static final Cache<String, Entry> BY_JSON = CacheBuilder.newBuilder()
+      .weakKeys()
+      .weakValues()
+      .build();
+
+  private AvroSchemaCache() {}
+
+  /**
+   * Registered schema.
+   */
+  public static final class Entry {
+    private final long fingerprint;
+    private final String json;
+    private volatile Schema schema;
+    private volatile Map<String, Object> defaultValues;
+
+    private Entry(long fingerprint, String json, Schema schema) {
+      this.fingerprint = fingerprint;
+      this.json = json;
+      this.schema = schema;
+    }
+
+    public long getFingerprint() {
+      return fingerprint;
+    }
+
+    public String getJson() {
+      return json;
+    }
+
+    public Schema getSchema() {
+      if (schema == null) {
+        synchronized (this) {
+          if (schema == null) {
+            schema = AvroTypeUtil.parseSchema(json);
+          }
+        }
+      }
+      return schema;
+    }
+
+    /**
+     * Returns the default values of the schema fields, see
+     * {@link AvroTypeUtil#getDefaultValuesFromSchema(Schema, java.util.Set)}.
+     */
+    public Map<String, Object> getDefaultValues() throws IOException {
+      if (defaultValues == null) {
+        synchronized (this) {
+          if (defaultValues == null) {
+            defaultValues = Collections.unmodifiableMap(
+                AvroTypeUtil.getDefaultValuesFromSchema(getSchema(), new HashSet<String>())
+            );
+          }
+        }
+      }
+      return defaultValues;
+    }
+  }
+
+  /**
+   * Returns the fingerprint of the given schema JSON.
+   */
+  public static long fingerprint(String json) {
+    return SchemaNormalization.fingerprint64(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns the JSON of the given schema, equal schemas get the same String instance.
+   */
+  public static String getJson(final Schema schema) {
+    return get(BY_SCHEMA, schema, () -> register(schema.toString(), schema)).getJson();
+  }
+
+  /**
+   * Returns the registered schema with the given JSON, parsing it the first time it is seen.
+   */
+  public static Entry getEntry(final String json) {
+    return get(BY_JSON, json, () -> register(json, null));
+  }
+
+  /**
+   * Returns the fingerprint of the given schema JSON, without registering it. JSON instances returned by
+   * {@link #getJson(Schema)} or already passed to {@link #getEntry(String)} don't need to be fingerprinted again.
+   */
+  public static long getFingerprint(String json) {
+    Entry entry = BY_JSON.getIfPresent(json);
+    return (entry != null) ? entry.getFingerprint() : fingerprint(json);
+  }
+
+  private static Entry register(String json, Schema schema) throws ExecutionException {
+    return register(fingerprint(json), json, schema);
+  }
+
+  @VisibleForTesting
+  static Entry register(final long fingerprint, final String json, Schema schema) throws ExecutionException {
+    Entry entry = BY_FINGERPRINT.get(fingerprint, () -> new Entry(fingerprint, json, schema));
+    if (!entry.getJson().equals(json)) {
+      // fingerprint collision, the schema is not registered by fingerprint and is parsed on its own
+      entry = new Entry(fingerprint, json, schema);
+    }
+    BY_JSON.put(entry.getJson(), entry);
+    return entry;
+  }
+
+  private static <K> Entry get(Cache<K, Entry> cache, K key, Callable<Entry> loader) {
+    try {
+      return cache.get(key, loader);
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new IllegalStateException(ex.getCause());
+    }
+  }
+}
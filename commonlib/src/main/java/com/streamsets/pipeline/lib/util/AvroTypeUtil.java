@@ -23,13 +23,10 @@ import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.generator.DataGeneratorException;
 import com.streamsets.pipeline.lib.generator.avro.Errors;
-import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
 import org.apache.avro.AvroRuntimeException;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
-import org.apache.avro.generic.GenericFixed;
 import org.apache.avro.generic.GenericRecord;
-import org.apache.avro.util.Utf8;
 import org.codehaus.jackson.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,7 +37,7 @@ import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -115,7 +112,7 @@ public class AvroTypeUtil {
    *
    * This function has been copied from Apache Hive project.
    */
-  private static int millisToDays(long millisLocal) {
+  static int millisToDays(long millisLocal) {
     // We assume millisLocal is midnight of some date. What we are basically trying to do
     // here is go from local-midnight to UTC-midnight (or whatever time that happens to be).
     long millisUtc = millisLocal + localTimeZone.getOffset(millisLocal);
@@ -140,181 +137,7 @@ public class AvroTypeUtil {
   }
 
   public static Field avroToSdcField(Record record, Schema schema, Object value) {
-    return avroToSdcField(record, "", schema, value);
-  }
-
-  private static Field avroToSdcField(Record record, String fieldPath, Schema schema, Object value) {
-    if(schema.getType() == Schema.Type.UNION) {
-      List<Schema> unionTypes = schema.getTypes();
-
-      // Special case for unions of [null, actual type]
-      if(unionTypes.size() == 2 && unionTypes.get(0).getType() == Schema.Type.NULL && value == null) {
-        Field returnField = Field.create(getFieldType(unionTypes.get(1)), null);
-
-        // We need to set field attributes propagating some schema information
-        String logicalType = unionTypes.get(1).getProp(LOGICAL_TYPE);
-        if(logicalType != null && !logicalType.isEmpty()) {
-          switch (logicalType) {
-            case LOGICAL_TYPE_DECIMAL:
-              int scale = unionTypes.get(1).getJsonProp(LOGICAL_TYPE_ATTR_SCALE).getIntValue();
-              int precision = unionTypes.get(1).getJsonProp(LOGICAL_TYPE_ATTR_PRECISION).getIntValue();
-              returnField.setAttribute(HeaderAttributeConstants.ATTR_SCALE, String.valueOf(scale));
-              returnField.setAttribute(HeaderAttributeConstants.ATTR_PRECISION, String.valueOf(precision));
-          }
-        }
-
-        return returnField;
-      }
-
-      // By default try to resolve index of the union bby the data itself
-      int typeIndex = GenericData.get().resolveUnion(schema, value);
-      schema = unionTypes.get(typeIndex);
-      record.getHeader().setAttribute(AVRO_UNION_TYPE_INDEX_PREFIX + fieldPath, String.valueOf(typeIndex));
-    }
-    if(value == null) {
-      return Field.create(getFieldType(schema), null);
-    }
-    Field f = null;
-
-    // Logical types
-    String logicalType = schema.getProp(LOGICAL_TYPE);
-    if(logicalType != null && !logicalType.isEmpty()) {
-      Field returnField = null;
-      switch (logicalType) {
-        case LOGICAL_TYPE_DECIMAL:
-          if(schema.getType() != Schema.Type.BYTES) {
-            throw new IllegalStateException("Unexpected physical type for logical decimal type: " + schema.getType());
-          }
-          int scale = schema.getJsonProp(LOGICAL_TYPE_ATTR_SCALE).getIntValue();
-          int precision = schema.getJsonProp(LOGICAL_TYPE_ATTR_PRECISION).getIntValue();
-          if (value instanceof ByteBuffer) {
-            byte[] decimalBytes = ((ByteBuffer)value).array();
-            value = bigDecimalFromBytes(decimalBytes, scale);
-          }
-          returnField = Field.create(Field.Type.DECIMAL, value);
-          returnField.setAttribute(HeaderAttributeConstants.ATTR_SCALE, String.valueOf(scale));
-          returnField.setAttribute(HeaderAttributeConstants.ATTR_PRECISION, String.valueOf(precision));
-          break;
-        case LOGICAL_TYPE_DATE:
-          if(schema.getType() != Schema.Type.INT) {
-            throw new IllegalStateException("Unexpected physical type for logical date type: " + schema.getType());
-          }
-          if (value instanceof Integer) {
-            //Convert days in integer since epoch to millis
-            long millis = daysToMillis((int)value);
-            value = new Date(millis);
-          }
-          returnField = Field.create(Field.Type.DATE, value);
-          break;
-        case LOGICAL_TYPE_TIME_MILLIS:
-          if(schema.getType() != Schema.Type.INT) {
-            throw new IllegalStateException("Unexpected physical type for logical time millis type: " + schema.getType());
-          }
-
-          returnField = Field.create(Field.Type.TIME, (long)(int)value);
-          break;
-        case LOGICAL_TYPE_TIME_MICROS:
-          if(schema.getType() != Schema.Type.LONG) {
-            throw new IllegalStateException("Unexpected physical type for logical time micros type: " + schema.getType());
-          }
-          // We don't have a better type to represent microseconds
-          returnField = Field.create(Field.Type.LONG, value);
-          break;
-        case LOGICAL_TYPE_TIMESTAMP_MILLIS:
-          if(schema.getType() != Schema.Type.LONG) {
-            throw new IllegalStateException("Unexpected physical type for logical timestamp millis type: " + schema.getType());
-          }
-          returnField = Field.create(Field.Type.DATETIME, value);
-        break;
-        case LOGICAL_TYPE_TIMESTAMP_MICROS:
-          if(schema.getType() != Schema.Type.LONG) {
-            throw new IllegalStateException("Unexpected physical type for logical timestamp micros type: " + schema.getType());
-          }
-          // We don't have a better type to represent microseconds
-          returnField = Field.create(Field.Type.LONG, value);
-          break;
-      }
-
-      if(returnField != null) {
-        returnField.setAttribute(FIELD_ATTRIBUTE_TYPE, logicalType);
-        return returnField;
-      }
-    }
-
-    // Primitive types
-    switch(schema.getType()) {
-      case ARRAY:
-        List<?> objectList = (List<?>) value;
-        List<Field> list = new ArrayList<>(objectList.size());
-        for (int i = 0; i < objectList.size(); i++) {
-          list.add(avroToSdcField(record, fieldPath + "[" + i + "]", schema.getElementType(), objectList.get(i)));
-        }
-        f = Field.create(list);
-        break;
-      case BOOLEAN:
-        f = Field.create(Field.Type.BOOLEAN, value);
-        break;
-      case BYTES:
-        f = Field.create(Field.Type.BYTE_ARRAY, ((ByteBuffer)value).array());
-        break;
-      case DOUBLE:
-        f = Field.create(Field.Type.DOUBLE, value);
-        break;
-      case ENUM:
-        f = Field.create(Field.Type.STRING, value);
-        break;
-      case FIXED:
-        f = Field.create(Field.Type.BYTE_ARRAY, ((GenericFixed)value).bytes());
-        break;
-      case FLOAT:
-        f = Field.create(Field.Type.FLOAT, value);
-        break;
-      case INT:
-        f = Field.create(Field.Type.INTEGER, value);
-        break;
-      case LONG:
-        f = Field.create(Field.Type.LONG, value);
-        break;
-      case MAP:
-        Map<Object, Object> avroMap = (Map<Object, Object>) value;
-        Map<String, Field> map = new LinkedHashMap<>();
-        for (Map.Entry<Object, Object> entry : avroMap.entrySet()) {
-          String key;
-          if (entry.getKey() instanceof Utf8) {
-            key = entry.getKey().toString();
-          } else if (entry.getKey() instanceof String) {
-            key = (String) entry.getKey();
-          } else {
-            throw new IllegalStateException(Utils.format("Unrecognized type for avro value: {}", entry.getKey()
-                .getClass().getName()));
-          }
-          map.put(key, avroToSdcField(record, fieldPath + FORWARD_SLASH + key,
-              schema.getValueType(), entry.getValue()));
-        }
-        f = Field.create(map);
-        break;
-      case NULL:
-        f = Field.create(Field.Type.MAP, null);
-        break;
-      case RECORD:
-        GenericRecord avroRecord = (GenericRecord) value;
-        LinkedHashMap<String, Field> recordMap = new LinkedHashMap<>();
-        for(Schema.Field field : schema.getFields()) {
-          Field temp = avroToSdcField(record, fieldPath + FORWARD_SLASH + field.name(), field.schema(),
-              avroRecord.get(field.name()));
-          if(temp != null) {
-            recordMap.put(field.name(), temp);
-          }
-        }
-        f = Field.createListMap(recordMap);
-        break;
-      case STRING:
-        f = Field.create(Field.Type.STRING, value.toString());
-        break;
-      default:
-        throw new IllegalStateException("Unexpected schema type " + schema.getType());
-    }
-    return f;
+    return AvroConverterCompiler.toField(schema).convert(record, value);
   }
 
   public static Object sdcRecordToAvro(
@@ -322,21 +145,20 @@ public class AvroTypeUtil {
       Schema schema,
       Map<String, Object> defaultValueMap
   ) throws StageException, IOException {
-    return sdcRecordToAvro(
-        record,
-        record.get(),
-        "",
-        schema,
-        defaultValueMap
-    );
+    return AvroConverterCompiler.toAvro(schema).convert(record, defaultValueMap);
   }
 
-  @VisibleForTesting
-  private static Object sdcRecordToAvro(
+  /**
+   * Converts a field resolving the schema against the field itself, used by {@link AvroConverterCompiler} for the
+   * unions it can't resolve from the schema alone. The properties of a record field apply to the schema of the field,
+   * they are passed along rather than added to the schema, which may be shared.
+   */
+  static Object sdcRecordToAvro(
       Record record,
       Field field,
       String avroFieldPath,
       Schema schema,
+      Map<String, JsonNode> fieldProps,
       Map<String, Object> defaultValueMap
   ) throws StageException {
 
@@ -351,6 +173,7 @@ public class AvroTypeUtil {
         // Special case where we have union of null and actual type (which is very common) - since we know that the
         // column is not null, expect the union's second type.
         schema = unionTypes.get(1);
+        fieldProps = Collections.emptyMap();
       } else {
         //Record does not have the avro union type index which means this record was not created from avro data.
         //try our best to resolve the union type.
@@ -378,11 +201,15 @@ public class AvroTypeUtil {
             schema = match;
           }
         }
+        fieldProps = Collections.emptyMap();
       }
     }
 
     // Logical types
-    String logicalType = schema.getProp(LOGICAL_TYPE);
+    JsonNode logicalTypeProp = AvroConverterCompiler.getJsonProp(schema, fieldProps, LOGICAL_TYPE);
+    String logicalType = (logicalTypeProp != null && logicalTypeProp.isTextual())
+        ? logicalTypeProp.getTextValue()
+        : null;
     if(logicalType != null && !logicalType.isEmpty()) {
       try {
         switch (logicalType) {
@@ -390,7 +217,7 @@ public class AvroTypeUtil {
             if (schema.getType() != Schema.Type.BYTES) {
               throw new IllegalStateException("Unexpected physical type for logical decimal type: " + schema.getType());
             }
-            int scale = schema.getJsonProp(LOGICAL_TYPE_ATTR_SCALE).getIntValue();
+            int scale = AvroConverterCompiler.getJsonProp(schema, fieldProps, LOGICAL_TYPE_ATTR_SCALE).getIntValue();
             return ByteBuffer.wrap(field.getValueAsDecimal().setScale(scale).unscaledValue().toByteArray());
           case LOGICAL_TYPE_DATE:
             if (schema.getType() != Schema.Type.INT) {
@@ -453,6 +280,7 @@ public class AvroTypeUtil {
                     valueAsList.get(i),
                     avroFieldPath + "[" + i + "]",
                     schema.getElementType(),
+                    Collections.emptyMap(),
                     defaultValueMap
                 )
             );
@@ -496,6 +324,7 @@ public class AvroTypeUtil {
                         e.getValue(),
                         avroFieldPath + FORWARD_SLASH + e.getKey(),
                         schema.getValueType(),
+                        Collections.emptyMap(),
                         defaultValueMap
                     )
                 );
@@ -519,14 +348,12 @@ public class AvroTypeUtil {
             if (valueAsMap.containsKey(f.name())) {
               // There is bug in avro where the f.schema() doesn't return the schema properly - all the props are missing.
               Schema fieldSchema = f.schema();
-              for(Map.Entry<String, JsonNode> entry : f.getJsonProps().entrySet()) {
-                fieldSchema.addProp(entry.getKey(), entry.getValue());
-              }
               Object v = sdcRecordToAvro(
                   record,
                   valueAsMap.get(f.name()),
                   avroFieldPath + FORWARD_SLASH + f.name(),
                   fieldSchema,
+                  f.getJsonProps(),
                   defaultValueMap
               );
               // If value in record is null and there is no default value specified, send to error.
@@ -575,7 +402,7 @@ public class AvroTypeUtil {
     return obj;
   }
 
-  private static Field.Type getFieldType(Schema schema) {
+  static Field.Type getFieldType(Schema schema) {
     String logicalType = schema.getProp(LOGICAL_TYPE);
     if(logicalType != null && !logicalType.isEmpty()) {
       switch (logicalType) {
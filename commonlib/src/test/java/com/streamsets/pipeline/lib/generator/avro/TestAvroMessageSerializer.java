@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.generator.avro;
+
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.OnRecordError;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.config.JsonMode;
+import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorException;
+import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
+import com.streamsets.pipeline.lib.generator.DataGeneratorFactoryBuilder;
+import com.streamsets.pipeline.lib.generator.DataGeneratorFormat;
+import com.streamsets.pipeline.lib.generator.RecordSerializer;
+import com.streamsets.pipeline.lib.util.AvroTypeUtil;
+import com.streamsets.pipeline.sdk.ContextInfoCreator;
+import com.streamsets.pipeline.sdk.RecordCreator;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static com.streamsets.pipeline.lib.util.AvroSchemaHelper.DEFAULT_VALUES_KEY;
+import static com.streamsets.pipeline.lib.util.AvroSchemaHelper.INCLUDE_SCHEMA_KEY;
+import static com.streamsets.pipeline.lib.util.AvroSchemaHelper.SCHEMA_KEY;
+
+public class TestAvroMessageSerializer {
+
+  private static final String AVRO_SCHEMA = "{\n"
+    +"\"type\": \"record\",\n"
+    +"\"name\": \"Employee\",\n"
+    +"\"fields\": [\n"
+    +" {\"name\": \"name\", \"type\": \"string\"},\n"
+    +" {\"name\": \"age\", \"type\": \"int\"},\n"
+    +" {\"name\": \"emails\", \"type\": {\"type\": \"array\", \"items\": \"string\"}, \"default\": []}\n"
+    +"]}";
+
+  private static final Schema SCHEMA = new Schema.Parser().parse(AVRO_SCHEMA);
+
+  private static DataGeneratorFactory createAvroFactory(boolean includeSchema) {
+    Stage.Context context = ContextInfoCreator.createTargetContext("i", false, OnRecordError.TO_ERROR);
+    return new DataGeneratorFactoryBuilder(context, DataGeneratorFormat.AVRO)
+        .setConfig(SCHEMA_KEY, AVRO_SCHEMA)
+        .setConfig(INCLUDE_SCHEMA_KEY, includeSchema)
+        .setConfig(DEFAULT_VALUES_KEY, AvroTypeUtil.getDefaultValuesFromSchema(SCHEMA, new HashSet<String>()))
+        .build();
+  }
+
+  private static Record createRecord(int i) {
+    Map<String, Field> map = new HashMap<>();
+    map.put("name", Field.create("name" + i));
+    map.put("age", Field.create(i));
+    if (i % 2 == 0) {
+      map.put("emails", Field.create(ImmutableList.of(Field.create("name" + i + "@streamsets.com"))));
+    }
+    Record record = RecordCreator.create();
+    record.set(Field.create(map));
+    return record;
+  }
+
+  private static byte[] generate(DataGeneratorFactory factory, List<Record> records) throws Exception {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (DataGenerator generator = factory.getGenerator(baos)) {
+      for (Record record : records) {
+        generator.write(record);
+      }
+    }
+    return baos.toByteArray();
+  }
+
+  @Test
+  public void testSameMessagesAsGenerator() throws Exception {
+    DataGeneratorFactory factory = createAvroFactory(false);
+    RecordSerializer serializer = factory.getRecordSerializer();
+    Assert.assertTrue(serializer instanceof AvroMessageSerializer);
+
+    for (int i = 0; i < 10; i++) {
+      Record record = createRecord(i);
+      byte[] message = serializer.serialize(record);
+      Assert.assertArrayEquals(generate(factory, ImmutableList.of(record)), message);
+
+      GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA);
+      GenericRecord read = reader.read(null, DecoderFactory.get().binaryDecoder(message, null));
+      Assert.assertEquals("name" + i, read.get("name").toString());
+      Assert.assertEquals(i, read.get("age"));
+    }
+
+    // several records in the same message
+    List<Record> records = ImmutableList.of(createRecord(1), createRecord(2), createRecord(3));
+    DataGenerator generator = serializer.getGenerator();
+    for (Record record : records) {
+      generator.write(record);
+    }
+    generator.close();
+    byte[] message = serializer.toByteArray();
+    Assert.assertArrayEquals(generate(factory, records), message);
+
+    GenericDatumReader<GenericRecord> reader = new GenericDatumReader<>(SCHEMA);
+    BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(message, null);
+    for (int i = 1; i <= 3; i++) {
+      Assert.assertEquals(i, reader.read(null, decoder).get("age"));
+    }
+    Assert.assertTrue(decoder.isEnd());
+  }
+
+  @Test(expected = IOException.class)
+  public void testWriteAfterClose() throws Exception {
+    RecordSerializer serializer = createAvroFactory(false).getRecordSerializer();
+    DataGenerator generator = serializer.getGenerator();
+    generator.close();
+    generator.write(createRecord(1));
+  }
+
+  @Test
+  public void testMessageAfterFailedMessage() throws Exception {
+    DataGeneratorFactory factory = createAvroFactory(false);
+    RecordSerializer serializer = factory.getRecordSerializer();
+    Record invalid = createRecord(2);
+    invalid.delete("/name");
+
+    // the message fails on its second record and is never closed
+    DataGenerator generator = serializer.getGenerator();
+    generator.write(createRecord(1));
+    try {
+      generator.write(invalid);
+      Assert.fail();
+    } catch (DataGeneratorException ex) {
+      // expected
+    }
+
+    Record record = createRecord(3);
+    Assert.assertArrayEquals(generate(factory, ImmutableList.of(record)), serializer.serialize(record));
+  }
+
+  @Test
+  public void testDataFileMessages() throws Exception {
+    // messages embedding the schema are not written by a reused generator
+    DataGeneratorFactory factory = createAvroFactory(true);
+    RecordSerializer serializer = factory.getRecordSerializer();
+    Assert.assertFalse(serializer instanceof AvroMessageSerializer);
+    Record record = createRecord(1);
+    Assert.assertEquals(generate(factory, ImmutableList.of(record)).length, serializer.serialize(record).length);
+  }
+
+  @Test
+  public void testReusedAcrossMessages() throws Exception {
+    Stage.Context context = ContextInfoCreator.createTargetContext("i", false, OnRecordError.TO_ERROR);
+    DataGeneratorFactory json = new DataGeneratorFactoryBuilder(context, DataGeneratorFormat.JSON)
+        .setMode(JsonMode.MULTIPLE_OBJECTS)
+        .build();
+    for (DataGeneratorFactory factory : ImmutableList.of(createAvroFactory(false), json)) {
+      RecordSerializer serializer = factory.getRecordSerializer();
+      for (int i = 0; i < 100; i++) {
+        Record record = createRecord(i);
+        if (i % 10 == 5) {
+          // larger than the buffer kept from one message to the next one
+          record.set("/name", Field.create(String.join("", Collections.nCopies(300000, "name" + i))));
+        }
+        Assert.assertArrayEquals(generate(factory, ImmutableList.of(record)), serializer.serialize(record));
+      }
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.sdk.RecordCreator;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestAvroConverterCompiler {
+
+  private static final String NODE_SCHEMA = "{\"type\": \"record\", \"name\": \"Node\", \"fields\": [" +
+      "{\"name\": \"value\", \"type\": [\"int\", \"string\"]}," +
+      "{\"name\": \"children\", \"type\": {\"type\": \"array\", \"items\": \"Node\"}}," +
+      "{\"name\": \"tags\", \"type\": {\"type\": \"map\", \"values\": [\"null\", \"long\", \"string\"]}}" +
+      "]}";
+
+  @Test
+  public void testConvertersCachedBySchema() {
+    Schema schema = new Schema.Parser().parse(NODE_SCHEMA);
+    Schema sameSchema = new Schema.Parser().parse(NODE_SCHEMA);
+    Assert.assertNotSame(schema, sameSchema);
+    Assert.assertSame(AvroConverterCompiler.toField(schema), AvroConverterCompiler.toField(sameSchema));
+    Assert.assertSame(AvroConverterCompiler.toAvro(schema), AvroConverterCompiler.toAvro(sameSchema));
+  }
+
+  @Test
+  public void testRecursiveSchemaToField() {
+    Schema schema = new Schema.Parser().parse(NODE_SCHEMA);
+    GenericRecord child = new GenericData.Record(schema);
+    child.put("value", "child");
+    child.put("children", Collections.emptyList());
+    child.put("tags", Collections.emptyMap());
+    GenericRecord root = new GenericData.Record(schema);
+    root.put("value", 1);
+    root.put("children", ImmutableList.of(child));
+    Map<String, Object> tags = new LinkedHashMap<>();
+    tags.put("a", 10L);
+    tags.put("b", null);
+    root.put("tags", tags);
+
+    Record record = RecordCreator.create();
+    record.set(AvroConverterCompiler.toField(schema).convert(record, root));
+
+    Assert.assertEquals(1, record.get("/value").getValueAsInteger());
+    Assert.assertEquals("child", record.get("/children[0]/value").getValueAsString());
+    Assert.assertEquals(10L, record.get("/tags/a").getValueAsLong());
+    Assert.assertEquals(Field.Type.MAP, record.get("/tags/b").getType());
+    Assert.assertNull(record.get("/tags/b").getValue());
+
+    // union branches are recorded at their paths
+    Assert.assertEquals("0", record.getHeader().getAttribute(AvroTypeUtil.AVRO_UNION_TYPE_INDEX_PREFIX + "/value"));
+    Assert.assertEquals(
+        "1",
+        record.getHeader().getAttribute(AvroTypeUtil.AVRO_UNION_TYPE_INDEX_PREFIX + "/children[0]/value")
+    );
+    Assert.assertEquals("1", record.getHeader().getAttribute(AvroTypeUtil.AVRO_UNION_TYPE_INDEX_PREFIX + "/tags/a"));
+    Assert.assertEquals("0", record.getHeader().getAttribute(AvroTypeUtil.AVRO_UNION_TYPE_INDEX_PREFIX + "/tags/b"));
+  }
+
+  @Test
+  public void testRecursiveSchemaToAvro() throws Exception {
+    Schema schema = new Schema.Parser().parse(NODE_SCHEMA);
+    Record record = RecordCreator.create();
+    Map<String, Field> child = ImmutableMap.of(
+        "value", Field.create("child"),
+        "children", Field.create(Collections.<Field>emptyList()),
+        "tags", Field.create(Collections.<String, Field>emptyMap())
+    );
+    record.set(Field.create(ImmutableMap.of(
+        "value", Field.create(1),
+        "children", Field.create(ImmutableList.of(Field.create(child))),
+        "tags", Field.create(ImmutableMap.of("a", Field.create(10L)))
+    )));
+
+    GenericRecord root = (GenericRecord) AvroConverterCompiler.toAvro(schema)
+        .convert(record, Collections.<String, Object>emptyMap());
+    Assert.assertEquals(1, root.get("value"));
+    GenericRecord avroChild = (GenericRecord) ((List) root.get("children")).get(0);
+    Assert.assertEquals("child", avroChild.get("value"));
+    Assert.assertEquals(ImmutableMap.of("a", 10L), root.get("tags"));
+    Assert.assertTrue(GenericData.get().validate(schema, root));
+  }
+
+  @Test
+  public void testFieldLogicalTypeToAvro() throws Exception {
+    // logical type given on the record field rather than on its type
+    Schema schema = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"R\", \"fields\": [" +
+        "{\"name\": \"d\", \"type\": \"bytes\", \"logicalType\": \"decimal\", \"precision\": 3, \"scale\": 2}]}");
+    String schemaJson = schema.toString();
+    Record record = RecordCreator.create();
+    record.set(Field.create(ImmutableMap.of("d", Field.create(new BigDecimal("1.5")))));
+
+    GenericRecord avroRecord = (GenericRecord) AvroConverterCompiler.toAvro(schema)
+        .convert(record, Collections.<String, Object>emptyMap());
+    Assert.assertEquals(new BigDecimal("1.50"), AvroTypeUtil.bigDecimalFromBytes(
+        ((ByteBuffer) avroRecord.get("d")).array(),
+        2
+    ));
+    // the schema is not modified
+    Assert.assertEquals(schemaJson, schema.toString());
+  }
+
+  @Test
+  public void testDecimalWithoutScaleFailsOnConversion() throws Exception {
+    // a missing scale doesn't stop the converter from compiling, only the values that need it fail
+    Schema schema = new Schema.Parser().parse("{\"type\": \"record\", \"name\": \"R\", \"fields\": [" +
+        "{\"name\": \"d\", \"type\": [\"null\", {\"type\": \"bytes\", \"logicalType\": \"decimal\"}]}]}");
+    AvroConverterCompiler.FieldConverter converter = AvroConverterCompiler.toField(schema);
+
+    GenericRecord avroRecord = new GenericData.Record(schema);
+    avroRecord.put("d", null);
+    Record record = RecordCreator.create();
+    try {
+      converter.convert(record, avroRecord);
+      Assert.fail();
+    } catch (NullPointerException ex) {
+      // same as converting the value with the schema directly
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import org.apache.avro.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAvroSchemaCache {
+
+  private static final String SCHEMA = "{\"type\": \"record\", \"name\": \"CacheTest\", \"fields\": [" +
+      "{\"name\": \"a\", \"type\": \"string\", \"default\": \"x\"}," +
+      "{\"name\": \"d\", \"type\": {\"type\": \"bytes\", \"logicalType\": \"decimal\", \"precision\": 3, \"scale\": 2}}" +
+      "]}";
+
+  @Test
+  public void testSharedJson() {
+    Schema schema = new Schema.Parser().parse(SCHEMA);
+    String json = AvroSchemaCache.getJson(schema);
+    Assert.assertEquals(schema.toString(), json);
+    Assert.assertSame(json, AvroSchemaCache.getJson(schema));
+    // equal schemas parsed separately share the JSON
+    Assert.assertSame(json, AvroSchemaCache.getJson(new Schema.Parser().parse(SCHEMA)));
+  }
+
+  @Test
+  public void testEntry() throws Exception {
+    Schema schema = new Schema.Parser().parse(SCHEMA);
+    String json = AvroSchemaCache.getJson(schema);
+
+    AvroSchemaCache.Entry entry = AvroSchemaCache.getEntry(json);
+    Assert.assertSame(entry, AvroSchemaCache.getEntry(new String(json)));
+    Assert.assertEquals(schema, entry.getSchema());
+    Assert.assertEquals("x", entry.getDefaultValues().get("CacheTest.a"));
+    Assert.assertSame(entry.getDefaultValues(), entry.getDefaultValues());
+
+    Assert.assertEquals(AvroSchemaCache.fingerprint(json), entry.getFingerprint());
+    Assert.assertEquals(entry.getFingerprint(), AvroSchemaCache.getFingerprint(json));
+    Assert.assertEquals(entry.getFingerprint(), AvroSchemaCache.getFingerprint(new String(json)));
+  }
+
+  @Test
+  public void testFingerprintCoversLogicalTypes() {
+    String other = SCHEMA.replace("\"scale\": 2", "\"scale\": 1");
+    Assert.assertNotEquals(AvroSchemaCache.fingerprint(SCHEMA), AvroSchemaCache.fingerprint(other));
+    Assert.assertNotSame(
+        AvroSchemaCache.getJson(new Schema.Parser().parse(SCHEMA)),
+        AvroSchemaCache.getJson(new Schema.Parser().parse(other))
+    );
+  }
+
+  @Test
+  public void testFingerprintCollision() throws Exception {
+    String other = SCHEMA.replace("CacheTest", "CollisionTest");
+    long fingerprint = AvroSchemaCache.fingerprint(SCHEMA) + 1;
+
+    AvroSchemaCache.Entry first = AvroSchemaCache.register(fingerprint, SCHEMA, null);
+    AvroSchemaCache.Entry second = AvroSchemaCache.register(fingerprint, other, null);
+    Assert.assertNotSame(first, second);
+    Assert.assertSame(other, second.getJson());
+    Assert.assertEquals("CollisionTest", second.getSchema().getName());
+    Assert.assertEquals("CacheTest", first.getSchema().getName());
+    Assert.assertSame(first, AvroSchemaCache.register(fingerprint, SCHEMA, null));
+  }
+}
@@ -15,12 +15,15 @@
  */
 package com.streamsets.datacollector.el;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.streamsets.datacollector.definition.ELDefinitionExtractor;
 import com.streamsets.datacollector.util.ContainerCommonError;
 import com.streamsets.pipeline.api.el.ELEval;
 import com.streamsets.pipeline.api.el.ELEvalException;
 import com.streamsets.pipeline.api.el.ELVars;
 import com.streamsets.pipeline.api.impl.Utils;
+import org.apache.commons.el.ExpressionCompiler;
 import org.apache.commons.el.LruExpressionEvaluatorImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,8 +47,32 @@ public class ELEvaluator extends ELEval {
   private final List<ElConstantDefinition> elConstantDefinitions;
   private final ELDefinitionExtractor elDefinitionExtractor;
 
-  // ExpressionEvaluatorImpl can be used as a singleton
-  private static final LruExpressionEvaluatorImpl EVALUATOR = new LruExpressionEvaluatorImpl();
+  private static final int MAX_PARSED_EXPRESSIONS = 5000;
+
+  // ExpressionEvaluatorImpl can be used as a singleton, we keep the parsed expressions on our own
+  private static final LruExpressionEvaluatorImpl EVALUATOR = new LruExpressionEvaluatorImpl(true);
+
+  // Parsed expressions are immutable and shared by all evaluators, cache hits do not lock
+  private static final Cache<String, Object> PARSED_EXPRESSIONS = CacheBuilder.newBuilder()
+      .maximumSize(MAX_PARSED_EXPRESSIONS)
+      .concurrencyLevel(Runtime.getRuntime().availableProcessors())
+      .build();
+
+  // Whether expressions are compiled into direct function calls or evaluated by the commons-el interpreter
+  private static final boolean COMPILE_EXPRESSIONS = Boolean.parseBoolean(
+      System.getProperty("com.streamsets.datacollector.el.ELEvaluator.compile", "true")
+  );
+
+  private static final int MAX_COMPILED_EXPRESSIONS = 1000;
+
+  // Compiled expressions are bound to the functions of this evaluator
+  private final Cache<String, CompiledExpression> compiledExpressions = CacheBuilder.newBuilder()
+      .maximumSize(MAX_COMPILED_EXPRESSIONS)
+      .build();
+
+  // Only ELEval.eval() puts the variables in scope, CompiledExpression.evaluate() hands itself over to evaluate()
+  // through this thread local rather than being looked up again by its string
+  private static final ThreadLocal<CompiledExpression> EVALUATING = new ThreadLocal<>();
 
   public ELEvaluator(String configName, boolean explicit, Map<String, Object> constants, ELDefinitionExtractor elDefinitionExtractor, List<Class> elFuncConstDefClasses) {
     this(configName, explicit, constants, elDefinitionExtractor, elFuncConstDefClasses.toArray(new Class[elFuncConstDefClasses.size()]));
@@ -116,48 +143,157 @@ public class ELEvaluator extends ELEval {
     return new ELVariables(constants);
   }
 
+  private static Object parse(String expression) throws ELException {
+    Object parsed = PARSED_EXPRESSIONS.getIfPresent(expression);
+    if (parsed == null) {
+      parsed = EVALUATOR.parseExpressionString(expression);
+      PARSED_EXPRESSIONS.put(expression, parsed);
+    }
+    return parsed;
+  }
+
   public static void parseEL(String el) throws ELEvalException {
     try {
-      EVALUATOR.parseExpressionString(el);
+      parse(el);
     } catch (ELException e) {
       LOG.debug("Error parsering EL '{}': {}", el, e.toString(), e);
       throw new ELEvalException(ContainerCommonError.CTRCMN_0101, el, e.toString(), e);
     }
   }
 
+  private CompiledExpression getCompiledExpression(String expression) throws ELException {
+    CompiledExpression compiled = compiledExpressions.getIfPresent(expression);
+    if (compiled == null) {
+      Object parsed = parse(expression);
+      ExpressionCompiler.Node node = COMPILE_EXPRESSIONS
+          ? ExpressionCompiler.compile(parsed, functionMapper)
+          : ExpressionCompiler.interpret(parsed, functionMapper);
+      compiled = new CompiledExpression(expression, node);
+      compiledExpressions.put(expression, compiled);
+    }
+    return compiled;
+  }
+
+  /**
+   * Parses and compiles the given expression once so that it can be evaluated many times. The returned expression is
+   * bound to this evaluator constants and functions and it can be evaluated concurrently.
+   */
+  public CompiledExpression compile(String expression) throws ELEvalException {
+    try {
+      return getCompiledExpression(expression);
+    } catch (ELException e) {
+      LOG.debug("Error parsering EL '{}': {}", expression, e.toString(), e);
+      throw new ELEvalException(ContainerCommonError.CTRCMN_0101, expression, e.toString(), e);
+    }
+  }
+
   @Override
-  @SuppressWarnings("unchecked")
   public <T> T evaluate (final ELVars vars, String expression, Class<T> returnType) throws ELEvalException {
-    VariableResolver variableResolver = new VariableResolver() {
-
-      @Override
-      public Object resolveVariable(String name) throws ELException {
-        Object value = constants.get(name);
-        if (!vars.hasVariable(name)) {
-          if (value == null && !constants.containsKey(name)) {
-            throw new ELException(Utils.format("Constants/Variable '{}' cannot be resolved", name));
-          }
-        } else {
-          value = vars.getVariable(name);
-        }
-        return value;
+    CompiledExpression compiled = EVALUATING.get();
+    if (compiled != null && compiled.expression == expression) {
+      // clear it right away, EL functions may evaluate other expressions
+      EVALUATING.remove();
+    } else {
+      try {
+        compiled = getCompiledExpression(expression);
+      } catch (ELException e) {
+        throw toELEvalException(expression, e);
       }
-    };
-    try {
-      return (T) EVALUATOR.evaluate(expression, returnType, variableResolver, functionMapper);
-    } catch (ELException e) {
-      // Apache evaluator is not using the getCause exception chaining that is available in Java but rather a custom
-      // chaining mechanism. This doesn't work well for us as we're effectively swallowing the cause that is not
-      // available in log, ...
-      Throwable t = e;
-      if(e.getRootCause() != null) {
-        t = e.getRootCause();
-        if(e.getCause() == null) {
-          e.initCause(t);
+    }
+    return compiled.evaluateInScope(vars, returnType);
+  }
+
+  private static ELEvalException toELEvalException(String expression, ELException e) {
+    // Apache evaluator is not using the getCause exception chaining that is available in Java but rather a custom
+    // chaining mechanism. This doesn't work well for us as we're effectively swallowing the cause that is not
+    // available in log, ...
+    Throwable t = e;
+    if(e.getRootCause() != null) {
+      t = e.getRootCause();
+      if(e.getCause() == null) {
+        e.initCause(t);
+      }
+    }
+    LOG.debug("Error valuating EL '{}': {}", expression, e.toString(), e);
+    return new ELEvalException(ContainerCommonError.CTRCMN_0100, expression, t.toString(), e);
+  }
+
+  private VariableResolver getVariableResolver(ELVars vars) {
+    if (vars instanceof ELVariables) {
+      // the resolver is kept by the variables as long as they are evaluated by the same evaluator
+      return ((ELVariables) vars).getVariableResolver(this);
+    }
+    return new VariableResolverImpl(this, vars);
+  }
+
+  /**
+   * Resolves variables first from the given variables and then from the evaluator constants.
+   */
+  static class VariableResolverImpl implements VariableResolver {
+    private final ELEvaluator evaluator;
+    private final ELVars vars;
+
+    VariableResolverImpl(ELEvaluator evaluator, ELVars vars) {
+      this.evaluator = evaluator;
+      this.vars = vars;
+    }
+
+    ELEvaluator getEvaluator() {
+      return evaluator;
+    }
+
+    @Override
+    public Object resolveVariable(String name) throws ELException {
+      Object value = evaluator.constants.get(name);
+      if (!vars.hasVariable(name)) {
+        if (value == null && !evaluator.constants.containsKey(name)) {
+          throw new ELException(Utils.format("Constants/Variable '{}' cannot be resolved", name));
         }
+      } else {
+        value = vars.getVariable(name);
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Expression compiled by {@link #compile(String)}, it is immutable and can be evaluated concurrently.
+   */
+  public class CompiledExpression {
+    private final String expression;
+    private final ExpressionCompiler.Node node;
+
+    private CompiledExpression(String expression, ExpressionCompiler.Node node) {
+      this.expression = expression;
+      this.node = node;
+    }
+
+    public String getExpression() {
+      return expression;
+    }
+
+    public <T> T evaluate(ELVars vars, Class<T> returnType) throws ELEvalException {
+      // goes through eval() so that the variables are in scope for the EL functions
+      EVALUATING.set(this);
+      try {
+        return eval(vars, expression, returnType);
+      } finally {
+        EVALUATING.remove();
       }
-      LOG.debug("Error valuating EL '{}': {}", expression, e.toString(), e);
-      throw new ELEvalException(ContainerCommonError.CTRCMN_0100, expression, t.toString(), e);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T evaluateInScope(ELVars vars, Class<T> returnType) throws ELEvalException {
+      try {
+        return (T) ExpressionCompiler.coerce(node.evaluate(getVariableResolver(vars)), returnType);
+      } catch (ELException e) {
+        throw toELEvalException(expression, e);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return Utils.format("CompiledExpression[expression='{}']", expression);
     }
   }
 
@@ -19,6 +19,7 @@ import com.streamsets.pipeline.api.el.ELVars;
 import com.streamsets.pipeline.api.impl.TextUtils;
 import com.streamsets.pipeline.api.impl.Utils;
 
+import javax.servlet.jsp.el.VariableResolver;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -28,6 +29,7 @@ public class ELVariables implements ELVars {
   private final Map<String, Object> constants;
   private final Map<String, Object> variables;
   private final Map<String, Object> contextVariables;
+  private ELEvaluator.VariableResolverImpl variableResolver;
 
   @SuppressWarnings("unchecked")
   public ELVariables() {
@@ -89,4 +91,14 @@ public class ELVariables implements ELVars {
     checkVariableName(name);
     return contextVariables.get(name);
   }
+
+  // reuses the resolver as long as the variables are evaluated by the same evaluator
+  VariableResolver getVariableResolver(ELEvaluator evaluator) {
+    ELEvaluator.VariableResolverImpl resolver = variableResolver;
+    if (resolver == null || resolver.getEvaluator() != evaluator) {
+      resolver = new ELEvaluator.VariableResolverImpl(evaluator, this);
+      variableResolver = resolver;
+    }
+    return resolver;
+  }
 }
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.el;
+
+import javax.servlet.jsp.el.ELException;
+import javax.servlet.jsp.el.FunctionMapper;
+import javax.servlet.jsp.el.VariableResolver;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * StreamSets specific compiler that turns expressions parsed by commons-el into a tree of nodes bound to the
+ * functions of a FunctionMapper. Functions are resolved once and invoked through method handles with their argument
+ * coercions precomputed, rather than being resolved and reflectively invoked on every evaluation.
+ * <p/>
+ * Literals, variables, function invocations, binary operators, conditionals and composite strings are compiled, any
+ * other part of an expression (unary operators, property and array accessors, functions that can't be resolved) is
+ * evaluated by the commons-el interpreter.
+ */
+@SuppressWarnings("unchecked")
+public class ExpressionCompiler {
+
+  private static final Logger EL_LOGGER = new Logger(System.out);
+
+  /**
+   * Compiled expression, it is immutable and can be evaluated concurrently.
+   */
+  public interface Node {
+    Object evaluate(VariableResolver resolver) throws ELException;
+  }
+
+  private ExpressionCompiler() {
+  }
+
+  /**
+   * Compiles an expression returned by {@link ExpressionEvaluatorImpl#parseExpressionString(String)}.
+   */
+  public static Node compile(Object parsedExpression, FunctionMapper functions) throws ELException {
+    if (parsedExpression instanceof String) {
+      return new ConstantNode(parsedExpression);
+    } else if (parsedExpression instanceof Expression) {
+      return compileExpression((Expression) parsedExpression, functions);
+    } else if (parsedExpression instanceof ExpressionString) {
+      Object[] elements = ((ExpressionString) parsedExpression).getElements();
+      Node[] nodes = new Node[elements.length];
+      for (int i = 0; i < elements.length; i++) {
+        nodes[i] = compile(elements[i], functions);
+      }
+      return new ConcatNode(nodes);
+    }
+    throw new ELException("Unexpected parsed expression type: " + parsedExpression);
+  }
+
+  /**
+   * Returns a node that evaluates the given parsed expression with the commons-el interpreter.
+   */
+  public static Node interpret(final Object parsedExpression, final FunctionMapper functions) throws ELException {
+    if (parsedExpression instanceof String) {
+      return new ConstantNode(parsedExpression);
+    } else if (parsedExpression instanceof Expression) {
+      return new InterpretedNode((Expression) parsedExpression, functions);
+    } else if (parsedExpression instanceof ExpressionString) {
+      return resolver -> ((ExpressionString) parsedExpression).evaluate(resolver, functions, EL_LOGGER);
+    }
+    throw new ELException("Unexpected parsed expression type: " + parsedExpression);
+  }
+
+  public static Object coerce(Object value, Class expectedType) throws ELException {
+    return Coercions.coerce(value, expectedType, EL_LOGGER);
+  }
+
+  private static Node compileExpression(Expression expression, FunctionMapper functions) throws ELException {
+    if (expression instanceof Literal) {
+      return new ConstantNode(((Literal) expression).getValue());
+    } else if (expression instanceof NamedValue) {
+      return new VariableNode(((NamedValue) expression).getName());
+    } else if (expression instanceof FunctionInvocation) {
+      return compileFunction((FunctionInvocation) expression, functions);
+    } else if (expression instanceof BinaryOperatorExpression) {
+      BinaryOperatorExpression binary = (BinaryOperatorExpression) expression;
+      List<BinaryOperator> operators = binary.getOperators();
+      List<Expression> operands = binary.getExpressions();
+      Node[] nodes = new Node[operands.size()];
+      for (int i = 0; i < nodes.length; i++) {
+        nodes[i] = compileExpression(operands.get(i), functions);
+      }
+      return new BinaryNode(
+          compileExpression(binary.getExpression(), functions),
+          operators.toArray(new BinaryOperator[operators.size()]),
+          nodes
+      );
+    } else if (expression instanceof ConditionalExpression) {
+      ConditionalExpression conditional = (ConditionalExpression) expression;
+      return new ConditionalNode(
+          compileExpression(conditional.getCondition(), functions),
+          compileExpression(conditional.getTrueBranch(), functions),
+          compileExpression(conditional.getFalseBranch(), functions)
+      );
+    }
+    return new InterpretedNode(expression, functions);
+  }
+
+  private static Node compileFunction(FunctionInvocation invocation, FunctionMapper functions) throws ELException {
+    String name = invocation.getFunctionName();
+    int index = name.indexOf(':');
+    String prefix = (index == -1) ? "" : name.substring(0, index);
+    String localName = (index == -1) ? name : name.substring(index + 1);
+    Method method = functions.resolveFunction(prefix, localName);
+    List<Expression> arguments = invocation.getArgumentList();
+    if (method == null || method.getParameterTypes().length != arguments.size()) {
+      // let the interpreter report the error when evaluated
+      return new InterpretedNode(invocation, functions);
+    }
+    MethodHandle handle;
+    try {
+      handle = MethodHandles.publicLookup().unreflect(method)
+          .asType(MethodType.genericMethodType(arguments.size()))
+          .asSpreader(Object[].class, arguments.size());
+    } catch (IllegalAccessException ex) {
+      return new InterpretedNode(invocation, functions);
+    }
+    Node[] nodes = new Node[arguments.size()];
+    for (int i = 0; i < nodes.length; i++) {
+      nodes[i] = compileExpression(arguments.get(i), functions);
+    }
+    return new FunctionNode(name, handle, method.getParameterTypes(), nodes);
+  }
+
+  private static class ConstantNode implements Node {
+    private final Object value;
+
+    ConstantNode(Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public Object evaluate(VariableResolver resolver) {
+      return value;
+    }
+  }
+
+  private static class VariableNode implements Node {
+    private final String name;
+
+    VariableNode(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public Object evaluate(VariableResolver resolver) throws ELException {
+      return resolver.resolveVariable(name);
+    }
+  }
+
+  private static class InterpretedNode implements Node {
+    private final Expression expression;
+    private final FunctionMapper functions;
+
+    InterpretedNode(Expression expression, FunctionMapper functions) {
+      this.expression = expression;
+      this.functions = functions;
+    }
+
+    @Override
+    public Object evaluate(VariableResolver resolver) throws ELException {
+      return expression.evaluate(resolver, functions, EL_LOGGER);
+    }
+  }
+
+  private static class ConcatNode implements Node {
+    private final Node[] nodes;
+
+    ConcatNode(Node[] nodes) {
+      this.nodes = nodes;
+    }
+
+    @Override
+    public Object evaluate(VariableResolver resolver) throws ELException {
+      StringBuilder sb = new StringBuilder();
+      for (Node node : nodes) {
+        Object value = node.evaluate(resolver);
+        if (value != null) {
+          sb.append(value.toString());
+        }
+      }
+      return sb.toString();
+    }
+  }
+
+  private static class BinaryNode implements Node {
+    private final Node first;
+    private final BinaryOperator[] operators;
+    private final Node[] operands;
+
+    BinaryNode(Node first, BinaryOperator[] operators, Node[] operands) {
+      this.first = first;
+      this.operators = operators;
+      this.operands = operands;
+    }
+
+    @Override
+    public Object evaluate(VariableResolver resolver) throws ELException {
+      Object value = first.evaluate(resolver);
+      for (int i = 0; i < operators.length; i++) {
+        BinaryOperator operator = operators[i];
+        // and/or operators coerce to boolean before deciding whether the right side has to be evaluated at all
+        if (operator.shouldCoerceToBoolean()) {
+          value = Coercions.coerceToBoolean(value, EL_LOGGER);
+        }
+        if (operator.shouldEvaluate(value)) {
+          value = operator.apply(value, operands[i].evaluate(resolver), EL_LOGGER);
+        }
+      }
+      return value;
+    }
+  }
+
+  private static class ConditionalNode implements Node {
+    private final Node condition;
+    private final Node trueBranch;
+    private final Node falseBranch;
+
+    ConditionalNode(Node condition, Node trueBranch, Node falseBranch) {
+      this.condition = condition;
+      this.trueBranch = trueBranch;
+      this.falseBranch = falseBranch;
+    }
+
+    @Override
+    public Object evaluate(VariableResolver resolver) throws ELException {
+      if (Coercions.coerceToBoolean(condition.evaluate(resolver), EL_LOGGER)) {
+        return trueBranch.evaluate(resolver);
+      }
+      return falseBranch.evaluate(resolver);
+    }
+  }
+
+  private static class FunctionNode implements Node {
+    private final String name;
+    private final MethodHandle handle;
+    private final Class[] parameterTypes;
+    private final Node[] arguments;
+
+    FunctionNode(String name, MethodHandle handle, Class[] parameterTypes, Node[] arguments) {
+      this.name = name;
+      this.handle = handle;
+      this.parameterTypes = parameterTypes;
+      this.arguments = arguments;
+    }
+
+    @Override
+    public Object evaluate(VariableResolver resolver) throws ELException {
+      Object[] values = new Object[arguments.length];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = Coercions.coerce(arguments[i].evaluate(resolver), parameterTypes[i], EL_LOGGER);
+      }
+      try {
+        return (Object) handle.invokeExact(values);
+      } catch (Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new ELException("Error invoking function '" + name + "'", e);
+      }
+    }
+  }
+}
@@ -60,4 +60,15 @@ public class LruExpressionEvaluatorImpl extends ExpressionEvaluatorImpl {
     thread.start();
   }
 
+  public LruExpressionEvaluatorImpl() {
+  }
+
+  /**
+   * @param bypassCache if true, parsed expressions are not kept in the static (synchronized) caches. It is meant for
+   * callers that keep parsed expressions on their own.
+   */
+  public LruExpressionEvaluatorImpl(boolean bypassCache) {
+    super(bypassCache);
+  }
+
 }
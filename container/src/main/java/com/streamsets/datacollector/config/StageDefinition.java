@@ -472,6 +472,14 @@ public class StageDefinition implements PrivateClassLoaderDefinition {
     return recordsByRef;
   }
 
+  /**
+   * Whether this is a processor that its stage library declared stateless, such processors can process chunks of the
+   * same batch in parallel.
+   */
+  public boolean isStateless() {
+    return type == StageType.PROCESSOR && libraryDefinition != null && libraryDefinition.isStageStateless(klass);
+  }
+
   public StageUpgrader getUpgrader() {
     return upgrader;
   }
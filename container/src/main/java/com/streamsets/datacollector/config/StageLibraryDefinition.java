@@ -24,18 +24,23 @@ import com.streamsets.pipeline.api.ExecutionMode;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 public class StageLibraryDefinition {
   @VisibleForTesting
   public static final String EXECUTION_MODE_PREFIX = "execution.mode_";
+  @VisibleForTesting
+  public static final String STATELESS_PREFIX = "stateless_";
 
   private ClassLoader classLoader;
   private String name;
   private String label;
   private Map<String, List<ExecutionMode>> stagesExecutionMode;
+  private Set<String> statelessStages;
   private String version;
 
   private final List<Class> elDefs;
@@ -50,6 +55,7 @@ public class StageLibraryDefinition {
     this.name =  name;
     this.label = label;
     this.stagesExecutionMode = new HashMap<>();
+    this.statelessStages = new HashSet<>();
     for (Map.Entry entry : props.entrySet()) {
       String key = (String) entry.getKey();
       if (key.startsWith(EXECUTION_MODE_PREFIX)) {
@@ -61,6 +67,9 @@ public class StageLibraryDefinition {
         }
         stagesExecutionMode.put(className, executionModes);
       }
+      if (key.startsWith(STATELESS_PREFIX) && Boolean.parseBoolean(((String) entry.getValue()).trim())) {
+        statelessStages.add(key.substring(STATELESS_PREFIX.length()));
+      }
     }
     this.elDefs = new ArrayList<>();
     if (elDefs != null) {
@@ -107,6 +116,14 @@ public class StageLibraryDefinition {
     return stagesExecutionMode.get(klass.getName());
   }
 
+  /**
+   * Whether the library declares that the given processor keeps no state between records, so that chunks of one batch
+   * can be processed by the same stage instance concurrently.
+   */
+  public boolean isStageStateless(Class klass) {
+    return statelessStages.contains(klass.getName());
+  }
+
   public List<Class> getElDefs() {
     return elDefs;
   }
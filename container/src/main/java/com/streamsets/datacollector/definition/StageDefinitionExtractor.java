@@ -194,7 +194,20 @@ public abstract class StageDefinitionExtractor {
   }
 
   public StageDefinition extract(StageLibraryDefinition libraryDef, Class<? extends Stage> klass, Object contextMsg) {
-    List<ErrorMessage> errors = validate(libraryDef, klass, contextMsg);
+    return extract(libraryDef, klass, contextMsg, true);
+  }
+
+  /**
+   * Extracts the stage definition, skipping the validation of the stage class when it is already known to be valid,
+   * e.g. because the stage library didn't change since its definitions were last validated.
+   */
+  public StageDefinition extract(
+      StageLibraryDefinition libraryDef,
+      Class<? extends Stage> klass,
+      Object contextMsg,
+      boolean validate
+  ) {
+    List<ErrorMessage> errors = validate ? validate(libraryDef, klass, contextMsg) : new ArrayList<>();
     if (errors.isEmpty()) {
       try {
         contextMsg = Utils.formatL("{} Stage='{}'", contextMsg, klass.getSimpleName());
@@ -134,6 +134,21 @@ public class PipelineEL {
     CONSTANTS_IN_SCOPE_TL.set(variablesInScope);
   }
 
+  /**
+   * Returns a copy of the constants set in the context of the current thread, see
+   * {@link #restoreConstantsInContext(Map)}.
+   */
+  public static Map<String, Object> copyConstantsInContext() {
+    return new HashMap<>(CONSTANTS_IN_SCOPE_TL.get());
+  }
+
+  /**
+   * Sets constants copied from the context of another thread in the context of the current thread.
+   */
+  public static void restoreConstantsInContext(Map<String, Object> constants) {
+    CONSTANTS_IN_SCOPE_TL.get().putAll(constants);
+  }
+
   public static void unsetConstantsInContext() {
     Map<String, Object>  variablesInScope = CONSTANTS_IN_SCOPE_TL.get();
     variablesInScope.remove(PipelineEL.SDC_PIPELINE_VERSION_VAR);
@@ -60,6 +60,13 @@ public class DataRuleEvaluator {
 
   private static final Map<String,Map<String, List<String>>> DATA_RULES_EL_DEFS = createDataRulesElDefs();
 
+  // evaluators keep the compiled expressions, they are shared by all the rules instead of being created per record
+  private static final Map<String, ELEvaluator> CONDITION_EL_EVALUATORS = createConditionElEvaluators();
+  private static final ELEvaluator ALERT_TEXT_EL_EVALUATOR = new ELEvaluator(
+      "alertInfo", false, ConcreteELDefinitionExtractor.get(),
+      RuleELRegistry.getRuleELs(RuleELRegistry.ALERT)
+  );
+
   public static final String PIPELINE_CONTEXT = "PIPELINE";
   public static final String RULE_ID_CONTEXT = "RULE_ID";
 
@@ -88,6 +95,17 @@ public class DataRuleEvaluator {
     return idx;
   }
 
+  private static Map<String, ELEvaluator> createConditionElEvaluators() {
+    Map<String, ELEvaluator> evaluators = new HashMap<>();
+    for (String family : RuleELRegistry.getFamilies()) {
+      evaluators.put(
+          family,
+          new ELEvaluator("el", false, ConcreteELDefinitionExtractor.get(), RuleELRegistry.getRuleELs(family))
+      );
+    }
+    return evaluators;
+  }
+
   private static Map<String,Map<String, List<String>>> createDataRulesElDefs() {
     Map<String,Map<String, List<String>>> defs = new HashMap<>();
     for (String setName : RuleELRegistry.getFamilies()) {
@@ -296,12 +314,7 @@ public class DataRuleEvaluator {
   @VisibleForTesting
   boolean evaluate(ELVariables elVars, Record record, String el, String id) {
     try {
-      return AlertsUtil.evaluateRecord(
-        record,
-        el,
-        elVars,
-        new ELEvaluator("el",false, ConcreteELDefinitionExtractor.get(), RuleELRegistry.getRuleELs(dataRuleDefinition.getFamily()))
-      );
+      return AlertsUtil.evaluateRecord(record, el, elVars, CONDITION_EL_EVALUATORS.get(dataRuleDefinition.getFamily()));
     } catch (ObserverException e) {
       //A faulty condition should not take down rest of the alerts with it.
       //Log and it and continue for now
@@ -322,10 +335,9 @@ public class DataRuleEvaluator {
         alertText = "";
       }
 
-      ELEvaluator elEval = new ELEvaluator("alertInfo",false, ConcreteELDefinitionExtractor.get(), RuleELRegistry.getRuleELs(RuleELRegistry.ALERT));
       RecordEL.setRecordInContext(elVars, record);
 
-      return elEval.eval(elVars, alertText, String.class);
+      return ALERT_TEXT_EL_EVALUATOR.eval(elVars, alertText, String.class);
 
     } catch (ELEvalException e) {
       //A faulty el alerttext should not take down rest of the alerts with it.
@@ -26,6 +26,16 @@ public class Constants {
   public static final String PIPELINE_CLUSTER_TOKEN_KEY = "pipeline.cluster.token";
   public static final String MAX_BATCH_SIZE_KEY = "production.maxBatchSize";
   public static final int MAX_BATCH_SIZE_DEFAULT = 1000;
+  public static final String PIPELINE_SEGMENTS_KEY = "production.pipelineSegments";
+  public static final int PIPELINE_SEGMENTS_DEFAULT = 1;
+  public static final String SEGMENT_QUEUE_SIZE_KEY = "production.segmentQueueSize";
+  public static final int SEGMENT_QUEUE_SIZE_DEFAULT = 2;
+  public static final String OFFSET_STORE_KEY = "production.offsetStore";
+  public static final String OFFSET_STORE_FILE = "file";
+  public static final String OFFSET_STORE_LOG = "log";
+  public static final String OFFSET_STORE_DEFAULT = OFFSET_STORE_FILE;
+  public static final String OFFSET_LOG_COMPACTION_ENTRIES_KEY = "production.offsetLogCompactionEntries";
+  public static final int OFFSET_LOG_COMPACTION_ENTRIES_DEFAULT = 10000;
   public static final String DELIVERY_GUARANTEE = "deliveryGuarantee";
   public static final String MAX_ERROR_FILE_SIZE_KEY = "production.maxErrorFileSize";
   public static final String MAX_ERROR_FILE_SIZE_DEFAULT = "1024MB";
@@ -111,6 +111,11 @@ public class ProductionObserver implements Observer {
     }
   }
 
+  @Override
+  public boolean isReconfigurationPending() {
+    return currentConfig != newConfig;
+  }
+
   @Override
   public boolean isObserving(List<String> lanes) {
     if(currentConfig != null && currentConfig.getLaneToDataRuleMap() != null) {
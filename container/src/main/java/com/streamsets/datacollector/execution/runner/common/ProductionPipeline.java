@@ -199,6 +199,9 @@ public class ProductionPipeline {
         }
       }
     } finally {
+      if (pipelineRunner.getOffSetTracker() != null) {
+        pipelineRunner.getOffSetTracker().close();
+      }
       MetricsConfigurator.cleanUpJmxMetrics(name, rev);
     }
   }
@@ -26,6 +26,7 @@ import com.streamsets.datacollector.runner.PipelineRuntimeException;
 import com.streamsets.datacollector.runner.SourceOffsetTracker;
 import com.streamsets.datacollector.runner.UserContext;
 import com.streamsets.datacollector.runner.production.ProductionSourceOffsetCommitterOffsetTracker;
+import com.streamsets.datacollector.runner.production.ProductionSourceOffsetLogTracker;
 import com.streamsets.datacollector.runner.production.ProductionSourceOffsetTracker;
 import com.streamsets.datacollector.stagelibrary.StageLibraryTask;
 import com.streamsets.datacollector.usagestats.StatsCollector;
@@ -121,6 +122,17 @@ public class ProductionPipelineBuilder {
     if (pipeline.getSource() instanceof OffsetCommitter) {
       sourceOffsetTracker = new ProductionSourceOffsetCommitterOffsetTracker(name, rev, runtimeInfo,
         (OffsetCommitter) pipeline.getSource());
+    } else if (Constants.OFFSET_STORE_LOG.equals(
+        configuration.get(Constants.OFFSET_STORE_KEY, Constants.OFFSET_STORE_DEFAULT))) {
+      sourceOffsetTracker = new ProductionSourceOffsetLogTracker(
+          name,
+          rev,
+          runtimeInfo,
+          configuration.get(
+              Constants.OFFSET_LOG_COMPACTION_ENTRIES_KEY,
+              Constants.OFFSET_LOG_COMPACTION_ENTRIES_DEFAULT
+          )
+      );
     } else {
       sourceOffsetTracker = new ProductionSourceOffsetTracker(name, rev, runtimeInfo);
     }
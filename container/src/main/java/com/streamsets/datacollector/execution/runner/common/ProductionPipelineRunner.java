@@ -29,6 +29,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.RateLimiter;
 import com.streamsets.datacollector.bundles.SupportBundleManager;
+import com.streamsets.datacollector.config.ErrorRecordPolicy;
 import com.streamsets.datacollector.config.PipelineConfiguration;
 import com.streamsets.datacollector.creation.PipelineConfigBean;
 import com.streamsets.datacollector.el.JobEL;
@@ -86,8 +87,10 @@ import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.StageType;
 import com.streamsets.pipeline.api.impl.ErrorMessage;
 import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.executor.SafeScheduledExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -101,8 +104,12 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -412,8 +419,10 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     int batchSize = configuration.get(Constants.MAX_BATCH_SIZE_KEY, Constants.MAX_BATCH_SIZE_DEFAULT);
 
     // During Snapshot capture use Snapshot batch size
-    if (batchesToCapture > 0) {
-      batchSize = snapshotBatchSize;
+    synchronized (this) {
+      if (batchesToCapture > 0) {
+        batchSize = snapshotBatchSize;
+      }
     }
 
     // Push origin will block on the call until the either all data have been consumed or the pipeline stopped
@@ -427,13 +436,23 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   }
 
   private FullPipeBatch createFullPipeBatch(String entityName, String previousOffset) {
+    // Batches are finished, and the snapshot captured, by another thread when the pipeline runs in segments
+    int captureBatchSize;
+    synchronized (this) {
+      captureBatchSize = (batchesToCapture > 0) ? snapshotBatchSize : 0;
+    }
+
     FullPipeBatch pipeBatch;
-    if(batchesToCapture > 0) {
-      pipeBatch = new FullPipeBatch(entityName, previousOffset, snapshotBatchSize, true);
+    if(captureBatchSize > 0) {
+      pipeBatch = new FullPipeBatch(entityName, previousOffset, captureBatchSize, true);
     } else {
       pipeBatch = new FullPipeBatch(entityName, previousOffset, configuration.get(Constants.MAX_BATCH_SIZE_KEY, Constants.MAX_BATCH_SIZE_DEFAULT), false);
     }
     pipeBatch.setRateLimiter(rateLimiter);
+    // Records as generated by the origin are only needed when they are sent to error
+    pipeBatch.setKeepSourceRecords(
+        pipelineConfigBean == null || pipelineConfigBean.errorRecordPolicy == ErrorRecordPolicy.ORIGINAL_RECORD
+    );
 
     return pipeBatch;
   }
@@ -538,6 +557,17 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   }
 
   public void runPollSource() throws StageException, PipelineException {
+    int segments = configuration.get(Constants.PIPELINE_SEGMENTS_KEY, Constants.PIPELINE_SEGMENTS_DEFAULT);
+    if (segments > 1) {
+      // Offset commit triggers decide on their own whether the produced offset is committed, the origin then needs to
+      // see the committed offset before producing the next batch
+      if (pipes.size() == 1 && pipes.get(0).getOffsetCommitTrigger() == null) {
+        runPollSourceInSegments(segments);
+        return;
+      }
+      LOG.info("Pipeline has an offset commit trigger, ignoring {}={}", Constants.PIPELINE_SEGMENTS_KEY, segments);
+    }
+
     while (!offsetTracker.isFinished() && !stop && !finished) {
       if (threadHealthReporter != null) {
         threadHealthReporter.reportHealth(ProductionPipelineRunnable.RUNNABLE_NAME, -1, System.currentTimeMillis());
@@ -596,6 +626,271 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     }
   }
 
+  /**
+   * Run poll origin with the source-less pipes split into segments (see {@link PipeRunner#split(int)}), each segment
+   * running on its own thread. The segment threads belong to an executor of this run only, so they never compete with
+   * other pipelines for the threads of the runner pool.
+   *
+   * The origin thread only produces batches. Batches are handed over from segment to segment through bounded queues and
+   * the last segment finishes them in the order they were produced - handles bad records, commits the offset and updates
+   * metrics. As the offset of the previous batch might not be committed yet, the origin is called with the offset it
+   * returned last rather than with the committed one.
+   *
+   * Batch listeners run on the origin thread, postBatch() is called once the last segment finished the batch. New rule
+   * configuration is only applied when no batch is being processed by the segments.
+   */
+  private void runPollSourceInSegments(int segmentCount) throws StageException, PipelineException {
+    PipeRunner pipeRunner = runnerPool.getRunner();
+    List<List<Pipe>> segments = pipeRunner.split(segmentCount);
+    int queueSize = configuration.get(Constants.SEGMENT_QUEUE_SIZE_KEY, Constants.SEGMENT_QUEUE_SIZE_DEFAULT);
+    LOG.info("Running {} pipes in {} segments", pipeRunner.size(), segments.size());
+
+    // First failure of any segment, stops the whole execution
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<SegmentQueue<SegmentBatch>> queues = new ArrayList<>(segments.size());
+    for (int i = 0; i < segments.size(); i++) {
+      queues.add(new SegmentQueue<>(
+          metrics,
+          i,
+          queueSize,
+          pipelineName,
+          revision,
+          () -> stop || failure.get() != null
+      ));
+    }
+    // Batches that went through all the segments, waiting for their postBatch() on the origin thread
+    BlockingQueue<SegmentBatch> finishedBatches = new LinkedBlockingQueue<>();
+
+    SafeScheduledExecutorService executor =
+        new SafeScheduledExecutorService(segments.size(), "ProductionPipelineRunner");
+    String runnerName = Thread.currentThread().getName();
+    Map<String, String> loggingContext = MDC.getCopyOfContextMap();
+    List<Future<?>> futures = new ArrayList<>(segments.size());
+    for (int i = 0; i < segments.size(); i++) {
+      final int index = i;
+      List<Pipe> segment = segments.get(i);
+      SegmentQueue<SegmentBatch> input = queues.get(i);
+      SegmentQueue<SegmentBatch> output = (i + 1 < segments.size()) ? queues.get(i + 1) : null;
+      futures.add(executor.submit(() -> {
+        String originalName = Thread.currentThread().getName();
+        Thread.currentThread().setName(runnerName + "-segment-" + index);
+        if (loggingContext != null) {
+          MDC.setContextMap(loggingContext);
+        }
+        try {
+          runSegment(pipeRunner, index, segment, input, output, finishedBatches, failure);
+        } finally {
+          Thread.currentThread().setName(originalName);
+        }
+      }));
+    }
+
+    // Batches handed over to the segments that didn't get their postBatch() yet
+    int pendingBatches = 0;
+    try {
+      String lastOffset = offsetTracker.getOffsets().get(Source.POLL_SOURCE_OFFSET_KEY);
+      while (!offsetTracker.isFinished() && !stop && !finished && failure.get() == null) {
+        if (threadHealthReporter != null) {
+          threadHealthReporter.reportHealth(ProductionPipelineRunnable.RUNNABLE_NAME, -1, System.currentTimeMillis());
+        }
+
+        pendingBatches -= postBatch(finishedBatches, 0);
+
+        // Stages of one batch must all see the same rules, wait for the segments to finish what they have
+        if (observer != null && observer.isReconfigurationPending()) {
+          while (pendingBatches > 0 && !stop && failure.get() == null) {
+            pendingBatches -= postBatch(finishedBatches, 100);
+          }
+          if (stop || failure.get() != null) {
+            break;
+          }
+          observer.reconfigure();
+        }
+
+        for (BatchListener batchListener : batchListenerList) {
+          batchListener.preBatch();
+        }
+
+        // Start of the batch execution
+        SegmentBatch batch = new SegmentBatch(
+          System.currentTimeMillis(),
+          createFullPipeBatch(Source.POLL_SOURCE_OFFSET_KEY, lastOffset)
+        );
+
+        // Run origin
+        processPipe(
+          originPipe,
+          batch.pipeBatch,
+          false,
+          null,
+          null,
+          batch.memoryConsumedByStage,
+          batch.stageBatchMetrics
+        );
+
+        // Hand the batch over to the segments
+        batch.newOffset = batch.pipeBatch.getNewOffset();
+        lastOffset = batch.newOffset;
+        if (!queues.get(0).put(batch)) {
+          break;
+        }
+        pendingBatches++;
+        if (lastOffset == null) {
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failure.compareAndSet(null, e);
+    } catch (Throwable t) {
+      failure.compareAndSet(null, t);
+    } finally {
+      // Let the segments finish batches that were already produced
+      try {
+        queues.get(0).put(SegmentBatch.END);
+        for (Future<?> future : futures) {
+          future.get();
+        }
+        postBatch(finishedBatches, 0);
+      } catch (ExecutionException e) {
+        failure.compareAndSet(null, e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        failure.compareAndSet(null, e);
+        futures.forEach(future -> future.cancel(true));
+      } catch (Throwable t) {
+        failure.compareAndSet(null, t);
+      } finally {
+        executor.shutdown();
+        runnerPool.returnRunner(pipeRunner);
+      }
+    }
+
+    Throwable throwable = failure.get();
+    if (throwable != null) {
+      Throwables.propagateIfInstanceOf(throwable, StageException.class);
+      Throwables.propagateIfInstanceOf(throwable, PipelineException.class);
+      Throwables.propagate(throwable);
+    }
+  }
+
+  /**
+   * Run postBatch() of the batch listeners for the finished batches, waiting up to given time for the first one.
+   *
+   * @return number of finished batches
+   */
+  private int postBatch(BlockingQueue<SegmentBatch> finishedBatches, long timeout) throws InterruptedException {
+    int count = 0;
+    SegmentBatch batch = finishedBatches.poll(timeout, TimeUnit.MILLISECONDS);
+    while (batch != null) {
+      for (BatchListener batchListener : batchListenerList) {
+        batchListener.postBatch();
+      }
+      count++;
+      batch = finishedBatches.poll();
+    }
+    return count;
+  }
+
+  /**
+   * Process batches coming from the input queue by pipes of given segment, until the end marker arrives or the
+   * execution fails. The last segment finishes the batches and passes them to the origin thread.
+   */
+  private void runSegment(
+    PipeRunner pipeRunner,
+    int index,
+    List<Pipe> segment,
+    SegmentQueue<SegmentBatch> input,
+    SegmentQueue<SegmentBatch> output,
+    BlockingQueue<SegmentBatch> finishedBatches,
+    AtomicReference<Throwable> failure
+  ) {
+    PipelineEL.setConstantsInContext(
+        pipelineConfiguration,
+        originPipe.getStage().getContext().getUserContext(),
+        pipelineStartTime
+    );
+    JobEL.setConstantsInContext(parameters);
+
+    SegmentBatch batch = null;
+    try {
+      while ((batch = input.take()) != null) {
+        if (batch == SegmentBatch.END) {
+          if (output != null) {
+            output.put(batch);
+          }
+          return;
+        }
+
+        final SegmentBatch current = batch;
+        pipeRunner.executeSegment(
+          index,
+          segment,
+          output == null,
+          Source.POLL_SOURCE_OFFSET_KEY,
+          current.newOffset,
+          current.start,
+          pipe -> current.committed = processPipe(
+            pipe,
+            current.pipeBatch,
+            current.committed,
+            Source.POLL_SOURCE_OFFSET_KEY,
+            current.newOffset,
+            current.memoryConsumedByStage,
+            current.stageBatchMetrics
+          )
+        );
+
+        if (output != null) {
+          if (!output.put(batch)) {
+            return;
+          }
+        } else {
+          finishBatch(
+            null,
+            batch.start,
+            batch.pipeBatch,
+            Source.POLL_SOURCE_OFFSET_KEY,
+            batch.newOffset,
+            batch.stageBatchMetrics
+          );
+          finishedBatches.add(batch);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failure.compareAndSet(null, e);
+    } catch (Throwable t) {
+      if (failure.compareAndSet(null, t) && batch != null) {
+        // We try to create partial batch on processing failure
+        createFailureBatch(batch.pipeBatch);
+      }
+    } finally {
+      PipelineEL.unsetConstantsInContext();
+      JobEL.unsetConstantsInContext();
+    }
+  }
+
+  /**
+   * Batch travelling through the pipe segments together with its execution state.
+   */
+  private static class SegmentBatch {
+    // Marks end of the execution
+    private static final SegmentBatch END = new SegmentBatch(0, null);
+
+    private final long start;
+    private final FullPipeBatch pipeBatch;
+    private final Map<String, Long> memoryConsumedByStage = new HashMap<>();
+    private final Map<String, Object> stageBatchMetrics = new HashMap<>();
+    private String newOffset;
+    private boolean committed;
+
+    private SegmentBatch(long start, FullPipeBatch pipeBatch) {
+      this.start = start;
+      this.pipeBatch = pipeBatch;
+    }
+  }
+
   @Override
   public void errorNotification(SourcePipe originPipe, List<PipeRunner> pipes, Throwable throwable) {
     Set<ErrorListener> listeners = Sets.newIdentityHashSet();
@@ -777,9 +1072,11 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
 
   public void capture(String snapshotName, int batchSize, int batches) {
     Preconditions.checkArgument(batchSize > 0);
-    this.snapshotName = snapshotName;
-    this.snapshotBatchSize = batchSize;
-    this.batchesToCapture = batches;
+    synchronized (this) {
+      this.snapshotName = snapshotName;
+      this.snapshotBatchSize = batchSize;
+      this.batchesToCapture = batches;
+    }
   }
 
   public void cancelSnapshot(String snapshotName) throws PipelineException {
@@ -853,15 +1150,28 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     Map<String, Object> stageBatchMetrics
   ) throws PipelineException, StageException {
     final AtomicBoolean committed = new AtomicBoolean(false);
-    String previousOffset = pipeBatch.getPreviousOffset();
-
-    OffsetCommitTrigger offsetCommitTrigger = pipeRunner.getOffsetCommitTrigger();
 
     pipeRunner.executeBatch(entityName, newOffset, start, pipe -> {
       committed.set(processPipe(pipe, pipeBatch, committed.get(), entityName, newOffset, memoryConsumedByStage, stageBatchMetrics));
 
     });
 
+    finishBatch(pipeRunner.getOffsetCommitTrigger(), start, pipeBatch, entityName, newOffset, stageBatchMetrics);
+  }
+
+  /**
+   * Finish batch that went through all the pipes - handle bad records, commit offset and update metrics.
+   */
+  private void finishBatch(
+    OffsetCommitTrigger offsetCommitTrigger,
+    long start,
+    FullPipeBatch pipeBatch,
+    String entityName,
+    String newOffset,
+    Map<String, Object> stageBatchMetrics
+  ) throws PipelineException, StageException {
+    String previousOffset = pipeBatch.getPreviousOffset();
+
     badRecordsHandler.handle(entityName, newOffset, pipeBatch.getErrorSink(), pipeBatch.getSourceResponseSink());
     if(!pipeBatch.isIdleBatch()) {
       if (deliveryGuarantee == DeliveryGuarantee.AT_LEAST_ONCE) {
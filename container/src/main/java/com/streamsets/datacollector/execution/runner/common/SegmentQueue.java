@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.execution.runner.common;
+
+import com.codahale.metrics.MetricRegistry;
+import com.streamsets.datacollector.metrics.MetricsConfigurator;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded queue handing batches over from one pipe segment to the next one when the pipeline runs in segments.
+ *
+ * Both sides of the queue give up waiting as soon as the execution is aborted, so that a failure in any segment or a
+ * stop request can't leave the origin or the other segment threads blocked forever. Depth of the queue and the time spent waiting on either side of it
+ * are published in gauge "segmentQueue.&lt;index&gt;".
+ */
+class SegmentQueue<T> {
+
+  static final String METRIC_DEPTH = "depth";
+  static final String METRIC_CAPACITY = "capacity";
+  static final String METRIC_PUT_WAIT_TIME = "putWaitTime";
+  static final String METRIC_TAKE_WAIT_TIME = "takeWaitTime";
+
+  private static final long POLL_INTERVAL_MS = 100;
+
+  private final BlockingQueue<T> queue;
+  private final BooleanSupplier aborted;
+  private final Map<String, Object> gauge;
+  private long putWaitTime;
+  private long takeWaitTime;
+
+  SegmentQueue(
+      MetricRegistry metrics,
+      int index,
+      int capacity,
+      String pipelineName,
+      String pipelineRev,
+      BooleanSupplier aborted
+  ) {
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.aborted = aborted;
+    this.gauge = MetricsConfigurator.createStageGauge(
+        metrics,
+        "segmentQueue." + index,
+        null,
+        pipelineName,
+        pipelineRev
+    ).getValue();
+    gauge.put(METRIC_CAPACITY, capacity);
+    gauge.put(METRIC_DEPTH, 0);
+    gauge.put(METRIC_PUT_WAIT_TIME, 0L);
+    gauge.put(METRIC_TAKE_WAIT_TIME, 0L);
+  }
+
+  /**
+   * Waits until there is room in the queue for the given item. Called by a single producer thread.
+   *
+   * @return false if the execution was aborted before the item could be queued
+   */
+  boolean put(T item) throws InterruptedException {
+    long start = System.currentTimeMillis();
+    try {
+      while (!queue.offer(item, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+        if (aborted.getAsBoolean()) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      putWaitTime += System.currentTimeMillis() - start;
+      gauge.put(METRIC_PUT_WAIT_TIME, putWaitTime);
+      gauge.put(METRIC_DEPTH, queue.size());
+    }
+  }
+
+  /**
+   * Waits for the next item of the queue. Called by a single consumer thread.
+   *
+   * @return next item, or null if the execution was aborted
+   */
+  T take() throws InterruptedException {
+    long start = System.currentTimeMillis();
+    try {
+      T item;
+      while ((item = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) == null) {
+        if (aborted.getAsBoolean()) {
+          return null;
+        }
+      }
+      return item;
+    } finally {
+      takeWaitTime += System.currentTimeMillis() - start;
+      gauge.put(METRIC_TAKE_WAIT_TIME, takeWaitTime);
+      gauge.put(METRIC_DEPTH, queue.size());
+    }
+  }
+}
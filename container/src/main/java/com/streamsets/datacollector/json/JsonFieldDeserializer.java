@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deserializes JSON values straight into {@link Field}s from the parser tokens, without building the intermediate
+ * Map/List/boxed value tree that deserializing to <code>Object</code> does.
+ * <p/>
+ * The resulting fields are the same ones a JSON value read as <code>Object</code> converts to: objects become MAP
+ * fields (keeping the key order), arrays LIST fields, integers INTEGER, LONG or DECIMAL fields depending on their size,
+ * floating point numbers DOUBLE fields and nested nulls STRING fields with a NULL value. Object keys are the names
+ * canonicalized by the Jackson parser, so repeated keys share the same String instance.
+ */
+public class JsonFieldDeserializer extends JsonDeserializer<Field> {
+
+  @Override
+  public Field deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
+    return readField(jp, ctxt, jp.getCurrentToken());
+  }
+
+  /**
+   * Invoked after each value added to a map or list field, hook to enforce object length limits.
+   */
+  protected void onValueAdded() {
+  }
+
+  private Field readField(JsonParser jp, DeserializationContext ctxt, JsonToken token) throws IOException {
+    if (token == null) {
+      throw JsonMappingException.from(jp, "Unexpected end-of-input");
+    }
+    switch (token) {
+      case START_OBJECT:
+        return readMap(jp, ctxt);
+      case START_ARRAY:
+        return readList(jp, ctxt);
+      case VALUE_STRING:
+        return Field.create(jp.getText());
+      case VALUE_NUMBER_INT:
+        switch (jp.getNumberType()) {
+          case INT:
+            return Field.create(jp.getIntValue());
+          case LONG:
+            return Field.create(jp.getLongValue());
+          default:
+            return Field.create(new BigDecimal(jp.getBigIntegerValue()));
+        }
+      case VALUE_NUMBER_FLOAT:
+        if (ctxt.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)) {
+          return Field.create(jp.getDecimalValue());
+        }
+        return Field.create(jp.getDoubleValue());
+      case VALUE_TRUE:
+        return Field.create(true);
+      case VALUE_FALSE:
+        return Field.create(false);
+      case VALUE_NULL:
+        return Field.create(Field.Type.STRING, null);
+      case VALUE_EMBEDDED_OBJECT:
+        Object value = jp.getEmbeddedObject();
+        if (value == null) {
+          return Field.create(Field.Type.STRING, null);
+        } else if (value instanceof byte[]) {
+          return Field.create((byte[]) value);
+        }
+        throw JsonMappingException.from(
+            jp,
+            Utils.format("Unsupported embedded object type '{}'", value.getClass().getSimpleName())
+        );
+      default:
+        throw JsonMappingException.from(jp, Utils.format("Unexpected token '{}'", token));
+    }
+  }
+
+  private Field readMap(JsonParser jp, DeserializationContext ctxt) throws IOException {
+    Map<String, Field> map = new LinkedHashMap<>();
+    String name = jp.nextFieldName();
+    while (name != null) {
+      map.put(name, readField(jp, ctxt, jp.nextToken()));
+      onValueAdded();
+      name = jp.nextFieldName();
+    }
+    return Field.create(map);
+  }
+
+  private Field readList(JsonParser jp, DeserializationContext ctxt) throws IOException {
+    List<Field> list = new ArrayList<>();
+    JsonToken token = jp.nextToken();
+    while (token != JsonToken.END_ARRAY) {
+      list.add(readField(jp, ctxt, token));
+      onValueAdded();
+      token = jp.nextToken();
+    }
+    return Field.create(list);
+  }
+}
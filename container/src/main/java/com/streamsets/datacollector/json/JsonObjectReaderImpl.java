@@ -21,7 +21,9 @@ import com.fasterxml.jackson.core.JsonStreamContext;
 import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.google.common.base.Preconditions;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.ext.JsonObjectReader;
 import com.streamsets.pipeline.api.ext.json.Mode;
 import com.streamsets.pipeline.api.impl.Utils;
@@ -40,6 +42,12 @@ public class JsonObjectReaderImpl implements JsonObjectReader {
   private static final int MAX_CHARS_TO_READ_FORWARD = 64;
   private static final ObjectMapper DEFAULT_OBJECT_MAPPER = new ObjectMapper();
 
+  static {
+    SimpleModule module = new SimpleModule();
+    module.addDeserializer(Field.class, new JsonFieldDeserializer());
+    DEFAULT_OBJECT_MAPPER.registerModule(module);
+  }
+
   private final Reader reader;
   private final JsonParser jsonParser;
   private final Mode mode;
@@ -178,7 +186,7 @@ public class JsonObjectReaderImpl implements JsonObjectReader {
     }
     JsonToken token = jsonParser.nextToken();
     if (token != null && token != JsonToken.END_ARRAY) {
-      value = jsonParser.readValueAs(Object.class);
+      value = jsonParser.readValueAs(getExpectedClass());
     }
     return value;
   }
@@ -37,6 +37,10 @@ public class EventRecordImpl extends RecordImpl implements EventRecord {
     super(record);
   }
 
+  private EventRecordImpl(RecordImpl record, SharedValue sharedValue) {
+    super(record, sharedValue);
+  }
+
   private void setEventAtributes(String type, int version) {
     getHeader().setAttribute(EventRecord.TYPE, type);
     getHeader().setAttribute(EventRecord.VERSION, String.valueOf(version));
@@ -49,6 +53,11 @@ public class EventRecordImpl extends RecordImpl implements EventRecord {
     return new EventRecordImpl(this);
   }
 
+  @Override
+  protected RecordImpl createCopyOnWriteClone(SharedValue shared) {
+    return new EventRecordImpl(this, shared);
+  }
+
 
   @Override
   public String getEventType() {
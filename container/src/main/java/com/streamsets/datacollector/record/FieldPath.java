@@ -0,0 +1,211 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parsed (single quote escaped) field path that can be used to access fields of a field tree.
+ * <p/>
+ * Field paths are immutable and shared, {@link #compile(String)} keeps the most recently used ones in a bounded cache
+ * so that the same path string is parsed only once. Accessing a field walks the tree directly without creating any
+ * intermediate collections.
+ */
+public final class FieldPath {
+  @VisibleForTesting
+  static final int CACHE_MAX_SIZE = 10000;
+
+  private static final Cache<String, FieldPath> CACHE = CacheBuilder.newBuilder()
+      .maximumSize(CACHE_MAX_SIZE)
+      .concurrencyLevel(16)
+      .build();
+
+  private final String path;
+  // path elements without the leading ROOT element
+  private final PathElement[] elements;
+
+  private FieldPath(String path, List<PathElement> elements) {
+    this.path = path;
+    this.elements = elements.subList(1, elements.size()).toArray(new PathElement[elements.size() - 1]);
+  }
+
+  /**
+   * Returns the parsed field path for the given single quote escaped field path.
+   *
+   * @throws IllegalArgumentException if the field path is not valid.
+   */
+  public static FieldPath compile(String fieldPath) {
+    Preconditions.checkNotNull(fieldPath, "fieldPath cannot be null");
+    FieldPath compiled = CACHE.getIfPresent(fieldPath);
+    if (compiled == null) {
+      // invalid field paths throw here and are never cached
+      compiled = new FieldPath(fieldPath, PathElement.parse(fieldPath, true));
+      CACHE.put(fieldPath, compiled);
+    }
+    return compiled;
+  }
+
+  @VisibleForTesting
+  static long getCacheSize() {
+    return CACHE.size();
+  }
+
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Returns the number of path elements, the root element not included.
+   */
+  public int size() {
+    return elements.length;
+  }
+
+  public PathElement getElement(int index) {
+    return elements[index];
+  }
+
+  public boolean isRoot() {
+    return elements.length == 0;
+  }
+
+  /**
+   * Returns the field at this path within the given root field, or NULL if there is none.
+   */
+  public Field get(Field root) {
+    if (elements.length == 0) {
+      return root;
+    }
+    Field parent = getParent(root);
+    return (parent == null) ? null : getChild(parent, elements[elements.length - 1]);
+  }
+
+  /**
+   * Returns whether there is a field at this path within the given root field.
+   */
+  public boolean has(Field root) {
+    return get(root) != null;
+  }
+
+  /**
+   * Sets the field at this path within the given root field, the parent field must exist. The root field itself can't
+   * be replaced this way, the caller has to handle a root path.
+   *
+   * @return the replaced field, NULL if there was none.
+   * @throws IllegalArgumentException if the parent field does not exist.
+   */
+  public Field set(Field root, Field newField) {
+    Preconditions.checkState(elements.length > 0, "The root field cannot be set through a field path");
+    Field parent = getParent(root);
+    if (parent == null) {
+      throw new IllegalArgumentException(Utils.format("Field-path '{}' not reachable", path));
+    }
+    Field fieldToReplace = null;
+    PathElement element = elements[elements.length - 1];
+    switch (element.getType()) {
+      case MAP:
+        fieldToReplace = parent.getValueAsMap().put(element.getName(), newField);
+        break;
+      case LIST:
+        List<Field> list = parent.getValueAsList();
+        if (element.getIndex() == list.size()) {
+          //add at end
+          list.add(newField);
+        } else {
+          //replace existing value
+          fieldToReplace = list.set(element.getIndex(), newField);
+        }
+        break;
+      case FIELD_EXPRESSION:
+      case ROOT:
+      default:
+        break;
+    }
+    return fieldToReplace;
+  }
+
+  /**
+   * Removes the field at this path from its parent field within the given root field. The root field itself can't be
+   * deleted this way, the caller has to handle a root path.
+   *
+   * @return the deleted field, NULL if there was none.
+   */
+  public Field delete(Field root) {
+    Preconditions.checkState(elements.length > 0, "The root field cannot be deleted through a field path");
+    Field parent = getParent(root);
+    PathElement element = elements[elements.length - 1];
+    if (parent == null || getChild(parent, element) == null) {
+      return null;
+    }
+    switch (element.getType()) {
+      case MAP:
+        return parent.getValueAsMap().remove(element.getName());
+      case LIST:
+        return parent.getValueAsList().remove(element.getIndex());
+      case FIELD_EXPRESSION:
+      default:
+        throw new IllegalStateException("Unexpected field type " + element.getType());
+    }
+  }
+
+  private Field getParent(Field root) {
+    Field current = root;
+    for (int i = 0; current != null && i < elements.length - 1; i++) {
+      current = getChild(current, elements[i]);
+    }
+    return current;
+  }
+
+  private static Field getChild(Field current, PathElement element) {
+    switch (element.getType()) {
+      case MAP:
+        if (current.getType().isOneOf(Field.Type.MAP, Field.Type.LIST_MAP)) {
+          Map<String, Field> map = current.getValueAsMap();
+          if (map != null) {
+            return map.get(element.getName());
+          }
+        }
+        return null;
+      case LIST:
+        if (current.getType().isOneOf(Field.Type.LIST, Field.Type.LIST_MAP)) {
+          int index = element.getIndex();
+          List<Field> list = current.getValueAsList();
+          if (list != null && list.size() > index) {
+            return list.get(index);
+          }
+        }
+        return null;
+      case ROOT:
+        return current;
+      case FIELD_EXPRESSION:
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Utils.format("FieldPath[path='{}']", path);
+  }
+}
@@ -40,6 +40,8 @@ public class RecordImpl implements Record, Cloneable {
   //Default true: so as to denote the record is just created
   //and initialized in a stage and did not pass through any other stage.
   private boolean isInitialRecord = true;
+  // Non null while the value field tree is shared with other copy-on-write copies of the same record
+  private transient SharedValue sharedValue;
 
   // need default constructor for deserialization purposes (Kryo)
   private RecordImpl() {
@@ -82,6 +84,87 @@ public class RecordImpl implements Record, Cloneable {
     isInitialRecord = record.isInitialRecord();
   }
 
+  // for copyOnWrite() purposes
+
+  protected RecordImpl(RecordImpl record, SharedValue sharedValue) {
+    Preconditions.checkNotNull(record, "record cannot be null");
+    header = record.header.clone();
+    value = record.value;
+    this.sharedValue = sharedValue;
+    isInitialRecord = record.isInitialRecord();
+  }
+
+  /**
+   * Tracks how many records still share the same value field tree. Every record but the last one that needs to
+   * hand out or modify a field takes its own deep copy, the last one takes over the shared tree.
+   */
+  static final class SharedValue {
+    private int references;
+
+    SharedValue(int references) {
+      this.references = references;
+    }
+
+    synchronized void join(int records) {
+      references += records;
+    }
+
+    synchronized Field acquire(Field value) {
+      references--;
+      return (references == 0 || value == null) ? value : value.clone();
+    }
+  }
+
+  /**
+   * Creates the given number of copies of this record. The header of each copy is cloned right away, while the value
+   * field tree is shared among the copies until a copy first hands out or modifies a field.
+   * <p/>
+   * This record gives up its value field tree to the copies and must not be used after this call.
+   */
+  public List<RecordImpl> copyOnWrite(int copies) {
+    Preconditions.checkArgument(copies > 0, "copies must be greater than zero");
+    SharedValue shared = sharedValue;
+    if (shared == null) {
+      shared = new SharedValue(copies);
+    } else {
+      // this record leaves the group of records sharing the value and the copies join it
+      shared.join(copies - 1);
+      sharedValue = null;
+    }
+    List<RecordImpl> list = new ArrayList<>(copies);
+    for (int i = 0; i < copies; i++) {
+      list.add(createCopyOnWriteClone(shared));
+    }
+    return list;
+  }
+
+  /**
+   * Returns a clone of this record that shares the value field tree with this record until either of them hands out
+   * or modifies a field.
+   */
+  public RecordImpl cloneCopyOnWrite() {
+    if (sharedValue == null) {
+      sharedValue = new SharedValue(1);
+    }
+    sharedValue.join(1);
+    return createCopyOnWriteClone(sharedValue);
+  }
+
+  protected RecordImpl createCopyOnWriteClone(SharedValue shared) {
+    return new RecordImpl(this, shared);
+  }
+
+  boolean isValueShared() {
+    return sharedValue != null;
+  }
+
+  private void ensureValueOwned() {
+    if (sharedValue != null) {
+      value = sharedValue.acquire(value);
+      sharedValue = null;
+    }
+  }
+
   public void addStageToStagePath(String stage) {
     Preconditions.checkNotNull(stage, "stage cannot be null");
     String currentPath = (header.getStagesPath() == null) ? "" : header.getStagesPath() + ":";
@@ -112,11 +195,13 @@ public class RecordImpl implements Record, Cloneable {
 
   @Override
   public Field get() {
+    ensureValueOwned();
     return value;
   }
 
   @Override
   public Field set(Field field) {
+    ensureValueOwned();
     Field oldData = value;
     value = field;
     return oldData;
@@ -275,104 +360,36 @@ public class RecordImpl implements Record, Cloneable {
     return PathElement.parse(fieldPath, true);
   }
 
-  private List<Field> get(List<PathElement> elements) {
-    List<Field> fields = new ArrayList<>(elements.size());
-    if (value != null) {
-      Field current = value;
-      for (int i = 0; current != null &&  i < elements.size(); i++) {
-        Field next = null;
-        PathElement element = elements.get(i);
-        switch (element.getType()) {
-          case ROOT:
-            fields.add(current);
-            next = current;
-            break;
-          case MAP:
-            if (current.getType().isOneOf(Field.Type.MAP, Field.Type.LIST_MAP)) {
-              String name = element.getName();
-              Map<String, Field> map = current.getValueAsMap();
-              if (map != null) {
-                Field field = map.get(name);
-                if (field != null) {
-                  fields.add(field);
-                  next = field;
-                }
-              }
-            }
-            break;
-          case LIST:
-            if (current.getType().isOneOf(Field.Type.LIST, Field.Type.LIST_MAP)) {
-              int index = element.getIndex();
-              List<Field> list = current.getValueAsList();
-              if (list != null) {
-                if (list.size() > index) {
-                  Field field = list.get(index);
-                  fields.add(field);
-                  next = field;
-                }
-              }
-            }
-            break;
-          case FIELD_EXPRESSION:
-          default:
-            break;
-        }
-        current = next;
-      }
-    }
-    return fields;
-  }
-
   @Override
   public Field get(String fieldPath) {
+    ensureValueOwned();
     if ("/".equals(fieldPath) || fieldPath.isEmpty()) {
       // if asking for the root field we can return it without and fieldpath parsing
       return value;
     } else {
-      List<PathElement> elements = parse(fieldPath);
-      List<Field> fields = get(elements);
-      return (elements.size() == fields.size()) ? fields.get(fields.size() - 1) : null;
+      return FieldPath.compile(fieldPath).get(value);
     }
   }
 
-
   @Override
   public Field delete(String fieldPath) {
-    List<PathElement> elements = parse(fieldPath);
-    List<Field> fields = get(elements);
-    Field deleted = null;
-    int fieldPos = fields.size();
-    if (elements.size() == fieldPos) {
-      fieldPos--;
-
-      if (fieldPos == 0) {
-        // the field to delete must be a primitive. delete it directly.
-        deleted = value;
-        value = null;
-      } else {
-        // the field to delete is a map or list element, so to delete, you must remove it from the parent collection.
-        PathElement element = elements.get(fieldPos);
-        switch (element.getType()) {
-          case MAP:
-            deleted = fields.get(fieldPos - 1).getValueAsMap().remove(element.getName());
-            break;
-          case LIST:
-            deleted = fields.get(fieldPos - 1).getValueAsList().remove(element.getIndex());
-            break;
-          case FIELD_EXPRESSION:
-          default:
-            throw new IllegalStateException("Unexpected field type " + element.getType());
-        }
-      }
+    ensureValueOwned();
+    FieldPath path = FieldPath.compile(fieldPath);
+    Field deleted;
+    if (path.isRoot()) {
+      // the field to delete is the root field, delete it directly.
+      deleted = value;
+      value = null;
+    } else {
+      // the field to delete is a map or list element, it is removed from the parent collection.
+      deleted = path.delete(value);
     }
     return deleted;
   }
 
   @Override
   public boolean has(String fieldPath) {
-    List<PathElement> elements = parse(fieldPath);
-    List<Field> fields = get(elements);
-    return (elements.size() == fields.size());
+    return FieldPath.compile(fieldPath).has(value);
   }
 
   @Override
@@ -530,66 +547,21 @@ public class RecordImpl implements Record, Cloneable {
 
   @Override
   public Field set(String fieldPath, Field newField) {
+    ensureValueOwned();
     Field fieldToReplace;
     if ("/".equals(fieldPath) || fieldPath.isEmpty()) {
       // if asking for the root field we can set it without any field path parsing
       fieldToReplace = value;
       value = newField;
     } else {
-      //get all the elements present in the fieldPath, including the newest element
-      //For example, if the existing record has /a/b/c and the argument fieldPath is /a/b/d the parser returns three
-      // elements - a, b and d
-      List<PathElement> elements = parse(fieldPath);
-      //return all *existing* fields form the list of elements
-      //In the above case it is going to return only field a and field b. Field d does not exist.
-      List<Field> fields = get(elements);
-      int fieldPos = fields.size();
-      if (elements.size() == fieldPos) {
-        //The number of elements in the path is same as the number of fields => set use case
-        fieldPos--;
-        fieldToReplace = doSet(fieldPos, newField, elements, fields);
-      } else if (elements.size() - 1 == fieldPos) {
-        //The number of elements in the path is on more than the number of fields => add use case
-        fieldToReplace = doSet(fieldPos, newField, elements, fields);
+      FieldPath path = FieldPath.compile(fieldPath);
+      if (path.isRoot()) {
+        fieldToReplace = value;
+        value = newField;
       } else {
-        throw new IllegalArgumentException(Utils.format("Field-path '{}' not reachable", fieldPath));
-      }
-    }
-    return fieldToReplace;
-  }
-
-  private Field doSet(int fieldPos, Field newField, List<PathElement> elements, List<Field> fields) {
-    Field fieldToReplace = null;
-    if (fieldPos == 0) {
-      //root element
-      fieldToReplace = value;
-      value = newField;
-    } else {
-      //get the type of the element based on the output of the parser.
-      //Note that this is not the real type of the field, this is how the parser interpreted the fieldPath argument
-      //to the set API above. For example if fieldPath is /a/b parser interprets a as type map, if fieldPath is a[0]/b
-      //parser interprets a as of type list
-      switch (elements.get(fieldPos).getType()) {
-        case MAP:
-          //get the name of the field which must be added
-          String elementName = elements.get(fieldPos).getName();
-          //attempt to get the parent as a map type.
-          fieldToReplace = fields.get(fieldPos - 1).getValueAsMap().put(elementName, newField);
-          break;
-        case LIST:
-          int elementIndex = elements.get(fieldPos).getIndex();
-          Field parentField = fields.get(fieldPos - 1);
-          if(elementIndex == parentField.getValueAsList().size()){
-            //add at end
-            parentField.getValueAsList().add(newField);
-          } else {
-            //replace existing value
-            fieldToReplace = parentField.getValueAsList().set(elementIndex, newField);
-          }
-          break;
-        case FIELD_EXPRESSION:
-        case ROOT:
-          break;
+        //Sets the field if it exists or adds it to its parent field if it does not. For example, if the existing record
+        //has /a/b/c and the argument fieldPath is /a/b/d, d is added to b. The parent field must exist.
+        fieldToReplace = path.set(value, newField);
       }
     }
     return fieldToReplace;
@@ -597,6 +569,7 @@ public class RecordImpl implements Record, Cloneable {
 
   @Override
   public void forEachField(FieldVisitor visitor) throws StageException {
+    ensureValueOwned();
     RecordFieldImpl recordField = new RecordFieldImpl(this);
     if (value != null) {
       visitFieldsInternal(recordField, visitor, "", "", value, null);
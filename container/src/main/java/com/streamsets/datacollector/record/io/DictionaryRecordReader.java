@@ -0,0 +1,387 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record.io;
+
+import com.streamsets.datacollector.record.HeaderImpl;
+import com.streamsets.datacollector.record.RecordImpl;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.ext.RecordReader;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.DICTIONARY_REFERENCE_BASE;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.FRAME_HEADER_SIZE;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.FRAME_SIZE;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.HAS_ATTRIBUTES;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.HAS_ERROR;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.HAS_RAW;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.LITERAL_STRING;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.MAX_RECORDS_PER_FRAME;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.NEW_DICTIONARY_STRING;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.NULL_FIELD;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.NULL_STRING;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.NULL_VALUE;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.POSITION_SHIFT;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.TRACKING_ID_DERIVED;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.TYPES;
+import static com.streamsets.datacollector.record.io.DictionaryRecordWriter.TYPE_MASK;
+
+/**
+ * Reads records written by {@link DictionaryRecordWriter}.
+ *
+ * Each frame is read with a single read into a buffer reused across frames, and records are decoded from it
+ * directly. Dictionary strings are decoded once per frame and shared by all the records referencing them.
+ */
+public class DictionaryRecordReader implements RecordReader {
+  private final InputStream inputStream;
+  private final long maxFrameLength;
+  private byte[] frame = new byte[FRAME_SIZE + 1024];
+  private int pos;
+  private int limit;
+  private String[] dictionary = new String[256];
+  private int dictionarySize;
+  private long frameOffset;
+  private long nextFrameOffset;
+  private int recordIndex;
+  private boolean closed;
+
+  public DictionaryRecordReader(InputStream inputStream, long initialPosition, int maxObjectLen) throws IOException {
+    this.inputStream = inputStream;
+    // a frame holds records up to its size plus the record that made it overflow
+    maxFrameLength = (maxObjectLen > 0) ? (long) maxObjectLen + FRAME_SIZE : Integer.MAX_VALUE;
+    nextFrameOffset = initialPosition >>> POSITION_SHIFT;
+    IOUtils.skipFully(inputStream, nextFrameOffset);
+    int skip = (int) (initialPosition & MAX_RECORDS_PER_FRAME);
+    if (skip > 0) {
+      if (!readFrame()) {
+        throw new EOFException(Utils.format("No frame at position '{}'", initialPosition));
+      }
+      for (int i = 0; i < skip; i++) {
+        readRecordFromFrame();
+      }
+    }
+  }
+
+  @Override
+  public String getEncoding() {
+    return RecordEncoding.DICT1.name();
+  }
+
+  @Override
+  public long getPosition() {
+    if (pos == limit) {
+      return nextFrameOffset << POSITION_SHIFT;
+    }
+    return (frameOffset << POSITION_SHIFT) | recordIndex;
+  }
+
+  @Override
+  public Record readRecord() throws IOException {
+    if (closed) {
+      throw new IOException("reader has been closed");
+    }
+    if (pos == limit && !readFrame()) {
+      return null;
+    }
+    return readRecordFromFrame();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      inputStream.close();
+    }
+  }
+
+  private boolean readFrame() throws IOException {
+    int first = inputStream.read();
+    if (first == -1) {
+      return false;
+    }
+    byte[] header = new byte[FRAME_HEADER_SIZE - 1];
+    IOUtils.readFully(inputStream, header);
+    int length = (first << 24) | ((header[0] & 0xFF) << 16) | ((header[1] & 0xFF) << 8) | (header[2] & 0xFF);
+    if (length <= 0 || length > maxFrameLength) {
+      throw new IOException(Utils.format("Invalid frame length '{}', maximum is '{}'", length, maxFrameLength));
+    }
+    if (length > frame.length || (frame.length > 4 * FRAME_SIZE && length <= FRAME_SIZE)) {
+      // grown for a large record, or back to the usual size after it
+      frame = new byte[Math.max(length, FRAME_SIZE + 1024)];
+    }
+    IOUtils.readFully(inputStream, frame, 0, length);
+    pos = 0;
+    limit = length;
+    dictionarySize = 0;
+    recordIndex = 0;
+    frameOffset = nextFrameOffset;
+    nextFrameOffset += FRAME_HEADER_SIZE + length;
+    return true;
+  }
+
+  private Record readRecordFromFrame() throws IOException {
+    HeaderImpl header = readHeader();
+    Field value = readField();
+    recordIndex++;
+    return new RecordImpl(header, value);
+  }
+
+  private HeaderImpl readHeader() throws IOException {
+    int flags = readByte();
+    String stageCreator = readString();
+    String sourceId = readString();
+    String stagesPath = readString();
+    String trackingId = ((flags & TRACKING_ID_DERIVED) != 0) ? sourceId + "::" + stagesPath : readString();
+    String previousTrackingId = readString();
+    byte[] raw = null;
+    String rawMimeType = null;
+    if ((flags & HAS_RAW) != 0) {
+      raw = readBytes();
+      rawMimeType = readString();
+    }
+    String errorDataCollectorId = readString();
+    String errorPipelineName = readString();
+    String errorStage = null;
+    String errorStageLabel = null;
+    String errorCode = null;
+    String errorMessage = null;
+    long errorTimestamp = 0;
+    String errorStackTrace = null;
+    if ((flags & HAS_ERROR) != 0) {
+      errorStage = readString();
+      errorStageLabel = readString();
+      errorCode = readString();
+      errorMessage = readString();
+      errorTimestamp = readVarLong();
+      errorStackTrace = readString();
+    }
+    String errorJobId = readString();
+
+    int size = readVarInt();
+    Map<String, Object> attributes = new HashMap<>(Math.max(16, size * 2 + 16));
+    for (int i = 0; i < size; i++) {
+      attributes.put(readString(), readString());
+    }
+    return new HeaderImpl(
+        stageCreator,
+        sourceId,
+        stagesPath,
+        trackingId,
+        previousTrackingId,
+        raw,
+        rawMimeType,
+        errorDataCollectorId,
+        errorPipelineName,
+        errorStage,
+        errorStageLabel,
+        errorCode,
+        errorMessage,
+        errorTimestamp,
+        errorStackTrace,
+        attributes,
+        errorJobId
+    );
+  }
+
+  private Field readField() throws IOException {
+    int tag = readByte();
+    if (tag == NULL_FIELD) {
+      return null;
+    }
+    int typeCode = tag & TYPE_MASK;
+    if (typeCode >= TYPES.length) {
+      throw new IOException(Utils.format("Invalid field type code '{}'", typeCode));
+    }
+    Field.Type type = TYPES[typeCode];
+    Map<String, String> attributes = null;
+    if ((tag & HAS_ATTRIBUTES) != 0) {
+      int size = readVarInt();
+      attributes = new HashMap<>();
+      for (int i = 0; i < size; i++) {
+        attributes.put(readString(), readString());
+      }
+    }
+    Object value = null;
+    if ((tag & NULL_VALUE) == 0) {
+      switch (type) {
+        case BOOLEAN:
+          value = readByte() != 0;
+          break;
+        case CHAR:
+          value = (char) readVarInt();
+          break;
+        case BYTE:
+          value = (byte) readByte();
+          break;
+        case SHORT:
+          value = (short) readVarLong();
+          break;
+        case INTEGER:
+          value = (int) readVarLong();
+          break;
+        case LONG:
+          value = readVarLong();
+          break;
+        case FLOAT:
+          value = Float.intBitsToFloat(readInt());
+          break;
+        case DOUBLE:
+          long high = readInt();
+          value = Double.longBitsToDouble((high << 32) | (readInt() & 0xFFFFFFFFL));
+          break;
+        case DATE:
+        case DATETIME:
+        case TIME:
+          value = new Date(readVarLong());
+          break;
+        case DECIMAL:
+          int scale = (int) readVarLong();
+          value = new BigDecimal(new BigInteger(readBytes()), scale);
+          break;
+        case STRING:
+          value = readString();
+          break;
+        case BYTE_ARRAY:
+          value = readBytes();
+          break;
+        case MAP:
+        case LIST_MAP:
+          int size = readVarInt();
+          Map<String, Field> map = (type == Field.Type.MAP) ? new HashMap<>(size * 2) : new LinkedHashMap<>(size * 2);
+          for (int i = 0; i < size; i++) {
+            map.put(readString(), readField());
+          }
+          value = map;
+          break;
+        case LIST:
+          int length = readVarInt();
+          List<Field> list = new ArrayList<>(length);
+          for (int i = 0; i < length; i++) {
+            list.add(readField());
+          }
+          value = list;
+          break;
+        case ZONED_DATETIME:
+          value = ZonedDateTime.parse(readString());
+          break;
+        default:
+          throw new IOException(Utils.format("Unsupported field type '{}'", type));
+      }
+    }
+    return Field.create(type, value, attributes);
+  }
+
+  private String readString() throws IOException {
+    int code = readVarInt();
+    switch (code) {
+      case NULL_STRING:
+        return null;
+      case LITERAL_STRING:
+        return readUtf8();
+      case NEW_DICTIONARY_STRING:
+        String string = readUtf8();
+        if (dictionarySize == dictionary.length) {
+          dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+        }
+        dictionary[dictionarySize++] = string;
+        return string;
+      default:
+        int index = code - DICTIONARY_REFERENCE_BASE;
+        if (index >= dictionarySize) {
+          throw new IOException(Utils.format("Invalid dictionary reference '{}'", index));
+        }
+        return dictionary[index];
+    }
+  }
+
+  private String readUtf8() throws IOException {
+    int length = readVarInt();
+    checkAvailable(length);
+    String string = new String(frame, pos, length, StandardCharsets.UTF_8);
+    pos += length;
+    return string;
+  }
+
+  private byte[] readBytes() throws IOException {
+    int length = readVarInt();
+    checkAvailable(length);
+    byte[] bytes = Arrays.copyOfRange(frame, pos, pos + length);
+    pos += length;
+    return bytes;
+  }
+
+  private int readByte() throws IOException {
+    checkAvailable(1);
+    return frame[pos++] & 0xFF;
+  }
+
+  private int readInt() throws IOException {
+    checkAvailable(4);
+    int i = ((frame[pos] & 0xFF) << 24) | ((frame[pos + 1] & 0xFF) << 16) | ((frame[pos + 2] & 0xFF) << 8) |
+        (frame[pos + 3] & 0xFF);
+    pos += 4;
+    return i;
+  }
+
+  private int readVarInt() throws IOException {
+    int result = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = readByte();
+      result |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        if (result < 0) {
+          throw new IOException(Utils.format("Invalid length '{}'", result));
+        }
+        return result;
+      }
+    }
+    throw new IOException("Malformed var int");
+  }
+
+  private long readVarLong() throws IOException {
+    long zigZag = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = readByte();
+      zigZag |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+      }
+    }
+    throw new IOException("Malformed var long");
+  }
+
+  private void checkAvailable(int bytes) throws IOException {
+    if (bytes > limit - pos) {
+      throw new IOException("Truncated frame");
+    }
+  }
+}
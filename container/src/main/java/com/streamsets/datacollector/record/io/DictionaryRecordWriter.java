@@ -0,0 +1,417 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record.io;
+
+import com.streamsets.datacollector.record.HeaderImpl;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.ext.RecordWriter;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes records in the DICT1 binary encoding.
+ *
+ * Records are written in frames of about {@link #FRAME_SIZE} bytes, each one prefixed with its length as a 4 bytes
+ * int. Within a frame the header attribute names and values, stage paths and field names are written once and then
+ * referenced by their index in the dictionary of the frame. Field values are written by type, numbers as var ints.
+ * Frames are self contained, so a payload can be split at frame boundaries without decoding it.
+ */
+public class DictionaryRecordWriter implements RecordWriter {
+  private static final Logger LOG = LoggerFactory.getLogger(DictionaryRecordWriter.class);
+
+  static final int FRAME_SIZE = 64 * 1024;
+  static final int FRAME_HEADER_SIZE = 4;
+  // positions are the offset of the frame shifted left, plus the index of the record in the frame
+  static final int POSITION_SHIFT = 16;
+  static final int MAX_RECORDS_PER_FRAME = (1 << POSITION_SHIFT) - 1;
+
+  // string codes, bigger codes are references to the dictionary
+  static final int NULL_STRING = 0;
+  static final int LITERAL_STRING = 1;
+  static final int NEW_DICTIONARY_STRING = 2;
+  static final int DICTIONARY_REFERENCE_BASE = 3;
+
+  // only short field values are worth a dictionary entry
+  static final int MAX_DICTIONARY_VALUE_LENGTH = 64;
+
+  // header flags
+  static final int TRACKING_ID_DERIVED = 0x01;
+  static final int HAS_RAW = 0x02;
+  static final int HAS_ERROR = 0x04;
+
+  // field tags, the type code in the low bits
+  static final int TYPE_MASK = 0x1F;
+  static final int NULL_VALUE = 0x20;
+  static final int HAS_ATTRIBUTES = 0x40;
+  static final int NULL_FIELD = 0x80;
+
+  // wire codes of the field types, their index in this array
+  static final Field.Type[] TYPES = {
+      Field.Type.BOOLEAN,
+      Field.Type.CHAR,
+      Field.Type.BYTE,
+      Field.Type.SHORT,
+      Field.Type.INTEGER,
+      Field.Type.LONG,
+      Field.Type.FLOAT,
+      Field.Type.DOUBLE,
+      Field.Type.DATE,
+      Field.Type.DATETIME,
+      Field.Type.TIME,
+      Field.Type.DECIMAL,
+      Field.Type.STRING,
+      Field.Type.FILE_REF,
+      Field.Type.BYTE_ARRAY,
+      Field.Type.MAP,
+      Field.Type.LIST,
+      Field.Type.LIST_MAP,
+      Field.Type.ZONED_DATETIME,
+  };
+
+  private static final int[] TYPE_CODES = new int[Field.Type.values().length];
+
+  static {
+    for (int i = 0; i < TYPES.length; i++) {
+      TYPE_CODES[TYPES[i].ordinal()] = i;
+    }
+  }
+
+  private final OutputStream outputStream;
+  private final Map<String, Integer> dictionary = new HashMap<>();
+  private byte[] buffer = new byte[FRAME_SIZE + 1024];
+  private int count = FRAME_HEADER_SIZE;
+  private int records;
+  private boolean closed;
+
+  public DictionaryRecordWriter(OutputStream outputStream) {
+    this.outputStream = outputStream;
+  }
+
+  @Override
+  public String getEncoding() {
+    return RecordEncoding.DICT1.name();
+  }
+
+  @Override
+  public void write(Record record) throws IOException {
+    if (closed) {
+      throw new IOException("writer has been closed");
+    }
+    Utils.checkNotNull(record, "record");
+    writeHeader((HeaderImpl) record.getHeader());
+    writeField(record.get());
+    records++;
+    if (count >= FRAME_SIZE || records == MAX_RECORDS_PER_FRAME) {
+      writeFrame();
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (closed) {
+      throw new IOException("writer has been closed");
+    }
+    writeFrame();
+    outputStream.flush();
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      try {
+        writeFrame();
+        outputStream.close();
+      } catch (IOException ex) {
+        LOG.warn("Error on close: {}", ex, ex);
+      }
+    }
+  }
+
+  private void writeFrame() throws IOException {
+    if (records == 0) {
+      return;
+    }
+    int length = count - FRAME_HEADER_SIZE;
+    buffer[0] = (byte) (length >>> 24);
+    buffer[1] = (byte) (length >>> 16);
+    buffer[2] = (byte) (length >>> 8);
+    buffer[3] = (byte) length;
+    outputStream.write(buffer, 0, count);
+    if (buffer.length > 4 * FRAME_SIZE) {
+      // do not hold on to the buffer grown for a large record
+      buffer = new byte[FRAME_SIZE + 1024];
+    }
+    count = FRAME_HEADER_SIZE;
+    records = 0;
+    dictionary.clear();
+  }
+
+  private void writeHeader(HeaderImpl header) {
+    String sourceId = header.getSourceId();
+    String stagesPath = header.getStagesPath();
+    String trackingId = header.getTrackingId();
+    byte[] raw = header.getRaw();
+    String errorCode = header.getErrorCode();
+
+    boolean trackingIdDerived = isDerivedTrackingId(trackingId, sourceId, stagesPath);
+    int flags = (trackingIdDerived ? TRACKING_ID_DERIVED : 0) |
+        (raw != null ? HAS_RAW : 0) |
+        (errorCode != null ? HAS_ERROR : 0);
+    writeByte(flags);
+    writeString(header.getStageCreator(), true);
+    writeString(sourceId, false);
+    writeString(stagesPath, true);
+    if (!trackingIdDerived) {
+      writeString(trackingId, false);
+    }
+    writeString(header.getPreviousTrackingId(), false);
+    if (raw != null) {
+      writeBytes(raw);
+      writeString(header.getRawMimeType(), true);
+    }
+    writeString(header.getErrorDataCollectorId(), true);
+    writeString(header.getErrorPipelineName(), true);
+    if (errorCode != null) {
+      writeString(header.getErrorStage(), true);
+      writeString(header.getErrorStageLabel(), true);
+      writeString(errorCode, true);
+      writeString(header.getErrorMessage(), false);
+      writeVarLong(header.getErrorTimestamp());
+      writeString(header.getErrorStackTrace(), false);
+    }
+    writeString(header.getErrorJobId(), true);
+
+    Map<String, String> attributes = header.getValues();
+    writeVarInt(attributes.size());
+    for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+      writeString(attribute.getKey(), true);
+      writeString(attribute.getValue(), true);
+    }
+  }
+
+  /**
+   * Returns whether the tracking ID is the one computed by {@code RecordImpl.createTrackingId()}, so that it does not
+   * need to be written.
+   */
+  private static boolean isDerivedTrackingId(String trackingId, String sourceId, String stagesPath) {
+    return trackingId != null && sourceId != null && stagesPath != null &&
+        trackingId.length() == sourceId.length() + 2 + stagesPath.length() &&
+        trackingId.startsWith(sourceId) &&
+        trackingId.startsWith("::", sourceId.length()) &&
+        trackingId.endsWith(stagesPath);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void writeField(Field field) throws IOException {
+    if (field == null) {
+      writeByte(NULL_FIELD);
+      return;
+    }
+    Field.Type type = field.getType();
+    Object value = field.getValue();
+    Map<String, String> attributes = field.getAttributes();
+    boolean hasAttributes = attributes != null && !attributes.isEmpty();
+    writeByte(TYPE_CODES[type.ordinal()] | (value == null ? NULL_VALUE : 0) | (hasAttributes ? HAS_ATTRIBUTES : 0));
+    if (hasAttributes) {
+      writeVarInt(attributes.size());
+      for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+        writeString(attribute.getKey(), true);
+        writeString(attribute.getValue(), true);
+      }
+    }
+    if (value == null) {
+      return;
+    }
+    switch (type) {
+      case BOOLEAN:
+        writeByte((Boolean) value ? 1 : 0);
+        break;
+      case CHAR:
+        writeVarInt((Character) value);
+        break;
+      case BYTE:
+        writeByte((Byte) value);
+        break;
+      case SHORT:
+        writeVarLong((Short) value);
+        break;
+      case INTEGER:
+        writeVarLong((Integer) value);
+        break;
+      case LONG:
+        writeVarLong((Long) value);
+        break;
+      case FLOAT:
+        writeInt(Float.floatToIntBits((Float) value));
+        break;
+      case DOUBLE:
+        long bits = Double.doubleToLongBits((Double) value);
+        writeInt((int) (bits >>> 32));
+        writeInt((int) bits);
+        break;
+      case DATE:
+      case DATETIME:
+      case TIME:
+        writeVarLong(((Date) value).getTime());
+        break;
+      case DECIMAL:
+        BigDecimal decimal = (BigDecimal) value;
+        writeVarLong(decimal.scale());
+        writeBytes(decimal.unscaledValue().toByteArray());
+        break;
+      case STRING:
+        String string = (String) value;
+        writeString(string, string.length() <= MAX_DICTIONARY_VALUE_LENGTH);
+        break;
+      case BYTE_ARRAY:
+        writeBytes((byte[]) value);
+        break;
+      case MAP:
+      case LIST_MAP:
+        Map<String, Field> map = (Map<String, Field>) value;
+        writeVarInt(map.size());
+        for (Map.Entry<String, Field> entry : map.entrySet()) {
+          writeString(entry.getKey(), true);
+          writeField(entry.getValue());
+        }
+        break;
+      case LIST:
+        List<Field> list = (List<Field>) value;
+        writeVarInt(list.size());
+        for (Field element : list) {
+          writeField(element);
+        }
+        break;
+      case ZONED_DATETIME:
+        writeString(value.toString(), false);
+        break;
+      case FILE_REF:
+        throw new IOException("Cannot serialize FileRef fields.");
+      default:
+        throw new IllegalStateException(Utils.format("Unrecognized field type ({}) in field: {}", type, field));
+    }
+  }
+
+  private void writeString(String string, boolean useDictionary) {
+    if (string == null) {
+      writeVarInt(NULL_STRING);
+    } else if (!useDictionary) {
+      writeVarInt(LITERAL_STRING);
+      writeUtf8(string);
+    } else {
+      Integer index = dictionary.get(string);
+      if (index != null) {
+        writeVarInt(DICTIONARY_REFERENCE_BASE + index);
+      } else {
+        dictionary.put(string, dictionary.size());
+        writeVarInt(NEW_DICTIONARY_STRING);
+        writeUtf8(string);
+      }
+    }
+  }
+
+  private void writeUtf8(String string) {
+    int length = string.length();
+    ensureCapacity(5 + length);
+    int start = count;
+    // optimistic ASCII encoding, done in place after the length
+    count += varIntSize(length);
+    for (int i = 0; i < length; i++) {
+      char c = string.charAt(i);
+      if (c >= 0x80) {
+        count = start;
+        writeBytes(string.getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+      buffer[count++] = (byte) c;
+    }
+    int end = count;
+    count = start;
+    writeVarInt(length);
+    count = end;
+  }
+
+  private void writeBytes(byte[] bytes) {
+    writeVarInt(bytes.length);
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, buffer, count, bytes.length);
+    count += bytes.length;
+  }
+
+  private void writeByte(int b) {
+    ensureCapacity(1);
+    buffer[count++] = (byte) b;
+  }
+
+  private void writeInt(int i) {
+    ensureCapacity(4);
+    buffer[count++] = (byte) (i >>> 24);
+    buffer[count++] = (byte) (i >>> 16);
+    buffer[count++] = (byte) (i >>> 8);
+    buffer[count++] = (byte) i;
+  }
+
+  private void writeVarInt(int i) {
+    ensureCapacity(5);
+    while ((i & ~0x7F) != 0) {
+      buffer[count++] = (byte) ((i & 0x7F) | 0x80);
+      i >>>= 7;
+    }
+    buffer[count++] = (byte) i;
+  }
+
+  /**
+   * Writes a signed long as a zig-zag encoded var int, so that small negative values are short too.
+   */
+  private void writeVarLong(long l) {
+    ensureCapacity(10);
+    long zigZag = (l << 1) ^ (l >> 63);
+    while ((zigZag & ~0x7FL) != 0) {
+      buffer[count++] = (byte) ((zigZag & 0x7F) | 0x80);
+      zigZag >>>= 7;
+    }
+    buffer[count++] = (byte) zigZag;
+  }
+
+  private static int varIntSize(int i) {
+    int size = 1;
+    while ((i & ~0x7F) != 0) {
+      size++;
+      i >>>= 7;
+    }
+    return size;
+  }
+
+  private void ensureCapacity(int bytes) {
+    if (count + bytes > buffer.length) {
+      byte[] grown = new byte[Math.max(buffer.length * 2, count + bytes)];
+      System.arraycopy(buffer, 0, grown, 0, count);
+      buffer = grown;
+    }
+  }
+}
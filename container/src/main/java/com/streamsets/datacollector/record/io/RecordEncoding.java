@@ -27,6 +27,8 @@ class RecordEncodingConstants {
   static final byte KRYO1_MAGIC_NUMBER = BASE_MAGIC_NUMBER | (byte) 0x02;
   //10100001
   static final byte JSON1_MAGIC_NUMBER = BASE_MAGIC_NUMBER | (byte) 0x01;
+  //10100011
+  static final byte DICT1_MAGIC_NUMBER = BASE_MAGIC_NUMBER | (byte) 0x03;
 
   private RecordEncodingConstants() {}
 }
@@ -34,6 +36,7 @@ class RecordEncodingConstants {
 public enum RecordEncoding {
   JSON1(RecordEncodingConstants.JSON1_MAGIC_NUMBER),
   KRYO1(RecordEncodingConstants.KRYO1_MAGIC_NUMBER),
+  DICT1(RecordEncodingConstants.DICT1_MAGIC_NUMBER),
 
   ;
 
@@ -49,6 +49,9 @@ public class RecordWriterReaderFactory {
           case KRYO1:
             reader = new KryoRecordReader(is, initialPosition);
             break;
+          case DICT1:
+            reader = new DictionaryRecordReader(is, initialPosition, maxObjectLen);
+            break;
           default:
             throw new RuntimeException("It cannot happen");
         }
@@ -81,6 +84,10 @@ public class RecordWriterReaderFactory {
         os.write(RecordEncodingConstants.KRYO1_MAGIC_NUMBER);
         writer = new KryoRecordWriter(os);
         break;
+      case DICT1:
+        os.write(RecordEncodingConstants.DICT1_MAGIC_NUMBER);
+        writer = new DictionaryRecordWriter(os);
+        break;
       default:
         throw new RuntimeException("It cannot happen");
     }
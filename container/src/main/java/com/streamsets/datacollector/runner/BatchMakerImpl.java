@@ -50,6 +50,7 @@ public class BatchMakerImpl implements BatchMaker {
   private int recordAllowance;
   private int size;
   private boolean recordByRef;
+  private boolean keepSourceRecord = true;
   private Optional<RateLimiter> rateLimiterOptional = Optional.absent();
 
   public BatchMakerImpl(StagePipe stagePipe, boolean keepSnapshot) {
@@ -111,8 +112,11 @@ public class BatchMakerImpl implements BatchMaker {
     recordCopy.createTrackingId();
 
     if (recordCopy.isInitialRecord()) {
-      RecordImpl recordSource = recordCopy.clone();
-      recordCopy.getHeader().setSourceRecord(recordSource);
+      if (keepSourceRecord) {
+        // the source record shares the field tree with the record until a stage gets hold of or modifies a field
+        RecordImpl recordSource = recordCopy.cloneCopyOnWrite();
+        recordCopy.getHeader().setSourceRecord(recordSource);
+      }
       recordCopy.setInitialRecord(false);
     }
 
@@ -172,6 +176,40 @@ public class BatchMakerImpl implements BatchMaker {
     rateLimiterOptional = Optional.fromNullable(rateLimiter);
   }
 
+  /**
+   * Whether a copy of each record as generated by the origin should be kept in the record header. It is only needed
+   * when the pipeline sends the original record to error.
+   */
+  public void setKeepSourceRecord(boolean keepSourceRecord) {
+    this.keepSourceRecord = keepSourceRecord;
+  }
+
+  boolean isKeepSourceRecord() {
+    return keepSourceRecord;
+  }
+
+  /**
+   * Creates an empty batch maker for the output of one chunk of the batch, see {@link #addChunk(BatchMakerImpl)}.
+   */
+  BatchMakerImpl createChunk() {
+    BatchMakerImpl chunk = new BatchMakerImpl(stagePipe, stageOutputSnapshot != null, recordAllowance);
+    chunk.setKeepSourceRecord(keepSourceRecord);
+    return chunk;
+  }
+
+  /**
+   * Appends the output of the given chunk of the batch to the output of this batch maker.
+   */
+  void addChunk(BatchMakerImpl chunk) {
+    for (String lane : outputLanes) {
+      stageOutput.get(lane).addAll(chunk.stageOutput.get(lane));
+      if (stageOutputSnapshot != null) {
+        stageOutputSnapshot.get(lane).addAll(chunk.stageOutputSnapshot.get(lane));
+      }
+    }
+    size += chunk.size;
+  }
+
   @Override
   public String toString() {
     return Utils.format("BatchMakerImpl[instance='{}' lanes='{}' size='{}' keepsSnapshot='{}']", instanceName,
@@ -75,6 +75,14 @@ public class ErrorSink implements ReportErrorDelegate {
     totalErrorRecords++;
   }
 
+  /**
+   * Appends all the errors collected by the other sink to this one.
+   */
+  public void addAll(ErrorSink other) {
+    other.stageErrors.forEach((stage, errors) -> errors.forEach(error -> reportError(stage, error)));
+    other.errorRecords.forEach((stage, records) -> records.forEach(record -> addRecord(stage, record)));
+  }
+
   public Map<String, List<ErrorMessage>> getStageErrors() {
     return stageErrors;
   }
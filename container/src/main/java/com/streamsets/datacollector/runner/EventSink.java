@@ -52,6 +52,15 @@ public class EventSink {
     events.add(event);
   }
 
+  /**
+   * Appends all the events collected by the other sink to this one.
+   */
+  public void addAll(EventSink other) {
+    other.eventRecords.forEach(
+        (stage, events) -> eventRecords.computeIfAbsent(stage, k -> new ArrayList<>()).addAll(events)
+    );
+  }
+
   public List<EventRecord> getStageEventsAsEventRecords(String stage) throws StageException {
     Preconditions.checkState(interceptors.containsKey(stage), Utils.format("No interceptors registered for stage '{}'", stage));
     return intercept(
@@ -56,6 +56,7 @@ public class FullPipeBatch implements PipeBatch {
   private int inputRecords;
   private int outputRecords;
   private RateLimiter rateLimiter;
+  private boolean keepSourceRecords = true;
 
   // True if the batch was created by a framework rather then origin
   private boolean isIdleBatch;
@@ -101,6 +102,10 @@ public class FullPipeBatch implements PipeBatch {
     this.rateLimiter = rateLimiter;
   }
 
+  public void setKeepSourceRecords(boolean keepSourceRecords) {
+    this.keepSourceRecords = keepSourceRecords;
+  }
+
   @Override
   @SuppressWarnings("unchecked")
   public BatchImpl getBatch(final Pipe pipe) throws StageException {
@@ -136,6 +141,7 @@ public class FullPipeBatch implements PipeBatch {
                           ? getBatchSize() : Integer.MAX_VALUE;
     BatchMakerImpl batchMaker = new BatchMakerImpl(pipe, stageOutputSnapshot != null, recordAllowance);
     batchMaker.setRateLimiter(rateLimiter);
+    batchMaker.setKeepSourceRecord(keepSourceRecords);
     return batchMaker;
   }
 
@@ -329,18 +335,22 @@ public class FullPipeBatch implements PipeBatch {
   public void moveLaneCopying(String inputLane, List<String> outputLanes) {
     List<Record> records = Preconditions.checkNotNull(fullPayload.remove(inputLane), Utils.formatL(
         "Stream '{}' does not exist", inputLane));
+    List<List<Record>> laneRecords = new ArrayList<>(outputLanes.size());
     for (String lane : outputLanes) {
       Preconditions.checkState(!fullPayload.containsKey(lane), Utils.formatL("Lane '{}' already exists", lane));
-      fullPayload.put(lane, createCopy(records));
+      List<Record> list = new ArrayList<>(records.size());
+      laneRecords.add(list);
+      fullPayload.put(lane, list);
     }
-  }
-
-  private List<Record> createCopy(List<Record> records) {
-    List<Record> list = new ArrayList<>(records.size());
-    for (Record record : records) {
-      list.add(((RecordImpl) record).clone());
+    // The copies share the field tree of the original record until a stage modifies (or gets hold of) a field
+    if (!outputLanes.isEmpty()) {
+      for (Record record : records) {
+        List<RecordImpl> copies = ((RecordImpl) record).copyOnWrite(outputLanes.size());
+        for (int i = 0; i < copies.size(); i++) {
+          laneRecords.get(i).add(copies.get(i));
+        }
+      }
     }
-    return list;
   }
 
   private List<String> remove(List<String> from, Collection<String> values) {
@@ -25,6 +25,11 @@ public interface Observer {
 
   public void reconfigure();
 
+  /**
+   * Returns true if {@link #reconfigure()} would switch to a new rules configuration.
+   */
+  public boolean isReconfigurationPending();
+
   public boolean isObserving(List<String> lanes);
 
   public void observe(Pipe pipe, Map<String, List<Record>> snapshot);
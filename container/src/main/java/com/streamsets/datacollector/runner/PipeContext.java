@@ -15,16 +15,36 @@
  */
 package com.streamsets.datacollector.runner;
 
+import java.util.concurrent.ForkJoinPool;
+
 public class PipeContext implements StagePipe.Context {
 
   private final RuntimeStats runtimeStats;
+  private final ForkJoinPool statelessProcessorPool;
+  private final int statelessProcessorMinChunkSize;
 
   public PipeContext() {
+    this(null, 0);
+  }
+
+  public PipeContext(ForkJoinPool statelessProcessorPool, int statelessProcessorMinChunkSize) {
     this.runtimeStats = new RuntimeStats();
+    this.statelessProcessorPool = statelessProcessorPool;
+    this.statelessProcessorMinChunkSize = statelessProcessorMinChunkSize;
   }
 
   @Override
   public RuntimeStats getRuntimeStats() {
     return runtimeStats;
   }
+
+  @Override
+  public ForkJoinPool getStatelessProcessorPool() {
+    return statelessProcessorPool;
+  }
+
+  @Override
+  public int getStatelessProcessorMinChunkSize() {
+    return statelessProcessorMinChunkSize;
+  }
 }
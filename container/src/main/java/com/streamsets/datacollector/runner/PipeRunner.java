@@ -30,9 +30,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Pipe Runner that wraps one source-less instance of the pipeline.
@@ -72,6 +74,15 @@ public class PipeRunner {
    */
   private final Map<String, Object> runtimeMetricGauge;
 
+  /**
+   * Gauges with runtime metrics of the segments of this runner, by segment index.
+   */
+  private final Map<Integer, Map<String, Object>> segmentMetricGauges = new ConcurrentHashMap<>();
+
+  private final MetricRegistry metricRegistry;
+  private final String pipelineName;
+  private final String pipelineRev;
+
   public PipeRunner(
       String pipelineName,
       String pipelineRev,
@@ -81,6 +92,9 @@ public class PipeRunner {
   ) {
     this.runnerId = runnerId;
     this.pipes = ImmutableList.copyOf(pipes);
+    this.metricRegistry = metricRegistry;
+    this.pipelineName = pipelineName;
+    this.pipelineRev = pipelineRev;
 
     // Create metric gauge for this particular runner
     this.runtimeMetricGauge = MetricsConfigurator.createStageGauge(
@@ -93,7 +107,7 @@ public class PipeRunner {
 
     // And fill in default values
     this.runtimeMetricGauge.put(METRIC_BATCH_COUNT, 0L);
-    resetBatchSpecificMetrics();
+    resetBatchSpecificMetrics(runtimeMetricGauge);
   }
 
   public Pipe get(int i) {
@@ -146,18 +160,103 @@ public class PipeRunner {
       // We've successfully finished batch
       this.runtimeMetricGauge.computeIfPresent(METRIC_BATCH_COUNT, (key, value) -> ((long)value) + 1);
     } finally {
-      resetBatchSpecificMetrics();
+      resetBatchSpecificMetrics(runtimeMetricGauge);
+      MDC.put(LogConstants.RUNNER, "");
+      MDC.put(LogConstants.STAGE, "");
+    }
+  }
+
+  /**
+   * Split pipes of this runner into at most given number of consecutive segments with similar number of stages.
+   *
+   * Segments are only cut in front of a stage pipe, so observer and multiplexer pipes stay with the stage they belong
+   * to. Processing the segments one after another is equivalent to processing the whole runner.
+   */
+  public List<List<Pipe>> split(int segments) {
+    List<Integer> stageStarts = new ArrayList<>();
+    for (int i = 0; i < pipes.size(); i++) {
+      if (i == 0 || pipes.get(i) instanceof StagePipe) {
+        stageStarts.add(i);
+      }
+    }
+    if (stageStarts.isEmpty()) {
+      return ImmutableList.of(pipes);
+    }
+
+    int count = Math.max(1, Math.min(segments, stageStarts.size()));
+    List<List<Pipe>> result = new ArrayList<>(count);
+    for (int s = 0; s < count; s++) {
+      int from = stageStarts.get(s * stageStarts.size() / count);
+      int to = (s + 1 == count) ? pipes.size() : stageStarts.get((s + 1) * stageStarts.size() / count);
+      result.add(pipes.subList(from, to));
+    }
+    return result;
+  }
+
+  /**
+   * Run batch with given consumer for each pipe of the segment with given index (see {@link #split(int)}).
+   *
+   * Segments of the same runner run concurrently on different batches, the batch and the stage that a segment is
+   * running are hence published in the gauge of the segment ("runner.&lt;id&gt;.segment.&lt;index&gt;"). The batch count
+   * of the runner is increased by the last segment, once the batch went through all the pipes.
+   */
+  public void executeSegment(
+      int index,
+      List<Pipe> segment,
+      boolean last,
+      String offsetKey,
+      String offsetValue,
+      long batchStartTime,
+      ThrowingConsumer<Pipe> consumer
+  ) throws PipelineRuntimeException, StageException {
+    Map<String, Object> segmentMetricGauge = segmentMetricGauges.computeIfAbsent(index, this::createSegmentGauge);
+    MDC.put(LogConstants.RUNNER, String.valueOf(runnerId));
+    segmentMetricGauge.put(METRIC_BATCH_START_TIME, batchStartTime);
+    segmentMetricGauge.put(METRIC_OFFSET_KEY, Optional.ofNullable(offsetKey).orElse(""));
+    segmentMetricGauge.put(METRIC_OFFSET_VALUE, Optional.ofNullable(offsetValue).orElse(""));
+    segmentMetricGauge.put(METRIC_STAGE_START_TIME, System.currentTimeMillis());
+    try {
+      for(Pipe p : segment) {
+        String instanceName = p.getStage().getInfo().getInstanceName();
+        segmentMetricGauge.put(METRIC_CURRENT_STAGE, instanceName);
+        MDC.put(LogConstants.STAGE, instanceName);
+        if (p instanceof StagePipe) {
+          segmentMetricGauge.put(METRIC_STAGE_START_TIME, System.currentTimeMillis());
+        }
+
+        acceptConsumer(consumer, p);
+      }
+
+      segmentMetricGauge.computeIfPresent(METRIC_BATCH_COUNT, (key, value) -> ((long)value) + 1);
+      if (last) {
+        this.runtimeMetricGauge.computeIfPresent(METRIC_BATCH_COUNT, (key, value) -> ((long)value) + 1);
+      }
+    } finally {
+      resetBatchSpecificMetrics(segmentMetricGauge);
       MDC.put(LogConstants.RUNNER, "");
       MDC.put(LogConstants.STAGE, "");
     }
   }
 
-  private void resetBatchSpecificMetrics() {
+  private Map<String, Object> createSegmentGauge(int index) {
+    Map<String, Object> gauge = MetricsConfigurator.createStageGauge(
+      metricRegistry,
+      "runner." + runnerId + ".segment." + index,
+      null,
+      pipelineName,
+      pipelineRev
+    ).getValue();
+    gauge.put(METRIC_BATCH_COUNT, 0L);
+    resetBatchSpecificMetrics(gauge);
+    return gauge;
+  }
+
+  private static void resetBatchSpecificMetrics(Map<String, Object> gauge) {
     // Fill in default values when there is no batch running
-    this.runtimeMetricGauge.put(METRIC_CURRENT_STAGE, IDLE);
-    this.runtimeMetricGauge.put(METRIC_OFFSET_KEY, "");
-    this.runtimeMetricGauge.put(METRIC_OFFSET_VALUE, "");
-    this.runtimeMetricGauge.put(METRIC_BATCH_START_TIME, 0L);
+    gauge.put(METRIC_CURRENT_STAGE, IDLE);
+    gauge.put(METRIC_OFFSET_KEY, "");
+    gauge.put(METRIC_OFFSET_VALUE, "");
+    gauge.put(METRIC_BATCH_START_TIME, 0L);
   }
 
   /**
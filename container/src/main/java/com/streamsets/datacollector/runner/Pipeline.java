@@ -72,6 +72,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 public class Pipeline {
   private static final Logger LOG = LoggerFactory.getLogger(Pipeline.class);
@@ -79,6 +80,10 @@ public class Pipeline {
   private static final String DELIVERY_GUARANTEE_CONFIG_KEY = "deliveryGuarantee";
   private static final String MAX_RUNNERS_CONFIG_KEY = "pipeline.max.runners.count";
   private static final int MAX_RUNNERS_DEFAULT = 50;
+  private static final String STATELESS_PROCESSOR_PARALLELISM_KEY = "production.statelessProcessorParallelism";
+  private static final int STATELESS_PROCESSOR_PARALLELISM_DEFAULT = 1;
+  private static final String STATELESS_PROCESSOR_MIN_CHUNK_SIZE_KEY = "production.statelessProcessorMinChunkSize";
+  private static final int STATELESS_PROCESSOR_MIN_CHUNK_SIZE_DEFAULT = 100;
   private static final String FRAMEWORK_NAME = "Framework";
 
   private final StageLibraryTask stageLib;
@@ -108,6 +113,7 @@ public class Pipeline {
   private final StageRuntime startEventStage;
   private final StageRuntime stopEventStage;
   private boolean stopEventStageInitialized;
+  private ForkJoinPool statelessProcessorPool;
 
   private Pipeline(
       StageLibraryTask stageLib,
@@ -234,7 +240,17 @@ public class Pipeline {
 
   @SuppressWarnings("unchecked")
   public List<Issue> init(boolean productionExecution) {
-    PipeContext pipeContext = new PipeContext();
+    int statelessProcessorParallelism = configuration.get(
+        STATELESS_PROCESSOR_PARALLELISM_KEY,
+        STATELESS_PROCESSOR_PARALLELISM_DEFAULT
+    );
+    if (productionExecution && statelessProcessorParallelism > 1) {
+      statelessProcessorPool = new ForkJoinPool(statelessProcessorParallelism);
+    }
+    PipeContext pipeContext = new PipeContext(
+        statelessProcessorPool,
+        configuration.get(STATELESS_PROCESSOR_MIN_CHUNK_SIZE_KEY, STATELESS_PROCESSOR_MIN_CHUNK_SIZE_DEFAULT)
+    );
     this.runner.setRuntimeConfiguration(
       pipeContext,
       pipelineConf,
@@ -505,6 +521,10 @@ public class Pipeline {
       scheduledExecutorService.shutdown();
     }
 
+    if (statelessProcessorPool != null) {
+      statelessProcessorPool.shutdown();
+    }
+
     if(productionExecution) {
       LineageEvent event = createLineageEvent(LineageEventType.STOP, runner.getRuntimeInfo().getBaseHttpUrl());
       event.getProperties().put("Pipeline_Stop_Reason", stopReason.name());
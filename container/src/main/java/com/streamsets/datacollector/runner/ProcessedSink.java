@@ -48,6 +48,13 @@ public class ProcessedSink {
     r.addAll(records);
   }
 
+  /**
+   * Appends all the records collected by the other sink to this one.
+   */
+  public void addAll(ProcessedSink other) {
+    other.processedRecords.forEach(this::addRecords);
+  }
+
   public Optional<List<Record>> getProcessedRecords(String stage) {
     return Optional.ofNullable(processedRecords.get(stage));
   }
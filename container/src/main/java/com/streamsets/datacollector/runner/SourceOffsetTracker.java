@@ -58,4 +58,10 @@ public interface SourceOffsetTracker {
    */
   public void resetOffset();
 
+  /**
+   * Release resources held by the tracker once the pipeline stopped committing offsets.
+   */
+  public default void close() {
+  }
+
 }
@@ -32,6 +32,13 @@ public class SourceResponseSink {
     responseRecords.add(record);
   }
 
+  /**
+   * Appends all the responses collected by the other sink to this one.
+   */
+  public void addAll(SourceResponseSink other) {
+    responseRecords.addAll(other.responseRecords);
+  }
+
   public List<Record> getResponseRecords() {
     return responseRecords;
   }
@@ -76,6 +76,8 @@ public class StageContext extends ProtoContext implements
   private EventSink eventSink;
   private ProcessedSink processedSink;
   private SourceResponseSink sourceResponseSink;
+  private final ThreadLocal<ChunkSinks> chunkSinks = new ThreadLocal<>();
+  private volatile boolean processingChunks;
   private long lastBatchTime;
   private final ExecutionMode executionMode;
   private final DeliveryGuarantee deliveryGuarantee;
@@ -366,28 +368,91 @@ public class StageContext extends ProtoContext implements
     this.reportErrorDelegate = delegate;
   }
 
+  /**
+   * Sinks of the chunk of the batch processed by one thread while a stateless processor processes its batch in chunks
+   * on several threads.
+   */
+  private static class ChunkSinks {
+    private final ErrorSink errorSink;
+    private final EventSink eventSink;
+    private final ProcessedSink processedSink;
+    private final SourceResponseSink sourceResponseSink;
+    private final ReportErrorDelegate reportErrorDelegate;
+
+    private ChunkSinks(
+        ErrorSink errorSink,
+        EventSink eventSink,
+        ProcessedSink processedSink,
+        SourceResponseSink sourceResponseSink,
+        ReportErrorDelegate reportErrorDelegate
+    ) {
+      this.errorSink = errorSink;
+      this.eventSink = eventSink;
+      this.processedSink = processedSink;
+      this.sourceResponseSink = sourceResponseSink;
+      this.reportErrorDelegate = reportErrorDelegate;
+    }
+  }
+
+  /**
+   * Whether the batch is being processed in chunks, in which case each thread processing a chunk sets its own sinks
+   * with {@link #setChunkSinks(ErrorSink, EventSink, ProcessedSink, SourceResponseSink, ReportErrorDelegate)}.
+   */
+  public void setProcessingChunks(boolean processingChunks) {
+    this.processingChunks = processingChunks;
+  }
+
+  /**
+   * Sets the sinks used by the current thread while processing a chunk of the batch, null sinks unset them.
+   */
+  public void setChunkSinks(
+      ErrorSink errorSink,
+      EventSink eventSink,
+      ProcessedSink processedSink,
+      SourceResponseSink sourceResponseSink,
+      ReportErrorDelegate reportErrorDelegate
+  ) {
+    if (errorSink == null) {
+      chunkSinks.remove();
+    } else {
+      chunkSinks.set(new ChunkSinks(errorSink, eventSink, processedSink, sourceResponseSink, reportErrorDelegate));
+    }
+  }
+
+  private ChunkSinks getChunkSinks() {
+    return processingChunks ? chunkSinks.get() : null;
+  }
+
+  private ReportErrorDelegate getReportErrorDelegate() {
+    ChunkSinks chunk = getChunkSinks();
+    return (chunk != null) ? chunk.reportErrorDelegate : reportErrorDelegate;
+  }
+
   @Override
   @SuppressWarnings("ThrowableResultOfMethodCallIgnored")
   public void reportError(Exception exception) {
     Preconditions.checkNotNull(exception, "exception cannot be null");
     if (exception instanceof StageException) {
       StageException stageException = (StageException)exception;
-      reportErrorDelegate.reportError(stageInfo.getInstanceName(), produceErrorMessage(stageException.getErrorCode(), stageException.getParams()));
+      getReportErrorDelegate().reportError(
+          stageInfo.getInstanceName(),
+          produceErrorMessage(stageException.getErrorCode(), stageException.getParams())
+      );
     } else {
-      reportErrorDelegate.reportError(stageInfo.getInstanceName(), produceErrorMessage(exception));
+      getReportErrorDelegate().reportError(stageInfo.getInstanceName(), produceErrorMessage(exception));
     }
   }
 
   @Override
   public void reportError(String errorMessage) {
     Preconditions.checkNotNull(errorMessage, "errorMessage cannot be null");
-    reportErrorDelegate.reportError(stageInfo.getInstanceName(), produceErrorMessage(errorMessage));
+    getReportErrorDelegate().reportError(stageInfo.getInstanceName(), produceErrorMessage(errorMessage));
   }
 
   @Override
   public void reportError(ErrorCode errorCode, Object... args) {
     Preconditions.checkNotNull(errorCode, "errorId cannot be null");
-    reportErrorDelegate.reportError(stageInfo.getInstanceName(), produceErrorMessage(errorCode, args));
+    getReportErrorDelegate().reportError(stageInfo.getInstanceName(), produceErrorMessage(errorCode, args));
   }
 
   @Override
@@ -433,7 +498,8 @@ public class StageContext extends ProtoContext implements
     if (jobId != null) {
       recordImpl.getHeader().setErrorJobId(jobId);
     }
-    errorSink.addRecord(stageInfo.getInstanceName(), recordImpl);
+    ChunkSinks chunk = getChunkSinks();
+    ((chunk != null) ? chunk.errorSink : errorSink).addRecord(stageInfo.getInstanceName(), recordImpl);
   }
 
   public ErrorMessage produceErrorMessage(Exception exception) {
@@ -555,24 +621,29 @@ public class StageContext extends ProtoContext implements
       recordImpl.getHeader().setSourceRecord(recordImpl);
       recordImpl.setInitialRecord(false);
     }
-    eventSink.addEvent(stageInfo.getInstanceName(), recordImpl);
+    ChunkSinks chunk = getChunkSinks();
+    ((chunk != null) ? chunk.eventSink : eventSink).addEvent(stageInfo.getInstanceName(), recordImpl);
   }
 
   @Override
   public void toSourceResponse(Record record) {
-    if (sourceResponseSink != null) {
-      sourceResponseSink.addResponse(record);
+    ChunkSinks chunk = getChunkSinks();
+    SourceResponseSink sink = (chunk != null) ? chunk.sourceResponseSink : sourceResponseSink;
+    if (sink != null) {
+      sink.addResponse(record);
     }
   }
 
   @Override
   public void complete(Record record) {
-    processedSink.addRecord(stageInfo.getInstanceName(), record);
+    ChunkSinks chunk = getChunkSinks();
+    ((chunk != null) ? chunk.processedSink : processedSink).addRecord(stageInfo.getInstanceName(), record);
   }
 
   @Override
   public void complete(Collection<Record> records) {
-    processedSink.addRecords(stageInfo.getInstanceName(), records);
+    ChunkSinks chunk = getChunkSinks();
+    ((chunk != null) ? chunk.processedSink : processedSink).addRecords(stageInfo.getInstanceName(), records);
   }
 
   public void setStop(boolean stop) {
@@ -38,6 +38,7 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 public class StagePipe extends Pipe<StagePipe.Context> {
@@ -216,16 +217,31 @@ public class StagePipe extends Pipe<StagePipe.Context> {
     Batch batch = new FilterRecordBatch(batchImpl, predicates, getStage().getContext());
 
     long start = System.currentTimeMillis();
-    String newOffset = getStage().execute(
-        previousOffset,
-        pipeBatch.getBatchSize(),
-        batch,
-        batchMaker,
-        errorSink,
-        eventSink,
-        processedSink,
-        sourceResponseSink
-    );
+    String newOffset = null;
+    ForkJoinPool statelessProcessorPool = (context != null) ? context.getStatelessProcessorPool() : null;
+    if (statelessProcessorPool != null && getStage().getDefinition().isStateless()) {
+      getStage().execute(
+          batch,
+          batchMaker,
+          errorSink,
+          eventSink,
+          processedSink,
+          sourceResponseSink,
+          statelessProcessorPool,
+          context.getStatelessProcessorMinChunkSize()
+      );
+    } else {
+      newOffset = getStage().execute(
+          previousOffset,
+          pipeBatch.getBatchSize(),
+          batch,
+          batchMaker,
+          errorSink,
+          eventSink,
+          processedSink,
+          sourceResponseSink
+      );
+    }
     if (isSource()) {
       pipeBatch.setNewOffset(newOffset);
     }
@@ -373,5 +389,12 @@ public class StagePipe extends Pipe<StagePipe.Context> {
 
     RuntimeStats getRuntimeStats();
 
+    /**
+     * Pool processing chunks of a batch of stateless processors in parallel, null if they process whole batches.
+     */
+    ForkJoinPool getStatelessProcessorPool();
+
+    int getStatelessProcessorMinChunkSize();
+
   }
 }
@@ -16,13 +16,17 @@
 package com.streamsets.datacollector.runner;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.streamsets.datacollector.antennadoctor.AntennaDoctor;
 import com.streamsets.datacollector.antennadoctor.engine.context.AntennaDoctorStageContext;
 import com.streamsets.datacollector.config.StageConfiguration;
 import com.streamsets.datacollector.config.StageDefinition;
 import com.streamsets.datacollector.creation.PipelineBean;
 import com.streamsets.datacollector.creation.StageBean;
+import com.streamsets.datacollector.el.JobEL;
+import com.streamsets.datacollector.el.PipelineEL;
 import com.streamsets.datacollector.runner.production.ReportErrorDelegate;
 import com.streamsets.datacollector.util.LambdaUtil;
 import com.streamsets.datacollector.validation.Issue;
@@ -32,21 +36,27 @@ import com.streamsets.pipeline.api.BatchMaker;
 import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.Processor;
 import com.streamsets.pipeline.api.PushSource;
+import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Source;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.StageType;
 import com.streamsets.pipeline.api.Target;
 import com.streamsets.pipeline.api.impl.CreateByRef;
 import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.MDC;
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class StageRuntime implements PushSourceContextDelegate {
   private final PipelineBean pipelineBean;
@@ -310,6 +320,143 @@ public class StageRuntime implements PushSourceContextDelegate {
     return execute(callable, errorSink, eventSink, processedSink, sourceResponseSink);
   }
 
+  /**
+   * Processes the batch with a stateless processor, splitting it in consecutive chunks of at least the given size that
+   * are processed in parallel on the given pool. Output records, error records and events of the chunks are merged in
+   * the order of the chunks, so the outcome is the same as processing the whole batch at once.
+   */
+  public void execute(
+      final Batch batch,
+      final BatchMakerImpl batchMaker,
+      ErrorSink errorSink,
+      EventSink eventSink,
+      ProcessedSink processedSink,
+      SourceResponseSink sourceResponseSink,
+      final ForkJoinPool pool,
+      final int minChunkSize
+  ) throws StageException {
+    Preconditions.checkState(
+        getDefinition().getType() == StageType.PROCESSOR,
+        Utils.format("Stage '{}' is not a processor", info.getInstanceName())
+    );
+    Callable<String> callable = () -> {
+      // iterate the batch once here, so preconditions are evaluated on the runner thread
+      List<Record> records = new ArrayList<>();
+      batch.getRecords().forEachRemaining(records::add);
+      int chunkCount = Math.min(pool.getParallelism(), records.size() / Math.max(1, minChunkSize));
+      if (chunkCount < 2) {
+        ((Processor) getStage()).process(
+            new BatchImpl(info.getInstanceName(), batch.getSourceEntity(), batch.getSourceOffset(), records),
+            batchMaker
+        );
+        return null;
+      }
+
+      List<Chunk> chunks = new ArrayList<>(chunkCount);
+      for (List<Record> chunkRecords : Lists.partition(records, (records.size() + chunkCount - 1) / chunkCount)) {
+        chunks.add(new Chunk(
+            new BatchImpl(info.getInstanceName(), batch.getSourceEntity(), batch.getSourceOffset(), chunkRecords),
+            batchMaker.createChunk()
+        ));
+      }
+      processChunks(chunks, pool);
+
+      for (Chunk chunk : chunks) {
+        batchMaker.addChunk(chunk.batchMaker);
+        errorSink.addAll(chunk.errorSink);
+        eventSink.addAll(chunk.eventSink);
+        processedSink.addAll(chunk.processedSink);
+        if (sourceResponseSink != null) {
+          sourceResponseSink.addAll(chunk.sourceResponseSink);
+        }
+      }
+      return null;
+    };
+
+    execute(callable, errorSink, eventSink, processedSink, sourceResponseSink);
+  }
+
+  /**
+   * One chunk of a batch processed in parallel with the other chunks, with its own output and sinks.
+   */
+  private static class Chunk {
+    private final Batch batch;
+    private final BatchMakerImpl batchMaker;
+    private final ErrorSink errorSink = new ErrorSink();
+    private final EventSink eventSink = new EventSink();
+    private final ProcessedSink processedSink = new ProcessedSink();
+    private final SourceResponseSink sourceResponseSink = new SourceResponseSink();
+    private Throwable failure;
+
+    private Chunk(Batch batch, BatchMakerImpl batchMaker) {
+      this.batch = batch;
+      this.batchMaker = batchMaker;
+    }
+  }
+
+  private void processChunks(List<Chunk> chunks, ForkJoinPool pool) throws StageException {
+    // the pool threads don't inherit the context of the runner thread
+    final ClassLoader stageClassLoader = getDefinition().getStageClassLoader();
+    final boolean byRef = def.getRecordsByRef() && !context.isPreview();
+    final Map<String, Object> pipelineConstants = PipelineEL.copyConstantsInContext();
+    final Map<String, Object> jobConstants = JobEL.copyConstantsInContext();
+    final Map<String, String> mdc = MDC.getCopyOfContextMap();
+
+    List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks.size());
+    context.setProcessingChunks(true);
+    try {
+      for (Chunk chunk : chunks) {
+        tasks.add(pool.submit(() -> {
+          Thread thread = Thread.currentThread();
+          ClassLoader previousClassLoader = thread.getContextClassLoader();
+          thread.setContextClassLoader(stageClassLoader);
+          PipelineEL.restoreConstantsInContext(pipelineConstants);
+          JobEL.restoreConstantsInContext(jobConstants);
+          if (mdc != null) {
+            MDC.setContextMap(mdc);
+          }
+          context.setChunkSinks(
+              chunk.errorSink,
+              chunk.eventSink,
+              chunk.processedSink,
+              chunk.sourceResponseSink,
+              reportErrorDelegate == null ? chunk.errorSink : reportErrorDelegate
+          );
+          try {
+            Callable<Void> process = () -> {
+              ((Processor) getStage()).process(chunk.batch, chunk.batchMaker);
+              return null;
+            };
+            if (byRef) {
+              CreateByRef.call(process);
+            } else {
+              process.call();
+            }
+          } catch (Throwable t) {
+            chunk.failure = t;
+          } finally {
+            context.setChunkSinks(null, null, null, null, null);
+            PipelineEL.unsetConstantsInContext();
+            JobEL.unsetConstantsInContext();
+            MDC.clear();
+            thread.setContextClassLoader(previousClassLoader);
+          }
+        }));
+      }
+      // wait for all the chunks, none of them may still be running once the sinks are unset
+      tasks.forEach(ForkJoinTask::join);
+    } finally {
+      context.setProcessingChunks(false);
+    }
+
+    for (Chunk chunk : chunks) {
+      if (chunk.failure != null) {
+        Throwables.propagateIfPossible(chunk.failure, StageException.class);
+        throw new RuntimeException(chunk.failure);
+      }
+    }
+  }
+
   public void destroy(ErrorSink errorSink, EventSink eventSink, ProcessedSink processedSink) {
     mainClassLoader = Thread.currentThread().getContextClassLoader();
 
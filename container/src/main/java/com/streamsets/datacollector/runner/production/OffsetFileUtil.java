@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 public class OffsetFileUtil {
@@ -46,13 +47,22 @@ public class OffsetFileUtil {
     return new File(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, pipelineName, rev), OFFSET_FILE);
   }
 
+  /**
+   * Returns the offsets of the pipeline, creating an empty offset file if there is none. Changes left in the offset
+   * log by a previous run are folded into the offset file.
+   */
   public static Map<String, String> saveIfEmpty(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
     File pipelineOffsetFile =  getPipelineOffsetFile(runtimeInfo, pipelineName, rev);
     SourceOffset sourceOffset;
     DataStore ds = new DataStore(pipelineOffsetFile);
     try {
       if (ds.exists()) {
-        return readSourceOffsetFromDataStore(ds).getOffsets();
+        sourceOffset = readSourceOffsetFromDataStore(ds);
+        if (replayOffsetLog(pipelineOffsetFile.getParentFile(), sourceOffset)) {
+          writeOffsets(runtimeInfo, pipelineName, rev, sourceOffset.getOffsets());
+          OffsetLog.deleteSegments(pipelineOffsetFile.getParentFile(), Long.MAX_VALUE);
+        }
+        return sourceOffset.getOffsets();
       } else {
         sourceOffset = new SourceOffset(SourceOffset.CURRENT_VERSION, DEFAULT_OFFSET);
         try (OutputStream os = ds.getOutputStream()) {
@@ -69,6 +79,14 @@ public class OffsetFileUtil {
   }
 
   public static void saveOffsets(RuntimeInfo runtimeInfo, String pipelineName, String rev, Map<String, String> offset) {
+    deleteOffsetLog(runtimeInfo, pipelineName, rev);
+    writeOffsets(runtimeInfo, pipelineName, rev, offset);
+  }
+
+  /**
+   * Overwrites the offset file, leaving the offset log untouched.
+   */
+  static void writeOffsets(RuntimeInfo runtimeInfo, String pipelineName, String rev, Map<String, String> offset) {
     LOG.debug("Saving offset {} for pipeline {}", offset, pipelineName);
     SourceOffset sourceOffset = new SourceOffset(SourceOffset.CURRENT_VERSION, offset);
     DataStore dataStore = new DataStore(OffsetFileUtil.getPipelineOffsetFile(runtimeInfo, pipelineName, rev));
@@ -85,6 +103,7 @@ public class OffsetFileUtil {
   public static void saveSourceOffset(RuntimeInfo runtimeInfo, String pipelineName, String rev, SourceOffset offset) {
     // Assumes that the argument offset confirms to the format on disk. hence just writes it to offset file
     LOG.debug("Saving offset {} for pipeline {}", offset, pipelineName);
+    deleteOffsetLog(runtimeInfo, pipelineName, rev);
     DataStore dataStore = new DataStore(OffsetFileUtil.getPipelineOffsetFile(runtimeInfo, pipelineName, rev));
     try (OutputStream os = dataStore.getOutputStream()) {
       ObjectMapperFactory.get().writeValue(os, offset);
@@ -133,7 +152,9 @@ public class OffsetFileUtil {
         if (pipelineOffsetFile.exists()) {
           DataStore ds = new DataStore(pipelineOffsetFile);
           if (ds.exists()) {
-            return readSourceOffsetFromDataStore(ds);
+            SourceOffset sourceOffset = readSourceOffsetFromDataStore(ds);
+            replayOffsetLog(pipelineOffsetFile.getParentFile(), sourceOffset);
+            return sourceOffset;
           }
         }
 
@@ -147,6 +168,30 @@ public class OffsetFileUtil {
     throw new IllegalStateException(Utils.format("Retrieving offset failed for last attempt {}", retries));
   }
 
+  private static boolean replayOffsetLog(File pipelineDir, SourceOffset sourceOffset) throws IOException {
+    Map<String, String> offsets = new HashMap<>();
+    if (sourceOffset.getOffsets() != null) {
+      offsets.putAll(sourceOffset.getOffsets());
+    }
+    if (OffsetLog.replay(pipelineDir, offsets)) {
+      sourceOffset.setOffsets(offsets);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Deletes the offset log, the offset file written next holds all the offsets.
+   */
+  private static void deleteOffsetLog(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
+    try {
+      OffsetLog.deleteSegments(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, pipelineName, rev), Long.MAX_VALUE);
+    } catch (IOException e) {
+      LOG.error("Failed to delete offset log of pipeline {}. Reason {}", pipelineName, e.toString(), e);
+      throw new IllegalStateException(e);
+    }
+  }
+
   private static SourceOffset readSourceOffsetFromDataStore(DataStore ds) throws IOException {
     try (InputStream is = ds.getInputStream()) {
       SourceOffsetJson sourceOffsetJson = ObjectMapperFactory.get().readValue(is, SourceOffsetJson.class);
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
+import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.util.PipelineDirectoryUtil;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only log of the offset changes of a pipeline, kept in segments next to its offset file.
+ *
+ * Each commit appends the entity and its new offset to the active segment. Concurrent commits are group committed: one
+ * of the committing threads writes all the entries appended so far and syncs them to disk once for all of them. When
+ * the segments hold enough entries, the offsets are compacted into the offset file and the segments it covers are
+ * deleted. Readers of the offset file replay the remaining segments on top of it, see {@link #replay(File, Map)}.
+ */
+class OffsetLog implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(OffsetLog.class);
+
+  static final String SEGMENT_PREFIX = "offset.log.";
+  private static final String ENTITY = "entity";
+  private static final String OFFSET = "offset";
+
+  private final RuntimeInfo runtimeInfo;
+  private final String pipelineName;
+  private final String rev;
+  private final File pipelineDir;
+  private final int compactionEntries;
+  private final Map<String, String> offsets;
+  private final Map<String, String> readOnlyOffsets;
+
+  private final Object lock = new Object();
+  // guarded by lock
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private long appended;
+  private long durable;
+  private long entriesSinceCompaction;
+  private boolean flushing;
+  private boolean closed;
+  private IOException failure;
+
+  // only used by the thread flushing the log
+  private long segment;
+  private FileChannel channel;
+  private volatile long syncs;
+
+  /**
+   * Opens the log, compacting whatever was left in the segments by a previous run into the offset file.
+   *
+   * @param compactionEntries minimum number of entries in the segments before they are compacted
+   */
+  OffsetLog(RuntimeInfo runtimeInfo, String pipelineName, String rev, int compactionEntries) {
+    this.runtimeInfo = runtimeInfo;
+    this.pipelineName = pipelineName;
+    this.rev = rev;
+    this.pipelineDir = PipelineDirectoryUtil.getPipelineDir(runtimeInfo, pipelineName, rev);
+    this.compactionEntries = compactionEntries;
+    this.offsets = new ConcurrentHashMap<>(OffsetFileUtil.saveIfEmpty(runtimeInfo, pipelineName, rev));
+    this.readOnlyOffsets = Collections.unmodifiableMap(offsets);
+    try {
+      channel = openSegment(++segment);
+    } catch (IOException ex) {
+      throw new IllegalStateException(Utils.format("Can't open offset log of pipeline '{}': {}", pipelineName, ex), ex);
+    }
+  }
+
+  Map<String, String> getOffsets() {
+    return readOnlyOffsets;
+  }
+
+  /**
+   * Returns how many times the log was synced to disk.
+   */
+  @VisibleForTesting
+  long getSyncCount() {
+    return syncs;
+  }
+
+  /**
+   * Changes the offset of the given entity and returns once the change is durable.
+   *
+   * @param offset new offset, null removes the entity
+   */
+  void commit(String entity, String offset) {
+    byte[] entry = encode(entity, offset);
+    long sequence;
+    synchronized (lock) {
+      checkUsable();
+      if (offset == null) {
+        offsets.remove(entity);
+      } else {
+        offsets.put(entity, offset);
+      }
+      pending.write(entry, 0, entry.length);
+      sequence = ++appended;
+    }
+    sync(sequence, false);
+  }
+
+  /**
+   * Compacts all the offsets into the offset file and deletes the segments.
+   */
+  @Override
+  public void close() {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+    }
+    try {
+      sync(0, true);
+    } catch (IllegalStateException ex) {
+      LOG.error("Failed to compact offset log of pipeline '{}': {}", pipelineName, ex.toString(), ex);
+      closeChannel();
+    }
+  }
+
+  /**
+   * Makes sure the entries up to the given sequence number are durable, writing and syncing all the pending entries
+   * unless another thread is already doing so, in which case the entries might be written by that thread.
+   */
+  private void sync(long sequence, boolean closing) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        byte[] bytes;
+        long upTo;
+        Map<String, String> snapshot = null;
+        synchronized (lock) {
+          while (flushing && (closing || durable < sequence)) {
+            try {
+              lock.wait();
+            } catch (InterruptedException ex) {
+              // the caller expects the offset to be committed when we return, wait for it regardless
+              interrupted = true;
+            }
+          }
+          if (!closing && durable >= sequence) {
+            return;
+          }
+          checkUsable();
+          flushing = true;
+          bytes = pending.toByteArray();
+          pending.reset();
+          upTo = appended;
+          entriesSinceCompaction += upTo - durable;
+          // the snapshot covers exactly the entries up to upTo as entries are applied and appended under the lock
+          if (closing || entriesSinceCompaction >= Math.max(compactionEntries, 2L * offsets.size())) {
+            snapshot = new HashMap<>(offsets);
+            entriesSinceCompaction = 0;
+          }
+        }
+
+        IOException error = null;
+        try {
+          write(bytes);
+          if (snapshot != null) {
+            compact(snapshot, !closing);
+          }
+        } catch (IOException ex) {
+          error = ex;
+        }
+
+        synchronized (lock) {
+          flushing = false;
+          if (error == null) {
+            durable = upTo;
+          } else {
+            failure = error;
+          }
+          closed = closing;
+          lock.notifyAll();
+        }
+        if (error != null) {
+          throw new IllegalStateException(
+              Utils.format("Failed to commit offsets of pipeline '{}': {}", pipelineName, error),
+              error
+          );
+        }
+        if (closing) {
+          return;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void checkUsable() {
+    if (failure != null) {
+      throw new IllegalStateException(
+          Utils.format("Offset log of pipeline '{}' failed earlier: {}", pipelineName, failure),
+          failure
+      );
+    }
+    if (closed) {
+      throw new IllegalStateException(Utils.format("Offset log of pipeline '{}' is closed", pipelineName));
+    }
+  }
+
+  @VisibleForTesting
+  void write(byte[] bytes) throws IOException {
+    if (bytes.length > 0) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+      syncs++;
+    }
+  }
+
+  /**
+   * Writes the snapshot to the offset file before deleting the segments it covers. A failure in between leaves
+   * segments that are already part of the offset file, replaying them again yields the same offsets.
+   */
+  private void compact(Map<String, String> snapshot, boolean reopen) throws IOException {
+    channel.close();
+    try {
+      OffsetFileUtil.writeOffsets(runtimeInfo, pipelineName, rev, snapshot);
+    } catch (IllegalStateException ex) {
+      throw new IOException(ex.getCause() != null ? ex.getCause() : ex);
+    }
+    deleteSegments(pipelineDir, segment);
+    LOG.debug("Compacted offset log of pipeline '{}' up to segment {}", pipelineName, segment);
+    if (reopen) {
+      channel = openSegment(++segment);
+    }
+  }
+
+  private FileChannel openSegment(long number) throws IOException {
+    return FileChannel.open(
+        new File(pipelineDir, SEGMENT_PREFIX + number).toPath(),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND
+    );
+  }
+
+  private void closeChannel() {
+    try {
+      channel.close();
+    } catch (IOException ex) {
+      LOG.warn("Failed to close offset log of pipeline '{}': {}", pipelineName, ex.toString(), ex);
+    }
+  }
+
+  private static byte[] encode(String entity, String offset) {
+    Map<String, String> entry = new LinkedHashMap<>();
+    entry.put(ENTITY, entity);
+    entry.put(OFFSET, offset);
+    try {
+      ByteArrayOutputStream os = new ByteArrayOutputStream();
+      ObjectMapperFactory.getOneLine().writeValue(os, entry);
+      os.write('\n');
+      return os.toByteArray();
+    } catch (IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Returns the segments in the given pipeline directory, oldest first.
+   */
+  static List<File> getSegments(File pipelineDir) {
+    File[] files = pipelineDir.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX));
+    List<File> segments = new ArrayList<>();
+    if (files != null) {
+      for (File file : files) {
+        if (getSegmentNumber(file) > 0) {
+          segments.add(file);
+        }
+      }
+    }
+    segments.sort(Comparator.comparingLong(OffsetLog::getSegmentNumber));
+    return segments;
+  }
+
+  private static long getSegmentNumber(File segment) {
+    try {
+      return Long.parseLong(segment.getName().substring(SEGMENT_PREFIX.length()));
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+  }
+
+  /**
+   * Applies the entries of the segments in the given pipeline directory to the offsets read from its offset file.
+   *
+   * @return true if there was any segment
+   */
+  @SuppressWarnings("unchecked")
+  static boolean replay(File pipelineDir, Map<String, String> offsets) throws IOException {
+    List<File> segments = getSegments(pipelineDir);
+    for (File segment : segments) {
+      try (BufferedReader reader = Files.newBufferedReader(segment.toPath(), StandardCharsets.UTF_8)) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          Map<String, String> entry;
+          try {
+            entry = ObjectMapperFactory.get().readValue(line, Map.class);
+          } catch (IOException ex) {
+            // entry being written or torn by a crash, it was never acknowledged
+            LOG.debug("Ignoring incomplete entry in offset log segment '{}'", segment);
+            break;
+          }
+          if (entry.get(OFFSET) == null) {
+            offsets.remove(entry.get(ENTITY));
+          } else {
+            offsets.put(entry.get(ENTITY), entry.get(OFFSET));
+          }
+        }
+      } catch (NoSuchFileException ex) {
+        // compacted meanwhile, already covered by the offset file or the next segments
+        LOG.debug("Offset log segment '{}' compacted while reading it", segment);
+      }
+    }
+    return !segments.isEmpty();
+  }
+
+  /**
+   * Deletes the segments in the given pipeline directory up to the given segment number.
+   */
+  static void deleteSegments(File pipelineDir, long upTo) throws IOException {
+    for (File segment : getSegments(pipelineDir)) {
+      if (getSegmentNumber(segment) <= upTo) {
+        Files.deleteIfExists(segment.toPath());
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.runner.SourceOffsetTracker;
+import com.streamsets.pipeline.api.Source;
+
+import java.util.Map;
+
+/**
+ * Offset tracker appending each committed offset to the offset log of the pipeline rather than rewriting the whole
+ * offset file, see {@link OffsetLog}. Suitable for origins tracking many entities from many runner threads.
+ */
+public class ProductionSourceOffsetLogTracker implements SourceOffsetTracker {
+
+  private final String pipelineName;
+  private final String rev;
+  private final RuntimeInfo runtimeInfo;
+  private final int compactionEntries;
+  private volatile OffsetLog offsetLog;
+  private volatile long lastBatchTime;
+  private volatile boolean finished;
+
+  public ProductionSourceOffsetLogTracker(
+      String pipelineName,
+      String rev,
+      RuntimeInfo runtimeInfo,
+      int compactionEntries
+  ) {
+    this.pipelineName = pipelineName;
+    this.rev = rev;
+    this.runtimeInfo = runtimeInfo;
+    this.compactionEntries = compactionEntries;
+    this.offsetLog = new OffsetLog(runtimeInfo, pipelineName, rev, compactionEntries);
+  }
+
+  @Override
+  public boolean isFinished() {
+    return finished;
+  }
+
+  @Override
+  public void commitOffset(String entity, String newOffset) {
+    // Update last batch time
+    lastBatchTime = System.currentTimeMillis();
+
+    // Committing "null" entity doesn't change anything
+    if(entity == null) {
+      return;
+    }
+
+    // Backward compatibility calculation
+    if(Source.POLL_SOURCE_OFFSET_KEY.equals(entity)) {
+      finished = newOffset == null;
+    }
+
+    offsetLog.commit(entity, newOffset);
+  }
+
+  @Override
+  public Map<String, String> getOffsets() {
+    return offsetLog.getOffsets();
+  }
+
+  @Override
+  public synchronized void resetOffset() {
+    offsetLog.close();
+    OffsetFileUtil.resetOffsets(runtimeInfo, pipelineName, rev);
+    offsetLog = new OffsetLog(runtimeInfo, pipelineName, rev, compactionEntries);
+  }
+
+  @Override
+  public long getLastBatchTime() {
+    return lastBatchTime;
+  }
+
+  @Override
+  public void close() {
+    offsetLog.close();
+  }
+}
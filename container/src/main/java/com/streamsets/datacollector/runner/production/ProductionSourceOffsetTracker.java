@@ -99,7 +99,8 @@ public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
   }
 
   private void saveOffset(String pipelineName, String rev, Map<String, String> offset) {
-    OffsetFileUtil.saveOffsets(runtimeInfo, pipelineName, rev, offset);
+    // the offset log was folded into the offset file when the offsets were read in the constructor
+    OffsetFileUtil.writeOffsets(runtimeInfo, pipelineName, rev, offset);
   }
 
   @Override
@@ -18,12 +18,14 @@ package com.streamsets.datacollector.stagelibrary;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.streamsets.datacollector.classpath.ClasspathValidator;
 import com.streamsets.datacollector.classpath.ClasspathValidatorResult;
 import com.streamsets.datacollector.config.CredentialStoreDefinition;
@@ -85,6 +87,7 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Inject;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.core.Response;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Method;
@@ -95,6 +98,7 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -102,6 +106,9 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -126,6 +133,12 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
 
   private static final String DEFAULT_REQUIRED_STAGELIBS = "";
 
+  private static final String LOAD_THREADS_KEY = "stagelibs.load.threads";
+  private static final int LOAD_THREADS_DEFAULT = Math.min(8, Runtime.getRuntime().availableProcessors());
+
+  private static final String DEFINITION_INDEX_KEY = "stagelibs.definition.index.enable";
+  private static final boolean DEFINITION_INDEX_DEFAULT = true;
+
   private static final String NIGHTLY_URL = "http://nightly.streamsets.com/datacollector/";
   private static final String ARCHIVES_URL = "http://archives.streamsets.com/datacollector/";
   private static final String LATEST = "latest";
@@ -508,131 +521,265 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
         Utils.format("Could not load runtime configuration, '{}'", e.toString()), e);
     }
 
+    int threads = Math.max(1, configuration.get(LOAD_THREADS_KEY, LOAD_THREADS_DEFAULT));
+    StageLibraryDefinitionIndex index = null;
+    if (configuration.get(DEFINITION_INDEX_KEY, DEFINITION_INDEX_DEFAULT) && runtimeInfo.getDataDir() != null) {
+      index = new StageLibraryDefinitionIndex(
+          new File(runtimeInfo.getDataDir(), StageLibraryDefinitionIndex.INDEX_FILE),
+          buildInfo.getVersion()
+      );
+    }
+    Map<String, Object> loadTimeGauge = null;
+    if (runtimeInfo.getMetrics() != null) {
+      loadTimeGauge = MetricsConfigurator.createFrameworkGauge(
+          runtimeInfo.getMetrics(),
+          "stageLibrary.loadTime",
+          "runtime",
+          null
+      ).getValue();
+    }
+
+    int libs = 0;
+    int stages = 0;
+    int lineagePublishers = 0;
+    int credentialStores = 0;
+    int services = 0;
+    int interceptors = 0;
+    int delegates = 0;
+    int indexedLibs = 0;
+    long start = System.currentTimeMillis();
+
+    // Libraries are loaded concurrently and their definitions merged in the order of their class loaders
+    ExecutorService executor = Executors.newFixedThreadPool(
+        threads,
+        new ThreadFactoryBuilder().setNameFormat("stage-library-loader-%d").setDaemon(true).build()
+    );
     try {
-      int libs = 0;
-      int stages = 0;
-      int lineagePublishers = 0;
-      int credentialStores = 0;
-      int services = 0;
-      int interceptors = 0;
-      int delegates = 0;
-      long start = System.currentTimeMillis();
-      LocaleInContext.set(Locale.getDefault());
+      List<Future<LibraryDefinitions>> futures = new ArrayList<>();
       for (ClassLoader cl : stageClassLoaders) {
-        try {
-          // Before loading any stages, let's verify that given stage library is compatible with our current JVM version
-          String unsupportedJvmVersion = getPropertyFromLibraryProperties(cl, JAVA_UNSUPPORTED_REGEXP, null);
-          if(!StringUtils.isEmpty(unsupportedJvmVersion)) {
-            if(javaVersion.matches(unsupportedJvmVersion)) {
-              LOG.warn("Can't load stages from {} since they are not compatible with current JVM version", StageLibraryUtils.getLibraryName(cl));
-              continue;
-            } else {
-              LOG.debug("Stage lib {} passed java compatibility test for '{}'", StageLibraryUtils.getLibraryName(cl), unsupportedJvmVersion);
-            }
+        final StageLibraryDefinitionIndex libraryIndex = index;
+        futures.add(executor.submit(() -> {
+          LocaleInContext.set(Locale.getDefault());
+          try {
+            return loadLibrary(cl, javaVersion, sdcVersion, libraryIndex);
+          } finally {
+            LocaleInContext.set(null);
           }
+        }));
+      }
 
-          // And that this SDC is at least on requested version
-          String minSdcVersion = getPropertyFromLibraryProperties(cl, MIN_SDC_VERSION, null);
-          if(!StringUtils.isEmpty(minSdcVersion)) {
-            if(!sdcVersion.isGreaterOrEqualTo(minSdcVersion)) {
-              throw new IllegalArgumentException(
-                  Utils.format("Can't load stage library '{}' as it requires at least SDC version {} whereas current version is {}",
-                  StageLibraryUtils.getLibraryName(cl),
-                  minSdcVersion,
-                  buildInfo.getVersion()
-                ));
-            }
-          }
+      for (Future<LibraryDefinitions> future : futures) {
+        LibraryDefinitions lib = getLibraryDefinitions(future);
+        if (lib == null) {
+          continue;
+        }
+        String libName = lib.libDef.getName();
+        stageLibraries.add(lib.libDef);
+        libs++;
+
+        for (StageDefinition stage : lib.stages) {
+          stages++;
+          stageList.add(stage);
+          stageMap.put(createKey(libName, stage.getName()), stage);
+        }
+        for (Map.Entry<String, EventDefinitionJson> entry : lib.eventDefinitions.entrySet()) {
+          eventDefinitionMap.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        for (LineagePublisherDefinition lineage : lib.lineagePublishers) {
+          lineagePublishers++;
+          lineagePublisherDefinitions.add(lineage);
+          lineagePublisherDefinitionMap.put(createKey(libName, lineage.getName()), lineage);
+        }
+        credentialStores += lib.credentialStores.size();
+        credentialStoreDefinitions.addAll(lib.credentialStores);
+        for (ServiceDefinition def : lib.services) {
+          services++;
+          serviceList.add(def);
+          serviceMap.put(def.getProvides(), def);
+        }
+        interceptors += lib.interceptors.size();
+        interceptorList.addAll(lib.interceptors);
+        for (StageLibraryDelegateDefinitition def : lib.delegates) {
+          delegates++;
+          delegateList.add(def);
+          delegateMap.put(createKey(libName, def.getExportedInterface().getCanonicalName()), def);
+        }
 
-          // Load stages from the stage library
-          StageLibraryDefinition libDef = StageLibraryDefinitionExtractor.get().extract(cl);
-          libDef.setVersion(getPropertyFromLibraryProperties(cl, "version", ""));
-          LOG.debug("Loading stages and plugins from library '{}' on version {}", libDef.getName(), libDef.getVersion());
-          stageLibraries.add(libDef);
-          libs++;
-
-          // Load Stages
-          for(Class klass : loadClassesFromResource(libDef, cl, STAGES_DEFINITION_RESOURCE)) {
-            stages++;
-            StageDefinition stage = StageDefinitionExtractor.get().extract(libDef, klass, Utils.formatL("Library='{}'", libDef.getName()));
-            String key = createKey(libDef.getName(), stage.getName());
-            LOG.debug("Loaded stage '{}'  version {}", key, stage.getVersion());
-            stageList.add(stage);
-            stageMap.put(key, stage);
-
-            for(Class eventDefClass : stage.getEventDefs()) {
-              if (!eventDefinitionMap.containsKey(eventDefClass.getCanonicalName())) {
-                eventDefinitionMap.put(
-                    eventDefClass.getCanonicalName(),
-                    EventDefinitionExtractor.get().extractEventDefinition(eventDefClass)
-                );
-              }
-            }
-          }
+        if (lib.indexed) {
+          indexedLibs++;
+        }
+        if (index != null) {
+          index.validated(libName, lib.fingerprint);
+        }
+        if (loadTimeGauge != null) {
+          loadTimeGauge.put(libName, lib.loadTime);
+        }
+        LOG.info(
+            "Loaded library '{}' in '{}ms'{}",
+            libName,
+            lib.loadTime,
+            lib.indexed ? " (validation skipped, unchanged since previous start)" : ""
+        );
+      }
+    } finally {
+      executor.shutdownNow();
+    }
 
-          // Load Lineage publishers
-          for(Class klass : loadClassesFromResource(libDef, cl, LINEAGE_PUBLISHERS_DEFINITION_RESOURCE)) {
-            lineagePublishers++;
-            LineagePublisherDefinition lineage = LineagePublisherDefinitionExtractor.get().extract(libDef, klass);
-            String key = createKey(libDef.getName(), lineage.getName());
-            LOG.debug("Loaded lineage plugin '{}'", key);
-            lineagePublisherDefinitions.add(lineage);
-            lineagePublisherDefinitionMap.put(key, lineage);
-          }
+    if (index != null) {
+      index.save();
+    }
+    LOG.info(
+      "Loaded '{}' libraries ('{}' unchanged) with a total of '{}' stages, '{}' lineage publishers, '{}' services, '{}' interceptors, '{}' delegates and '{}' credentialStores in '{}ms' using '{}' threads",
+      libs,
+      indexedLibs,
+      stages,
+      lineagePublishers,
+      services,
+      interceptors,
+      delegates,
+      credentialStores,
+      System.currentTimeMillis() - start,
+      threads
+    );
+  }
 
-          // Load Credential stores
-          for(Class klass : loadClassesFromResource(libDef, cl, CREDENTIAL_STORE_DEFINITION_RESOURCE)) {
-            credentialStores++;
-            CredentialStoreDefinition def = CredentialStoreDefinitionExtractor.get().extract(libDef, klass);
-            String key = createKey(libDef.getName(), def.getName());
-            LOG.debug("Loaded credential store '{}'", key);
-            credentialStoreDefinitions.add(def);
-          }
+  /**
+   * Definitions loaded from a single stage library.
+   */
+  private static class LibraryDefinitions {
+    private StageLibraryDefinition libDef;
+    private String fingerprint;
+    private boolean indexed;
+    private long loadTime;
+    private final List<StageDefinition> stages = new ArrayList<>();
+    private final Map<String, EventDefinitionJson> eventDefinitions = new LinkedHashMap<>();
+    private final List<LineagePublisherDefinition> lineagePublishers = new ArrayList<>();
+    private final List<CredentialStoreDefinition> credentialStores = new ArrayList<>();
+    private final List<ServiceDefinition> services = new ArrayList<>();
+    private final List<InterceptorDefinition> interceptors = new ArrayList<>();
+    private final List<StageLibraryDelegateDefinitition> delegates = new ArrayList<>();
+  }
 
-          // Load Services
-          for(Class klass : loadClassesFromResource(libDef, cl, SERVICE_DEFINITION_RESOURCE)) {
-            services++;
-            ServiceDefinition def = ServiceDefinitionExtractor.get().extract(libDef, klass);
-            LOG.debug("Loaded service for '{}'", def.getProvides().getCanonicalName());
-            serviceList.add(def);
-            serviceMap.put(def.getProvides(), def);
-          }
+  private static LibraryDefinitions getLibraryDefinitions(Future<LibraryDefinitions> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while loading stage libraries", ex);
+    } catch (ExecutionException ex) {
+      Throwables.propagateIfPossible(ex.getCause());
+      throw new RuntimeException(ex.getCause());
+    }
+  }
 
-          // Load Interceptors
-          for(Class klass : loadClassesFromResource(libDef, cl, INTERCEPTOR_DEFINITION_RESOURCE)) {
-            interceptors++;
-            InterceptorDefinition def = InterceptorDefinitionExtractor.get().extract(libDef, klass);
-            LOG.debug("Loaded interceptor '{}'", def.getKlass().getCanonicalName());
-            interceptorList.add(def);
-          }
+  /**
+   * Loads the definitions of the given stage library, returns null if the library doesn't support the current JVM.
+   */
+  @SuppressWarnings("unchecked")
+  private LibraryDefinitions loadLibrary(
+      ClassLoader cl,
+      String javaVersion,
+      Version sdcVersion,
+      StageLibraryDefinitionIndex index
+  ) {
+    long start = System.currentTimeMillis();
+    try {
+      // Before loading any stages, let's verify that given stage library is compatible with our current JVM version
+      String unsupportedJvmVersion = getPropertyFromLibraryProperties(cl, JAVA_UNSUPPORTED_REGEXP, null);
+      if(!StringUtils.isEmpty(unsupportedJvmVersion)) {
+        if(javaVersion.matches(unsupportedJvmVersion)) {
+          LOG.warn("Can't load stages from {} since they are not compatible with current JVM version", StageLibraryUtils.getLibraryName(cl));
+          return null;
+        } else {
+          LOG.debug("Stage lib {} passed java compatibility test for '{}'", StageLibraryUtils.getLibraryName(cl), unsupportedJvmVersion);
+        }
+      }
+
+      // And that this SDC is at least on requested version
+      String minSdcVersion = getPropertyFromLibraryProperties(cl, MIN_SDC_VERSION, null);
+      if(!StringUtils.isEmpty(minSdcVersion)) {
+        if(!sdcVersion.isGreaterOrEqualTo(minSdcVersion)) {
+          throw new IllegalArgumentException(
+              Utils.format("Can't load stage library '{}' as it requires at least SDC version {} whereas current version is {}",
+              StageLibraryUtils.getLibraryName(cl),
+              minSdcVersion,
+              buildInfo.getVersion()
+            ));
+        }
+      }
+
+      // Load stages from the stage library
+      LibraryDefinitions lib = new LibraryDefinitions();
+      StageLibraryDefinition libDef = StageLibraryDefinitionExtractor.get().extract(cl);
+      libDef.setVersion(getPropertyFromLibraryProperties(cl, "version", ""));
+      LOG.debug("Loading stages and plugins from library '{}' on version {}", libDef.getName(), libDef.getVersion());
+      lib.libDef = libDef;
+      if (index != null) {
+        lib.fingerprint = StageLibraryDefinitionIndex.fingerprint(cl);
+        lib.indexed = index.isValidated(libDef.getName(), lib.fingerprint);
+      }
 
-          // Load Delegates
-          for(Class klass : loadClassesFromResource(libDef, cl, DELEGATE_DEFINITION_RESOURCE)) {
-            delegates++;
-            StageLibraryDelegateDefinitition def = StageLibraryDelegateDefinitionExtractor.get().extract(libDef, klass);
-            String key = createKey(libDef.getName(), def.getExportedInterface().getCanonicalName());
-            LOG.debug("Loaded delegate '{}'", def.getKlass().getCanonicalName());
-            delegateList.add(def);
-            delegateMap.put(key, def);
+      // Load Stages
+      for(Class klass : loadClassesFromResource(libDef, cl, STAGES_DEFINITION_RESOURCE)) {
+        StageDefinition stage = StageDefinitionExtractor.get().extract(
+            libDef,
+            klass,
+            Utils.formatL("Library='{}'", libDef.getName()),
+            !lib.indexed
+        );
+        LOG.debug("Loaded stage '{}'  version {}", createKey(libDef.getName(), stage.getName()), stage.getVersion());
+        lib.stages.add(stage);
+
+        for(Class eventDefClass : stage.getEventDefs()) {
+          if (!lib.eventDefinitions.containsKey(eventDefClass.getCanonicalName())) {
+            lib.eventDefinitions.put(
+                eventDefClass.getCanonicalName(),
+                EventDefinitionExtractor.get().extractEventDefinition(eventDefClass)
+            );
           }
-        } catch (IOException | ClassNotFoundException ex) {
-          throw new RuntimeException(
-              Utils.format("Could not load stages definition from '{}', {}", cl, ex.toString()), ex);
         }
       }
-      LOG.info(
-        "Loaded '{}' libraries with a total of '{}' stages, '{}' lineage publishers, '{}' services, '{}' interceptors, '{}' delegates and '{}' credentialStores in '{}ms'",
-        libs,
-        stages,
-        lineagePublishers,
-        services,
-        interceptors,
-        delegates,
-        credentialStores,
-        System.currentTimeMillis() - start
-      );
-    } finally {
-      LocaleInContext.set(null);
+
+      // Load Lineage publishers
+      for(Class klass : loadClassesFromResource(libDef, cl, LINEAGE_PUBLISHERS_DEFINITION_RESOURCE)) {
+        LineagePublisherDefinition lineage = LineagePublisherDefinitionExtractor.get().extract(libDef, klass);
+        LOG.debug("Loaded lineage plugin '{}'", createKey(libDef.getName(), lineage.getName()));
+        lib.lineagePublishers.add(lineage);
+      }
+
+      // Load Credential stores
+      for(Class klass : loadClassesFromResource(libDef, cl, CREDENTIAL_STORE_DEFINITION_RESOURCE)) {
+        CredentialStoreDefinition def = CredentialStoreDefinitionExtractor.get().extract(libDef, klass);
+        LOG.debug("Loaded credential store '{}'", createKey(libDef.getName(), def.getName()));
+        lib.credentialStores.add(def);
+      }
+
+      // Load Services
+      for(Class klass : loadClassesFromResource(libDef, cl, SERVICE_DEFINITION_RESOURCE)) {
+        ServiceDefinition def = ServiceDefinitionExtractor.get().extract(libDef, klass);
+        LOG.debug("Loaded service for '{}'", def.getProvides().getCanonicalName());
+        lib.services.add(def);
+      }
+
+      // Load Interceptors
+      for(Class klass : loadClassesFromResource(libDef, cl, INTERCEPTOR_DEFINITION_RESOURCE)) {
+        InterceptorDefinition def = InterceptorDefinitionExtractor.get().extract(libDef, klass);
+        LOG.debug("Loaded interceptor '{}'", def.getKlass().getCanonicalName());
+        lib.interceptors.add(def);
+      }
+
+      // Load Delegates
+      for(Class klass : loadClassesFromResource(libDef, cl, DELEGATE_DEFINITION_RESOURCE)) {
+        StageLibraryDelegateDefinitition def = StageLibraryDelegateDefinitionExtractor.get().extract(libDef, klass);
+        LOG.debug("Loaded delegate '{}'", def.getKlass().getCanonicalName());
+        lib.delegates.add(def);
+      }
+
+      lib.loadTime = System.currentTimeMillis() - start;
+      return lib;
+    } catch (IOException | ClassNotFoundException ex) {
+      throw new RuntimeException(
+          Utils.format("Could not load stages definition from '{}', {}", cl, ex.toString()), ex);
     }
   }
 
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.stagelibrary;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.streamsets.datacollector.io.DataStore;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the stage libraries whose definitions were validated successfully, persisted in the data directory.
+ *
+ * Each library is indexed with a fingerprint of its jars (path, size and modification time of each of them), so that
+ * a library that didn't change since the last start of the same data collector version doesn't have its stage classes
+ * validated again. Libraries loaded from anything else than jar files are never indexed.
+ */
+class StageLibraryDefinitionIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(StageLibraryDefinitionIndex.class);
+
+  static final String INDEX_FILE = "stage-library-index.json";
+  private static final String SDC_VERSION = "sdcVersion";
+  private static final String LIBRARIES = "libraries";
+
+  private final File file;
+  private final String sdcVersion;
+  private final Map<String, String> indexed;
+  private final Map<String, String> validated = new ConcurrentHashMap<>();
+
+  StageLibraryDefinitionIndex(File file, String sdcVersion) {
+    this.file = file;
+    this.sdcVersion = sdcVersion;
+    this.indexed = read(file, sdcVersion);
+  }
+
+  /**
+   * Returns true if the library was validated with the same fingerprint by a previous start.
+   */
+  boolean isValidated(String library, String fingerprint) {
+    return fingerprint != null && fingerprint.equals(indexed.get(library));
+  }
+
+  /**
+   * Records that the library with the given fingerprint was validated successfully.
+   */
+  void validated(String library, String fingerprint) {
+    if (fingerprint != null) {
+      validated.put(library, fingerprint);
+    }
+  }
+
+  /**
+   * Replaces the persisted index with the libraries validated by this start. Failures are only logged, the next start
+   * validates all the libraries again.
+   */
+  void save() {
+    Map<String, Object> index = new HashMap<>();
+    index.put(SDC_VERSION, sdcVersion);
+    index.put(LIBRARIES, new TreeMap<>(validated));
+    DataStore dataStore = new DataStore(file);
+    try (OutputStream os = dataStore.getOutputStream()) {
+      ObjectMapperFactory.get().writeValue(os, index);
+      dataStore.commit(os);
+    } catch (IOException ex) {
+      LOG.warn("Could not save stage library index '{}': {}", file, ex.toString(), ex);
+    } finally {
+      dataStore.release();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, String> read(File file, String sdcVersion) {
+    DataStore dataStore = new DataStore(file);
+    try {
+      if (dataStore.exists()) {
+        try (InputStream is = dataStore.getInputStream()) {
+          Map<String, Object> index = ObjectMapperFactory.get().readValue(is, Map.class);
+          if (sdcVersion.equals(index.get(SDC_VERSION)) && index.get(LIBRARIES) instanceof Map) {
+            return new HashMap<>((Map<String, String>) index.get(LIBRARIES));
+          }
+          LOG.debug("Ignoring stage library index '{}' written by another version", file);
+        }
+      }
+    } catch (IOException | RuntimeException ex) {
+      LOG.warn("Could not read stage library index '{}': {}", file, ex.toString(), ex);
+    } finally {
+      dataStore.release();
+    }
+    return Collections.emptyMap();
+  }
+
+  /**
+   * Returns the fingerprint of the jars of the given stage library class loader, or null if it can't be indexed.
+   */
+  static String fingerprint(ClassLoader cl) {
+    if (!(cl instanceof URLClassLoader)) {
+      return null;
+    }
+    List<File> jars = new ArrayList<>();
+    for (URL url : ((URLClassLoader) cl).getURLs()) {
+      try {
+        File jar = new File(url.toURI());
+        // the content of directories can change without changing their modification time
+        if (!"file".equals(url.getProtocol()) || !jar.isFile()) {
+          return null;
+        }
+        jars.add(jar);
+      } catch (URISyntaxException | IllegalArgumentException ex) {
+        return null;
+      }
+    }
+    if (jars.isEmpty()) {
+      return null;
+    }
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    for (File jar : jars) {
+      hasher.putString(jar.getAbsolutePath(), StandardCharsets.UTF_8);
+      hasher.putLong(jar.length());
+      hasher.putLong(jar.lastModified());
+    }
+    return hasher.hash().toString();
+  }
+}
@@ -17,6 +17,7 @@ package com.streamsets.datacollector.el;
 
 import com.streamsets.datacollector.definition.ConcreteELDefinitionExtractor;
 import com.streamsets.datacollector.definition.ELDefinitionExtractor;
+import com.streamsets.datacollector.util.ContainerCommonError;
 import com.streamsets.pipeline.api.ElConstant;
 import com.streamsets.pipeline.api.ElFunction;
 import com.streamsets.pipeline.api.el.ELEval;
@@ -128,6 +129,123 @@ public class TestELEvaluator {
     }
   }
 
+  @Test
+  public void testCompile() throws ELEvalException {
+    ELEvaluator elEval = new ELEvaluator("testCompile", false, elDefinitionExtractor, ValidTestEl.class);
+    ELEvaluator.CompiledExpression expression = elEval.compile("${location:city() eq CITY && x == 1}");
+    Assert.assertEquals("${location:city() eq CITY && x == 1}", expression.getExpression());
+
+    ELVars variables = elEval.createVariables();
+    variables.addVariable("x", 1);
+    Assert.assertTrue(expression.evaluate(variables, Boolean.class));
+    variables.addVariable("x", 2);
+    Assert.assertFalse(expression.evaluate(variables, Boolean.class));
+    Assert.assertEquals("false", expression.evaluate(variables, String.class));
+
+    // constant expressions are coerced as well
+    Assert.assertEquals(Integer.valueOf(5), elEval.compile("5").evaluate(variables, Integer.class));
+    Assert.assertEquals("", elEval.compile("").evaluate(variables, String.class));
+
+    // variables used with a different evaluator resolve against that evaluator
+    ELEvaluator otherEval = new ELEvaluator("other", false, elDefinitionExtractor);
+    try {
+      otherEval.eval(variables, "${CITY}", String.class);
+      Assert.fail();
+    } catch (ELEvalException e) {
+      //expected
+    }
+    Assert.assertEquals("San Francisco", elEval.eval(variables, "${CITY}", String.class));
+  }
+
+  @Test
+  public void testCompileInvalid() throws ELEvalException {
+    ELEvaluator elEval = new ELEvaluator("testCompileInvalid", false, elDefinitionExtractor, ValidTestEl.class);
+    try {
+      elEval.compile("${location:city() eq }");
+      Assert.fail();
+    } catch (ELEvalException e) {
+      Assert.assertEquals(ContainerCommonError.CTRCMN_0101, e.getErrorCode());
+    }
+    ELEvaluator.CompiledExpression expression = elEval.compile("${y}");
+    try {
+      expression.evaluate(elEval.createVariables(), String.class);
+      Assert.fail();
+    } catch (ELEvalException e) {
+      Assert.assertEquals(ContainerCommonError.CTRCMN_0100, e.getErrorCode());
+    }
+  }
+
+  public static class CompiledTestEl {
+    @ElFunction(prefix = "test", name = "add")
+    public static int add(int a, int b) {
+      return a + b;
+    }
+
+    @ElFunction(prefix = "test", name = "concat")
+    public static String concat(String a, String b) {
+      return a + b;
+    }
+
+    @ElFunction(prefix = "test", name = "fail")
+    public static String fail() {
+      throw new IllegalStateException("failed");
+    }
+
+    @ElFunction(prefix = "test", name = "scoped")
+    public static Object scoped(String name) {
+      return ELEval.getVariablesInScope().getVariable(name);
+    }
+  }
+
+  @Test
+  public void testCompiledExpressionVariablesInScope() throws ELEvalException {
+    ELEvaluator elEval = new ELEvaluator("testCompiledInScope", false, elDefinitionExtractor, CompiledTestEl.class);
+    ELEvaluator.CompiledExpression expression = elEval.compile("${test:scoped('x')}");
+    ELVars variables = elEval.createVariables();
+    variables.addVariable("x", 1);
+    Assert.assertEquals("1", expression.evaluate(variables, String.class));
+    variables.addVariable("x", 2);
+    Assert.assertEquals("2", expression.evaluate(variables, String.class));
+    Assert.assertEquals("3", elEval.eval(variables, "${test:add(x, 1)}", String.class));
+  }
+
+  @Test
+  public void testCompiledExpressions() throws ELEvalException {
+    ELEvaluator elEval = new ELEvaluator("testCompiled", false, elDefinitionExtractor, CompiledTestEl.class);
+    ELVars variables = elEval.createVariables();
+    variables.addVariable("x", 2);
+    variables.addVariable("s", "b");
+
+    Assert.assertEquals(Integer.valueOf(5), elEval.eval(variables, "${test:add(x, '3')}", Integer.class));
+    Assert.assertEquals("5", elEval.eval(variables, "${test:add(x, 3)}", String.class));
+    Assert.assertEquals("a-b-5", elEval.eval(variables, "a-${s}-${test:add(x, 3)}", String.class));
+    Assert.assertEquals("ab", elEval.eval(variables, "${test:concat('a', s)}", String.class));
+    Assert.assertEquals("null", elEval.eval(variables, "${test:concat(null, 'null') == 'null' ? 'null' : 'x'}", String.class));
+    Assert.assertTrue(elEval.eval(variables, "${x > 1 && test:add(x, x) == 4}", Boolean.class));
+    // short circuit, the function must not be invoked
+    Assert.assertFalse(elEval.eval(variables, "${x < 1 && test:fail() == 'x'}", Boolean.class));
+    Assert.assertEquals("yes", elEval.eval(variables, "${x == 2 ? 'yes' : test:fail()}", String.class));
+    // unary operators are evaluated by the interpreter
+    Assert.assertEquals(Integer.valueOf(-5), elEval.eval(variables, "${-test:add(x, 3)}", Integer.class));
+    Assert.assertTrue(elEval.eval(variables, "${not empty s}", Boolean.class));
+
+    try {
+      elEval.eval(variables, "${test:fail()}", String.class);
+      Assert.fail();
+    } catch (ELEvalException e) {
+      Assert.assertEquals(ContainerCommonError.CTRCMN_0100, e.getErrorCode());
+      Assert.assertTrue(e.getMessage().contains("failed"));
+    }
+
+    // unknown functions are reported when evaluated
+    try {
+      elEval.eval(variables, "${test:unknown()}", String.class);
+      Assert.fail();
+    } catch (ELEvalException e) {
+      Assert.assertEquals(ContainerCommonError.CTRCMN_0100, e.getErrorCode());
+    }
+  }
+
   public static class ValidTestEl {
 
     @ElConstant(name = "CITY", description = "Declares the CITY constant to be 'San Francisco'")
@@ -15,6 +15,7 @@
  */
 package com.streamsets.datacollector.execution.runner.common;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.streamsets.datacollector.blobstore.BlobStoreTask;
 import com.streamsets.datacollector.config.PipelineConfiguration;
@@ -29,8 +30,10 @@ import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.main.RuntimeModule;
 import com.streamsets.datacollector.main.StandaloneRuntimeInfo;
 import com.streamsets.datacollector.metrics.MetricsConfigurator;
+import com.streamsets.datacollector.runner.BatchListener;
 import com.streamsets.datacollector.runner.MockStages;
 import com.streamsets.datacollector.runner.PipeBatch;
+import com.streamsets.datacollector.runner.PipeRunner;
 import com.streamsets.datacollector.runner.Pipeline;
 import com.streamsets.datacollector.runner.PipelineRuntimeException;
 import com.streamsets.datacollector.runner.SourceOffsetTracker;
@@ -78,16 +81,19 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Exchanger;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TestProductionPipeline {
 
@@ -371,6 +377,16 @@ public class TestProductionPipeline {
   }
 
   private ProductionPipeline createProductionPipeline(DeliveryGuarantee deliveryGuarantee, boolean captureNextBatch, long rateLimit, PipelineType type) throws Exception {
+    return createProductionPipeline(deliveryGuarantee, captureNextBatch, rateLimit, type, new Configuration());
+  }
+
+  private ProductionPipeline createProductionPipeline(
+      DeliveryGuarantee deliveryGuarantee,
+      boolean captureNextBatch,
+      long rateLimit,
+      PipelineType type,
+      Configuration config
+  ) throws Exception {
     SourceOffsetTracker tracker = new TestUtil.SourceOffsetTrackerImpl(Collections.singletonMap(Source.POLL_SOURCE_OFFSET_KEY, "1"));
     SnapshotStore snapshotStore = Mockito.mock(FileSnapshotStore.class);
 
@@ -378,7 +394,6 @@ public class TestProductionPipeline {
         new SnapshotInfoImpl("user", "SNAPSHOT_NAME", "SNAPSHOT LABEL", PIPELINE_NAME, REVISION,
             System.currentTimeMillis(), false, 0, false));
     BlockingQueue<Object> productionObserveRequests = new ArrayBlockingQueue<>(100, true /* FIFO */);
-    Configuration config = new Configuration();
     ProductionPipelineRunner runner = new ProductionPipelineRunner(
       PIPELINE_NAME,
       REVISION,
@@ -874,6 +889,195 @@ public class TestProductionPipeline {
       return null;
     }
   }
+  private static class SegmentSource extends BaseSource {
+    @Override
+    public String produce(String lastSourceOffset, int maxBatchSize, BatchMaker batchMaker) throws StageException {
+      int count = Integer.parseInt(lastSourceOffset);
+      Record record = getContext().createRecord("s" + count);
+      record.set(Field.create(count));
+      batchMaker.addRecord(record);
+      return (++count < 20) ? String.valueOf(count) : null;
+    }
+  }
+
+  private static class SegmentProcessor extends BaseProcessor {
+    List<String> threads = new ArrayList<>();
+
+    @Override
+    public void process(Batch batch, BatchMaker batchMaker) throws StageException {
+      threads.add(Thread.currentThread().getName());
+      Iterator<Record> it = batch.getRecords();
+      while (it.hasNext()) {
+        batchMaker.addRecord(it.next());
+      }
+    }
+  }
+
+  private static class SegmentTarget extends BaseTarget {
+    List<String> threads = new ArrayList<>();
+    List<Integer> values = new ArrayList<>();
+
+    @Override
+    public void write(Batch batch) throws StageException {
+      threads.add(Thread.currentThread().getName());
+      Iterator<Record> it = batch.getRecords();
+      while (it.hasNext()) {
+        values.add(it.next().get().getValueAsInteger());
+      }
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testPollSourceInSegments() throws Exception {
+    MockStages.setSourceCapture(new SegmentSource());
+    SegmentProcessor processor = new SegmentProcessor();
+    MockStages.setProcessorCapture(processor);
+    SegmentTarget target = new SegmentTarget();
+    MockStages.setTargetCapture(target);
+
+    Configuration config = new Configuration();
+    config.set(Constants.PIPELINE_SEGMENTS_KEY, 2);
+    config.set(Constants.SEGMENT_QUEUE_SIZE_KEY, 1);
+    ProductionPipeline pipeline = createProductionPipeline(
+        DeliveryGuarantee.AT_LEAST_ONCE,
+        false,
+        -1L,
+        PipelineType.DEFAULT,
+        config
+    );
+    pipeline.registerStatusListener(new MyStateListener());
+    List<String> listenerThreads = new ArrayList<>();
+    lastCreatedRunner.registerListener(new BatchListener() {
+      @Override
+      public void preBatch() {
+        listenerThreads.add("pre:" + Thread.currentThread().getName());
+      }
+
+      @Override
+      public void postBatch() {
+        listenerThreads.add("post:" + Thread.currentThread().getName());
+      }
+    });
+    String originThread = Thread.currentThread().getName();
+    pipeline.run();
+
+    // Batches went through the segments in the order they were produced, the last (null) offset got committed
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 1; i < 20; i++) {
+      expected.add(i);
+    }
+    Assert.assertEquals(expected, target.values);
+    Assert.assertTrue(pipeline.getCommittedOffsets().isEmpty());
+
+    // Processor and target ran on their own threads
+    Assert.assertEquals(1, new HashSet<>(processor.threads).size());
+    Assert.assertTrue(processor.threads.get(0).endsWith("-segment-0"));
+    Assert.assertEquals(1, new HashSet<>(target.threads).size());
+    Assert.assertTrue(target.threads.get(0).endsWith("-segment-1"));
+
+    // Both batch listener calls of every batch ran on the origin thread
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList("pre:" + originThread, "post:" + originThread)),
+        new HashSet<>(listenerThreads)
+    );
+    Assert.assertEquals(19, listenerThreads.stream().filter(t -> t.startsWith("pre:")).count());
+    Assert.assertEquals(19, listenerThreads.stream().filter(t -> t.startsWith("post:")).count());
+
+    // Batch count of the runner and of its segments
+    Map<String, Gauge> gauges = lastCreatedRunner.getMetrics().getGauges();
+    Assert.assertEquals(
+        19L,
+        ((Map<String, Object>) gauges.get("runner.0.gauge").getValue()).get(PipeRunner.METRIC_BATCH_COUNT)
+    );
+    Map<String, Object> segment = (Map<String, Object>) gauges.get("runner.0.segment.1.gauge").getValue();
+    Assert.assertEquals(19L, segment.get(PipeRunner.METRIC_BATCH_COUNT));
+    Assert.assertEquals(PipeRunner.IDLE, segment.get(PipeRunner.METRIC_CURRENT_STAGE));
+
+    Map<String, Object> queue = lastCreatedRunner.getMetrics().getGauges().entrySet().stream()
+        .filter(e -> e.getKey().startsWith("segmentQueue.1"))
+        .map(e -> (Map<String, Object>) e.getValue().getValue())
+        .findFirst()
+        .orElseThrow(AssertionError::new);
+    Assert.assertEquals(1, queue.get(SegmentQueue.METRIC_CAPACITY));
+    Assert.assertNotNull(queue.get(SegmentQueue.METRIC_DEPTH));
+    Assert.assertNotNull(queue.get(SegmentQueue.METRIC_PUT_WAIT_TIME));
+    Assert.assertNotNull(queue.get(SegmentQueue.METRIC_TAKE_WAIT_TIME));
+  }
+
+  private static class EndlessSegmentSource extends BaseSource {
+    final AtomicInteger produced = new AtomicInteger();
+
+    @Override
+    public String produce(String lastSourceOffset, int maxBatchSize, BatchMaker batchMaker) throws StageException {
+      int count = produced.incrementAndGet();
+      Record record = getContext().createRecord("s" + count);
+      record.set(Field.create(count));
+      batchMaker.addRecord(record);
+      return String.valueOf(count);
+    }
+  }
+
+  private static class BlockedSegmentTarget extends BaseTarget {
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public void write(Batch batch) throws StageException {
+      writing.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void testStopPollSourceInSegments() throws Exception {
+    EndlessSegmentSource source = new EndlessSegmentSource();
+    MockStages.setSourceCapture(source);
+    MockStages.setProcessorCapture(new SegmentProcessor());
+    BlockedSegmentTarget target = new BlockedSegmentTarget();
+    MockStages.setTargetCapture(target);
+
+    Configuration config = new Configuration();
+    config.set(Constants.PIPELINE_SEGMENTS_KEY, 2);
+    config.set(Constants.SEGMENT_QUEUE_SIZE_KEY, 1);
+    ProductionPipeline pipeline = createProductionPipeline(
+        DeliveryGuarantee.AT_LEAST_ONCE,
+        false,
+        -1L,
+        PipelineType.DEFAULT,
+        config
+    );
+    pipeline.registerStatusListener(new MyStateListener());
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> run = executor.submit(() -> {
+        pipeline.run();
+        return null;
+      });
+
+      // the target holds a batch, the queues fill up and the origin waits for room in the first one
+      target.writing.await();
+      while (source.produced.get() < 4) {
+        Thread.sleep(10);
+      }
+      pipeline.stop();
+      Thread.sleep(500);
+      int produced = source.produced.get();
+      target.release.countDown();
+      run.get();
+
+      // the run ended with batches still queued, and no batch was produced after the stop
+      Assert.assertEquals(produced, source.produced.get());
+    } finally {
+      target.release.countDown();
+      executor.shutdownNow();
+    }
+  }
+
   @Test // SDC-9320
   public void testSourceOffsetTrackerNotCalledForIdleBatch() throws Exception {
     OffsetCommitSource source = new OffsetCommitSource();
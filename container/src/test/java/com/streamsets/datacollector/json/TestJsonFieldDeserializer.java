@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.json;
+
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.ext.JsonObjectReader;
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import com.streamsets.pipeline.api.ext.io.OverrunReader;
+import com.streamsets.pipeline.api.ext.json.Mode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.Map;
+
+public class TestJsonFieldDeserializer {
+  private static final String JSON = "{\"s\":\"a\",\"i\":1,\"l\":10000000000,\"d\":1.5,\"b\":true,\"n\":null," +
+      "\"big\":100000000000000000000,\"list\":[1,{\"x\":[]}],\"m\":{}}";
+
+  private static void assertFields(Field field) {
+    Assert.assertEquals(Field.Type.MAP, field.getType());
+    Map<String, Field> map = field.getValueAsMap();
+    Assert.assertEquals(
+        ImmutableList.of("s", "i", "l", "d", "b", "n", "big", "list", "m"),
+        ImmutableList.copyOf(map.keySet())
+    );
+    Assert.assertEquals(Field.create("a"), map.get("s"));
+    Assert.assertEquals(Field.create(1), map.get("i"));
+    Assert.assertEquals(Field.create(10000000000L), map.get("l"));
+    Assert.assertEquals(Field.create(1.5d), map.get("d"));
+    Assert.assertEquals(Field.create(true), map.get("b"));
+    Assert.assertEquals(Field.create(Field.Type.STRING, null), map.get("n"));
+    Assert.assertEquals(Field.create(new BigDecimal("100000000000000000000")), map.get("big"));
+    Assert.assertEquals(Field.Type.LIST, map.get("list").getType());
+    Assert.assertEquals(Field.create(1), map.get("list").getValueAsList().get(0));
+    Field nested = map.get("list").getValueAsList().get(1);
+    Assert.assertEquals(Field.Type.MAP, nested.getType());
+    Assert.assertTrue(nested.getValueAsMap().get("x").getValueAsList().isEmpty());
+    Assert.assertTrue(map.get("m").getValueAsMap().isEmpty());
+  }
+
+  @Test
+  public void testMultipleObjects() throws Exception {
+    JsonObjectReader reader = new JsonObjectReaderImpl(
+        new StringReader(JSON + "\n" + JSON + "\n\"x\""),
+        0,
+        Mode.MULTIPLE_OBJECTS,
+        Field.class
+    );
+    assertFields((Field) reader.read());
+    assertFields((Field) reader.read());
+    Assert.assertEquals(Field.create("x"), reader.read());
+    Assert.assertNull(reader.read());
+    reader.close();
+  }
+
+  @Test
+  public void testArrayObjects() throws Exception {
+    JsonObjectReader reader = new JsonObjectReaderImpl(
+        new StringReader("[" + JSON + "," + JSON + "]"),
+        0,
+        Mode.ARRAY_OBJECTS,
+        Field.class
+    );
+    assertFields((Field) reader.read());
+    assertFields((Field) reader.read());
+    Assert.assertNull(reader.read());
+    reader.close();
+  }
+
+  @Test
+  public void testSameFieldsAsObject() throws Exception {
+    JsonObjectReader reader = new OverrunJsonObjectReaderImpl(
+        new OverrunReader(new StringReader(JSON), 1000, false, false),
+        0,
+        1000,
+        Mode.MULTIPLE_OBJECTS,
+        Field.class
+    );
+    assertFields((Field) reader.read());
+    reader.close();
+  }
+
+  @Test
+  public void testMaxObjectLength() throws Exception {
+    JsonObjectReader reader = new OverrunJsonObjectReaderImpl(
+        new OverrunReader(new StringReader("{\"a\":\"0123456789\",\"b\":1}\n{\"c\":2}"), 1000, false, false),
+        0,
+        10,
+        Mode.MULTIPLE_OBJECTS,
+        Field.class
+    );
+    try {
+      reader.read();
+      Assert.fail();
+    } catch (ObjectLengthException ex) {
+      //expected
+    }
+    // positioned at the next object
+    Field field = (Field) reader.read();
+    Assert.assertEquals(Field.create(2), field.getValueAsMap().get("c"));
+    reader.close();
+  }
+}
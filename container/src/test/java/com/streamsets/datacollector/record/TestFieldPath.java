@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.streamsets.pipeline.api.Field;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestFieldPath {
+
+  private static Field createTree() {
+    Map<String, Field> leaf = new LinkedHashMap<>();
+    leaf.put("c", Field.create("C"));
+    List<Field> list = new ArrayList<>();
+    list.add(Field.create(leaf));
+    Map<String, Field> root = new LinkedHashMap<>();
+    root.put("a", Field.create(list));
+    root.put("b/x", Field.create(1));
+    return Field.create(root);
+  }
+
+  @Test
+  public void testCompile() {
+    FieldPath path = FieldPath.compile("/a[0]/c");
+    Assert.assertSame(path, FieldPath.compile("/a[0]/c"));
+    Assert.assertEquals("/a[0]/c", path.getPath());
+    Assert.assertEquals(3, path.size());
+    Assert.assertEquals(PathElement.Type.MAP, path.getElement(0).getType());
+    Assert.assertEquals("a", path.getElement(0).getName());
+    Assert.assertEquals(PathElement.Type.LIST, path.getElement(1).getType());
+    Assert.assertEquals(0, path.getElement(1).getIndex());
+    Assert.assertEquals("c", path.getElement(2).getName());
+    Assert.assertFalse(path.isRoot());
+    Assert.assertTrue(FieldPath.compile("").isRoot());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCompileInvalid() {
+    FieldPath.compile("a");
+  }
+
+  @Test
+  public void testCacheIsBounded() {
+    for (int i = 0; i < FieldPath.CACHE_MAX_SIZE * 2; i++) {
+      FieldPath.compile("/field" + i);
+    }
+    Assert.assertTrue(FieldPath.getCacheSize() <= FieldPath.CACHE_MAX_SIZE);
+  }
+
+  @Test
+  public void testGetAndHas() {
+    Field root = createTree();
+    Assert.assertSame(root, FieldPath.compile("").get(root));
+    Assert.assertEquals("C", FieldPath.compile("/a[0]/c").get(root).getValueAsString());
+    Assert.assertEquals(1, FieldPath.compile("/'b/x'").get(root).getValueAsInteger());
+    Assert.assertTrue(FieldPath.compile("/a[0]").has(root));
+    Assert.assertFalse(FieldPath.compile("/a[1]").has(root));
+    Assert.assertFalse(FieldPath.compile("/a[0]/d").has(root));
+    Assert.assertFalse(FieldPath.compile("/a/c").has(root));
+    Assert.assertFalse(FieldPath.compile("/a[0]/c/d").has(root));
+    Assert.assertNull(FieldPath.compile("/a").get(null));
+    Assert.assertFalse(FieldPath.compile("").has(null));
+  }
+
+  @Test
+  public void testSet() {
+    Field root = createTree();
+    Field old = FieldPath.compile("/a[0]/c").set(root, Field.create("D"));
+    Assert.assertEquals("C", old.getValueAsString());
+    Assert.assertEquals("D", FieldPath.compile("/a[0]/c").get(root).getValueAsString());
+
+    Assert.assertNull(FieldPath.compile("/a[0]/e").set(root, Field.create("E")));
+    Assert.assertEquals("E", FieldPath.compile("/a[0]/e").get(root).getValueAsString());
+
+    Assert.assertNull(FieldPath.compile("/a[1]").set(root, Field.create("F")));
+    Assert.assertEquals("F", FieldPath.compile("/a[1]").get(root).getValueAsString());
+
+    try {
+      FieldPath.compile("/x/y").set(root, Field.create("G"));
+      Assert.fail();
+    } catch (IllegalArgumentException ex) {
+      //expected
+    }
+  }
+
+  @Test
+  public void testDelete() {
+    Field root = createTree();
+    Assert.assertNull(FieldPath.compile("/a[0]/x").delete(root));
+    Assert.assertEquals("C", FieldPath.compile("/a[0]/c").delete(root).getValueAsString());
+    Assert.assertFalse(FieldPath.compile("/a[0]/c").has(root));
+    Assert.assertNotNull(FieldPath.compile("/a[0]").delete(root));
+    Assert.assertTrue(FieldPath.compile("/a").get(root).getValueAsList().isEmpty());
+    Assert.assertNull(FieldPath.compile("/x/y").delete(root));
+  }
+
+}
@@ -182,6 +182,74 @@ public class TestRecordImpl {
     Assert.assertNotSame(clone, record);
   }
 
+  @Test
+  public void testCopyOnWrite() {
+    RecordImpl record = new RecordImpl("stage", "source", null, null);
+    Map<String, Field> map = new HashMap<>();
+    map.put("a", Field.create("A"));
+    record.set(Field.create(map));
+    record.getHeader().setAttribute("a", "A");
+    Field original = record.get();
+
+    List<RecordImpl> copies = record.copyOnWrite(3);
+    Assert.assertEquals(3, copies.size());
+    for (RecordImpl copy : copies) {
+      Assert.assertNotSame(record, copy);
+      Assert.assertNotSame(record.getHeader(), copy.getHeader());
+      Assert.assertTrue(copy.isValueShared());
+      // read only access does not copy the field tree
+      Assert.assertTrue(copy.has("/a"));
+      Assert.assertEquals(record, copy);
+      Assert.assertTrue(copy.isValueShared());
+    }
+
+    // first copies to be modified get their own field tree
+    copies.get(0).set("/b", Field.create("B"));
+    Assert.assertFalse(copies.get(0).isValueShared());
+    Assert.assertNotSame(original, copies.get(0).get());
+    Assert.assertTrue(copies.get(0).has("/b"));
+    Assert.assertFalse(copies.get(1).has("/b"));
+    Assert.assertFalse(copies.get(2).has("/b"));
+
+    Assert.assertEquals("A", copies.get(1).get("/a").getValueAsString());
+    Assert.assertNotSame(original, copies.get(1).get());
+    copies.get(1).delete("/a");
+    Assert.assertFalse(copies.get(1).has("/a"));
+    Assert.assertTrue(copies.get(2).has("/a"));
+
+    // the last copy takes over the original field tree
+    Assert.assertSame(original, copies.get(2).get());
+    Assert.assertFalse(copies.get(2).isValueShared());
+    Assert.assertEquals(1, copies.get(2).get().getValueAsMap().size());
+  }
+
+  @Test
+  public void testCopyOnWriteOfSharedCopy() {
+    RecordImpl record = new RecordImpl("stage", "source", null, null);
+    record.set(Field.create(new HashMap<String, Field>()));
+    Field original = record.get();
+
+    List<RecordImpl> copies = record.copyOnWrite(2);
+    List<RecordImpl> copiesOfCopy = copies.get(0).copyOnWrite(2);
+
+    copies.get(1).set("/a", Field.create("A"));
+    copiesOfCopy.get(0).set("/b", Field.create("B"));
+    Assert.assertTrue(copiesOfCopy.get(1).get().getValueAsMap().isEmpty());
+    Assert.assertSame(original, copiesOfCopy.get(1).get());
+    Assert.assertEquals(ImmutableSet.of("a"), copies.get(1).get().getValueAsMap().keySet());
+    Assert.assertEquals(ImmutableSet.of("b"), copiesOfCopy.get(0).get().getValueAsMap().keySet());
+  }
+
+  @Test
+  public void testCopyOnWriteEventRecord() {
+    EventRecordImpl record = new EventRecordImpl("type", 1, "stage", "source", null, null);
+    record.set(Field.create(new HashMap<String, Field>()));
+    List<RecordImpl> copies = record.copyOnWrite(2);
+    Assert.assertTrue(copies.get(0) instanceof EventRecordImpl);
+    Assert.assertTrue(copies.get(1) instanceof EventRecordImpl);
+    Assert.assertEquals("type", ((EventRecordImpl) copies.get(1)).getEventType());
+  }
+
   // tests for field-path expressions
 
   @Test
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record.io;
+
+import com.streamsets.datacollector.record.HeaderImpl;
+import com.streamsets.datacollector.record.RecordImpl;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.ext.RecordReader;
+import com.streamsets.pipeline.api.ext.RecordWriter;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestDictionaryRecordWriterReader {
+
+  private static RecordImpl createRecord(int i) {
+    RecordImpl record = new RecordImpl("origin", "file.txt::" + i, null, null);
+    record.getHeader().setStagesPath("origin:processor");
+    record.createTrackingId();
+    record.getHeader().setAttribute("file", "/data/file.txt");
+    record.getHeader().setAttribute("partition", String.valueOf(i % 4));
+
+    LinkedHashMap<String, Field> listMap = new LinkedHashMap<>();
+    listMap.put("id", Field.create(i));
+    listMap.put("negative", Field.create(-i * 1000L));
+    listMap.put("name", Field.create("name " + i));
+    listMap.put("unicode", Field.create("naïve 一"));
+    listMap.put("status", Field.create(i % 2 == 0 ? "ACTIVE" : "INACTIVE"));
+    listMap.put("amount", Field.create(new BigDecimal("-36.7147").add(BigDecimal.valueOf(i))));
+    listMap.put("ratio", Field.create(i / 3.0));
+    listMap.put("float", Field.create(i / 3.0f));
+    listMap.put("flag", Field.create(i % 2 == 0));
+    listMap.put("char", Field.create('c'));
+    listMap.put("byte", Field.create((byte) i));
+    listMap.put("short", Field.create((short) -i));
+    listMap.put("date", Field.create(Field.Type.DATE, new Date(1500000000000L + i)));
+    listMap.put("datetime", Field.create(Field.Type.DATETIME, new Date(1500000000000L + i)));
+    listMap.put("time", Field.create(Field.Type.TIME, new Date(i)));
+    listMap.put(
+        "zoned",
+        Field.createZonedDateTime(ZonedDateTime.of(2019, 1, 1, 10, 0, 0, i, ZoneId.of("Europe/Paris")))
+    );
+    listMap.put("nullString", Field.create(Field.Type.STRING, null));
+    Field withAttributes = Field.create("value");
+    withAttributes.setAttribute("attr", "attrValue");
+    listMap.put("withAttributes", withAttributes);
+    Map<String, Field> map = new HashMap<>();
+    map.put("list", Field.create(Arrays.asList(Field.create(1), Field.create("two"))));
+    map.put("empty", Field.create(new ArrayList<Field>()));
+    listMap.put("map", Field.create(map));
+    record.set(Field.createListMap(listMap));
+    return record;
+  }
+
+  private static byte[] write(RecordEncoding encoding, List<? extends Record> records) throws IOException {
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    RecordWriter writer = RecordWriterReaderFactory.createRecordWriter(encoding, os);
+    for (Record record : records) {
+      writer.write(record);
+    }
+    writer.close();
+    return os.toByteArray();
+  }
+
+  @Test
+  public void testMultipleFrames() throws IOException {
+    List<RecordImpl> records = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      records.add(createRecord(i));
+    }
+    // larger than a frame
+    RecordImpl large = new RecordImpl("origin", "large", null, null);
+    large.set(Field.create(StringUtils.repeat('x', 2 * DictionaryRecordWriter.FRAME_SIZE)));
+    records.add(1000, large);
+
+    byte[] bytes = write(RecordEncoding.DICT1, records);
+    Assert.assertTrue(bytes.length > 4 * DictionaryRecordWriter.FRAME_SIZE);
+
+    InputStream is = new ByteArrayInputStream(bytes);
+    RecordReader reader = RecordWriterReaderFactory.createRecordReader(is, 0, 1000 * 1000);
+    Assert.assertEquals(RecordEncoding.DICT1.name(), reader.getEncoding());
+    List<Long> positions = new ArrayList<>();
+    for (RecordImpl record : records) {
+      positions.add(reader.getPosition());
+      Assert.assertEquals(record, reader.readRecord());
+    }
+    Assert.assertNull(reader.readRecord());
+    reader.close();
+
+    // resuming from positions at the start and in the middle of frames
+    for (int i : new int[]{1, 999, 1000, 1001, 1500, 1999}) {
+      reader = RecordWriterReaderFactory.createRecordReader(new ByteArrayInputStream(bytes), positions.get(i), 1000 * 1000);
+      for (int j = i; j < records.size(); j++) {
+        Assert.assertEquals(positions.get(j).longValue(), reader.getPosition());
+        Assert.assertEquals(records.get(j), reader.readRecord());
+      }
+      Assert.assertNull(reader.readRecord());
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testErrorRecord() throws IOException {
+    HeaderImpl header = new HeaderImpl(
+        "origin",
+        "source",
+        "origin:target",
+        "trackingId",
+        "previousTrackingId",
+        new byte[]{1, 2, 3},
+        "application/octet-stream",
+        "sdc",
+        "pipeline",
+        "target",
+        "Target",
+        "ERROR_00",
+        "Error message",
+        1234L,
+        "stack trace",
+        new HashMap<>(),
+        "job"
+    );
+    header.setAttribute("attr", "value");
+    List<Record> records = Arrays.asList(
+        new RecordImpl(header, Field.create("error")),
+        new RecordImpl(new RecordImpl("origin", "null", null, null).getHeader(), null),
+        new RecordImpl(new RecordImpl("origin", "bytes", null, null).getHeader(), Field.create(new byte[]{0, 1, 2}))
+    );
+    InputStream is = new ByteArrayInputStream(write(RecordEncoding.DICT1, records));
+    RecordReader reader = RecordWriterReaderFactory.createRecordReader(is, 0, 1000);
+    Assert.assertEquals(records.get(0), reader.readRecord());
+    Assert.assertEquals(records.get(1), reader.readRecord());
+    Record record = reader.readRecord();
+    Assert.assertEquals(records.get(2).getHeader(), record.getHeader());
+    Assert.assertArrayEquals(new byte[]{0, 1, 2}, record.get().getValueAsByteArray());
+    Assert.assertNull(reader.readRecord());
+  }
+
+  @Test(expected = IOException.class)
+  public void testMaxObjectLen() throws IOException {
+    RecordImpl record = new RecordImpl("origin", "large", null, null);
+    record.set(Field.create(StringUtils.repeat('x', 2 * DictionaryRecordWriter.FRAME_SIZE)));
+    InputStream is = new ByteArrayInputStream(write(RecordEncoding.DICT1, Arrays.asList(record)));
+    RecordWriterReaderFactory.createRecordReader(is, 0, 1000).readRecord();
+  }
+
+  @Test(expected = IOException.class)
+  public void testTruncated() throws IOException {
+    byte[] bytes = write(RecordEncoding.DICT1, Arrays.asList(createRecord(1)));
+    InputStream is = new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 10));
+    RecordWriterReaderFactory.createRecordReader(is, 0, 1000).readRecord();
+  }
+
+  @Test
+  public void testSmallerThanOtherEncodings() throws IOException {
+    List<RecordImpl> records = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      records.add(createRecord(i));
+    }
+    byte[] dict = write(RecordEncoding.DICT1, records);
+    Assert.assertTrue(dict.length < write(RecordEncoding.JSON1, records).length);
+    Assert.assertTrue(dict.length < write(RecordEncoding.KRYO1, records).length);
+
+    RecordReader reader = RecordWriterReaderFactory.createRecordReader(new ByteArrayInputStream(dict), 0, 1000 * 1000);
+    for (RecordImpl record : records) {
+      Assert.assertEquals(record, reader.readRecord());
+    }
+    Assert.assertNull(reader.readRecord());
+    reader.close();
+  }
+}
@@ -86,6 +86,7 @@ public  class TestRecordWriterReaderFactory {
     testEncodingSelection(null, RecordEncodingConstants.JSON1_MAGIC_NUMBER);
     testEncodingSelection(RecordEncoding.JSON1.name(), RecordEncodingConstants.JSON1_MAGIC_NUMBER);
     testEncodingSelection(RecordEncoding.KRYO1.name(), RecordEncodingConstants.KRYO1_MAGIC_NUMBER);
+    testEncodingSelection(RecordEncoding.DICT1.name(), RecordEncodingConstants.DICT1_MAGIC_NUMBER);
   }
 
   private void testRecordWriterReader(RecordEncoding encoding) throws IOException {
@@ -204,6 +205,11 @@ public  class TestRecordWriterReaderFactory {
     testRecordWriterReader(RecordEncoding.KRYO1);
   }
 
+  @Test
+  public void testDictRecordWriter() throws IOException {
+    testRecordWriterReader(RecordEncoding.DICT1);
+  }
+
   @Test
   public void testJsonRecorWithOffset() throws IOException {
     testRecordReaderWithOffset(RecordEncoding.JSON1);
@@ -214,6 +220,11 @@ public  class TestRecordWriterReaderFactory {
     testRecordReaderWithOffset(RecordEncoding.KRYO1);
   }
 
+  @Test
+  public void testDictRecordWithOffset() throws IOException {
+    testRecordReaderWithOffset(RecordEncoding.DICT1);
+  }
+
   @Test
   public void testDecimal() throws IOException {
     // We've picked this number because if it's casted to double, then it will lead to 36.7147000000000000483...
@@ -21,6 +21,7 @@ import com.streamsets.datacollector.config.StageConfiguration;
 import com.streamsets.datacollector.config.StageDefinition;
 import com.streamsets.datacollector.record.RecordImpl;
 import com.streamsets.datacollector.runner.preview.StageConfigurationBuilder;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Source;
 import com.streamsets.pipeline.api.Stage;
@@ -32,6 +33,7 @@ import org.mockito.Mockito;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 
 public class TestBatchMakerImpl {
@@ -266,4 +268,61 @@ public class TestBatchMakerImpl {
 
   }
 
+  @Test
+  public void testSourceRecord() {
+    StagePipe pipe = createStagePipe(ImmutableList.of("o"));
+    BatchMakerImpl batchMaker = new BatchMakerImpl(pipe, false);
+    Assert.assertTrue(batchMaker.isKeepSourceRecord());
+
+    RecordImpl record = new RecordImpl("i", "source", null, null);
+    record.set(Field.create(new HashMap<String, Field>()));
+    batchMaker.addRecord(record);
+    RecordImpl output = (RecordImpl) batchMaker.getStageOutput().get("o").get(0);
+    Assert.assertFalse(output.isInitialRecord());
+    RecordImpl sourceRecord = (RecordImpl) output.getHeader().getSourceRecord();
+    Assert.assertNotNull(sourceRecord);
+    Assert.assertEquals(output, sourceRecord);
+
+    // changes done by later stages must not be visible in the source record
+    output.set("/a", Field.create("A"));
+    Assert.assertTrue(output.has("/a"));
+    Assert.assertFalse(sourceRecord.has("/a"));
+    Assert.assertTrue(sourceRecord.get().getValueAsMap().isEmpty());
+
+    batchMaker = new BatchMakerImpl(pipe, false);
+    batchMaker.setKeepSourceRecord(false);
+    batchMaker.addRecord(new RecordImpl("i", "source", null, null));
+    output = (RecordImpl) batchMaker.getStageOutput().get("o").get(0);
+    Assert.assertFalse(output.isInitialRecord());
+    Assert.assertNull(output.getHeader().getSourceRecord());
+  }
+
+
+  @Test
+  public void testChunks() {
+    StagePipe pipe = createStagePipe(ImmutableList.of("o"));
+    BatchMakerImpl batchMaker = new BatchMakerImpl(pipe, true);
+    batchMaker.setKeepSourceRecord(false);
+    BatchMakerImpl chunk1 = batchMaker.createChunk();
+    BatchMakerImpl chunk2 = batchMaker.createChunk();
+    Assert.assertFalse(chunk1.isKeepSourceRecord());
+    Assert.assertNotNull(chunk1.getStageOutputSnapshot());
+
+    for (int i = 0; i < 4; i++) {
+      Record record = new RecordImpl("i", "source", null, null);
+      record.getHeader().setAttribute("r", String.valueOf(i));
+      (i < 2 ? chunk1 : chunk2).addRecord(record);
+    }
+    batchMaker.addChunk(chunk1);
+    batchMaker.addChunk(chunk2);
+
+    Assert.assertEquals(4, batchMaker.getSize());
+    for (int i = 0; i < 4; i++) {
+      Assert.assertEquals(String.valueOf(i), batchMaker.getStageOutput().get("o").get(i).getHeader().getAttribute("r"));
+      Assert.assertEquals(
+          String.valueOf(i),
+          batchMaker.getStageOutputSnapshot().get("o").get(i).getHeader().getAttribute("r")
+      );
+    }
+  }
 }
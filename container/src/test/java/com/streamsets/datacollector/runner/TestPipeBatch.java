@@ -23,6 +23,7 @@ import com.streamsets.datacollector.creation.PipelineBeanCreator;
 import com.streamsets.datacollector.record.RecordImpl;
 import com.streamsets.datacollector.stagelibrary.StageLibraryTask;
 import com.streamsets.datacollector.validation.Issue;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
 
 import com.streamsets.pipeline.api.interceptor.BaseInterceptor;
@@ -302,6 +303,12 @@ public class TestPipeBatch {
     assertEquals(1, snapshot.get("y").size());
     assertEquals("A", snapshot.get("x").get(0).getHeader().getAttribute("a"));
     assertEquals("A", snapshot.get("y").get(0).getHeader().getAttribute("a"));
+
+    // changes on one lane must not be visible on the other one
+    copiedRecordX.set(Field.create("X"));
+    copiedRecordX.getHeader().setAttribute("a", "X");
+    assertEquals("A", copiedRecordY.getHeader().getAttribute("a"));
+    Assert.assertNull(copiedRecordY.get());
   }
 
   @Test
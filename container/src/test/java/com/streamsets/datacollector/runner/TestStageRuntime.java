@@ -21,8 +21,16 @@ import com.streamsets.datacollector.config.StageDefinition;
 import com.streamsets.datacollector.creation.PipelineBean;
 import com.streamsets.datacollector.creation.StageBean;
 import com.streamsets.datacollector.creation.StageConfigBean;
+import com.streamsets.datacollector.record.RecordImpl;
+import com.streamsets.datacollector.util.ContainerError;
 import com.streamsets.datacollector.validation.Issue;
+import com.streamsets.pipeline.api.Batch;
+import com.streamsets.pipeline.api.BatchMaker;
+import com.streamsets.pipeline.api.Processor;
+import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.StageType;
 import com.streamsets.pipeline.api.impl.CreateByRef;
 
 import org.junit.Assert;
@@ -30,7 +38,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class TestStageRuntime {
   private PipelineBean pipelineBean;
@@ -168,4 +179,98 @@ public class TestStageRuntime {
     Mockito.verify(postInterceptorContext, Mockito.times(1)).setAllowCreateStage(false);
     Mockito.verify(postInterceptorContext, Mockito.times(1)).getIssues();
   }
+
+  @Test
+  public void testStatelessProcessorChunks() throws Exception {
+    Processor processor = Mockito.mock(Processor.class);
+    Mockito.when(stageBean.getStage()).thenReturn(processor);
+    Mockito.when(def.getType()).thenReturn(StageType.PROCESSOR);
+    Mockito.when(def.getStageClassLoader()).thenReturn(getClass().getClassLoader());
+    Mockito.when(conf.getInstanceName()).thenReturn("p");
+    Mockito.when(conf.getOutputLanes()).thenReturn(ImmutableList.of("o"));
+    StagePipe pipe = Mockito.mock(StagePipe.class);
+    Mockito.when(pipe.getStage()).thenReturn(runtime);
+
+    List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+    Mockito.doAnswer(invocation -> {
+      threads.add(Thread.currentThread());
+      Batch batch = (Batch) invocation.getArguments()[0];
+      BatchMaker batchMaker = (BatchMaker) invocation.getArguments()[1];
+      batch.getRecords().forEachRemaining(record -> {
+        if ("fail".equals(record.getHeader().getAttribute("i"))) {
+          throw new RuntimeException(new StageException(ContainerError.CONTAINER_0001, "fail"));
+        }
+        batchMaker.addRecord(record);
+      });
+      return null;
+    }).when(processor).process(Mockito.any(Batch.class), Mockito.any(BatchMaker.class));
+
+    List<Record> records = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      Record record = new RecordImpl("s", "s:" + i, null, null);
+      record.getHeader().setAttribute("i", String.valueOf(i));
+      records.add(record);
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      // 3 chunks of at least 2 records, merged in order
+      BatchMakerImpl batchMaker = new BatchMakerImpl(pipe, false);
+      runtime.execute(
+          new BatchImpl("p", "e", "0", records),
+          batchMaker,
+          new ErrorSink(),
+          new EventSink(),
+          new ProcessedSink(),
+          null,
+          pool,
+          2
+      );
+      Assert.assertEquals(3, threads.size());
+      Assert.assertFalse(threads.contains(Thread.currentThread()));
+      Assert.assertEquals(10, batchMaker.getSize());
+      List<Record> output = batchMaker.getStageOutput().get("o");
+      for (int i = 0; i < 10; i++) {
+        Assert.assertEquals(String.valueOf(i), output.get(i).getHeader().getAttribute("i"));
+      }
+
+      // batch too small to be split
+      threads.clear();
+      batchMaker = new BatchMakerImpl(pipe, false);
+      runtime.execute(
+          new BatchImpl("p", "e", "0", records),
+          batchMaker,
+          new ErrorSink(),
+          new EventSink(),
+          new ProcessedSink(),
+          null,
+          pool,
+          10
+      );
+      Assert.assertEquals(ImmutableList.of(Thread.currentThread()), threads);
+      Assert.assertEquals(10, batchMaker.getSize());
+
+      // failure of any chunk fails the batch
+      records.get(7).getHeader().setAttribute("i", "fail");
+      try {
+        runtime.execute(
+            new BatchImpl("p", "e", "0", records),
+            new BatchMakerImpl(pipe, false),
+            new ErrorSink(),
+            new EventSink(),
+            new ProcessedSink(),
+            null,
+            pool,
+            2
+        );
+        Assert.fail();
+      } catch (RuntimeException ex) {
+        Assert.assertTrue(ex.getCause() instanceof StageException);
+      }
+      Mockito.verify(context, Mockito.atLeastOnce()).setProcessingChunks(true);
+      Mockito.verify(context, Mockito.atLeastOnce()).setProcessingChunks(false);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
 }
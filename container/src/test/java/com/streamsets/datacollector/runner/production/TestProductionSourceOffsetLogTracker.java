@@ -0,0 +1,258 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import com.codahale.metrics.MetricRegistry;
+import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.main.RuntimeModule;
+import com.streamsets.datacollector.main.StandaloneRuntimeInfo;
+import com.streamsets.datacollector.runner.SourceOffsetTracker;
+import com.streamsets.datacollector.util.PipelineDirectoryUtil;
+import com.streamsets.pipeline.api.Source;
+import org.apache.commons.io.FileUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TestProductionSourceOffsetLogTracker {
+  private static final String PIPELINE_NAME = "myLogPipeline";
+  private static final String PIPELINE_REV = "1.0";
+
+  private RuntimeInfo info;
+  private File pipelineDir;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    System.setProperty(RuntimeModule.SDC_PROPERTY_PREFIX + RuntimeInfo.DATA_DIR, "./target/var-offset-log");
+    FileUtils.deleteQuietly(new File("./target/var-offset-log"));
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.getProperties().remove(RuntimeModule.SDC_PROPERTY_PREFIX + RuntimeInfo.DATA_DIR);
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    info = new StandaloneRuntimeInfo(
+        RuntimeModule.SDC_PROPERTY_PREFIX,
+        new MetricRegistry(),
+        Arrays.asList(TestProductionSourceOffsetLogTracker.class.getClassLoader())
+    );
+    pipelineDir = PipelineDirectoryUtil.getPipelineDir(info, PIPELINE_NAME, PIPELINE_REV);
+    Files.createDirectories(pipelineDir.toPath());
+    OffsetFileUtil.resetOffsets(info, PIPELINE_NAME, PIPELINE_REV);
+  }
+
+  @Test
+  public void testCommitOffset() {
+    ProductionSourceOffsetLogTracker tracker = new ProductionSourceOffsetLogTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        info,
+        1000
+    );
+    Assert.assertFalse(tracker.isFinished());
+    Assert.assertTrue(tracker.getOffsets().isEmpty());
+
+    tracker.commitOffset(Source.POLL_SOURCE_OFFSET_KEY, "abc");
+    tracker.commitOffset("entity", "offset");
+    tracker.commitOffset(null, "ignored");
+    Assert.assertEquals(2, tracker.getOffsets().size());
+    Assert.assertEquals("abc", tracker.getOffsets().get(Source.POLL_SOURCE_OFFSET_KEY));
+
+    tracker.commitOffset("entity", null);
+    Assert.assertEquals(1, tracker.getOffsets().size());
+    tracker.commitOffset(Source.POLL_SOURCE_OFFSET_KEY, null);
+    Assert.assertTrue(tracker.isFinished());
+    tracker.close();
+  }
+
+  @Test
+  public void testReplayAndRecovery() throws Exception {
+    ProductionSourceOffsetLogTracker tracker = new ProductionSourceOffsetLogTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        info,
+        1000
+    );
+    tracker.commitOffset("a", "1");
+    tracker.commitOffset("b", "1");
+    tracker.commitOffset("a", "2");
+    tracker.commitOffset("b", null);
+
+    // readers of the offset file see the committed offsets while the pipeline runs
+    Assert.assertFalse(OffsetLog.getSegments(pipelineDir).isEmpty());
+    Map<String, String> offsets = OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV);
+    Assert.assertEquals(1, offsets.size());
+    Assert.assertEquals("2", offsets.get("a"));
+
+    // entry torn by a crash in the middle of a write is ignored
+    Files.write(
+        OffsetLog.getSegments(pipelineDir).get(0).toPath(),
+        "{\"entity\":\"a\",\"off".getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.APPEND
+    );
+
+    // recovery as after a crash, without closing the first tracker
+    tracker = new ProductionSourceOffsetLogTracker(PIPELINE_NAME, PIPELINE_REV, info, 1000);
+    Assert.assertEquals(1, tracker.getOffsets().size());
+    Assert.assertEquals("2", tracker.getOffsets().get("a"));
+    tracker.commitOffset("c", "3");
+    tracker.close();
+
+    // closing compacts the log into the offset file
+    Assert.assertTrue(OffsetLog.getSegments(pipelineDir).isEmpty());
+    offsets = OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV);
+    Assert.assertEquals(2, offsets.size());
+    Assert.assertEquals("3", offsets.get("c"));
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    ProductionSourceOffsetLogTracker tracker = new ProductionSourceOffsetLogTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        info,
+        10
+    );
+    for (int i = 0; i < 25; i++) {
+      tracker.commitOffset("entity", String.valueOf(i));
+    }
+    // compacted twice, the third segment holds the last 5 entries
+    List<File> segments = OffsetLog.getSegments(pipelineDir);
+    Assert.assertEquals(1, segments.size());
+    Assert.assertEquals(OffsetLog.SEGMENT_PREFIX + 3, segments.get(0).getName());
+    Assert.assertEquals(5, Files.readAllLines(segments.get(0).toPath()).size());
+    Assert.assertEquals("24", OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV).get("entity"));
+    tracker.close();
+  }
+
+  @Test
+  public void testConcurrentCommits() throws Exception {
+    ProductionSourceOffsetLogTracker tracker = new ProductionSourceOffsetLogTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        info,
+        100
+    );
+    commit(tracker, 8, 200);
+    Assert.assertEquals(8, tracker.getOffsets().size());
+    Map<String, String> offsets = OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV);
+    for (int i = 0; i < 8; i++) {
+      Assert.assertEquals("199", offsets.get("runner-" + i));
+    }
+    tracker.close();
+  }
+
+  @Test
+  public void testResetOffset() throws Exception {
+    ProductionSourceOffsetLogTracker tracker = new ProductionSourceOffsetLogTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        info,
+        1000
+    );
+    tracker.commitOffset("a", "1");
+    tracker.resetOffset();
+    Assert.assertTrue(tracker.getOffsets().isEmpty());
+    Assert.assertTrue(OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV).isEmpty());
+    tracker.commitOffset("b", "1");
+    Assert.assertEquals("1", OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV).get("b"));
+    tracker.close();
+  }
+
+  @Test
+  public void testGroupCommit() throws Exception {
+    CountDownLatch flushing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    OffsetLog log = new OffsetLog(info, PIPELINE_NAME, PIPELINE_REV, 1000) {
+      @Override
+      void write(byte[] bytes) throws IOException {
+        if (flushing.getCount() > 0) {
+          // hold the first flush until all the other commits are waiting for it
+          flushing.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException ex) {
+            throw new IOException(ex);
+          }
+        }
+        super.write(bytes);
+      }
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      futures.add(executor.submit(() -> log.commit("runner-0", "1")));
+      flushing.await();
+      for (int r = 1; r < 8; r++) {
+        String entity = "runner-" + r;
+        futures.add(executor.submit(() -> log.commit(entity, "1")));
+      }
+      // commits apply their offset before waiting for the flush in progress
+      while (log.getOffsets().size() < 8) {
+        Thread.sleep(1);
+      }
+      release.countDown();
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    // the 7 commits made during the first flush are synced together
+    Assert.assertEquals(2, log.getSyncCount());
+    log.close();
+    Assert.assertEquals(8, OffsetFileUtil.getOffsets(info, PIPELINE_NAME, PIPELINE_REV).size());
+  }
+
+  private static void commit(SourceOffsetTracker tracker, int runners, int commitsPerRunner) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(runners);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int r = 0; r < runners; r++) {
+        String entity = "runner-" + r;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < commitsPerRunner; i++) {
+            tracker.commitOffset(entity, String.valueOf(i));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
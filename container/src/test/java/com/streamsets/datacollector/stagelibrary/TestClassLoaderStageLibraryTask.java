@@ -44,6 +44,8 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
 import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -211,4 +213,37 @@ public class TestClassLoaderStageLibraryTask {
 
     library.validateRequiredStageLibraries();
   }
+
+  @Test
+  public void testDefinitionIndex() throws Exception {
+    File dir = new File("target", UUID.randomUUID().toString()).getAbsoluteFile();
+    Assert.assertTrue(dir.mkdirs());
+    File jar = new File(dir, "stage.jar");
+    Files.write(jar.toPath(), new byte[] {1, 2, 3});
+    File indexFile = new File(dir, StageLibraryDefinitionIndex.INDEX_FILE);
+    URLClassLoader cl = new URLClassLoader(new URL[] {jar.toURI().toURL()}, null);
+
+    String fingerprint = StageLibraryDefinitionIndex.fingerprint(cl);
+    Assert.assertNotNull(fingerprint);
+    Assert.assertEquals(fingerprint, StageLibraryDefinitionIndex.fingerprint(cl));
+    // class loaders with directories can't be indexed
+    Assert.assertNull(StageLibraryDefinitionIndex.fingerprint(new URLClassLoader(new URL[] {dir.toURI().toURL()})));
+
+    StageLibraryDefinitionIndex index = new StageLibraryDefinitionIndex(indexFile, "1.0");
+    Assert.assertFalse(index.isValidated("lib", fingerprint));
+    index.validated("lib", fingerprint);
+    index.save();
+
+    index = new StageLibraryDefinitionIndex(indexFile, "1.0");
+    Assert.assertTrue(index.isValidated("lib", fingerprint));
+    Assert.assertFalse(index.isValidated("other", fingerprint));
+    Assert.assertFalse(index.isValidated("lib", null));
+
+    // another version of the data collector validates everything again
+    Assert.assertFalse(new StageLibraryDefinitionIndex(indexFile, "2.0").isValidated("lib", fingerprint));
+
+    // changed jar
+    Assert.assertTrue(jar.setLastModified(jar.lastModified() - 10000));
+    Assert.assertNotEquals(fingerprint, StageLibraryDefinitionIndex.fingerprint(cl));
+  }
 }
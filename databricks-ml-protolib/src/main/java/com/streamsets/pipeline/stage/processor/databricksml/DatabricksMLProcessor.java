@@ -29,6 +29,7 @@ import com.streamsets.pipeline.lib.generator.DataGeneratorException;
 import com.streamsets.pipeline.lib.generator.json.JsonCharDataGenerator;
 import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.parser.json.JsonCharDataParser;
+import com.streamsets.pipeline.lib.util.FieldNameInterner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,6 +52,7 @@ public class DatabricksMLProcessor extends SingleLaneRecordProcessor {
   @Override
   protected List<ConfigIssue> init() {
     List<ConfigIssue> configIssues = super.init();
+    FieldNameInterner.get().registerGauge(getContext());
     if (configIssues.isEmpty()) {
       try {
         File databrickMLModelDir = new File(conf.modelPath);
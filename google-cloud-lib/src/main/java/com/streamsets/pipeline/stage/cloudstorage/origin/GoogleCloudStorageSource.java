@@ -19,6 +19,7 @@ package com.streamsets.pipeline.stage.cloudstorage.origin;
 import com.google.api.gax.core.CredentialsProvider;
 import com.google.api.gax.paging.Page;
 import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageException;
 import com.google.cloud.storage.StorageOptions;
@@ -38,6 +39,7 @@ import com.streamsets.pipeline.lib.parser.DataParser;
 import com.streamsets.pipeline.lib.parser.DataParserException;
 import com.streamsets.pipeline.lib.parser.RecoverableDataParserException;
 import com.streamsets.pipeline.lib.util.AntPathMatcher;
+import com.streamsets.pipeline.lib.util.ChronologicalObjectIndex;
 import com.streamsets.pipeline.stage.cloudstorage.lib.Errors;
 import com.streamsets.pipeline.stage.cloudstorage.lib.GcsUtil;
 import org.apache.commons.codec.binary.Hex;
@@ -45,6 +47,7 @@ import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.channels.Channels;
 import java.util.Base64;
@@ -62,6 +65,7 @@ public class GoogleCloudStorageSource extends BaseSource {
   private static final String BUCKET = "bucket";
   private static final String FILE = "file";
   private static final String SIZE = "size";
+  private static final String OBJECT_INDEX_FILE = "gcs-object-index";
 
   private Storage storage;
   private GCSOriginConfig gcsOriginConfig;
@@ -76,6 +80,7 @@ public class GoogleCloudStorageSource extends BaseSource {
   private long noMoreDataFileCount;
   private Blob blob = null;
   private GcsObjectPostProcessingHandler errorBlobHandler;
+  private ChronologicalObjectIndex objectIndex;
 
   GoogleCloudStorageSource(GCSOriginConfig gcsOriginConfig) {
     this.gcsOriginConfig = gcsOriginConfig;
@@ -116,9 +121,25 @@ public class GoogleCloudStorageSource extends BaseSource {
     rateLimitElEval = FileRefUtil.createElEvalForRateLimit(getContext());
     rateLimitElVars = getContext().createELVars();
     errorBlobHandler = new GcsObjectPostProcessingHandler(storage, gcsOriginConfig.gcsOriginErrorConfig);
+    if (!getContext().isPreview()) {
+      objectIndex = createObjectIndex();
+    }
     return issues;
   }
 
+  private ChronologicalObjectIndex createObjectIndex() {
+    File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+    String relativePath = getContext().getSdcId() + "/" + getContext().getPipelineId() + "/" +
+        getContext().getStageInfo().getInstanceName() + "/" + OBJECT_INDEX_FILE;
+    // the index is only valid for the blobs it was built from
+    String signature = String.join("\n",
+        gcsOriginConfig.bucketTemplate,
+        GcsUtil.normalizePrefix(gcsOriginConfig.commonPrefix),
+        gcsOriginConfig.prefixPattern
+    );
+    return new ChronologicalObjectIndex(new File(tmpDir, relativePath), signature);
+  }
+
   @Override
   public String produce(String lastSourceOffset, int maxBatchSize, BatchMaker batchMaker) throws StageException {
     maxBatchSize = Math.min(maxBatchSize, gcsOriginConfig.basicConfig.maxBatchSize);
@@ -244,6 +265,16 @@ public class GoogleCloudStorageSource extends BaseSource {
   }
 
   private void poolForFiles(long minTimeStamp, String currentBlobGeneratedId, String currentFileOffset) {
+    if (objectIndex != null) {
+      try {
+        poolForFilesFromIndex(minTimeStamp, currentBlobGeneratedId, currentFileOffset);
+        return;
+      } catch (IOException e) {
+        LOG.warn("Could not use the object index, listing all the blobs from now on. Reason : {}", e.toString(), e);
+        objectIndex.close();
+        objectIndex = null;
+      }
+    }
     Page<Blob> blobs = storage.list(
         gcsOriginConfig.bucketTemplate,
         Storage.BlobListOption.prefix(GcsUtil.normalizePrefix(gcsOriginConfig.commonPrefix))
@@ -255,18 +286,60 @@ public class GoogleCloudStorageSource extends BaseSource {
     });
   }
 
+  /**
+   * Gets the blobs to read from the object index, which lists all the blobs only once it has returned all the blobs
+   * found by the previous listing.
+   */
+  private void poolForFilesFromIndex(long minTimeStamp, String currentBlobGeneratedId, String currentFileOffset)
+      throws IOException {
+    List<ChronologicalObjectIndex.Entry> entries = objectIndex.next(
+        consumer -> storage.list(
+            gcsOriginConfig.bucketTemplate,
+            Storage.BlobListOption.prefix(GcsUtil.normalizePrefix(gcsOriginConfig.commonPrefix))
+        ).iterateAll().forEach(blob -> {
+          if (isBlobMatching(blob)) {
+            consumer.accept(new ChronologicalObjectIndex.Entry(
+                blob.getGeneratedId(),
+                blob.getUpdateTime(),
+                blob.getSize(),
+                blob.getName(),
+                String.valueOf(blob.getGeneration())
+            ));
+          }
+        }),
+        minTimeStamp,
+        currentBlobGeneratedId,
+        !END_FILE_OFFSET.equals(currentFileOffset),
+        gcsOriginConfig.maxResultQueueSize
+    );
+    for (ChronologicalObjectIndex.Entry entry : entries) {
+      Blob indexedBlob = storage.get(BlobId.of(
+          gcsOriginConfig.bucketTemplate,
+          entry.getAttribute(0),
+          Long.valueOf(entry.getAttribute(1))
+      ));
+      // null if deleted since it was listed
+      if (indexedBlob != null) {
+        minMaxPriorityQueue.add(indexedBlob);
+      }
+    }
+  }
+
   private boolean isBlobEligible(Blob blob, long minTimeStamp, String currentBlobGeneratedId, String currentFileOffset) {
-    String blobName = blob.getName();
-    String prefixToMatch =  blobName.substring(
-        GcsUtil.normalizePrefix(gcsOriginConfig.commonPrefix).length(), blobName.length());
-    return blob.getSize() > 0 &&
+    return isBlobMatching(blob) &&
         //blob update time > current offset time
         (blob.getUpdateTime() > minTimeStamp
             //blob offset time = current offset time, but lexicographically greater than current offset
             || (blob.getUpdateTime() == minTimeStamp && blob.getGeneratedId().compareTo(currentBlobGeneratedId) > 0)
             //blob id same as current id and did not read till end of the file
-            || blob.getGeneratedId().equals(currentBlobGeneratedId) && !END_FILE_OFFSET.equals(currentFileOffset))
-        && antPathMatcher.match(gcsOriginConfig.prefixPattern, prefixToMatch);
+            || blob.getGeneratedId().equals(currentBlobGeneratedId) && !END_FILE_OFFSET.equals(currentFileOffset));
+  }
+
+  private boolean isBlobMatching(Blob blob) {
+    String blobName = blob.getName();
+    String prefixToMatch =  blobName.substring(
+        GcsUtil.normalizePrefix(gcsOriginConfig.commonPrefix).length(), blobName.length());
+    return blob.getSize() > 0 && antPathMatcher.match(gcsOriginConfig.prefixPattern, prefixToMatch);
   }
 
   private long getMinTimestampFromOffset(String offset) {
@@ -284,6 +357,10 @@ public class GoogleCloudStorageSource extends BaseSource {
   @Override
   public void destroy() {
     IOUtils.closeQuietly(parser);
+    if (objectIndex != null) {
+      objectIndex.close();
+      objectIndex = null;
+    }
     blob = null;
   }
 }
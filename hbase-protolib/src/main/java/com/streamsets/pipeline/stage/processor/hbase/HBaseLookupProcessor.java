@@ -222,7 +222,7 @@ public class HBaseLookupProcessor extends BaseProcessor {
             e
         ));
       }
-      cache = LookupUtils.buildCache(store, conf.cache);
+      cache = LookupUtils.buildSharedCache(getContext(), store, conf.cache);
 
       cacheCleaner = new CacheCleaner(cache, "HBaseLookupProcessor", 10 * 60 * 1000);
     }
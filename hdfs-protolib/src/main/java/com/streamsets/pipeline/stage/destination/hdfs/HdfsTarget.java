@@ -40,9 +40,12 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class HdfsTarget extends BaseTarget {
   private static final Logger LOG = LoggerFactory.getLogger(HdfsTarget.class);
@@ -106,18 +109,36 @@ public class HdfsTarget extends BaseTarget {
           }
           Iterator<Record> it = batch.getRecords();
           if (it.hasNext()) {
+            // records are written grouped by the file they go to, the file of each record is resolved only once
+            Map<String, List<TimedRecord>> perPath = new LinkedHashMap<>();
             while (it.hasNext()) {
               Record record = it.next();
               try {
-                write(record);
+                TimedRecord timedRecord = resolve(record);
+                if (timedRecord == null) {
+                  continue;
+                }
+                if (timedRecord.path == null) {
+                  write(timedRecord);
+                } else {
+                  List<TimedRecord> records = perPath.get(timedRecord.path);
+                  if (records == null) {
+                    records = new ArrayList<>();
+                    perPath.put(timedRecord.path, records);
+                  }
+                  records.add(timedRecord);
+                }
               } catch (OnRecordErrorException ex) {
-                errorRecordHandler.onError(
-                    new OnRecordErrorException(
-                        record,
-                        ex.getErrorCode(),
-                        ex.getParams()
-                    )
-                );
+                onError(record, ex);
+              }
+            }
+            for (List<TimedRecord> records : perPath.values()) {
+              for (TimedRecord timedRecord : records) {
+                try {
+                  write(timedRecord);
+                } catch (OnRecordErrorException ex) {
+                  onError(timedRecord.record, ex);
+                }
               }
             }
             hdfsTargetConfigBean.getCurrentWriters().flushAll();
@@ -175,7 +196,36 @@ public class HdfsTarget extends BaseTarget {
     return hdfsTargetConfigBean.getTimeDriverElEval().eval(variables, hdfsTargetConfigBean.getTimeDriver(), Date.class);
   }
 
-  private void write(Record record) throws StageException {
+  private void onError(Record record, OnRecordErrorException ex) throws StageException {
+    errorRecordHandler.onError(
+        new OnRecordErrorException(
+            record,
+            ex.getErrorCode(),
+            ex.getParams()
+        )
+    );
+  }
+
+  /**
+   * Record with its time and the path of the file it goes to.
+   */
+  private static class TimedRecord {
+    private final Record record;
+    private final Date time;
+    // null if it must be resolved when writing the record
+    private final String path;
+
+    private TimedRecord(Record record, Date time, String path) {
+      this.record = record;
+      this.time = time;
+      this.path = path;
+    }
+  }
+
+  /**
+   * Returns the record with its time and file path, or null if the record was sent to error.
+   */
+  private TimedRecord resolve(Record record) throws StageException {
     try {
       Date recordTime = getRecordTime(record);
 
@@ -187,13 +237,33 @@ public class HdfsTarget extends BaseTarget {
       if(hdfsTargetConfigBean.dirPathTemplateInHeader
           && !record.getHeader().getAttributeNames().contains(TARGET_DIRECTORY_HEADER)) {
         getContext().toError(record, Errors.HADOOPFS_50);
-        return;
+        return null;
+      }
+
+      // the path of whole files is resolved along with the file transfer information, right before writing them
+      String path = null;
+      if (hdfsTargetConfigBean.dataFormat != DataFormat.WHOLE_FILE) {
+        path = hdfsTargetConfigBean.getCurrentWriters().getPath(recordTime, record);
       }
+      return new TimedRecord(record, recordTime, path);
+    } catch (IOException ex) {
+      throw new StageException(Errors.HADOOPFS_14, ex.toString(), ex);
+    } catch (StageException ex) {
+      throw new OnRecordErrorException(ex.getErrorCode(), ex.getParams()); // params includes exception
+    }
+  }
+
+  private void write(TimedRecord timedRecord) throws StageException {
+    Record record = timedRecord.record;
+    try {
+      Date recordTime = timedRecord.time;
 
       boolean write = true;
       while (write) {
         write = false;
-        RecordWriter writer = hdfsTargetConfigBean.getCurrentWriters().get(getBatchTime(), recordTime, record);
+        RecordWriter writer = (timedRecord.path == null) ?
+            hdfsTargetConfigBean.getCurrentWriters().get(getBatchTime(), recordTime, record) :
+            hdfsTargetConfigBean.getCurrentWriters().get(getBatchTime(), recordTime, record, timedRecord.path);
         if (writer != null) {
           try {
             writer.write(record);
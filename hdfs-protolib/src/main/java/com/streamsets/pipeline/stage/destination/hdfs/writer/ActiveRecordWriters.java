@@ -27,8 +27,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.TimeUnit;
@@ -72,12 +72,13 @@ public class ActiveRecordWriters {
 
   private final RecordWriterManager manager;
 
+  // looked up for every record without locking, the writers are still added and removed under the lock of this object
   @VisibleForTesting
   Map<String, RecordWriter> writers;
   private DelayQueue<DelayedRecordWriter> cutOffQueue;
 
   public ActiveRecordWriters(RecordWriterManager manager) {
-    writers = new HashMap<>();
+    writers = new ConcurrentHashMap<>();
     cutOffQueue = new DelayQueue<>();
     this.manager = manager;
   }
@@ -106,14 +107,23 @@ public class ActiveRecordWriters {
     }
   }
 
+  /**
+   * Returns the path of the file the given record goes to, as used by {@link #get(Date, Date, Record, String)}.
+   */
+  public String getPath(Date recordDate, Record record) throws StageException, IOException {
+    return manager.getPath(recordDate, record).toString();
+  }
+
   public RecordWriter get(Date now, Date recordDate, Record record) throws StageException, IOException {
-    String path = manager.getPath(recordDate, record).toString();
-    RecordWriter writer = null;
+    return get(now, recordDate, record, getPath(recordDate, record));
+  }
 
-    //We are fine no lock on writer needed.
-    synchronized (this) {
-      writer = writers.get(path);
-    }
+  /**
+   * Returns the writer of the given record whose file path was already resolved with
+   * {@link #getPath(Date, Record)}.
+   */
+  public RecordWriter get(Date now, Date recordDate, Record record, String path) throws StageException, IOException {
+    RecordWriter writer = writers.get(path);
 
     if(writer != null && manager.shouldRoll(writer, record)) {
       release(writer, true);
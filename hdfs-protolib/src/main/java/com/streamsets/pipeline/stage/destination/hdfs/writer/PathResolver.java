@@ -15,7 +15,11 @@
  */
 package com.streamsets.pipeline.stage.destination.hdfs.writer;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.streamsets.pipeline.api.ElFunction;
 import com.streamsets.pipeline.api.ElParam;
 import com.streamsets.pipeline.api.Record;
@@ -29,11 +33,15 @@ import com.streamsets.pipeline.lib.el.RecordEL;
 import com.streamsets.pipeline.lib.el.TimeEL;
 import com.streamsets.pipeline.lib.hdfs.common.Errors;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class PathResolver {
   private static final String VALIDATE_CONTEXT = "validateContext";
@@ -69,6 +77,14 @@ public class PathResolver {
     .put("ss", Calendar.SECOND)
     .build();
 
+  // functions whose value only depends on the record time
+  private static final Set<String> TIME_FUNCTIONS = ImmutableSet.of("YYYY", "YY", "MM", "DD", "hh", "mm", "ss", "every");
+  // namespaces of functions whose value does not change while the pipeline runs for the same arguments
+  private static final Set<String> CONSTANT_NAMESPACES = ImmutableSet.of("str", "math", "sdc", "pipeline", "runtime");
+  private static final Pattern FUNCTION = Pattern.compile("(?:([a-zA-Z_]\\w*):)?([a-zA-Z_]\\w*)\\s*\\(");
+  private static final Pattern RECORD_ATTRIBUTE = Pattern.compile("record:attribute\\(\\s*(['\"])([^'\"]*)\\1\\s*\\)");
+  private static final int RESOLVED_PATHS_CACHE_SIZE = 1000;
+
   private final Stage.Context context;
   private final String pathTemplate;
   private int incrementUnit;
@@ -78,6 +94,11 @@ public class PathResolver {
   private final ELEval freqEdgeElEval;
   private final ELEval pathEval;
   private boolean validated;
+  // record header attributes the path depends on besides the time, null if resolved paths can't be reused
+  private final List<String> pathAttributes;
+  private final Cache<List<Object>, String> resolvedPaths;
+  private volatile TimeBucket lastTimeBucket;
+  private volatile boolean timeless;
 
   public PathResolver(Stage.Context context, String config, String pathTemplate, TimeZone timeZone) {
     this.context = context;
@@ -86,6 +107,53 @@ public class PathResolver {
     elVars = context.createELVars();
     freqEdgeElEval = context.createELEval(config, FrequencyEdgeEL.class);
     pathEval = context.createELEval(config);
+    pathAttributes = getPathAttributes(pathTemplate);
+    resolvedPaths = CacheBuilder.newBuilder().maximumSize(RESOLVED_PATHS_CACHE_SIZE).build();
+  }
+
+  /**
+   * Returns the names of the record header attributes used by the template if the path it resolves to only depends
+   * on them and on the record time, or null if the template uses any other record data or non constant function.
+   */
+  static List<String> getPathAttributes(String pathTemplate) {
+    List<String> attributes = new ArrayList<>();
+    Matcher attribute = RECORD_ATTRIBUTE.matcher(pathTemplate);
+    while (attribute.find()) {
+      if (!attributes.contains(attribute.group(2))) {
+        attributes.add(attribute.group(2));
+      }
+    }
+    // the whole template is scanned, text looking like a function call outside of expressions just disables reuse
+    Matcher function = FUNCTION.matcher(attribute.replaceAll("''"));
+    while (function.find()) {
+      String namespace = function.group(1);
+      boolean constant = (namespace == null) ?
+          TIME_FUNCTIONS.contains(function.group(2)) :
+          CONSTANT_NAMESPACES.contains(namespace);
+      if (!constant) {
+        return null;
+      }
+    }
+    return ImmutableList.copyOf(attributes);
+  }
+
+  /**
+   * Range of record times resolving to the same floor date.
+   */
+  private static class TimeBucket {
+    private final long floor;
+    private final long ceiling;
+    private final Date floorDate;
+
+    private TimeBucket(Date floorDate, Date ceilingDate) {
+      this.floor = floorDate.getTime();
+      this.ceiling = ceilingDate.getTime();
+      this.floorDate = floorDate;
+    }
+
+    private boolean contains(Date date) {
+      return date.getTime() >= floor && date.getTime() <= ceiling;
+    }
   }
 
   public static class ValidateEL {
@@ -384,11 +452,50 @@ public class PathResolver {
     return date;
   }
 
+  /**
+   * Returns the floor date of the given record time, reusing the floor date of the previous record time if both fall in
+   * the same time bucket.
+   */
+  private Date getBucketFloorDate(Date date) {
+    TimeBucket bucket = lastTimeBucket;
+    if (timeless) {
+      return null;
+    } else if (bucket != null && bucket.contains(date)) {
+      return bucket.floorDate;
+    }
+    Date floorDate = getFloorDate(date);
+    if (floorDate != null) {
+      lastTimeBucket = new TimeBucket(floorDate, getCeilingDate(date));
+    } else {
+      // the template doesn't use the time
+      timeless = true;
+    }
+    return floorDate;
+  }
+
   String resolvePath(Date date, Record record) throws StageException {
+    date = getBucketFloorDate(date);
+    if (pathAttributes == null || record == null) {
+      return evaluatePath(date, record);
+    }
+    // records of the same time bucket with the same attributes resolve to the same path
+    List<Object> key = new ArrayList<>(pathAttributes.size() + 1);
+    key.add(date);
+    for (String attribute : pathAttributes) {
+      key.add(record.getHeader().getAttribute(attribute));
+    }
+    String path = resolvedPaths.getIfPresent(key);
+    if (path == null) {
+      path = evaluatePath(date, record);
+      resolvedPaths.put(key, path);
+    }
+    return path;
+  }
+
+  private String evaluatePath(Date date, Record record) throws StageException {
     try {
       ELVars vars = context.createELVars();
       RecordEL.setRecordInContext(vars, record);
-      date = getFloorDate(date);
       if (date != null) {
         Calendar calendar = Calendar.getInstance(timeZone);
         calendar.setTime(date);
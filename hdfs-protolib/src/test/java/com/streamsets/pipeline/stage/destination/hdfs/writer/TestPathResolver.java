@@ -15,7 +15,10 @@
  */
 package com.streamsets.pipeline.stage.destination.hdfs.writer;
 
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.OnRecordError;
+import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.sdk.ContextInfoCreator;
 import com.streamsets.pipeline.sdk.RecordCreator;
@@ -280,4 +283,74 @@ public class TestPathResolver {
     Assert.assertEquals(expected, got);
 
   }
+
+  private static Record createRecord(String topic) {
+    Record record = RecordCreator.create();
+    record.getHeader().setAttribute("topic", topic);
+    return record;
+  }
+
+  @Test
+  public void testPathAttributes() throws Exception {
+    Assert.assertEquals(ImmutableList.of(), PathResolver.getPathAttributes("/foo"));
+    Assert.assertEquals(ImmutableList.of(), PathResolver.getPathAttributes("/${YYYY()}/${MM()}/${every(15, mm())}"));
+    Assert.assertEquals(ImmutableList.of(), PathResolver.getPathAttributes("/${sdc:hostname()}/${YYYY()}"));
+    Assert.assertEquals(
+        ImmutableList.of("topic", "partition"),
+        PathResolver.getPathAttributes(
+            "/${record:attribute('topic')}/${YYYY()}/${record:attribute(\"partition\")}/${record:attribute('topic')}"
+        )
+    );
+    Assert.assertEquals(
+        ImmutableList.of("topic"),
+        PathResolver.getPathAttributes("/${str:toUpper(record:attribute('topic'))}")
+    );
+
+    // depending on anything else than the record time and attributes
+    Assert.assertNull(PathResolver.getPathAttributes("/${record:value('/a')}"));
+    Assert.assertNull(PathResolver.getPathAttributes("/${record:attribute(record:value('/a'))}"));
+    Assert.assertNull(PathResolver.getPathAttributes("/${uuid:uuid()}"));
+    Assert.assertNull(PathResolver.getPathAttributes("/${time:extractStringFromDate(time:now(), 'yyyy')}"));
+  }
+
+  @Test
+  public void testResolvePathReused() throws Exception {
+    PathResolver resolver = getPathTemplateEL(
+        "/${YYYY()}/${MM()}/${DD()}/${hh()}/${every(15, mm())}/${record:attribute('topic')}"
+    );
+    Assert.assertEquals(
+        "/2015/01/20/14/00/a",
+        resolver.resolvePath(parseDate("2015-01-20T14:01:15Z"), createRecord("a"))
+    );
+    Assert.assertEquals(
+        "/2015/01/20/14/00/b",
+        resolver.resolvePath(parseDate("2015-01-20T14:14:59Z"), createRecord("b"))
+    );
+    Assert.assertEquals(
+        "/2015/01/20/14/15/a",
+        resolver.resolvePath(parseDate("2015-01-20T14:15:00Z"), createRecord("a"))
+    );
+    Assert.assertEquals(
+        "/2015/01/20/14/00/a",
+        resolver.resolvePath(parseDate("2015-01-20T14:00:00Z"), createRecord("a"))
+    );
+    Assert.assertEquals(
+        "/2015/01/21/14/00/a",
+        resolver.resolvePath(parseDate("2015-01-21T14:00:00Z"), createRecord("a"))
+    );
+
+    // not reused
+    resolver = getPathTemplateEL("/${YYYY()}/${record:value('/')}");
+    Record record = RecordCreator.create();
+    record.set(Field.create("a"));
+    Assert.assertEquals("/2015/a", resolver.resolvePath(parseDate("2015-01-20T14:01:15Z"), record));
+    record.set(Field.create("b"));
+    Assert.assertEquals("/2015/b", resolver.resolvePath(parseDate("2015-01-20T14:01:15Z"), record));
+    Assert.assertEquals("/2016/b", resolver.resolvePath(parseDate("2016-01-20T14:01:15Z"), record));
+
+    resolver = getPathTemplateEL("/foo/${record:attribute('topic')}");
+    Assert.assertEquals("/foo/a", resolver.resolvePath(parseDate("2015-01-20T14:01:15Z"), createRecord("a")));
+    Assert.assertEquals("/foo/a", resolver.resolvePath(parseDate("2016-01-20T14:01:15Z"), createRecord("a")));
+    Assert.assertEquals("/foo/b", resolver.resolvePath(parseDate("2016-01-20T14:01:15Z"), createRecord("b")));
+  }
 }
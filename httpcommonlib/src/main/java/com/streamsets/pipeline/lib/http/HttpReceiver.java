@@ -22,7 +22,9 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public interface HttpReceiver {
 
@@ -40,4 +42,11 @@ public interface HttpReceiver {
 
   boolean process(HttpServletRequest req, InputStream is, HttpServletResponse resp) throws IOException;
 
+  /**
+   * Headers added to the responses of ping (GET) requests, to let clients know what the receiver supports.
+   */
+  default Map<String, String> getPingHeaders() {
+    return Collections.emptyMap();
+  }
+
 }
@@ -125,6 +125,7 @@ public class HttpReceiverServlet extends HttpServlet {
     if (validateAppId(req, res)) {
       LOG.debug("Validation from '{}', OK", req.getRemoteAddr());
       res.setHeader(HttpConstants.X_SDC_PING_HEADER, HttpConstants.X_SDC_PING_VALUE);
+      receiver.getPingHeaders().forEach(res::setHeader);
       res.setStatus(HttpServletResponse.SC_OK);
       if (res.getHeaderNames().contains(NIFI_TRANSACTION_HEADER)) {
         res.setHeader("Accept", NIFI_RESPONSE);
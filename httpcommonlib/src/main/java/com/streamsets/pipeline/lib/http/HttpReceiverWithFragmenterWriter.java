@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class HttpReceiverWithFragmenterWriter implements HttpReceiver {
   private static final Logger LOG = LoggerFactory.getLogger(HttpReceiverWithFragmenterWriter.class);
@@ -87,6 +88,11 @@ public class HttpReceiverWithFragmenterWriter implements HttpReceiver {
     return getFragmenter().validate(req, res);
   }
 
+  @Override
+  public Map<String, String> getPingHeaders() {
+    return getFragmenter().getPingHeaders();
+  }
+
   @Override
   public boolean process(HttpServletRequest req, InputStream is, HttpServletResponse resp) throws IOException {
     String requestor = req.getRemoteAddr() + ":" + req.getRemotePort();
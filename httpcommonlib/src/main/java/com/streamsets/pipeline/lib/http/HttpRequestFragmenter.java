@@ -21,7 +21,9 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public interface HttpRequestFragmenter {
 
@@ -33,4 +35,11 @@ public interface HttpRequestFragmenter {
 
   List<byte[]> fragment(InputStream is, int fragmentSizeKB, int maxSizeKB) throws IOException;
 
+  /**
+   * Headers added to the responses of ping (GET) requests, to let clients know what the fragmenter supports.
+   */
+  default Map<String, String> getPingHeaders() {
+    return Collections.emptyMap();
+  }
+
 }
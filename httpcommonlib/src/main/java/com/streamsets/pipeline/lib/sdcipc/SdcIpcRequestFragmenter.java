@@ -15,9 +15,11 @@
  */
 package com.streamsets.pipeline.lib.sdcipc;
 
+import com.google.common.collect.ImmutableMap;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.http.HttpRequestFragmenter;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 
 import javax.servlet.http.HttpServletRequest;
@@ -27,6 +29,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class SdcIpcRequestFragmenter implements HttpRequestFragmenter {
 
@@ -44,6 +47,10 @@ public class SdcIpcRequestFragmenter implements HttpRequestFragmenter {
   static final byte BASE_MAGIC_NUMBER = (byte) 0xa0;
   //10100001
   static final byte JSON1_MAGIC_NUMBER = BASE_MAGIC_NUMBER | (byte) 0x01;
+  //10100011
+  static final byte DICT1_MAGIC_NUMBER = BASE_MAGIC_NUMBER | (byte) 0x03;
+  // length prefix of the DICT1 frames
+  static final int DICT1_FRAME_HEADER_SIZE = 4;
 
   static boolean copy(InputStream input, OutputStream output, int limit) throws IOException {
     byte[] buffer = new byte[8024];
@@ -111,6 +118,14 @@ public class SdcIpcRequestFragmenter implements HttpRequestFragmenter {
   // copy of com.streamsets.pipeline.stage.destination.sdcipc.Constants
   static final String APPLICATION_BINARY = "application/binary";
   static final String X_SDC_JSON1_FRAGMENTABLE_HEADER = "X-SDC-JSON1-FRAGMENTABLE";
+  static final String X_SDC_RECORD_ENCODINGS_HEADER = "X-SDC-RECORD-ENCODINGS";
+  // KRYO1 can not be fragmented
+  static final String RECORD_ENCODINGS = "JSON1,DICT1";
+
+  @Override
+  public Map<String, String> getPingHeaders() {
+    return ImmutableMap.of(X_SDC_RECORD_ENCODINGS_HEADER, RECORD_ENCODINGS);
+  }
 
   @Override
   public boolean validate(HttpServletRequest req, HttpServletResponse res) throws IOException {
@@ -143,6 +158,8 @@ public class SdcIpcRequestFragmenter implements HttpRequestFragmenter {
     int magicByte = is.read();
     if (magicByte == -1) {
       throw new IOException("Request has no data");
+    } else if (((byte) magicByte) == DICT1_MAGIC_NUMBER) {
+      list = fragmentFrames(is, fragmentSizeB, maxSizeB);
     } else if ((((byte)magicByte) & JSON1_MAGIC_NUMBER) != JSON1_MAGIC_NUMBER) {
       throw new IOException(Utils.format("Data is not JSON1, unsupported magic byte '{}'", magicByte));
     } else {
@@ -160,4 +177,46 @@ public class SdcIpcRequestFragmenter implements HttpRequestFragmenter {
     return list;
   }
 
+  /**
+   * Splits a DICT1 payload at frame boundaries, frames are self contained so they are copied as they are, without
+   * decoding their records.
+   */
+  static List<byte[]> fragmentFrames(InputStream is, int fragmentSizeB, int maxSizeB) throws IOException {
+    List<byte[]> list = new ArrayList<>();
+    int size = 0;
+    ByteArrayOutputStream fragment = new ByteArrayOutputStream(fragmentSizeB);
+    byte[] header = new byte[DICT1_FRAME_HEADER_SIZE];
+    int first = is.read();
+    while (first != -1) {
+      header[0] = (byte) first;
+      IOUtils.readFully(is, header, 1, DICT1_FRAME_HEADER_SIZE - 1);
+      int length = ((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16) | ((header[2] & 0xFF) << 8) |
+          (header[3] & 0xFF);
+      // the magic byte goes before the frame
+      if (length <= 0 || length > fragmentSizeB - 1 - DICT1_FRAME_HEADER_SIZE) {
+        throw new IOException(Utils.format("Maximum message size '{}' exceeded", fragmentSizeB));
+      }
+      if (fragment.size() + DICT1_FRAME_HEADER_SIZE + length > fragmentSizeB) {
+        size += fragment.size();
+        list.add(fragment.toByteArray());
+        fragment.reset();
+      }
+      if (fragment.size() == 0) {
+        fragment.write(DICT1_MAGIC_NUMBER);
+      }
+      fragment.write(header);
+      if (copy(is, fragment, length)) {
+        throw new IOException("Request data is truncated");
+      }
+      if (size + fragment.size() > maxSizeB) {
+        throw new IOException(Utils.format("Maximum data size '{}' exceeded", maxSizeB));
+      }
+      first = is.read();
+    }
+    if (fragment.size() > 0) {
+      list.add(fragment.toByteArray());
+    }
+    return list;
+  }
+
 }
@@ -269,4 +269,53 @@ public class TestSdcIpcRequestFragmenter {
     Assert.assertEquals(records, got);
   }
 
+  @Test
+  public void testPingHeaders() {
+    Assert.assertEquals(
+        "JSON1,DICT1",
+        new SdcIpcRequestFragmenter().getPingHeaders().get(SdcIpcRequestFragmenter.X_SDC_RECORD_ENCODINGS_HEADER)
+    );
+  }
+
+  @Test
+  public void testFragmentDict1Frames() throws IOException {
+    InputStream is = new ByteArrayInputStream(new byte[]{
+        SdcIpcRequestFragmenter.DICT1_MAGIC_NUMBER, 0, 0, 0, 2, 1, 2, 0, 0, 0, 3, 1, 2, 3, 0, 0, 0, 1, 1
+    });
+    List<byte[]> fragments = new SdcIpcRequestFragmenter().fragmentInternal(is, 13, 100);
+    Assert.assertEquals(2, fragments.size());
+    Assert.assertArrayEquals(
+        new byte[]{SdcIpcRequestFragmenter.DICT1_MAGIC_NUMBER, 0, 0, 0, 2, 1, 2},
+        fragments.get(0)
+    );
+    Assert.assertArrayEquals(
+        new byte[]{SdcIpcRequestFragmenter.DICT1_MAGIC_NUMBER, 0, 0, 0, 3, 1, 2, 3, 0, 0, 0, 1, 1},
+        fragments.get(1)
+    );
+  }
+
+  @Test(expected = IOException.class)
+  public void testFragmentDict1FrameExceededLimit() throws IOException {
+    InputStream is = new ByteArrayInputStream(new byte[]{
+        SdcIpcRequestFragmenter.DICT1_MAGIC_NUMBER, 0, 0, 0, 8, 1, 2, 3, 4, 5, 6, 7, 8
+    });
+    new SdcIpcRequestFragmenter().fragmentInternal(is, 12, 100);
+  }
+
+  @Test(expected = IOException.class)
+  public void testFragmentDict1Truncated() throws IOException {
+    InputStream is = new ByteArrayInputStream(new byte[]{
+        SdcIpcRequestFragmenter.DICT1_MAGIC_NUMBER, 0, 0, 0, 3, 1, 2
+    });
+    new SdcIpcRequestFragmenter().fragmentInternal(is, 12, 100);
+  }
+
+  @Test(expected = IOException.class)
+  public void testFragmentDict1DataSizeExceeded() throws IOException {
+    InputStream is = new ByteArrayInputStream(new byte[]{
+        SdcIpcRequestFragmenter.DICT1_MAGIC_NUMBER, 0, 0, 0, 2, 1, 2, 0, 0, 0, 2, 1, 2, 0, 0, 0, 2, 1, 2
+    });
+    new SdcIpcRequestFragmenter().fragmentInternal(is, 12, 10);
+  }
+
 }
@@ -103,10 +103,44 @@ public class SQLParserUtils {
     return colVals;
   }
 
+  /**
+   * Parses the given statement with a hand-written parser, faster than {@link #process} but only understanding the
+   * statements generated by LogMiner, returns null if the statement must be parsed by {@link #process} instead.
+   * When the statement is parsed, the columns are the same {@link #process} would return.
+   */
+  public static Map<String, String> processFast(
+      String sql,
+      int type, // One of OracleCDCOperationCode constants.
+      boolean allowNulls,
+      boolean caseSensitive,
+      Set<String> columnsExpected
+  ) {
+    SQLRedoParser parser = new SQLRedoParser(caseSensitive);
+    Map<String, String> colVals;
+    switch (type) {
+      case OracleCDCOperationCode.INSERT_CODE:
+        colVals = parser.parseInsert(sql);
+        break;
+      case OracleCDCOperationCode.UPDATE_CODE:
+      case OracleCDCOperationCode.SELECT_FOR_UPDATE_CODE:
+        colVals = parser.parseUpdate(sql);
+        break;
+      case OracleCDCOperationCode.DELETE_CODE:
+        colVals = parser.parseDelete(sql);
+        break;
+      default:
+        return null;
+    }
+    if (colVals != null && allowNulls && columnsExpected != null) {
+      columnsExpected.forEach(col -> colVals.putIfAbsent(col,  null));
+    }
+    return colVals;
+  }
+
   /**
    * Format column names based on whether they are case-sensitive
    */
-  private static String formatName(String columnName, boolean caseSensitive) {
+  static String formatName(String columnName, boolean caseSensitive) {
     String returnValue = format(columnName);
     if (caseSensitive) {
       return returnValue;
@@ -117,13 +151,16 @@ public class SQLParserUtils {
   /**
    * Unescapes strings and returns them.
    */
-  private static String formatValue(String value) {
+  static String formatValue(String value) {
     // The value can either be null (if the IS keyword is present before it or just a NULL string with no quotes)
     if (value == null || NULL_STRING.equalsIgnoreCase(value)) {
       return null;
     }
     String returnValue = format(value);
-    return returnValue.replaceAll("''", "'");
+    if (returnValue.indexOf("''") < 0) {
+      return returnValue;
+    }
+    return returnValue.replace("''", "'");
   }
 
   @VisibleForTesting
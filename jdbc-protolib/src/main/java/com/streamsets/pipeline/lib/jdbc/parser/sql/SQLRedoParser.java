@@ -0,0 +1,365 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.jdbc.parser.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single pass parser of the insert, update and delete statements generated by LogMiner in SQL_REDO.
+ *
+ * It only understands the shapes LogMiner actually generates: quoted identifiers, ROWID, quoted strings, NULL and
+ * function calls (TO_DATE, TO_TIMESTAMP, HEXTORAW...) whose arguments are also of those kinds. It follows the rules
+ * of {@link SQLParser}, so that a statement it parses gives the same columns as {@link SQLParserUtils#process}, and
+ * gives up on anything else, returning null, in which case the statement must be parsed by {@link SQLParser}.
+ *
+ * Instances are not thread safe.
+ */
+class SQLRedoParser {
+  private static final char[] WHITESPACE = {' ', '\n', '\t', '\r', '\f'};
+
+  private final boolean caseSensitive;
+  private String sql;
+  private int pos;
+  private Map<String, String> colVals;
+
+  SQLRedoParser(boolean caseSensitive) {
+    this.caseSensitive = caseSensitive;
+  }
+
+  /**
+   * Returns the column values of the given insert statement, or null if it can not be parsed here.
+   */
+  Map<String, String> parseInsert(String sql) {
+    reset(sql);
+    if (!keyword("INSERT") || !keyword("INTO") || !table()) {
+      return null;
+    }
+    skipWhiteSpace();
+    if (!ch('(')) {
+      return null;
+    }
+    skipWhiteSpace();
+
+    // names and values are paired by position, only the first occurrence of a name is kept
+    String[] names = new String[16];
+    int count = 0;
+    do {
+      int start = pos;
+      if (!columnName()) {
+        return null;
+      }
+      if (count == names.length) {
+        String[] grown = new String[count * 2];
+        System.arraycopy(names, 0, grown, 0, count);
+        names = grown;
+      }
+      names[count++] = sql.substring(start, pos);
+    } while (delimiter(","));
+
+    skipWhiteSpace();
+    if (!ch(')') || !keyword("VALUES")) {
+      return null;
+    }
+    skipWhiteSpace();
+    if (!ch('(')) {
+      return null;
+    }
+    skipWhiteSpace();
+
+    int index = 0;
+    do {
+      int start = pos;
+      if (!columnValue() || index == count) {
+        return null;
+      }
+      put(names[index++], sql.substring(start, pos));
+    } while (delimiter(","));
+
+    if (index != count || !ch(')')) {
+      return null;
+    }
+    return colVals;
+  }
+
+  /**
+   * Returns the column values of the given update statement, or null if it can not be parsed here.
+   */
+  Map<String, String> parseUpdate(String sql) {
+    reset(sql);
+    if (!keyword("UPDATE") || !table()) {
+      return null;
+    }
+    tableAlias();
+    skipWhiteSpace();
+    if (!startsWith("SET")) {
+      return null;
+    }
+    pos += 3;
+    if (!columnNameValue()) {
+      return null;
+    }
+    while (delimiter(",")) {
+      if (!columnNameValue()) {
+        return null;
+      }
+    }
+    skipWhiteSpace();
+    return whereClause() ? colVals : null;
+  }
+
+  /**
+   * Returns the column values of the given delete statement, or null if it can not be parsed here.
+   */
+  Map<String, String> parseDelete(String sql) {
+    reset(sql);
+    if (!keyword("DELETE") || !keyword("FROM") || !table()) {
+      return null;
+    }
+    tableAlias();
+    skipWhiteSpace();
+    return whereClause() ? colVals : null;
+  }
+
+  private void reset(String sql) {
+    this.sql = sql;
+    this.pos = 0;
+    this.colVals = new HashMap<>();
+  }
+
+  private void put(String name, String value) {
+    String key = SQLParserUtils.formatName(name, caseSensitive);
+    if (!colVals.containsKey(key)) {
+      colVals.put(key, SQLParserUtils.formatValue(value));
+    }
+  }
+
+  private boolean whereClause() {
+    if (!startsWith("WHERE")) {
+      // the where clause is optional, whatever follows is ignored
+      return true;
+    }
+    pos += 5;
+    if (!columnNameValue()) {
+      return false;
+    }
+    while (delimiter("AND")) {
+      if (!columnNameValue()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Skips the white space and the given delimiter if it is next, returns false leaving the position unchanged if not.
+   */
+  private boolean delimiter(String delimiter) {
+    int start = pos;
+    skipWhiteSpace();
+    if (startsWith(delimiter)) {
+      pos += delimiter.length();
+      skipWhiteSpace();
+      return true;
+    }
+    pos = start;
+    return false;
+  }
+
+  private boolean columnNameValue() {
+    skipWhiteSpace();
+    int start = pos;
+    int end = letters();
+    if (end > pos && end < sql.length() && sql.charAt(end) == '.') {
+      pos = end + 1;
+      start = pos;
+    }
+    if (!columnName()) {
+      return false;
+    }
+    String name = sql.substring(start, pos);
+    skipWhiteSpace();
+    if (ch('=')) {
+      skipWhiteSpace();
+    } else if (startsWith("IS")) {
+      pos += 2;
+      skipWhiteSpace();
+    } else {
+      return false;
+    }
+    start = pos;
+    if (!columnValue()) {
+      return false;
+    }
+    put(name, sql.substring(start, pos));
+    skipWhiteSpace();
+    return true;
+  }
+
+  private void tableAlias() {
+    while (true) {
+      int start = pos;
+      skipWhiteSpace();
+      if (startsWith("SET") || startsWith("WHERE") || (pos < sql.length() && sql.charAt(pos) == '(')) {
+        pos = start;
+        return;
+      }
+      int end = letters();
+      if (end == pos) {
+        pos = start;
+        return;
+      }
+      pos = end;
+      skipWhiteSpace();
+    }
+  }
+
+  private boolean table() {
+    skipWhiteSpace();
+    return identifier() && ch('.') && identifier();
+  }
+
+  private boolean columnName() {
+    if (startsWith("ROWID")) {
+      pos += 5;
+      return true;
+    }
+    return identifier();
+  }
+
+  private boolean identifier() {
+    if (!ch('"')) {
+      return false;
+    }
+    pos = escaped(pos, '"');
+    return ch('"');
+  }
+
+  /**
+   * Skips a function call, NULL or a quoted string, returns false for any other kind of value.
+   */
+  private boolean columnValue() {
+    int end = pos;
+    while (end < sql.length() && isFunctionNameChar(sql.charAt(end))) {
+      end++;
+    }
+    if (end > pos && end < sql.length() && sql.charAt(end) == '(') {
+      pos = end + 1;
+      if (ch(')')) {
+        return true;
+      }
+      do {
+        if (!columnValue()) {
+          return false;
+        }
+      } while (delimiter(","));
+      return ch(')');
+    }
+    if (end - pos == 4 && startsWith("NULL")) {
+      pos = end;
+      return true;
+    }
+    if (ch('\'')) {
+      pos = escaped(pos, '\'');
+      return ch('\'');
+    }
+    return false;
+  }
+
+  /**
+   * Returns the end of the content of a quoted string or identifier starting at the given position, in which the
+   * quote can only appear escaped by a single quote.
+   */
+  private int escaped(int start, char quote) {
+    int i = start;
+    while (i < sql.length()) {
+      char c = sql.charAt(i);
+      if (c == '\'' && i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+        i += 2;
+      } else if (c != quote) {
+        i++;
+      } else {
+        break;
+      }
+    }
+    return i;
+  }
+
+  private int letters() {
+    int end = pos;
+    while (end < sql.length() && isLetter(sql.charAt(end))) {
+      end++;
+    }
+    return end;
+  }
+
+  private boolean keyword(String keyword) {
+    skipWhiteSpace();
+    if (startsWith(keyword)) {
+      pos += keyword.length();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Case insensitive match of the given keyword at the current position, as done by the IgnoreCase rules.
+   */
+  private boolean startsWith(String s) {
+    if (pos + s.length() > sql.length()) {
+      return false;
+    }
+    for (int i = 0; i < s.length(); i++) {
+      char c = sql.charAt(pos + i);
+      char k = s.charAt(i);
+      if (c != Character.toLowerCase(k) && c != Character.toUpperCase(k)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean ch(char c) {
+    if (pos < sql.length() && sql.charAt(pos) == c) {
+      pos++;
+      return true;
+    }
+    return false;
+  }
+
+  private void skipWhiteSpace() {
+    while (pos < sql.length() && isWhiteSpace(sql.charAt(pos))) {
+      pos++;
+    }
+  }
+
+  private static boolean isWhiteSpace(char c) {
+    for (char w : WHITESPACE) {
+      if (c == w) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isLetter(char c) {
+    return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+  }
+
+  private static boolean isFunctionNameChar(char c) {
+    return isLetter(c) || (c >= '0' && c <= '9') || c == '_';
+  }
+}
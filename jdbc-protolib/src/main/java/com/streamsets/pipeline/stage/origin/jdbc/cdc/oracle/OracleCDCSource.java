@@ -15,6 +15,7 @@
  */
 package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
 
+import com.codahale.metrics.Counter;
 import com.codahale.metrics.Gauge;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
@@ -80,6 +81,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -202,6 +204,7 @@ public class OracleCDCSource extends BaseSource {
 
   private boolean sentInitialSchemaEvent = false;
   private File txnBufferLocation;
+  private SpillLog spillLog;
 
   private PreparedStatement selectFromLogMnrContents;
   private static final int MISSING_LOG_FILE = 1291;
@@ -210,8 +213,9 @@ public class OracleCDCSource extends BaseSource {
   private final Lock bufferedRecordsLock = new ReentrantLock();
   private final BlockingQueue<StageException> stageExceptions = new LinkedBlockingQueue<>(1);
 
+  // Transactions in the order they were first seen, the first one is the oldest open transaction
   @GuardedBy(value = "bufferedRecordsLock")
-  private final Map<TransactionIdKey, HashQueue<RecordSequence>> bufferedRecords = new HashMap<>();
+  private final Map<TransactionIdKey, HashQueue<RecordSequence>> bufferedRecords = new LinkedHashMap<>();
   private final Map<TransactionIdKey, List<String>> rollbacks = new HashMap<>();
 
   private final AtomicReference<BigDecimal> cachedSCNForRedoLogs = new AtomicReference<>(BigDecimal.ZERO);
@@ -229,6 +233,9 @@ public class OracleCDCSource extends BaseSource {
   private boolean useLocalBuffering;
 
   private Gauge<Map<String, Object>> delay;
+  private Gauge<Map<String, Object>> transactionBuffer;
+  private Counter fastParsedStatements;
+  private Counter fallbackParsedStatements;
   private CallableStatement startLogMnrSCNToDate;
 
   private enum DDL_EVENT {
@@ -366,6 +373,7 @@ public class OracleCDCSource extends BaseSource {
     }
     sendErrors();
     pollForStageExceptions();
+    updateTransactionBufferGauge();
     return nextOffset;
   }
 
@@ -644,7 +652,7 @@ public class OracleCDCSource extends BaseSource {
                   HashQueue<RecordSequence> records =
                       bufferedRecords.computeIfAbsent(key, x -> {
                         x.setTxnStartTime(tsDate);
-                        return createTransactionBuffer(key.txnId);
+                        return createTransactionBuffer();
                       });
 
                   int nextSeq = records.isEmpty() ? 1 : records.tail().seq + 1;
@@ -662,7 +670,10 @@ public class OracleCDCSource extends BaseSource {
               if (op == ROLLBACK_CODE || scnDecimal.compareTo(lastCommitSCN) < 0) {
                 bufferedRecordsLock.lock();
                 try {
-                  bufferedRecords.remove(key);
+                  HashQueue<RecordSequence> records = bufferedRecords.remove(key);
+                  if (records != null) {
+                    records.close();
+                  }
                 } finally {
                   bufferedRecordsLock.unlock();
                 }
@@ -823,14 +834,27 @@ public class OracleCDCSource extends BaseSource {
         if (configBean.allowNulls && table.isNotEmpty()) {
           columnsExpected = tableSchemas.get(table).keySet();
         }
-        columns = SQLParserUtils.process(
-            sqlParser.get(),
+        // LogMiner statements are parsed by the hand-written parser, falling back to the grammar for the others
+        columns = SQLParserUtils.processFast(
             sql,
             operationCode,
             configBean.allowNulls,
             configBean.baseConfigBean.caseSensitive,
             columnsExpected
         );
+        if (columns != null) {
+          fastParsedStatements.inc();
+        } else {
+          fallbackParsedStatements.inc();
+          columns = SQLParserUtils.process(
+              sqlParser.get(),
+              sql,
+              operationCode,
+              configBean.allowNulls,
+              configBean.baseConfigBean.caseSensitive,
+              columnsExpected
+          );
+        }
       } else {
         // Walk it and attach our sqlListener
         sqlListener.get().reset();
@@ -1412,6 +1436,7 @@ public class OracleCDCSource extends BaseSource {
       } catch (IOException ex) {
         Throwables.propagate(ex);
       }
+      spillLog = new SpillLog(txnBufferLocation);
     }
 
     if (configBean.bufferLocally) {
@@ -1433,6 +1458,11 @@ public class OracleCDCSource extends BaseSource {
     }
     version = useLocalBuffering ? VERSION_UNCOMMITTED : VERSION_STR;
     delay = getContext().createGauge("Read Lag (seconds)");
+    if (useLocalBuffering) {
+      transactionBuffer = getContext().createGauge("Transaction Buffer");
+    }
+    fastParsedStatements = getContext().createCounter("fastParsedStatements");
+    fallbackParsedStatements = getContext().createCounter("fallbackParsedStatements");
     return issues;
   }
 
@@ -1716,6 +1746,9 @@ public class OracleCDCSource extends BaseSource {
     bufferedRecordsLock.lock();
     try {
       this.bufferedRecords.forEach((x, y) -> y.close());
+      if (spillLog != null) {
+        spillLog.close();
+      }
     } finally {
       bufferedRecordsLock.unlock();
     }
@@ -1799,6 +1832,7 @@ public class OracleCDCSource extends BaseSource {
             }
           }
           txnDiscarded.incrementAndGet();
+          entry.getValue().close();
           iter.remove();
         }
       }
@@ -1832,13 +1866,31 @@ public class OracleCDCSource extends BaseSource {
     this.dataSource = dataSource;
   }
 
-  private HashQueue<RecordSequence> createTransactionBuffer(String txnId) {
+  private HashQueue<RecordSequence> createTransactionBuffer() {
+    return configBean.bufferLocation == BufferingValues.IN_MEMORY ? new InMemoryHashQueue<>() :
+        new SpillingHashQueue(spillLog);
+  }
+
+  /**
+   * Publishes the state of the buffered transactions, once per batch. The generator thread holds the lock while it
+   * queues the records of a committed transaction, which might wait for this batch to take them, so the gauge is left
+   * for the next batch rather than waiting for the lock.
+   */
+  private void updateTransactionBufferGauge() {
+    if (transactionBuffer == null || !bufferedRecordsLock.tryLock()) {
+      return;
+    }
+    Map<String, Object> values = transactionBuffer.getValue();
     try {
-      return configBean.bufferLocation == BufferingValues.IN_MEMORY ? new InMemoryHashQueue<>() :
-          new FileBackedHashQueue<>(new File(txnBufferLocation, txnId));
-    } catch (IOException ex) {
-      LOG.error("Error while creating transaction buffer", ex);
-      throw new RuntimeException(ex);
+      LocalDateTime oldest = bufferedRecords.isEmpty() ? null : bufferedRecords.keySet().iterator().next().txnStartTime;
+      values.put("Open Transactions", bufferedRecords.size());
+      values.put("Oldest Open Transaction Age (seconds)", oldest == null ? 0 : getDelay(oldest));
+      if (spillLog != null) {
+        values.put("Buffered Bytes", spillLog.getBufferedBytes());
+        values.put("Spilled Transactions", spillLog.getSpilledTransactions());
+      }
+    } finally {
+      bufferedRecordsLock.unlock();
     }
   }
 
@@ -15,11 +15,25 @@
  */
 package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
 import java.util.Map;
 
 class RecordSequence implements Serializable {
+  // types of SSN in the binary encoding
+  private static final byte NULL = 0;
+  private static final byte DECIMAL = 1;
+  private static final byte LONG = 2;
+  private static final byte INTEGER = 3;
+  private static final byte STRING = 4;
+
   final Map<String, String> headers;
   final String sqlString;
   final int seq;
@@ -39,6 +53,102 @@ class RecordSequence implements Serializable {
     this.timestamp = timestamp;
   }
 
+  /**
+   * Writes the compact binary encoding of this record sequence, read back by {@link #readFrom(DataInput)}.
+   */
+  void writeTo(DataOutput out) throws IOException {
+    out.writeInt(headers.size());
+    for (Map.Entry<String, String> header : headers.entrySet()) {
+      writeString(out, header.getKey());
+      writeString(out, header.getValue());
+    }
+    writeString(out, sqlString);
+    out.writeInt(seq);
+    out.writeInt(opCode);
+    writeString(out, rsId);
+    if (ssn == null) {
+      out.writeByte(NULL);
+    } else if (ssn instanceof BigDecimal) {
+      out.writeByte(DECIMAL);
+      writeString(out, ((BigDecimal) ssn).toString());
+    } else if (ssn instanceof Long) {
+      out.writeByte(LONG);
+      out.writeLong((Long) ssn);
+    } else if (ssn instanceof Integer) {
+      out.writeByte(INTEGER);
+      out.writeInt((Integer) ssn);
+    } else {
+      out.writeByte(STRING);
+      writeString(out, ssn.toString());
+    }
+    if (timestamp == null) {
+      out.writeBoolean(false);
+    } else {
+      out.writeBoolean(true);
+      out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+      out.writeInt(timestamp.getNano());
+    }
+  }
+
+  static RecordSequence readFrom(DataInput in) throws IOException {
+    int headerCount = in.readInt();
+    Map<String, String> headers = new HashMap<>(headerCount * 2);
+    for (int i = 0; i < headerCount; i++) {
+      headers.put(readString(in), readString(in));
+    }
+    String sql = readString(in);
+    int seq = in.readInt();
+    int opCode = in.readInt();
+    String rsId = readString(in);
+    Object ssn;
+    byte ssnType = in.readByte();
+    switch (ssnType) {
+      case NULL:
+        ssn = null;
+        break;
+      case DECIMAL:
+        ssn = new BigDecimal(readString(in));
+        break;
+      case LONG:
+        ssn = in.readLong();
+        break;
+      case INTEGER:
+        ssn = in.readInt();
+        break;
+      case STRING:
+        ssn = readString(in);
+        break;
+      default:
+        throw new IOException("Unknown SSN type: " + ssnType);
+    }
+    LocalDateTime timestamp = null;
+    if (in.readBoolean()) {
+      timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+    return new RecordSequence(headers, sql, seq, opCode, rsId, ssn, timestamp);
+  }
+
+  // unlike writeUTF, not limited to 64 KB, SQL statements can be larger than that
+  private static void writeString(DataOutput out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+    } else {
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static String readString(DataInput in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
   @Override
   public boolean equals(Object o) {
     return o != null
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append only log shared by all the transactions buffered on disk, replacing a file per transaction.
+ *
+ * The log is split in segments of about {@link #SEGMENT_SIZE} bytes. Each segment counts the entries of open
+ * transactions it holds, and is deleted once all of them have been released (on commit, rollback or expiration),
+ * or truncated and reused if it is the one currently written.
+ *
+ * It also accounts for the bytes of the transactions still kept in memory by {@link SpillingHashQueue}, so that
+ * transactions are spilled once the memory budget is exhausted.
+ */
+class SpillLog {
+  private static final Logger LOG = LoggerFactory.getLogger(SpillLog.class);
+
+  static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+  private final File directory;
+  private final long segmentSize;
+  private final Map<Integer, Segment> segments = new HashMap<>();
+  private final ByteArrayOutputStream encoded = new ByteArrayOutputStream(4096);
+  private final DataOutputStream encoder = new DataOutputStream(encoded);
+  private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+  private Segment current;
+  private int nextSegmentId = 0;
+
+  private long spilledBytes = 0;
+  private long heapBytes = 0;
+  private int spilledTransactions = 0;
+
+  SpillLog(File directory) {
+    this(directory, SEGMENT_SIZE);
+  }
+
+  SpillLog(File directory, long segmentSize) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Position of an entry in the log.
+   */
+  static class Position {
+    final int segment;
+    final long offset;
+    final int length;
+
+    private Position(int segment, long offset, int length) {
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+
+  private static class Segment {
+    final int id;
+    final File file;
+    final FileChannel channel;
+    long size = 0;
+    // position up to which the content has been written to the file, the rest is in the write buffer
+    long flushed = 0;
+    int live = 0;
+
+    Segment(int id, File file) throws IOException {
+      this.id = id;
+      this.file = file;
+      this.channel = new RandomAccessFile(file, "rw").getChannel();
+    }
+  }
+
+  synchronized Position append(RecordSequence recordSequence) throws IOException {
+    encoded.reset();
+    recordSequence.writeTo(encoder);
+    int length = encoded.size();
+
+    if (current == null || (current.size > 0 && current.size + length > segmentSize)) {
+      flush();
+      current = new Segment(nextSegmentId, new File(directory, "spill-" + nextSegmentId + ".log"));
+      segments.put(current.id, current);
+      nextSegmentId++;
+    }
+    if (length > writeBuffer.remaining()) {
+      flush();
+    }
+    Position position = new Position(current.id, current.size, length);
+    if (length > writeBuffer.capacity()) {
+      // too big to be buffered
+      writeFully(current, ByteBuffer.wrap(encoded.toByteArray()), current.size);
+      current.flushed += length;
+    } else {
+      writeBuffer.put(encoded.toByteArray());
+    }
+    current.size += length;
+    current.live++;
+    spilledBytes += length;
+    return position;
+  }
+
+  synchronized RecordSequence read(Position position) throws IOException {
+    Segment segment = segments.get(position.segment);
+    if (segment == current && position.offset + position.length > current.flushed) {
+      flush();
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(position.length);
+    while (buffer.hasRemaining()) {
+      if (segment.channel.read(buffer, position.offset + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of spill log segment " + segment.file);
+      }
+    }
+    return RecordSequence.readFrom(new DataInputStream(new ByteArrayInputStream(buffer.array())));
+  }
+
+  /**
+   * Releases the given entry, the segment holding it is reclaimed once it has no entry left.
+   */
+  synchronized void release(Position position) {
+    Segment segment = segments.get(position.segment);
+    spilledBytes -= position.length;
+    if (--segment.live > 0) {
+      return;
+    }
+    if (segment == current) {
+      // nothing left in the segment being written, start it over
+      writeBuffer.clear();
+      try {
+        segment.channel.truncate(0);
+      } catch (IOException ex) {
+        LOG.warn("Error while truncating spill log segment {}", segment.file, ex);
+      }
+      segment.size = 0;
+      segment.flushed = 0;
+    } else {
+      segments.remove(segment.id);
+      delete(segment);
+    }
+  }
+
+  synchronized void transactionSpilled() {
+    spilledTransactions++;
+  }
+
+  synchronized void spilledTransactionClosed() {
+    spilledTransactions--;
+  }
+
+  synchronized void addHeapBytes(long bytes) {
+    heapBytes += bytes;
+  }
+
+  synchronized long getHeapBytes() {
+    return heapBytes;
+  }
+
+  /**
+   * Returns the bytes of all the buffered transactions, in memory and spilled.
+   */
+  synchronized long getBufferedBytes() {
+    return heapBytes + spilledBytes;
+  }
+
+  synchronized int getSpilledTransactions() {
+    return spilledTransactions;
+  }
+
+  synchronized int getSegmentCount() {
+    return segments.size();
+  }
+
+  synchronized void close() {
+    segments.values().forEach(this::delete);
+    segments.clear();
+    current = null;
+    writeBuffer.clear();
+    spilledBytes = 0;
+    heapBytes = 0;
+    spilledTransactions = 0;
+  }
+
+  private void flush() throws IOException {
+    if (writeBuffer.position() == 0) {
+      return;
+    }
+    writeBuffer.flip();
+    int length = writeBuffer.remaining();
+    writeFully(current, writeBuffer, current.flushed);
+    current.flushed += length;
+    writeBuffer.clear();
+  }
+
+  private static void writeFully(Segment segment, ByteBuffer buffer, long offset) throws IOException {
+    while (buffer.hasRemaining()) {
+      offset += segment.channel.write(buffer, offset);
+    }
+  }
+
+  private void delete(Segment segment) {
+    try {
+      segment.channel.close();
+      Files.deleteIfExists(segment.file.toPath());
+    } catch (IOException ex) {
+      LOG.warn("Error while deleting spill log segment {}", segment.file, ex);
+    }
+  }
+}
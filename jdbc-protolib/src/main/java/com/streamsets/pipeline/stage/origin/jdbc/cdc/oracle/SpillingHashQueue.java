@@ -0,0 +1,272 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Buffer of the records of a transaction, kept in memory while the transaction is small and spilled into the shared
+ * {@link SpillLog} once it grows past {@link #SPILL_THRESHOLD} bytes or once the memory budget of all the
+ * transactions is exhausted. Once spilled, only the index of (RS_ID, SSN) to the position in the log stays in memory.
+ */
+class SpillingHashQueue implements HashQueue<RecordSequence> {
+
+  static final long SPILL_THRESHOLD = 1024 * 1024;
+  static final long HEAP_BUDGET = 64L * 1024 * 1024;
+
+  private final SpillLog log;
+  private final long spillThreshold;
+  private final long heapBudget;
+
+  // values are the record sequences while in memory, and their positions in the log once spilled
+  private final LinkedHashMap<RsIdSsn, Object> entries = new LinkedHashMap<>();
+  private boolean spilled = false;
+  private long heapBytes = 0;
+  private RecordSequence tail;
+
+  SpillingHashQueue(SpillLog log) {
+    this(log, SPILL_THRESHOLD, HEAP_BUDGET);
+  }
+
+  SpillingHashQueue(SpillLog log, long spillThreshold, long heapBudget) {
+    this.log = log;
+    this.spillThreshold = spillThreshold;
+    this.heapBudget = heapBudget;
+  }
+
+  boolean isSpilled() {
+    return spilled;
+  }
+
+  @Override
+  public RecordSequence tail() {
+    return tail;
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    RecordSequence incoming = (RecordSequence) o;
+    return entries.containsKey(new RsIdSsn(incoming.rsId, incoming.ssn.toString()));
+  }
+
+  @NotNull
+  @Override
+  public Iterator<RecordSequence> iterator() {
+    return new SpillingHashQueueIterator();
+  }
+
+  @NotNull
+  @Override
+  public Object[] toArray() {
+    throw new UnsupportedOperationException();
+  }
+
+  @NotNull
+  @Override
+  public <T> T[] toArray(@NotNull T[] a) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean add(RecordSequence e) {
+    RsIdSsn key = new RsIdSsn(e.rsId, e.ssn.toString());
+    if (entries.containsKey(key)) {
+      return false;
+    }
+    try {
+      if (!spilled) {
+        long bytes = estimateSize(e);
+        if (heapBytes + bytes > spillThreshold || log.getHeapBytes() + bytes > heapBudget) {
+          spill();
+        } else {
+          entries.put(key, e);
+          heapBytes += bytes;
+          log.addHeapBytes(bytes);
+          tail = e;
+          return true;
+        }
+      }
+      entries.put(key, log.append(e));
+    } catch (IOException ex) {
+      throw new RuntimeException("Error while spilling transaction records", ex);
+    }
+    tail = e;
+    return true;
+  }
+
+  @Override
+  public boolean offer(RecordSequence e) {
+    return add(e);
+  }
+
+  @Override
+  public RecordSequence remove() {
+    Iterator<RecordSequence> iter = iterator();
+    RecordSequence ret = iter.next(); // throws expected exception if queue is empty
+    iter.remove();
+    return ret;
+  }
+
+  @Override
+  public RecordSequence poll() {
+    return entries.isEmpty() ? null : remove();
+  }
+
+  @Override
+  public RecordSequence element() {
+    return iterator().next(); // throws expected exception if queue is empty
+  }
+
+  @Override
+  public RecordSequence peek() {
+    return entries.isEmpty() ? null : element();
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean containsAll(@NotNull Collection<?> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean addAll(@NotNull Collection<? extends RecordSequence> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean removeAll(@NotNull Collection<?> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean retainAll(@NotNull Collection<?> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void clear() {
+    if (spilled) {
+      entries.values().forEach(position -> log.release((SpillLog.Position) position));
+      log.spilledTransactionClosed();
+      spilled = false;
+    } else {
+      log.addHeapBytes(-heapBytes);
+    }
+    heapBytes = 0;
+    entries.clear();
+    tail = null;
+  }
+
+  /**
+   * Releases what is left of the transaction in memory and in the spill log.
+   */
+  @Override
+  public void close() {
+    clear();
+  }
+
+  @Override
+  public void completeInserts() {
+    // no op
+  }
+
+  private void spill() throws IOException {
+    for (Map.Entry<RsIdSsn, Object> entry : entries.entrySet()) {
+      entry.setValue(log.append((RecordSequence) entry.getValue()));
+    }
+    log.addHeapBytes(-heapBytes);
+    heapBytes = 0;
+    spilled = true;
+    log.transactionSpilled();
+  }
+
+  private RecordSequence get(Object value) {
+    if (!spilled) {
+      return (RecordSequence) value;
+    }
+    try {
+      return log.read((SpillLog.Position) value);
+    } catch (IOException ex) {
+      throw new RuntimeException("Error while reading spilled transaction records", ex);
+    }
+  }
+
+  /**
+   * Rough size of a record sequence in memory: the characters of its strings and the overhead of the objects.
+   */
+  static long estimateSize(RecordSequence recordSequence) {
+    long size = 128;
+    for (Map.Entry<String, String> header : recordSequence.headers.entrySet()) {
+      size += 64 + 2L * header.getKey().length() + (header.getValue() == null ? 0 : 2L * header.getValue().length());
+    }
+    return size + 2L * recordSequence.sqlString.length() + 2L * recordSequence.rsId.length();
+  }
+
+  private class SpillingHashQueueIterator implements Iterator<RecordSequence> {
+    private final Iterator<Map.Entry<RsIdSsn, Object>> underlyingIter = entries.entrySet().iterator();
+    private Map.Entry<RsIdSsn, Object> current;
+
+    @Override
+    public boolean hasNext() {
+      return underlyingIter.hasNext();
+    }
+
+    @Override
+    public RecordSequence next() {
+      if (!underlyingIter.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      current = underlyingIter.next();
+      return get(current.getValue());
+    }
+
+    @Override
+    public void remove() {
+      underlyingIter.remove();
+      if (spilled) {
+        log.release((SpillLog.Position) current.getValue());
+      } else {
+        long bytes = estimateSize((RecordSequence) current.getValue());
+        heapBytes -= bytes;
+        log.addHeapBytes(-bytes);
+      }
+      if (entries.isEmpty()) {
+        tail = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.jdbclookup;
+
+import com.streamsets.pipeline.api.ConfigDef;
+
+public class BatchLookupConfig {
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.BOOLEAN,
+      label = "Batch Lookups",
+      description = "Looks up the distinct queries of all the records of a batch together, combining up to the " +
+          "configured number of queries in a single statement, instead of running one query per record. The " +
+          "combined queries must return columns of the same types. Queries with ORDER BY run on their own",
+      defaultValue = "false",
+      displayPosition = 60,
+      group = "#0"
+  )
+  public boolean enabled = false;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      label = "Max Queries per Statement",
+      description = "Maximum number of record queries combined in a single statement",
+      defaultValue = "100",
+      min = 1,
+      dependsOn = "enabled",
+      triggeredByValue = "true",
+      displayPosition = 70,
+      group = "#0"
+  )
+  public int maxQueries = 100;
+}
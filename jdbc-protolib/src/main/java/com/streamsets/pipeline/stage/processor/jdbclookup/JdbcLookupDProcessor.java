@@ -37,7 +37,7 @@ import com.streamsets.pipeline.stage.processor.kv.CacheConfig;
 import java.util.List;
 
 @StageDef(
-    version = 3,
+    version = 4,
     label = "JDBC Lookup",
     description = "Lookup values via JDBC to enrich records.",
     icon = "rdbms.png",
@@ -123,6 +123,9 @@ public class JdbcLookupDProcessor extends DProcessor {
   @ConfigDefBean(groups = "JDBC")
   public CacheConfig cacheConfig = new CacheConfig();
 
+  @ConfigDefBean(groups = "JDBC")
+  public BatchLookupConfig batchLookupConfig = new BatchLookupConfig();
+
   @Override
   protected Processor createProcessor() {
     return new JdbcLookupProcessor(
@@ -133,7 +136,8 @@ public class JdbcLookupDProcessor extends DProcessor {
       maxClobSize,
       maxBlobSize,
       hikariConfigBean,
-      cacheConfig
+      cacheConfig,
+      batchLookupConfig
     );
   }
 }
@@ -17,6 +17,7 @@ package com.streamsets.pipeline.stage.processor.jdbclookup;
 
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheLoader;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Stage;
@@ -38,16 +39,27 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class JdbcLookupLoader extends CacheLoader<String, Optional<List<Map<String, Field>>>> {
   private static final Logger LOG = LoggerFactory.getLogger(JdbcLookupLoader.class);
 
+  private static final String BATCH_INDEX_COLUMN = "SDC_LOOKUP_INDEX";
+  private static final String BATCH_ALIAS = "SDC_LOOKUP_";
+  private static final Pattern TRAILING_SEMICOLON = Pattern.compile("\\s*;\\s*$");
+  private static final Pattern ORDER_BY = Pattern.compile("\\bORDER\\s+BY\\b", Pattern.CASE_INSENSITIVE);
+  private static final Pattern FROM = Pattern.compile("\\bFROM\\b", Pattern.CASE_INSENSITIVE);
+  private static final Pattern LITERAL = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+
   private final int maxClobSize;
   private final int maxBlobSize;
+  private final int maxQueriesPerStatement;
   private final ErrorRecordHandler errorRecordHandler;
   private final Map<String, DataType> columnsToTypes;
   private final DataSource dataSource;
@@ -61,12 +73,14 @@ public class JdbcLookupLoader extends CacheLoader<String, Optional<List<Map<Stri
     Map<String, DataType> columnsToTypes,
     int maxClobSize,
     int maxBlobSize,
+    int maxQueriesPerStatement,
     ErrorRecordHandler errorRecordHandler
   ) {
     this.dataSource = dataSource;
     this.columnsToTypes = columnsToTypes;
     this.maxClobSize = maxClobSize;
     this.maxBlobSize = maxBlobSize;
+    this.maxQueriesPerStatement = maxQueriesPerStatement;
     this.errorRecordHandler = errorRecordHandler;
     this.selectMeter = context.createMeter("Select Queries");
     this.selectTimer = context.createTimer("Select Queries");
@@ -78,6 +92,147 @@ public class JdbcLookupLoader extends CacheLoader<String, Optional<List<Map<Stri
     return lookupValuesForRecord(key);
   }
 
+  /**
+   * Runs the given queries combined in statements of at most maxQueriesPerStatement queries each, see
+   * {@link #buildBatchQuery(List)}. Only queries of the same shape are combined, see {@link #getQueryShape(String)}.
+   * Queries that can't be combined are run on their own.
+   */
+  @Override
+  public Map<String, Optional<List<Map<String, Field>>>> loadAll(Iterable<? extends String> keys) throws Exception {
+    if (maxQueriesPerStatement <= 1) {
+      // Unsupported, the cache falls back to loading the keys one by one
+      return super.loadAll(keys);
+    }
+    Map<String, Optional<List<Map<String, Field>>>> values = new HashMap<>();
+    Map<String, List<String>> preparedQueriesByShape = new LinkedHashMap<>();
+    for (String key : keys) {
+      if (!isBatchable(key)) {
+        values.put(key, lookupValuesForRecord(key));
+        continue;
+      }
+      List<String> preparedQueries = preparedQueriesByShape.computeIfAbsent(
+          getQueryShape(key),
+          k -> new ArrayList<>(maxQueriesPerStatement)
+      );
+      preparedQueries.add(key);
+      if (preparedQueries.size() == maxQueriesPerStatement) {
+        lookupValuesForRecords(preparedQueries, values);
+        preparedQueries.clear();
+      }
+    }
+    for (List<String> preparedQueries : preparedQueriesByShape.values()) {
+      if (!preparedQueries.isEmpty()) {
+        lookupValuesForRecords(preparedQueries, values);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns true if the query can be combined with others by {@link #buildBatchQuery(List)}. The order of the rows of
+   * a derived table isn't kept by the combined statement, and some databases reject ORDER BY in derived tables, so
+   * queries with ORDER BY are not combined.
+   */
+  static boolean isBatchable(String preparedQuery) {
+    return !ORDER_BY.matcher(preparedQuery).find();
+  }
+
+  /**
+   * Returns the parts of the query the column labels of its rows depend on: the select list as is, and the rest of
+   * the query without its literal values. UNION ALL takes the column labels of the combined statement from its first
+   * query, so queries whose select lists differ, for instance with an alias per record, are never combined.
+   */
+  @VisibleForTesting
+  static String getQueryShape(String preparedQuery) {
+    Matcher from = FROM.matcher(preparedQuery);
+    if (!from.find()) {
+      return preparedQuery;
+    }
+    return preparedQuery.substring(0, from.start())
+        + LITERAL.matcher(preparedQuery.substring(from.start())).replaceAll("?");
+  }
+
+  /**
+   * Combines the given queries in a single statement whose first column tells the index of the query each row
+   * belongs to.
+   */
+  @VisibleForTesting
+  static String buildBatchQuery(List<String> preparedQueries) {
+    StringBuilder batchQuery = new StringBuilder();
+    for (int i = 0; i < preparedQueries.size(); i++) {
+      if (i > 0) {
+        batchQuery.append(" UNION ALL ");
+      }
+      String preparedQuery = TRAILING_SEMICOLON.matcher(preparedQueries.get(i)).replaceFirst("");
+      batchQuery.append("SELECT ").append(i).append(" AS ").append(BATCH_INDEX_COLUMN).append(", ")
+          .append(BATCH_ALIAS).append(i).append(".* FROM (").append(preparedQuery).append(") ")
+          .append(BATCH_ALIAS).append(i);
+    }
+    return batchQuery.toString();
+  }
+
+  private void lookupValuesForRecords(
+    List<String> preparedQueries,
+    Map<String, Optional<List<Map<String, Field>>>> values
+  ) throws StageException {
+    if (preparedQueries.size() == 1) {
+      values.put(preparedQueries.get(0), lookupValuesForRecord(preparedQueries.get(0)));
+      return;
+    }
+
+    String batchQuery = buildBatchQuery(preparedQueries);
+    LOG.debug("Executing SQL:  {}", batchQuery);
+    Map<Integer, List<Map<String, Field>>> lookupItems = new HashMap<>();
+
+    Timer.Context t = selectTimer.time();
+    try (
+      Connection connection = dataSource.getConnection();
+      Statement stmt = connection.createStatement();
+      ResultSet resultSet = stmt.executeQuery(batchQuery)
+    ) {
+      // Stop timer immediately so that we're calculating only query execution time and not the processing time
+      t.stop();
+      t = null;
+
+      ResultSetMetaData md = resultSet.getMetaData();
+      String indexColumn = md.getColumnLabel(1);
+      while(resultSet.next()) {
+        int index = resultSet.getInt(1);
+
+        LinkedHashMap<String, Field> fields = jdbcUtil.resultSetToFields(resultSet,
+          maxClobSize,
+          maxBlobSize,
+          columnsToTypes,
+          errorRecordHandler,
+          UnknownTypeAction.STOP_PIPELINE
+        );
+        fields.remove(indexColumn);
+
+        int numColumns = md.getColumnCount() - 1;
+        if (fields.size() != numColumns) {
+          throw new OnRecordErrorException(JdbcErrors.JDBC_35, fields.size(), numColumns);
+        }
+
+        lookupItems.computeIfAbsent(index, k -> new ArrayList<>()).add(fields);
+      }
+    } catch (SQLException e) {
+      // The processor looks the records up one by one and reports the failure, only the first one at warn level
+      LOG.debug(JdbcErrors.JDBC_02.getMessage(), batchQuery, e);
+      throw new OnRecordErrorException(JdbcErrors.JDBC_02, batchQuery, e.getMessage());
+    } finally {
+      // If the timer wasn't stopped due to exception yet, stop it now
+      if(t != null) {
+        t.stop();
+      }
+      selectMeter.mark();
+    }
+
+    // If no lookup items were found for a query, use defaults
+    for (int i = 0; i < preparedQueries.size(); i++) {
+      values.put(preparedQueries.get(i), Optional.ofNullable(lookupItems.get(i)));
+    }
+  }
+
   private Optional<List<Map<String, Field>>> lookupValuesForRecord(String preparedQuery) throws StageException {
     LOG.debug("Executing SQL:  {}", preparedQuery);
     List<Map<String, Field>> lookupItems = new ArrayList<>();
@@ -15,10 +15,12 @@
  */
 package com.streamsets.pipeline.stage.processor.jdbclookup;
 
+import com.codahale.metrics.Meter;
 import com.google.common.base.Throwables;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Processor;
@@ -47,6 +49,7 @@ import com.streamsets.pipeline.stage.processor.kv.CacheConfig;
 import com.streamsets.pipeline.stage.processor.kv.LookupUtils;
 import com.zaxxer.hikari.HikariDataSource;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -61,8 +64,10 @@ import org.slf4j.LoggerFactory;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(JdbcLookupProcessor.class);
@@ -85,6 +90,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private final int maxClobSize;
   private final int maxBlobSize;
   private final HikariPoolConfigBean hikariConfigBean;
+  private final BatchLookupConfig batchLookupConfig;
 
   private ErrorRecordHandler errorRecordHandler;
   private HikariDataSource dataSource = null;
@@ -98,6 +104,8 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private final MissingValuesBehavior missingValuesBehavior;
 
   private ExecutorService generationExecutor;
+  private Meter batchLookupFallbackMeter;
+  private boolean batchLookupFallbackLogged;
   private int preprocessThreads = 0;
   private JdbcUtil jdbcUtil;
 
@@ -109,7 +117,8 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       int maxClobSize,
       int maxBlobSize,
       HikariPoolConfigBean hikariConfigBean,
-      CacheConfig cacheConfig
+      CacheConfig cacheConfig,
+      BatchLookupConfig batchLookupConfig
   ) {
     this.query = query;
     this.columnMappings = columnMappings;
@@ -119,6 +128,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     this.maxBlobSize = maxBlobSize;
     this.hikariConfigBean = hikariConfigBean;
     this.cacheConfig = cacheConfig;
+    this.batchLookupConfig = batchLookupConfig;
   }
 
   /** {@inheritDoc} */
@@ -159,7 +169,13 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     if (issues.isEmpty()) {
       cache = buildCache();
       cacheCleaner = new CacheCleaner(cache, "JdbcLookupProcessor", 10 * 60 * 1000);
-      if (cacheConfig.enabled) {
+      if (batchLookupConfig.enabled) {
+        batchLookupFallbackMeter = context.createMeter("Batch Lookup Fallbacks");
+        if (!JdbcLookupLoader.isBatchable(query)) {
+          LOG.warn("Lookup query has an ORDER BY clause, records are looked up one by one despite batch lookups");
+        }
+      }
+      if (cacheConfig.enabled && !batchLookupConfig.enabled) {
         preprocessThreads = Math.min(hikariConfigBean.minIdle, Runtime.getRuntime().availableProcessors()-1);
         preprocessThreads = Math.max(preprocessThreads, 1);
       }
@@ -320,6 +336,10 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       // No records - take the opportunity to clean up the cache so that we don't hold on to memory indefinitely
       cacheCleaner.periodicCleanUp();
     }
+    if (batchLookupConfig.enabled) {
+      processInBatch(batch, batchMaker);
+      return;
+    }
     //Cache warming
     if (preprocessThreads > 0) {
       preprocess(batch);
@@ -328,6 +348,63 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     super.process(batch, batchMaker);
   }
 
+  /**
+   * Looks up the distinct queries of all the records of the batch at once, see {@link JdbcLookupLoader#loadAll}.
+   */
+  private void processInBatch(Batch batch, SingleLaneBatchMaker batchMaker) throws StageException {
+    List<Record> records = new ArrayList<>();
+    List<String> preparedQueries = new ArrayList<>();
+    Iterator<Record> it = batch.getRecords();
+    while (it.hasNext()) {
+      Record record = it.next();
+      String preparedQuery = null;
+      try {
+        ELVars elVars = getContext().createELVars();
+        RecordEL.setRecordInContext(elVars, record);
+        preparedQuery = queryEval.eval(elVars, query, String.class);
+      } catch (ELEvalException e) {
+        // reported when the record is looked up on its own below
+        LOG.debug(JdbcErrors.JDBC_01.getMessage(), query, e);
+      }
+      records.add(record);
+      preparedQueries.add(preparedQuery);
+    }
+
+    Map<String, Optional<List<Map<String, Field>>>> entries;
+    try {
+      entries = cache.getAll(preparedQueries.stream().filter(Objects::nonNull).collect(Collectors.toList()));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      // Look the records up one by one so that the failure is reported on the records it belongs to
+      batchLookupFallbackMeter.mark();
+      if (!batchLookupFallbackLogged) {
+        batchLookupFallbackLogged = true;
+        LOG.warn(
+            "Batch lookup failed, looking up records one by one, further failures are only counted: {}",
+            e.toString(),
+            e
+        );
+      } else {
+        LOG.debug("Batch lookup failed, looking up records one by one: {}", e.toString(), e);
+      }
+      entries = Collections.emptyMap();
+    }
+
+    for (int i = 0; i < records.size(); i++) {
+      Record record = records.get(i);
+      String preparedQuery = preparedQueries.get(i);
+      Optional<List<Map<String, Field>>> entry = preparedQuery == null ? null : entries.get(preparedQuery);
+      try {
+        if (entry == null) {
+          process(record, batchMaker);
+        } else {
+          processEntry(record, preparedQuery, entry, batchMaker);
+        }
+      } catch (OnRecordErrorException error) { // NOSONAR
+        errorRecordHandler.onError(new OnRecordErrorException(record, error.getErrorCode(), error.getParams()));
+      }
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   protected void process(Record record, SingleLaneBatchMaker batchMaker) throws StageException {
@@ -335,57 +412,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       ELVars elVars = getContext().createELVars();
       RecordEL.setRecordInContext(elVars, record);
       String preparedQuery = queryEval.eval(elVars, query, String.class);
-      Optional<List<Map<String, Field>>> entry = cache.get(preparedQuery);
-
-      if (!entry.isPresent()) {
-        // No results
-        switch (missingValuesBehavior) {
-          case SEND_TO_ERROR:
-            LOG.error(JdbcErrors.JDBC_04.getMessage(), preparedQuery);
-            errorRecordHandler.onError(new OnRecordErrorException(record, JdbcErrors.JDBC_04, preparedQuery));
-            break;
-          case PASS_RECORD_ON:
-            batchMaker.addRecord(record);
-            break;
-          default:
-            throw new IllegalStateException("Unknown missing value behavior: " + missingValuesBehavior);
-        }
-      } else {
-        List<Map<String, Field>> values = entry.get();
-        switch (multipleValuesBehavior) {
-          case FIRST_ONLY:
-            setFieldsInRecord(record, values.get(0));
-            batchMaker.addRecord(record);
-            break;
-          case SPLIT_INTO_MULTIPLE_RECORDS:
-            for(Map<String, Field> lookupItem : values) {
-              Record newRecord = getContext().cloneRecord(record);
-              setFieldsInRecord(newRecord, lookupItem);
-              batchMaker.addRecord(newRecord);
-            }
-            break;
-          case ALL_AS_LIST:
-            Map<String, List<Field>> valuesMap = new HashMap<>();
-            for (Map<String, Field> lookupItem : values) {
-              lookupItem.forEach((k, v) -> {
-                if (valuesMap.get(k) == null) {
-                  List<Field> lookupValue = new ArrayList<>();
-                  valuesMap.put(k, lookupValue);
-                }
-                valuesMap.get(k).add(v);
-              });
-            }
-            Map<String, Field> valueMap = new HashMap<>();
-            valuesMap.forEach( (k,v) -> valueMap.put(k, Field.create(v)));
-            setFieldsInRecord(record, valueMap);
-            batchMaker.addRecord(record);
-            break;
-          default:
-            throw new IllegalStateException("Unknown multiple value behavior: " + multipleValuesBehavior);
-        }
-
-      }
-
+      processEntry(record, preparedQuery, cache.get(preparedQuery), batchMaker);
     } catch (ELEvalException e) {
       LOG.error(JdbcErrors.JDBC_01.getMessage(), query, e);
       throw new OnRecordErrorException(record, JdbcErrors.JDBC_01, query);
@@ -397,6 +424,62 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     }
   }
 
+  private void processEntry(
+      Record record,
+      String preparedQuery,
+      Optional<List<Map<String, Field>>> entry,
+      SingleLaneBatchMaker batchMaker
+  ) throws StageException {
+    if (!entry.isPresent()) {
+      // No results
+      switch (missingValuesBehavior) {
+        case SEND_TO_ERROR:
+          LOG.error(JdbcErrors.JDBC_04.getMessage(), preparedQuery);
+          errorRecordHandler.onError(new OnRecordErrorException(record, JdbcErrors.JDBC_04, preparedQuery));
+          break;
+        case PASS_RECORD_ON:
+          batchMaker.addRecord(record);
+          break;
+        default:
+          throw new IllegalStateException("Unknown missing value behavior: " + missingValuesBehavior);
+      }
+    } else {
+      List<Map<String, Field>> values = entry.get();
+      switch (multipleValuesBehavior) {
+        case FIRST_ONLY:
+          setFieldsInRecord(record, values.get(0));
+          batchMaker.addRecord(record);
+          break;
+        case SPLIT_INTO_MULTIPLE_RECORDS:
+          for(Map<String, Field> lookupItem : values) {
+            Record newRecord = getContext().cloneRecord(record);
+            setFieldsInRecord(newRecord, lookupItem);
+            batchMaker.addRecord(newRecord);
+          }
+          break;
+        case ALL_AS_LIST:
+          Map<String, List<Field>> valuesMap = new HashMap<>();
+          for (Map<String, Field> lookupItem : values) {
+            lookupItem.forEach((k, v) -> {
+              if (valuesMap.get(k) == null) {
+                List<Field> lookupValue = new ArrayList<>();
+                valuesMap.put(k, lookupValue);
+              }
+              valuesMap.get(k).add(v);
+            });
+          }
+          Map<String, Field> valueMap = new HashMap<>();
+          valuesMap.forEach( (k,v) -> valueMap.put(k, Field.create(v)));
+          setFieldsInRecord(record, valueMap);
+          batchMaker.addRecord(record);
+          break;
+        default:
+          throw new IllegalStateException("Unknown multiple value behavior: " + multipleValuesBehavior);
+      }
+
+    }
+  }
+
   private void setFieldsInRecord(Record record, Map<String, Field>fields) {
     for (Map.Entry<String, Field> entry : fields.entrySet()) {
       String columnName = entry.getKey();
@@ -435,8 +518,9 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       columnsToTypes,
       maxClobSize,
       maxBlobSize,
+      batchLookupConfig.enabled ? batchLookupConfig.maxQueries : 1,
       errorRecordHandler
     );
-    return LookupUtils.buildCache(loader, cacheConfig, defaultValue);
+    return LookupUtils.buildSharedCache(getContext(), loader, cacheConfig, defaultValue);
   }
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.jdbc.parser.sql;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.streamsets.pipeline.lib.jdbc.OracleCDCOperationCode;
+import org.junit.Assert;
+import org.junit.Test;
+import org.parboiled.Parboiled;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class TestSQLRedoParser {
+
+  // statements as generated by LogMiner in SQL_REDO
+  private static final List<String> INSERTS = ImmutableList.of(
+      "insert into \"SYS\".\"MANYCOLS\"(\"ID\",\"NAME\",\"HIREDATE\",\"SALARY\",\"LASTLOGIN\") " +
+          "values ('1','sdc', TO_DATE('21-11-2016 11:34:09', 'DD-MM-YYYY HH24:MI:SS')," +
+          "'1332.332',TO_TIMESTAMP('2016-11-21 11:34:09.982753'))",
+      "insert into \"SYS\".\"MANYCOLS\"(\"ID\",\"NAME\",\"HIREDATE\",\"SALARY\",\"LASTLOGIN\") " +
+          "values ('10','stream',TO_DATE('19-11-2016 11:35:16', 'DD-MM-YYYY HH24:MI:SS'),'10000.1',NULL)",
+      "insert into \"SYS\".\"WIN\" (\"ID\", \"DESC\", \"STATUS\") " +
+          "values ('1', 'This is a \r\n test \r\n that tests windows \r\n line endings\r', 'COMPLETE')",
+      "insert into \"SYS\".\"QUOTES\"(\"ID\",\"DESC\",\"EMPTY\") values ('2','It''s ''quoted''','')",
+      "insert into \"SYS\".\"LOBS\"(\"ID\",\"DATA\",\"RAW\") values ('3',EMPTY_BLOB(),HEXTORAW('0a0b'))",
+      "INSERT INTO \"SYS\".\"Mixed\"(\"Id\",\"Name\") VALUES ('4',null)",
+      "insert into \"SYS\".\"TZ\"(\"ID\",\"TS\") " +
+          "values ('5',TO_TIMESTAMP_TZ('2019-01-01 10:00:00.000000 +01:00', 'YYYY-MM-DD HH24:MI:SS.FF TZH:TZM'))"
+  );
+
+  private static final List<String> UPDATES = ImmutableList.of(
+      " update \"SYS\".\"MANYCOLS\" set \"SALARY\" = '1998.483' " +
+          "where \"ID\" = '1' and \"NAME\" IS NULL and" +
+          " \"HIREDATE\" = TO_DATE('21-11-2016 11:34:09', 'DD-MM-YYYY HH24:MI:SS') and " +
+          "\"SALARY\" = '1332.322' and \"LASTLOGIN\" = TO_TIMESTAMP('2016-11-21 11:34:09.982753')" +
+          " and rowid = 'Addajkdajkd'",
+      " update \"SYS\".\"MANYCOLS\" A set A.\"SALARY\" = '1998.483' " +
+          "where A.\"ID\" = '1' and A.\"NAME\" IS NULL and A.rowid = 'Addajkdajkd'",
+      " update \"SYS\".\"MANYCOLS\" set \"SALARY=\" = NULL, \"NAME\" = 'New Name' " +
+          "where \"ID\" = '1' and \"NAME\" = '=sdc' and ROWID = 'AAAAxhdjhjsdhaks'",
+      "update \"SYS\".\"QUOTES\" set \"DESC\" = 'It''s' where \"ID\" = '2' and \"DESC\" = 'It is'",
+      "update \"SYS\".\"NOWHERE\" set \"DESC\" = 'all rows'"
+  );
+
+  private static final List<String> DELETES = ImmutableList.of(
+      "delete from \"SYS\".\"MANYCOLS\" where \"ID\" = '10' and \"NAME\" = 'stream' and " +
+          "\"HIREDATE\" = TO_DATE('19-11-2016 11:35:16', 'DD-MM-YYYY HH24:MI:SS') and " +
+          "\"SALARY\" = '10000.1' and \"LASTLOGIN\" IS NULL and ROWID = 'AASDDxs'\n",
+      "delete from \"SYS\".\"MANYCOLS\" A where A.\"ID\" = '10' and A.\"LASTLOGIN\" IS NULL and A.ROWID = 'AASDDxs'\n"
+  );
+
+  private static Map<String, String> process(String sql, int code, boolean caseSensitive, Set<String> expected)
+      throws Exception {
+    return SQLParserUtils.process(
+        Parboiled.createParser(SQLParser.class),
+        sql,
+        code,
+        expected != null,
+        caseSensitive,
+        expected
+    );
+  }
+
+  private static void assertSameColumns(String sql, int code) throws Exception {
+    for (boolean caseSensitive : new boolean[]{false, true}) {
+      Map<String, String> fast = SQLParserUtils.processFast(sql, code, false, caseSensitive, null);
+      Assert.assertNotNull(sql, fast);
+      Assert.assertEquals(sql, process(sql, code, caseSensitive, null), fast);
+    }
+  }
+
+  @Test
+  public void testInsert() throws Exception {
+    for (String sql : INSERTS) {
+      assertSameColumns(sql, OracleCDCOperationCode.INSERT_CODE);
+    }
+  }
+
+  @Test
+  public void testUpdate() throws Exception {
+    for (String sql : UPDATES) {
+      assertSameColumns(sql, OracleCDCOperationCode.UPDATE_CODE);
+      assertSameColumns(sql, OracleCDCOperationCode.SELECT_FOR_UPDATE_CODE);
+    }
+  }
+
+  @Test
+  public void testDelete() throws Exception {
+    for (String sql : DELETES) {
+      assertSameColumns(sql, OracleCDCOperationCode.DELETE_CODE);
+    }
+  }
+
+  @Test
+  public void testExpectedColumns() throws Exception {
+    String sql = UPDATES.get(2);
+    Set<String> expected = ImmutableSet.of("ID", "NAME", "SALARY=", "LASTDATE");
+    Map<String, String> fast =
+        SQLParserUtils.processFast(sql, OracleCDCOperationCode.UPDATE_CODE, true, false, expected);
+    Assert.assertEquals(process(sql, OracleCDCOperationCode.UPDATE_CODE, false, expected), fast);
+    Assert.assertTrue(fast.containsKey("LASTDATE"));
+    Assert.assertNull(fast.get("LASTDATE"));
+  }
+
+  private static void assertFallback(String sql, int code) {
+    Assert.assertNull(sql, SQLParserUtils.processFast(sql, code, false, false, null));
+  }
+
+  @Test
+  public void testFallback() throws Exception {
+    // unquoted values, statements not matching their operation and broken statements are left to the grammar
+    assertFallback("insert into \"SYS\".\"T\"(\"ID\",\"N\") values (1,'a')", OracleCDCOperationCode.INSERT_CODE);
+    assertFallback("insert into \"SYS\".\"T\"(\"ID\",\"N\") values ('1')", OracleCDCOperationCode.INSERT_CODE);
+    assertFallback("insert into \"SYS\".\"T\"(\"ID\") values (TO_NUMBER(1))", OracleCDCOperationCode.INSERT_CODE);
+    assertFallback("update \"SYS\".\"T\" set \"ID\" IS NOT NULL", OracleCDCOperationCode.UPDATE_CODE);
+    assertFallback(" update \"SYS\".\"MANYCOLS\" set why are we testing this", OracleCDCOperationCode.UPDATE_CODE);
+    assertFallback("delete from \"SYS\".\"T\" where \"ID\" = '1' and", OracleCDCOperationCode.DELETE_CODE);
+    assertFallback(DELETES.get(0), OracleCDCOperationCode.INSERT_CODE);
+    assertFallback(INSERTS.get(0), OracleCDCOperationCode.DDL_CODE);
+  }
+
+  @Test
+  public void testWideStatements() throws Exception {
+    // as many columns as the widest tables, with values of all the kinds above
+    StringBuilder columns = new StringBuilder();
+    StringBuilder values = new StringBuilder();
+    StringBuilder set = new StringBuilder();
+    StringBuilder where = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      String value;
+      switch (i % 4) {
+        case 0:
+          value = "'" + i + "'";
+          break;
+        case 1:
+          value = "'it''s " + i + "'";
+          break;
+        case 2:
+          value = "TO_DATE('21-11-2016 11:34:09', 'DD-MM-YYYY HH24:MI:SS')";
+          break;
+        default:
+          value = "NULL";
+      }
+      String column = "\"COL" + i + "\"";
+      columns.append(i == 0 ? "" : ",").append(column);
+      values.append(i == 0 ? "" : ",").append(value);
+      set.append(i == 0 ? "" : ", ").append(column).append(" = ").append(value);
+      where.append(i == 0 ? "" : " and ").append(column).append(value.equals("NULL") ? " IS NULL" : " = " + value);
+    }
+    assertSameColumns(
+        "insert into \"SYS\".\"WIDE\"(" + columns + ") values (" + values + ")",
+        OracleCDCOperationCode.INSERT_CODE
+    );
+    assertSameColumns(
+        "update \"SYS\".\"WIDE\" set " + set + " where " + where + " and ROWID = 'AAAAxhdjhjsdhaks'",
+        OracleCDCOperationCode.UPDATE_CODE
+    );
+    assertSameColumns(
+        "delete from \"SYS\".\"WIDE\" where " + where + " and ROWID = 'AASDDxs'",
+        OracleCDCOperationCode.DELETE_CODE
+    );
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
+
+import com.google.common.base.Strings;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class TestSpillingHashQueue {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File dir;
+  private SpillLog log;
+
+  @Before
+  public void setUp() throws Exception {
+    dir = tempFolder.newFolder();
+    // small segments to exercise their reclamation
+    log = new SpillLog(dir, 4096);
+  }
+
+  @After
+  public void tearDown() {
+    log.close();
+  }
+
+  private static RecordSequence createRecordSequence(int seq) {
+    Map<String, String> headers = new HashMap<>();
+    headers.put("oracle.cdc.xid", "1.2.3");
+    headers.put("oracle.cdc.rowId", null);
+    headers.put("oracle.cdc.scn", String.valueOf(1000 + seq));
+    String sql = "insert into \"SYS\".\"T\"(\"ID\",\"NAME\") values ('" + seq + "','" + Strings.repeat("x", seq) + "')";
+    LocalDateTime timestamp = LocalDateTime.of(2019, 1, 1, 10, 0, seq % 60, 1000);
+    return new RecordSequence(headers, sql, seq, 1, "0x0001" + seq, new BigDecimal(seq), timestamp);
+  }
+
+  private static void assertSame(RecordSequence expected, RecordSequence actual) {
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(expected.headers, actual.headers);
+    Assert.assertEquals(expected.sqlString, actual.sqlString);
+    Assert.assertEquals(expected.seq, actual.seq);
+    Assert.assertEquals(expected.opCode, actual.opCode);
+    Assert.assertEquals(expected.timestamp, actual.timestamp);
+  }
+
+  @Test
+  public void testSmallTransactionStaysInMemory() throws Exception {
+    SpillingHashQueue queue = new SpillingHashQueue(log);
+    for (int i = 1; i <= 10; i++) {
+      Assert.assertTrue(queue.add(createRecordSequence(i)));
+    }
+    Assert.assertFalse(queue.add(createRecordSequence(5)));
+    Assert.assertFalse(queue.isSpilled());
+    Assert.assertEquals(0, log.getSegmentCount());
+    Assert.assertEquals(0, log.getSpilledTransactions());
+    Assert.assertTrue(log.getBufferedBytes() > 0);
+    Assert.assertEquals(10, queue.tail().seq);
+    Assert.assertTrue(queue.contains(new RecordSequence(null, null, 0, 0, "0x00013", new BigDecimal(3), null)));
+
+    for (int i = 1; i <= 10; i++) {
+      Assert.assertEquals(i, queue.remove().seq);
+    }
+    Assert.assertNull(queue.tail());
+    Assert.assertEquals(0, log.getBufferedBytes());
+    queue.close();
+  }
+
+  @Test
+  public void testSpilledTransaction() throws Exception {
+    SpillingHashQueue queue = new SpillingHashQueue(log, 1024, SpillingHashQueue.HEAP_BUDGET);
+    for (int i = 1; i <= 100; i++) {
+      queue.add(createRecordSequence(i));
+    }
+    Assert.assertTrue(queue.isSpilled());
+    Assert.assertEquals(1, log.getSpilledTransactions());
+    Assert.assertTrue(log.getSegmentCount() > 1);
+    Assert.assertEquals(100, queue.size());
+    Assert.assertEquals(100, queue.tail().seq);
+    Assert.assertTrue(queue.contains(createRecordSequence(42)));
+    Assert.assertFalse(queue.contains(createRecordSequence(101)));
+
+    int i = 0;
+    for (RecordSequence recordSequence : queue) {
+      assertSame(createRecordSequence(++i), recordSequence);
+    }
+    Assert.assertEquals(100, i);
+
+    // removing records as done for the records already processed before a restart
+    Iterator<RecordSequence> iterator = queue.iterator();
+    while (iterator.hasNext() && iterator.next().seq <= 50) {
+      iterator.remove();
+    }
+    Assert.assertEquals(51, queue.peek().seq);
+
+    while (!queue.isEmpty()) {
+      queue.remove();
+    }
+    queue.close();
+    Assert.assertEquals(0, log.getSpilledTransactions());
+    Assert.assertEquals(0, log.getBufferedBytes());
+    // only the segment being written is kept, and it is empty
+    Assert.assertEquals(1, log.getSegmentCount());
+    Assert.assertEquals(1, dir.listFiles().length);
+    Assert.assertEquals(0, dir.listFiles()[0].length());
+  }
+
+  @Test
+  public void testSegmentsReclaimedOnRollback() throws Exception {
+    SpillingHashQueue first = new SpillingHashQueue(log, 0, SpillingHashQueue.HEAP_BUDGET);
+    SpillingHashQueue second = new SpillingHashQueue(log, 0, SpillingHashQueue.HEAP_BUDGET);
+    for (int i = 1; i <= 50; i++) {
+      first.add(createRecordSequence(i));
+    }
+    int firstSegments = log.getSegmentCount();
+    for (int i = 1; i <= 50; i++) {
+      second.add(createRecordSequence(i));
+    }
+    Assert.assertEquals(2, log.getSpilledTransactions());
+    int segments = log.getSegmentCount();
+    Assert.assertTrue(segments > firstSegments);
+
+    // rollback of the first transaction, the segments only holding its records are deleted
+    first.close();
+    Assert.assertEquals(1, log.getSpilledTransactions());
+    Assert.assertEquals(segments - firstSegments + 1, log.getSegmentCount());
+    Assert.assertEquals(log.getSegmentCount(), dir.listFiles().length);
+
+    int i = 0;
+    while (!second.isEmpty()) {
+      assertSame(createRecordSequence(++i), second.remove());
+    }
+    Assert.assertEquals(50, i);
+    second.close();
+    Assert.assertEquals(0, log.getBufferedBytes());
+  }
+
+  @Test
+  public void testHeapBudget() throws Exception {
+    SpillingHashQueue small = new SpillingHashQueue(log, SpillingHashQueue.SPILL_THRESHOLD, 2048);
+    SpillingHashQueue other = new SpillingHashQueue(log, SpillingHashQueue.SPILL_THRESHOLD, 2048);
+    for (int i = 1; i <= 3; i++) {
+      small.add(createRecordSequence(i));
+    }
+    Assert.assertFalse(small.isSpilled());
+    // the budget shared by all the transactions is exhausted, new records go to the log
+    for (int i = 1; i <= 10; i++) {
+      other.add(createRecordSequence(i));
+    }
+    Assert.assertFalse(small.isSpilled());
+    Assert.assertTrue(other.isSpilled());
+    Assert.assertEquals(1, log.getSpilledTransactions());
+    small.close();
+    other.close();
+    Assert.assertEquals(0, log.getBufferedBytes());
+  }
+
+  @Test
+  public void testLargeRecord() throws Exception {
+    SpillingHashQueue queue = new SpillingHashQueue(log, 0, SpillingHashQueue.HEAP_BUDGET);
+    // larger than the write buffer and the segments
+    RecordSequence large = createRecordSequence(100 * 1024);
+    queue.add(createRecordSequence(1));
+    queue.add(large);
+    queue.add(createRecordSequence(2));
+    assertSame(createRecordSequence(1), queue.remove());
+    assertSame(large, queue.remove());
+    assertSame(createRecordSequence(2), queue.remove());
+    queue.close();
+  }
+}
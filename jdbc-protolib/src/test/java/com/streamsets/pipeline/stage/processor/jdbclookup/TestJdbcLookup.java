@@ -764,4 +764,176 @@ public class TestJdbcLookup {
       processorRunner.runDestroy();
     }
   }
+
+  private static Record createListRecord(String firstName, String lastName) {
+    Record record = RecordCreator.create();
+    List<Field> fields = new ArrayList<>();
+    fields.add(Field.create(firstName));
+    fields.add(Field.create(lastName));
+    record.set(Field.create(fields));
+    return record;
+  }
+
+  @Test
+  public void testBatchLookup() throws Exception {
+    List<JdbcFieldColumnMapping> columnMappings = ImmutableList.of(new JdbcFieldColumnMapping("P_ID", "[2]"));
+
+    JdbcLookupDProcessor processor = createProcessor();
+    processor.batchLookupConfig = new BatchLookupConfig();
+    processor.batchLookupConfig.enabled = true;
+    processor.batchLookupConfig.maxQueries = 2;
+
+    ProcessorRunner processorRunner = new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("query", listQuery)
+        .addConfiguration("columnMappings", columnMappings)
+        .addConfiguration("multipleValuesBehavior", MultipleValuesBehavior.FIRST_ONLY)
+        .addConfiguration("missingValuesBehavior", MissingValuesBehavior.SEND_TO_ERROR)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .addOutputLane("lane")
+        .build();
+
+    List<Record> records = ImmutableList.of(
+        createListRecord("Adam", "Kunicki"),
+        createListRecord("Jon", "Natkins"),
+        createListRecord("Adam", "Kunicki"),
+        createListRecord("Pat", "Patterson"),
+        createListRecord("Girish", "Pancha")
+    );
+    processorRunner.runInit();
+    try {
+      StageRunner.Output output = processorRunner.runProcess(records);
+      List<Record> outputRecords = output.getRecords().get("lane");
+
+      Assert.assertEquals(4, outputRecords.size());
+      Assert.assertEquals(1, outputRecords.get(0).get("[2]").getValueAsInteger());
+      Assert.assertEquals(2, outputRecords.get(1).get("[2]").getValueAsInteger());
+      Assert.assertEquals(1, outputRecords.get(2).get("[2]").getValueAsInteger());
+      Assert.assertEquals("Girish", outputRecords.get(3).get("[0]").getValueAsString());
+      int pId = outputRecords.get(3).get("[2]").getValueAsInteger();
+      Assert.assertTrue(pId == 4 || pId == 5);
+
+      List<Record> errorRecords = processorRunner.getErrorRecords();
+      Assert.assertEquals(1, errorRecords.size());
+      Assert.assertEquals("Pat", errorRecords.get(0).get("[0]").getValueAsString());
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testBatchLookupOrderBy() throws Exception {
+    List<JdbcFieldColumnMapping> columnMappings = ImmutableList.of(new JdbcFieldColumnMapping("P_ID", "[2]"));
+
+    JdbcLookupDProcessor processor = createProcessor();
+    processor.batchLookupConfig = new BatchLookupConfig();
+    processor.batchLookupConfig.enabled = true;
+    processor.batchLookupConfig.maxQueries = 10;
+
+    ProcessorRunner processorRunner = new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("query", listQuery + " ORDER BY P_ID DESC")
+        .addConfiguration("columnMappings", columnMappings)
+        .addConfiguration("multipleValuesBehavior", MultipleValuesBehavior.FIRST_ONLY)
+        .addConfiguration("missingValuesBehavior", MissingValuesBehavior.SEND_TO_ERROR)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .addOutputLane("lane")
+        .build();
+
+    List<Record> records = ImmutableList.of(
+        createListRecord("Girish", "Pancha"),
+        createListRecord("Adam", "Kunicki")
+    );
+    processorRunner.runInit();
+    try {
+      StageRunner.Output output = processorRunner.runProcess(records);
+      List<Record> outputRecords = output.getRecords().get("lane");
+
+      // The queries ran on their own, keeping the order of their rows
+      Assert.assertEquals(2, outputRecords.size());
+      Assert.assertEquals(5, outputRecords.get(0).get("[2]").getValueAsInteger());
+      Assert.assertEquals(1, outputRecords.get(1).get("[2]").getValueAsInteger());
+      Assert.assertTrue(processorRunner.getErrorRecords().isEmpty());
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testBatchLookupAliasPerRecord() throws Exception {
+    JdbcLookupDProcessor processor = createProcessor();
+    processor.batchLookupConfig = new BatchLookupConfig();
+    processor.batchLookupConfig.enabled = true;
+    processor.batchLookupConfig.maxQueries = 10;
+
+    ProcessorRunner processorRunner = new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("query", "SELECT P_ID AS \"${record:value(\"[0]\")}\" FROM TEST.TEST_TABLE" +
+            " WHERE FIRST_NAME = '${record:value(\"[0]\")}'" +
+            "   AND LAST_NAME = '${record:value(\"[1]\")}'")
+        .addConfiguration("columnMappings", ImmutableList.of())
+        .addConfiguration("multipleValuesBehavior", MultipleValuesBehavior.FIRST_ONLY)
+        .addConfiguration("missingValuesBehavior", MissingValuesBehavior.SEND_TO_ERROR)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .addOutputLane("lane")
+        .build();
+
+    List<Record> records = ImmutableList.of(
+        createListRecord("Adam", "Kunicki"),
+        createListRecord("Jon", "Natkins")
+    );
+    processorRunner.runInit();
+    try {
+      StageRunner.Output output = processorRunner.runProcess(records);
+      List<Record> outputRecords = output.getRecords().get("lane");
+
+      // Each record gets the column label of its own query
+      Assert.assertEquals(2, outputRecords.size());
+      Assert.assertEquals("Adam", outputRecords.get(0).get("[2]/header").getValueAsString());
+      Assert.assertEquals(1, outputRecords.get(0).get("[2]/value").getValueAsInteger());
+      Assert.assertEquals("Jon", outputRecords.get(1).get("[2]/header").getValueAsString());
+      Assert.assertEquals(2, outputRecords.get(1).get("[2]/value").getValueAsInteger());
+      Assert.assertTrue(processorRunner.getErrorRecords().isEmpty());
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testGetQueryShape() throws Exception {
+    Assert.assertEquals(
+        JdbcLookupLoader.getQueryShape("SELECT A FROM T WHERE B = 'x' AND C = 1"),
+        JdbcLookupLoader.getQueryShape("SELECT A FROM T WHERE B = 'it''s' AND C = 2.5")
+    );
+    Assert.assertNotEquals(
+        JdbcLookupLoader.getQueryShape("SELECT A AS \"x\" FROM T WHERE B = 'x'"),
+        JdbcLookupLoader.getQueryShape("SELECT A AS \"y\" FROM T WHERE B = 'y'")
+    );
+    Assert.assertNotEquals(
+        JdbcLookupLoader.getQueryShape("SELECT * FROM T1 WHERE B = 1"),
+        JdbcLookupLoader.getQueryShape("SELECT * FROM T2 WHERE B = 1")
+    );
+  }
+
+  @Test
+  public void testIsBatchable() throws Exception {
+    Assert.assertTrue(JdbcLookupLoader.isBatchable("SELECT A FROM T WHERE B = 1"));
+    Assert.assertTrue(JdbcLookupLoader.isBatchable("SELECT BORDER_BY FROM T"));
+    Assert.assertFalse(JdbcLookupLoader.isBatchable("SELECT A FROM T WHERE B = 1 ORDER BY A"));
+    Assert.assertFalse(JdbcLookupLoader.isBatchable("select a from t order\n  by a desc"));
+  }
+
+  @Test
+  public void testBuildBatchQuery() throws Exception {
+    Assert.assertEquals(
+        "SELECT 0 AS SDC_LOOKUP_INDEX, SDC_LOOKUP_0.* FROM (SELECT A FROM T WHERE B = 1) SDC_LOOKUP_0" +
+            " UNION ALL SELECT 1 AS SDC_LOOKUP_INDEX, SDC_LOOKUP_1.* FROM (SELECT A FROM T WHERE B = 2) SDC_LOOKUP_1",
+        JdbcLookupLoader.buildBatchQuery(
+            ImmutableList.of("SELECT A FROM T WHERE B = 1", "SELECT A FROM T WHERE B = 2; ")
+        )
+    );
+  }
 }
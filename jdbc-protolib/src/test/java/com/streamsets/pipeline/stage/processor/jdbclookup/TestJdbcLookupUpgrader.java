@@ -56,4 +56,15 @@ public class TestJdbcLookupUpgrader {
 
     UpgraderTestUtils.assertExists(upgradedConfigs, "missingValuesBehavior", MissingValuesBehavior.SEND_TO_ERROR);
   }
+
+  @Test
+  public void testUpgradeV3toV4() throws StageException {
+    List<Config> configs = new ArrayList<>();
+
+    JdbcLookupProcessorUpgrader upgrader = new JdbcLookupProcessorUpgrader();
+    List<Config> upgradedConfigs = upgrader.upgrade("lib", "stage", "stageInst", 3, 4, configs);
+
+    UpgraderTestUtils.assertExists(upgradedConfigs, "batchLookupConfig.enabled", false);
+    UpgraderTestUtils.assertExists(upgradedConfigs, "batchLookupConfig.maxQueries", 100);
+  }
 }
@@ -26,6 +26,7 @@ import com.streamsets.pipeline.api.lineage.LineageEventType;
 import com.streamsets.pipeline.api.lineage.LineageSpecificAttribute;
 import com.streamsets.pipeline.kafka.api.SdcKafkaProducer;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.RecordSerializer;
 import com.streamsets.pipeline.lib.kafka.KafkaErrors;
 import com.streamsets.pipeline.lib.kafka.exception.KafkaConnectionException;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
@@ -35,7 +36,6 @@ import com.streamsets.pipeline.stage.destination.lib.ToOriginResponseConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -56,6 +56,7 @@ public class KafkaTarget extends BaseTarget {
   private SdcKafkaProducer kafkaProducer;
   private ErrorRecordHandler errorRecordHandler;
   private Set<String> accessedTopic;
+  private RecordSerializer serializer;
 
   public KafkaTarget(KafkaTargetConfig conf, ToOriginResponseConfig responseConf) {
     this.conf = conf;
@@ -71,6 +72,9 @@ public class KafkaTarget extends BaseTarget {
     kafkaProducer = conf.getKafkaProducer();
     errorRecordHandler = new DefaultErrorRecordHandler(getContext());
     accessedTopic = new HashSet<>();
+    if (issues.isEmpty()) {
+      serializer = conf.dataGeneratorFormatConfig.getDataGeneratorFactory().getRecordSerializer();
+    }
     return issues;
   }
 
@@ -150,11 +154,9 @@ public class KafkaTarget extends BaseTarget {
           for (Map.Entry<Object, List<Record>> entry : perPartition.entrySet()) {
             Object partition = entry.getKey();
             List<Record> list = entry.getValue();
-            ByteArrayOutputStream baos = new ByteArrayOutputStream(1024 * list.size());
             Record currentRecord = null;
             try {
-              DataGenerator generator = conf.dataGeneratorFormatConfig.getDataGeneratorFactory()
-                .getGenerator(baos);
+              DataGenerator generator = serializer.getGenerator();
               for (Record record : list) {
                 currentRecord = record;
                 generator.write(record);
@@ -162,7 +164,7 @@ public class KafkaTarget extends BaseTarget {
               }
               currentRecord = null;
               generator.close();
-              byte[] bytes = baos.toByteArray();
+              byte[] bytes = serializer.toByteArray();
               kafkaProducer.enqueueMessage(entryTopic, bytes, partition);
             } catch (StageException ex) {
               errorRecordHandler.onError(
@@ -286,11 +288,7 @@ public class KafkaTarget extends BaseTarget {
   }
 
   private Object serializeRecord(Record record) throws StageException, IOException {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-    DataGenerator generator = conf.dataGeneratorFormatConfig.getDataGeneratorFactory().getGenerator(baos);
-    generator.write(record);
-    generator.close();
-    return baos.toByteArray();
+    return serializer.serialize(record);
   }
 
   @Override
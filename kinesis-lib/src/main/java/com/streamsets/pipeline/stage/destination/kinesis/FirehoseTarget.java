@@ -28,8 +28,7 @@ import com.streamsets.pipeline.api.base.BaseTarget;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.aws.AwsRegion;
-import com.streamsets.pipeline.lib.generator.DataGenerator;
-import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
+import com.streamsets.pipeline.lib.generator.RecordSerializer;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import com.streamsets.pipeline.stage.lib.aws.AWSUtil;
@@ -37,15 +36,12 @@ import com.streamsets.pipeline.stage.lib.kinesis.Errors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
-import static com.streamsets.pipeline.stage.lib.kinesis.KinesisUtil.KB;
-
 public class FirehoseTarget extends BaseTarget {
   private static final Logger LOG = LoggerFactory.getLogger(FirehoseTarget.class);
   private static final int MAX_RECORDS_PER_REQUEST = 500;
@@ -53,7 +49,7 @@ public class FirehoseTarget extends BaseTarget {
   private final FirehoseConfigBean conf;
 
   private ErrorRecordHandler errorRecordHandler;
-  private DataGeneratorFactory generatorFactory;
+  private RecordSerializer serializer;
   private AmazonKinesisFirehose firehoseClient;
 
   private long recordCounter = 0L;
@@ -75,7 +71,7 @@ public class FirehoseTarget extends BaseTarget {
       return issues;
     }
 
-    generatorFactory = conf.dataFormatConfig.getDataGeneratorFactory();
+    serializer = conf.dataFormatConfig.getDataGeneratorFactory().getRecordSerializer();
     try {
       AmazonKinesisFirehoseClientBuilder builder = AmazonKinesisFirehoseClientBuilder
         .standard()
@@ -111,13 +107,8 @@ public class FirehoseTarget extends BaseTarget {
       Record record = batchIterator.next();
       sdcRecords.add(record);
 
-      ByteArrayOutputStream bytes = new ByteArrayOutputStream(conf.maxRecordSize * KB);
       try {
-        DataGenerator generator = generatorFactory.getGenerator(bytes);
-        generator.write(record);
-        generator.close();
-
-        ByteBuffer data = ByteBuffer.wrap(bytes.toByteArray());
+        ByteBuffer data = ByteBuffer.wrap(serializer.serialize(record));
         com.amazonaws.services.kinesisfirehose.model.Record firehoseRecord =
             new com.amazonaws.services.kinesisfirehose.model.Record();
         firehoseRecord.setData(data);
@@ -34,8 +34,7 @@ import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.aws.AwsRegion;
 import com.streamsets.pipeline.lib.el.ELUtils;
 import com.streamsets.pipeline.lib.el.RecordEL;
-import com.streamsets.pipeline.lib.generator.DataGenerator;
-import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
+import com.streamsets.pipeline.lib.generator.RecordSerializer;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import com.streamsets.pipeline.stage.destination.lib.ResponseType;
@@ -49,7 +48,6 @@ import com.streamsets.pipeline.stage.lib.kinesis.RandomPartitioner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -72,7 +70,7 @@ public class KinesisTarget extends BaseTarget {
   private final Properties additionalConfigs = new Properties();
 
   private ErrorRecordHandler errorRecordHandler;
-  private DataGeneratorFactory generatorFactory;
+  private RecordSerializer serializer;
   private KinesisProducer kinesisProducer;
   private Partitioner partitioner;
 
@@ -130,7 +128,9 @@ public class KinesisTarget extends BaseTarget {
           KINESIS_CONFIG_BEAN + ".dataGeneratorFormatConfig",
           issues
       );
-      generatorFactory = conf.dataFormatConfig.getDataGeneratorFactory();
+      if (issues.isEmpty()) {
+        serializer = conf.dataFormatConfig.getDataGeneratorFactory().getRecordSerializer();
+      }
       try {
         KinesisProducerConfiguration producerConfig = KinesisProducerConfiguration
             .fromProperties(additionalConfigs)
@@ -197,23 +197,20 @@ public class KinesisTarget extends BaseTarget {
 
     while (batchIterator.hasNext()) {
       Record record = batchIterator.next();
-      ByteArrayOutputStream bytes = new ByteArrayOutputStream(ONE_MB);
       try {
-        DataGenerator generator = generatorFactory.getGenerator(bytes);
-        generator.write(record);
-        generator.close();
+        byte[] bytes = serializer.serialize(record);
 
-        if (bytes.size() > ONE_MB) {
+        if (bytes.length > ONE_MB) {
           errorRecordHandler.onError(
               new OnRecordErrorException(
                   record,
                   Errors.KINESIS_08,
-                  bytes.size()
+                  bytes.length
               )
           );
           continue;
         }
-        ByteBuffer data = ByteBuffer.wrap(bytes.toByteArray());
+        ByteBuffer data = ByteBuffer.wrap(bytes);
 
         String partitionerKey = null;
         if (conf.partitionStrategy == PartitionStrategy.EXPRESSION) {
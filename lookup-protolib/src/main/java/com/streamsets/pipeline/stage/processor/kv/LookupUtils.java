@@ -18,6 +18,7 @@ package com.streamsets.pipeline.stage.processor.kv;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.impl.Utils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -25,11 +26,15 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Optional;
 
 public class LookupUtils {
   private static final Logger LOG = LoggerFactory.getLogger(LookupUtils.class);
 
+  private static final String SHARED_CACHE_KEY = "lookupUtils.cache";
+  private static final String SHARED_LOADER_KEY = "lookupUtils.cacheLoader";
+
   private LookupUtils() {}
 
   @NotNull
@@ -56,6 +61,62 @@ public class LookupUtils {
     );
   }
 
+  /**
+   * Builds a cache shared by all the pipeline runners of the calling stage, so that each key is looked up once for the
+   * whole pipeline rather than once per runner. Misses are loaded with the given loader of the calling runner, all the
+   * keys missing from a {@link LoadingCache#getAll(Iterable)} call are loaded at once by
+   * {@link CacheLoader#loadAll(Iterable)}.
+   */
+  @NotNull
+  public static<Key, Value> LoadingCache<Key, Value> buildSharedCache(
+    Stage.Context context,
+    CacheLoader<Key, Value> cacheLoader,
+    CacheConfig conf
+  ) {
+    if(conf.retryOnCacheMiss) {
+      throw new IllegalArgumentException("This stage does not support retry on cache miss feature.");
+    }
+
+    return createSharedCache(context, cacheLoader, conf);
+  }
+
+  @NotNull
+  @SuppressWarnings("unchecked")
+  public static<Key, Value> LoadingCache<Key, Optional<Value>> buildSharedCache(
+    Stage.Context context,
+    CacheLoader<Key, Optional<Value>> cacheLoader,
+    CacheConfig conf,
+    Optional<Value> defaultValue
+  ) {
+    return new OptionalLoadingCache(
+      !conf.retryOnCacheMiss,
+      createSharedCache(context, cacheLoader, conf),
+      defaultValue
+    );
+  }
+
+  @SuppressWarnings("unchecked")
+  private static<Key, Value> LoadingCache<Key, Value> createSharedCache(
+    Stage.Context context,
+    CacheLoader<Key, Value> cacheLoader,
+    CacheConfig conf
+  ) {
+    Map<String, Object> runnerSharedMap = context.getStageRunnerSharedMap();
+    LoadingCache<Key, Value> cache;
+    SharedLoadingCache.DispatchingCacheLoader<Key, Value> dispatcher;
+    synchronized (runnerSharedMap) {
+      cache = (LoadingCache<Key, Value>) runnerSharedMap.get(SHARED_CACHE_KEY);
+      dispatcher = (SharedLoadingCache.DispatchingCacheLoader<Key, Value>) runnerSharedMap.get(SHARED_LOADER_KEY);
+      if (cache == null) {
+        dispatcher = new SharedLoadingCache.DispatchingCacheLoader<>();
+        cache = createBuilder(conf).build(dispatcher);
+        runnerSharedMap.put(SHARED_CACHE_KEY, cache);
+        runnerSharedMap.put(SHARED_LOADER_KEY, dispatcher);
+      }
+    }
+    return new SharedLoadingCache<>(context, cache, dispatcher, cacheLoader);
+  }
+
   private static CacheBuilder createBuilder(CacheConfig conf) {
     CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
 
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.ForwardingLoadingCache;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.streamsets.pipeline.api.Stage;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * View of one pipeline runner on a cache shared by all the runners of a stage, see
+ * {@link LookupUtils#buildSharedCache(Stage.Context, CacheLoader, CacheConfig)}.
+ *
+ * Misses are loaded by the runner requesting them, with its own loader, so the shared cache never depends on the
+ * resources (connections, clients, ...) of another runner. Concurrent misses on the same key are loaded only once, the
+ * other runners wait for the value. Hits, misses and load times of this runner are published in the stage metrics.
+ */
+class SharedLoadingCache<Key, Value> extends ForwardingLoadingCache<Key, Value> {
+  static final String HITS_METER = "Lookup Cache Hits";
+  static final String MISSES_METER = "Lookup Cache Misses";
+  static final String LOAD_TIMER = "Lookup Cache Loads";
+
+  private final LoadingCache<Key, Value> delegate;
+  private final DispatchingCacheLoader<Key, Value> dispatcher;
+  private final CacheLoader<Key, Value> loader;
+  private final Meter hits;
+  private final AtomicLong loaded = new AtomicLong();
+
+  SharedLoadingCache(
+      Stage.Context context,
+      LoadingCache<Key, Value> delegate,
+      DispatchingCacheLoader<Key, Value> dispatcher,
+      CacheLoader<Key, Value> loader
+  ) {
+    this.delegate = delegate;
+    this.dispatcher = dispatcher;
+    this.loader = new MeteredCacheLoader<>(
+        loader,
+        context.createMeter(MISSES_METER),
+        context.createTimer(LOAD_TIMER),
+        loaded
+    );
+    this.hits = context.createMeter(HITS_METER);
+  }
+
+  @Override
+  protected LoadingCache<Key, Value> delegate() {
+    return delegate;
+  }
+
+  @Override
+  public Value get(Key key) throws ExecutionException {
+    CacheLoader<Key, Value> previous = dispatcher.set(loader);
+    long before = loaded.get();
+    try {
+      return delegate.get(key);
+    } finally {
+      dispatcher.restore(previous);
+      markHits(1, before);
+    }
+  }
+
+  @Override
+  public Value getUnchecked(Key key) {
+    CacheLoader<Key, Value> previous = dispatcher.set(loader);
+    long before = loaded.get();
+    try {
+      return delegate.getUnchecked(key);
+    } finally {
+      dispatcher.restore(previous);
+      markHits(1, before);
+    }
+  }
+
+  @Override
+  public Value apply(Key key) {
+    return getUnchecked(key);
+  }
+
+  @Override
+  public ImmutableMap<Key, Value> getAll(Iterable<? extends Key> keys) throws ExecutionException {
+    ImmutableSet<Key> distinct = ImmutableSet.copyOf(keys);
+    CacheLoader<Key, Value> previous = dispatcher.set(loader);
+    long before = loaded.get();
+    try {
+      return delegate.getAll(distinct);
+    } finally {
+      dispatcher.restore(previous);
+      markHits(distinct.size(), before);
+    }
+  }
+
+  @Override
+  public Value get(Key key, Callable<? extends Value> valueLoader) throws ExecutionException {
+    return delegate.get(key, valueLoader);
+  }
+
+  @Override
+  public void refresh(Key key) {
+    CacheLoader<Key, Value> previous = dispatcher.set(loader);
+    try {
+      delegate.refresh(key);
+    } finally {
+      dispatcher.restore(previous);
+    }
+  }
+
+  private void markHits(int requested, long loadedBefore) {
+    long misses = loaded.get() - loadedBefore;
+    if (requested > misses) {
+      hits.mark(requested - misses);
+    }
+  }
+
+  /**
+   * Loader of the shared cache, loading the keys with the loader of the runner whose thread is requesting them.
+   */
+  static class DispatchingCacheLoader<Key, Value> extends CacheLoader<Key, Value> {
+    private final ThreadLocal<CacheLoader<Key, Value>> current = new ThreadLocal<>();
+
+    CacheLoader<Key, Value> set(CacheLoader<Key, Value> loader) {
+      CacheLoader<Key, Value> previous = current.get();
+      current.set(loader);
+      return previous;
+    }
+
+    void restore(CacheLoader<Key, Value> previous) {
+      if (previous == null) {
+        current.remove();
+      } else {
+        current.set(previous);
+      }
+    }
+
+    private CacheLoader<Key, Value> loader() {
+      CacheLoader<Key, Value> loader = current.get();
+      if (loader == null) {
+        throw new IllegalStateException("Shared lookup cache used outside of a pipeline runner view");
+      }
+      return loader;
+    }
+
+    @Override
+    public Value load(Key key) throws Exception {
+      return loader().load(key);
+    }
+
+    @Override
+    public Map<Key, Value> loadAll(Iterable<? extends Key> keys) throws Exception {
+      return loader().loadAll(keys);
+    }
+
+    @Override
+    public ListenableFuture<Value> reload(Key key, Value oldValue) throws Exception {
+      return loader().reload(key, oldValue);
+    }
+  }
+
+  /**
+   * Loader counting the keys it loads and timing the loads.
+   */
+  private static class MeteredCacheLoader<Key, Value> extends CacheLoader<Key, Value> {
+    private final CacheLoader<Key, Value> loader;
+    private final Meter misses;
+    private final Timer loadTimer;
+    private final AtomicLong loaded;
+
+    MeteredCacheLoader(CacheLoader<Key, Value> loader, Meter misses, Timer loadTimer, AtomicLong loaded) {
+      this.loader = loader;
+      this.misses = misses;
+      this.loadTimer = loadTimer;
+      this.loaded = loaded;
+    }
+
+    @Override
+    public Value load(Key key) throws Exception {
+      loaded.incrementAndGet();
+      misses.mark();
+      try (Timer.Context ignored = loadTimer.time()) {
+        return loader.load(key);
+      }
+    }
+
+    @Override
+    public Map<Key, Value> loadAll(Iterable<? extends Key> keys) throws Exception {
+      ImmutableSet<Key> distinct = ImmutableSet.copyOf(keys);
+      Map<Key, Value> values;
+      try (Timer.Context ignored = loadTimer.time()) {
+        values = loader.loadAll(distinct);
+      }
+      // only counted once loaded, an unsupported bulk load falls back to loading the keys one by one
+      loaded.addAndGet(distinct.size());
+      misses.mark(distinct.size());
+      return values;
+    }
+
+    @Override
+    public ListenableFuture<Value> reload(Key key, Value oldValue) throws Exception {
+      return loader.reload(key, oldValue);
+    }
+  }
+}
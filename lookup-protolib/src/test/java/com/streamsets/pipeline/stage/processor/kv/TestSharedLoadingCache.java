@@ -0,0 +1,175 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.Stage;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestSharedLoadingCache {
+
+  private Map<String, Object> sharedMap;
+  private CacheConfig conf;
+
+  @Before
+  public void setUp() {
+    sharedMap = new ConcurrentHashMap<>();
+    conf = new CacheConfig();
+    conf.enabled = true;
+    conf.evictionPolicyType = EvictionPolicyType.EXPIRE_AFTER_WRITE;
+    conf.expirationTime = 1;
+    conf.timeUnit = TimeUnit.HOURS;
+  }
+
+  private Stage.Context createContext(Meter hits, Meter misses) {
+    Stage.Context context = Mockito.mock(Stage.Context.class);
+    Mockito.when(context.getStageRunnerSharedMap()).thenReturn(sharedMap);
+    Mockito.when(context.createMeter(SharedLoadingCache.HITS_METER)).thenReturn(hits);
+    Mockito.when(context.createMeter(SharedLoadingCache.MISSES_METER)).thenReturn(misses);
+    Mockito.when(context.createTimer(SharedLoadingCache.LOAD_TIMER)).thenReturn(new Timer());
+    return context;
+  }
+
+  private static class CountingLoader extends CacheLoader<String, String> {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger bulkLoads = new AtomicInteger();
+
+    @Override
+    public String load(String key) throws Exception {
+      loads.incrementAndGet();
+      return key.toUpperCase();
+    }
+
+    @Override
+    public Map<String, String> loadAll(Iterable<? extends String> keys) throws Exception {
+      bulkLoads.incrementAndGet();
+      Map<String, String> values = new HashMap<>();
+      for (String key : keys) {
+        values.put(key, key.toUpperCase());
+      }
+      return values;
+    }
+  }
+
+  @Test
+  public void testSharedBetweenRunners() throws Exception {
+    Meter hits0 = new Meter();
+    Meter misses0 = new Meter();
+    Meter hits1 = new Meter();
+    Meter misses1 = new Meter();
+    CountingLoader loader0 = new CountingLoader();
+    CountingLoader loader1 = new CountingLoader();
+    LoadingCache<String, String> cache0 = LookupUtils.buildSharedCache(createContext(hits0, misses0), loader0, conf);
+    LoadingCache<String, String> cache1 = LookupUtils.buildSharedCache(createContext(hits1, misses1), loader1, conf);
+
+    Assert.assertEquals("A", cache0.get("a"));
+    Assert.assertEquals("A", cache1.get("a"));
+    Assert.assertEquals(1, loader0.loads.get());
+    Assert.assertEquals(0, loader1.loads.get());
+    Assert.assertEquals(1, misses0.getCount());
+    Assert.assertEquals(0, hits0.getCount());
+    Assert.assertEquals(1, hits1.getCount());
+    Assert.assertEquals(0, misses1.getCount());
+
+    // missing keys are loaded at once, by the loader of the requesting runner
+    Map<String, String> values = cache1.getAll(ImmutableList.of("a", "b", "c", "b"));
+    Assert.assertEquals(3, values.size());
+    Assert.assertEquals("C", values.get("c"));
+    Assert.assertEquals(1, loader1.bulkLoads.get());
+    Assert.assertEquals(0, loader1.loads.get());
+    Assert.assertEquals(2, hits1.getCount());
+    Assert.assertEquals(2, misses1.getCount());
+  }
+
+  @Test
+  public void testConcurrentMissesLoadedOnce() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    CacheLoader<String, String> loader = new CacheLoader<String, String>() {
+      @Override
+      public String load(String key) throws Exception {
+        loads.incrementAndGet();
+        loading.countDown();
+        release.await();
+        return key.toUpperCase();
+      }
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<LoadingCache<String, String>> caches = ImmutableList.of(
+          LookupUtils.buildSharedCache(createContext(new Meter(), new Meter()), loader, conf),
+          LookupUtils.buildSharedCache(createContext(new Meter(), new Meter()), loader, conf),
+          LookupUtils.buildSharedCache(createContext(new Meter(), new Meter()), loader, conf),
+          LookupUtils.buildSharedCache(createContext(new Meter(), new Meter()), loader, conf)
+      );
+      Future<String> first = executor.submit(() -> caches.get(0).get("key"));
+      Assert.assertTrue(loading.await(10, TimeUnit.SECONDS));
+      List<Future<String>> others = ImmutableList.of(
+          executor.submit(() -> caches.get(1).get("key")),
+          executor.submit(() -> caches.get(2).get("key")),
+          executor.submit(() -> caches.get(3).get("key"))
+      );
+      release.countDown();
+      Assert.assertEquals("KEY", first.get());
+      for (Future<String> other : others) {
+        Assert.assertEquals("KEY", other.get());
+      }
+      Assert.assertEquals(1, loads.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testOptionalGetAll() throws Exception {
+    CacheLoader<String, Optional<String>> loader = new CacheLoader<String, Optional<String>>() {
+      @Override
+      public Optional<String> load(String key) throws Exception {
+        return key.isEmpty() ? Optional.empty() : Optional.of(key.toUpperCase());
+      }
+    };
+    LoadingCache<String, Optional<String>> cache = LookupUtils.buildSharedCache(
+        createContext(new Meter(), new Meter()),
+        loader,
+        conf,
+        Optional.of("default")
+    );
+    Map<String, Optional<String>> values = cache.getAll(ImmutableList.of("a", ""));
+    Assert.assertEquals(Optional.of("A"), values.get("a"));
+    Assert.assertEquals(Optional.of("default"), values.get(""));
+  }
+}
@@ -88,7 +88,7 @@ public class MongoDBProcessor extends SingleLaneRecordProcessor {
     }
 
     MongoDBLookupLoader lookupLoader = new MongoDBLookupLoader(mongoCollection);
-    cache = LookupUtils.buildCache(lookupLoader, configBean.cacheConfig);
+    cache = LookupUtils.buildSharedCache(getContext(), lookupLoader, configBean.cacheConfig);
     cacheCleaner = new CacheCleaner(cache, "MongoDBProcessor", 10 * 60 * 1000);
     return issues;
   }
@@ -23,7 +23,7 @@ import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.BaseTarget;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
-import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
+import com.streamsets.pipeline.lib.generator.RecordSerializer;
 import com.streamsets.pipeline.lib.rabbitmq.config.Errors;
 import com.streamsets.pipeline.lib.rabbitmq.config.RabbitExchangeConfigBean;
 import com.streamsets.pipeline.lib.rabbitmq.common.RabbitCxnManager;
@@ -33,7 +33,6 @@ import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Iterator;
@@ -43,7 +42,7 @@ import java.util.concurrent.TimeoutException;
 public class RabbitTarget extends BaseTarget {
   private static final Logger LOG = LoggerFactory.getLogger(RabbitTarget.class);
   private RabbitTargetConfigBean conf = null;
-  private DataGeneratorFactory generatorFactory = null;
+  private RecordSerializer serializer = null;
   private RabbitCxnManager rabbitCxnManager = new RabbitCxnManager();
   private AMQP.BasicProperties.Builder builder = new AMQP.BasicProperties.Builder();
   private ErrorRecordHandler errorRecordHandler = null;
@@ -102,7 +101,7 @@ public class RabbitTarget extends BaseTarget {
           }
       );
 
-      generatorFactory = conf.dataFormatConfig.getDataGeneratorFactory();
+      serializer = conf.dataFormatConfig.getDataGeneratorFactory().getRecordSerializer();
       errorRecordHandler = new DefaultErrorRecordHandler(getContext());
     }
     return issues;
@@ -111,23 +110,20 @@ public class RabbitTarget extends BaseTarget {
   @Override
   public void write(Batch batch) throws StageException {
     Iterator<Record> records = batch.getRecords();
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
     try {
       if (this.conf.singleMessagePerBatch) {
-        baos.reset();
-        DataGenerator generator = this.generatorFactory.getGenerator(baos);
+        DataGenerator generator = this.serializer.getGenerator();
         while (records.hasNext()) {
           writeRecord(generator, records.next());
         }
         generator.close();
-        handleDelivery(baos.toByteArray());
+        handleDelivery(this.serializer.toByteArray());
       } else {
         while (records.hasNext()) {
-          baos.reset();
-          DataGenerator generator = this.generatorFactory.getGenerator(baos);
+          DataGenerator generator = this.serializer.getGenerator();
           writeRecord(generator, records.next());
           generator.close();
-          handleDelivery(baos.toByteArray());
+          handleDelivery(this.serializer.toByteArray());
         }
       }
     }  catch (IOException ex) {
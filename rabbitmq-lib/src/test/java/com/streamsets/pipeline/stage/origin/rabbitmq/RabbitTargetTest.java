@@ -147,7 +147,11 @@ public class RabbitTargetTest extends BaseRabbitStageTest{
     config.dataFormat = DataFormat.JSON;
     config.dataFormatConfig.jsonMode = JsonMode.MULTIPLE_OBJECTS;
     config.dataFormatConfig.init(runner.getContext(), config.dataFormat, "", "", new ArrayList<Stage.ConfigIssue>());
-    Whitebox.setInternalState(stage, "generatorFactory", config.dataFormatConfig.getDataGeneratorFactory());
+    Whitebox.setInternalState(
+        stage,
+        "serializer",
+        config.dataFormatConfig.getDataGeneratorFactory().getRecordSerializer()
+    );
 
 
     runner.runInit();
@@ -22,9 +22,12 @@ import org.apache.commons.lang3.tuple.Pair;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -92,12 +95,58 @@ public class RedisStore extends CacheLoader<Pair<String, DataType>, LookupValue>
     return values;
   }
 
+  /**
+   * Looks up all the given keys in a single round trip: values of the string keys are fetched by one MGET and the
+   * other keys by commands pipelined with it.
+   */
   public List<LookupValue> get(List<Pair<String, DataType>> keys) {
-    List<LookupValue> result = new ArrayList<>();
-    for(Pair<String, DataType> key : keys) {
-      result.add(get(key));
+    LookupValue[] values = new LookupValue[keys.size()];
+    List<Integer> stringIndexes = new ArrayList<>();
+    List<String> stringKeys = new ArrayList<>();
+    Map<Integer, Response<?>> responses = new HashMap<>();
+
+    try (Jedis jedis = pool.getResource()) {
+      Pipeline pipeline = jedis.pipelined();
+      for (int i = 0; i < keys.size(); i++) {
+        String key = keys.get(i).getLeft();
+        switch (keys.get(i).getRight()) {
+          case STRING:
+            stringIndexes.add(i);
+            stringKeys.add(key);
+            break;
+          case LIST:
+            responses.put(i, pipeline.lrange(key, 0, -1));
+            break;
+          case HASH:
+            responses.put(i, pipeline.hgetAll(key));
+            break;
+          case SET:
+            responses.put(i, pipeline.smembers(key));
+            break;
+          default:
+            break;
+        }
+      }
+      Response<List<String>> strings = null;
+      if (!stringKeys.isEmpty()) {
+        strings = pipeline.mget(stringKeys.toArray(new String[stringKeys.size()]));
+      }
+      pipeline.sync();
+
+      if (strings != null) {
+        List<String> stringValues = strings.get();
+        for (int i = 0; i < stringIndexes.size(); i++) {
+          values[stringIndexes.get(i)] = new LookupValue(stringValues.get(i), DataType.STRING);
+        }
+      }
+      for (Map.Entry<Integer, Response<?>> response : responses.entrySet()) {
+        values[response.getKey()] = new LookupValue(
+            response.getValue().get(),
+            keys.get(response.getKey()).getRight()
+        );
+      }
     }
-    return result;
+    return Arrays.asList(values);
   }
 
   public void put(String key, String value) {
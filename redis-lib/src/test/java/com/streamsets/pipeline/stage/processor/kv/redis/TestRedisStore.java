@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv.redis;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.streamsets.pipeline.lib.redis.DataType;
+import com.streamsets.pipeline.stage.origin.redis.RandomPortFinder;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.embedded.RedisServer;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+public class TestRedisStore {
+  private RedisServer redisServer;
+  private RedisStore store;
+
+  @Before
+  public void setUp() throws Exception {
+    int redisPort = RandomPortFinder.find();
+    redisServer = new RedisServer(redisPort);
+    redisServer.start();
+
+    RedisLookupConfig conf = new RedisLookupConfig();
+    conf.uri = "redis://localhost:" + redisPort + "/0";
+    store = new RedisStore(conf);
+
+    try (Jedis jedis = new Jedis(URI.create(conf.uri))) {
+      jedis.mset("key1", "value1", "key2", "value2");
+      jedis.rpush("lkey", "lvalue1", "lvalue2");
+      jedis.hmset("hkey", ImmutableMap.of("hfield1", "hvalue1", "hfield2", "hvalue2"));
+      jedis.sadd("skey", "svalue1", "svalue2");
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    store.close();
+    redisServer.stop();
+  }
+
+  @Test
+  public void testGetAllTypesInOneRoundTrip() throws Exception {
+    List<Pair<String, DataType>> keys = ImmutableList.of(
+        Pair.of("key1", DataType.STRING),
+        Pair.of("lkey", DataType.LIST),
+        Pair.of("missing", DataType.STRING),
+        Pair.of("hkey", DataType.HASH),
+        Pair.of("key2", DataType.STRING),
+        Pair.of("skey", DataType.SET)
+    );
+
+    List<LookupValue> values = store.get(keys);
+    Assert.assertEquals(keys.size(), values.size());
+    Assert.assertEquals(new LookupValue("value1", DataType.STRING), values.get(0));
+    Assert.assertEquals(new LookupValue(ImmutableList.of("lvalue1", "lvalue2"), DataType.LIST), values.get(1));
+    Assert.assertNull(values.get(2).getValue());
+    Assert.assertEquals(
+        new LookupValue(ImmutableMap.of("hfield1", "hvalue1", "hfield2", "hvalue2"), DataType.HASH),
+        values.get(3)
+    );
+    Assert.assertEquals(new LookupValue("value2", DataType.STRING), values.get(4));
+    Assert.assertEquals(new LookupValue(ImmutableSet.of("svalue1", "svalue2"), DataType.SET), values.get(5));
+
+    // same values as looking the keys up one by one
+    for (int i = 0; i < keys.size(); i++) {
+      Assert.assertEquals(store.get(keys.get(i)), values.get(i));
+    }
+
+    Map<Pair<String, DataType>, LookupValue> loaded = store.loadAll(keys);
+    Assert.assertEquals(keys.size(), loaded.size());
+    Assert.assertEquals(values.get(3), loaded.get(Pair.of("hkey", DataType.HASH)));
+  }
+}
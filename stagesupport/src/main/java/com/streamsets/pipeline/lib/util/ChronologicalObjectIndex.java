@@ -0,0 +1,433 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Index of the objects of an object store (S3, GCS...) to read in chronological order, by last modified time and
+ * then by key.
+ *
+ * Object stores can only list objects by key, so finding the oldest objects newer than an offset requires listing
+ * all of them. The index keeps, in a file sorted by last modified time and key, the objects found by a full listing
+ * that are newer than the offset at the time of the listing, and returns them in order on the following fetches.
+ * The objects are listed again only once the index has no object left to return, or if the offset goes back before
+ * the objects indexed.
+ *
+ * Objects created after a listing started have a last modified time later than its start, so all the objects
+ * modified before the start of the listing (minus {@link #SETTLE_TIME_MS} for the differences between clocks) are in
+ * the index and are returned in the same order as a full listing would. Later objects are left for the next listing.
+ *
+ * The file is kept when the index is closed, and reused after a restart if the objects are listed with the same
+ * parameters.
+ *
+ * At most {@link #RUN_SIZE} objects of a listing are held in memory. Larger listings are sorted in runs written next
+ * to the index file, which are then merged into it.
+ */
+public class ChronologicalObjectIndex implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(ChronologicalObjectIndex.class);
+
+  static final long SETTLE_TIME_MS = 5000;
+  static final int RUN_SIZE = 100000;
+  private static final int VERSION = 1;
+
+  private static final Comparator<Entry> ORDER = (e1, e2) -> compare(
+      e1.getLastModified(),
+      e1.getKey(),
+      e2.getLastModified(),
+      e2.getKey()
+  );
+
+  /**
+   * An object of the index, with the attributes needed to read it (ETag, name...) in the order set by the caller.
+   */
+  public static class Entry {
+    private final String key;
+    private final long lastModified;
+    private final long size;
+    private final String[] attributes;
+
+    public Entry(String key, long lastModified, long size, String... attributes) {
+      this.key = key;
+      this.lastModified = lastModified;
+      this.size = size;
+      this.attributes = attributes;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    public long getSize() {
+      return size;
+    }
+
+    public String getAttribute(int index) {
+      return attributes[index];
+    }
+  }
+
+  /**
+   * Lists all the objects to index, in any order.
+   */
+  public interface Lister {
+    void list(Consumer<Entry> consumer);
+  }
+
+  private final File file;
+  private final String signature;
+  private final long settleTimeMs;
+  private final int runSize;
+
+  // objects modified before the horizon are all in the index
+  private long horizon;
+  // the index has the objects after this position, the offset when the objects were listed
+  private long baseTimestamp;
+  private String baseKey;
+
+  private DataInputStream reader;
+  private int remaining;
+  private Entry next;
+  private Entry last;
+  private boolean loaded;
+  private int listingCount;
+
+  public ChronologicalObjectIndex(File file, String signature) {
+    this(file, signature, SETTLE_TIME_MS, RUN_SIZE);
+  }
+
+  ChronologicalObjectIndex(File file, String signature, long settleTimeMs, int runSize) {
+    this.file = file;
+    this.signature = signature;
+    this.settleTimeMs = settleTimeMs;
+    this.runSize = runSize;
+  }
+
+  /**
+   * Returns up to fetchSize objects after the given offset, in chronological order. The object of the offset is
+   * returned too if it was partially processed.
+   */
+  public synchronized List<Entry> next(
+      Lister lister,
+      long offsetTimestamp,
+      String offsetKey,
+      boolean offsetPartial,
+      int fetchSize
+  ) throws IOException {
+    offsetKey = (offsetKey == null) ? "" : offsetKey;
+    boolean listed = false;
+    if (!loaded) {
+      loaded = true;
+      load();
+      // a persisted index is only reused once some of its objects were processed, not after the offset was reset
+      if (reader != null && compare(offsetTimestamp, offsetKey, baseTimestamp, baseKey) <= 0) {
+        closeReader();
+      }
+    }
+    if (reader == null || compare(offsetTimestamp, offsetKey, baseTimestamp, baseKey) < 0) {
+      rebuild(lister, offsetTimestamp, offsetKey);
+      listed = true;
+    } else if (last != null && compare(offsetTimestamp, offsetKey, last.getLastModified(), last.getKey()) < 0) {
+      // the offset went back, reading again from the beginning of the index
+      open();
+    }
+    List<Entry> entries = collect(offsetTimestamp, offsetKey, offsetPartial, fetchSize);
+    if (entries.isEmpty() && !listed) {
+      rebuild(lister, offsetTimestamp, offsetKey);
+      entries = collect(offsetTimestamp, offsetKey, offsetPartial, fetchSize);
+    }
+    return entries;
+  }
+
+  /**
+   * Returns the number of listings done to build the index.
+   */
+  synchronized int getListingCount() {
+    return listingCount;
+  }
+
+  @Override
+  public synchronized void close() {
+    closeReader();
+  }
+
+  private List<Entry> collect(long offsetTimestamp, String offsetKey, boolean offsetPartial, int fetchSize)
+      throws IOException {
+    List<Entry> entries = new ArrayList<>();
+    if (offsetPartial && last != null && last.getLastModified() == offsetTimestamp && last.getKey().equals(offsetKey)) {
+      entries.add(last);
+    }
+    while (entries.size() < fetchSize) {
+      if (next == null) {
+        next = read();
+      }
+      if (next == null || next.getLastModified() >= horizon) {
+        break;
+      }
+      int result = compare(next.getLastModified(), next.getKey(), offsetTimestamp, offsetKey);
+      if (result > 0 || (result == 0 && offsetPartial)) {
+        entries.add(next);
+      }
+      last = next;
+      next = null;
+    }
+    return entries;
+  }
+
+  private void rebuild(Lister lister, long offsetTimestamp, String offsetKey) throws IOException {
+    closeReader();
+    long start = System.currentTimeMillis();
+    File parent = file.getAbsoluteFile().getParentFile();
+    Files.createDirectories(parent.toPath());
+    List<File> runs = new ArrayList<>();
+    try {
+      List<Entry> entries = new ArrayList<>();
+      int[] count = new int[1];
+      try {
+        lister.list(entry -> {
+          if (compare(entry.getLastModified(), entry.getKey(), offsetTimestamp, offsetKey) >= 0) {
+            entries.add(entry);
+            count[0]++;
+            if (entries.size() == runSize) {
+              try {
+                runs.add(writeRun(parent, runs.size(), entries));
+              } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+              }
+            }
+          }
+        });
+      } catch (UncheckedIOException ex) {
+        throw ex.getCause();
+      }
+      listingCount++;
+      entries.sort(ORDER);
+
+      File tmp = new File(parent, file.getName() + ".tmp");
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+        out.writeInt(VERSION);
+        out.writeUTF(signature);
+        out.writeLong(start - settleTimeMs);
+        out.writeLong(offsetTimestamp);
+        out.writeUTF(offsetKey);
+        out.writeInt(count[0]);
+        if (runs.isEmpty()) {
+          for (Entry entry : entries) {
+            write(out, entry);
+          }
+        } else {
+          if (!entries.isEmpty()) {
+            runs.add(writeRun(parent, runs.size(), entries));
+          }
+          merge(runs, out);
+        }
+      }
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      LOG.debug(
+          "Indexed '{}' objects in '{}' runs in '{}' ms",
+          count[0],
+          Math.max(runs.size(), 1),
+          System.currentTimeMillis() - start
+      );
+    } finally {
+      for (File run : runs) {
+        Files.deleteIfExists(run.toPath());
+      }
+    }
+    open();
+  }
+
+  /**
+   * Writes the given entries sorted in a run file and clears them.
+   */
+  private File writeRun(File parent, int number, List<Entry> entries) throws IOException {
+    entries.sort(ORDER);
+    File run = new File(parent, file.getName() + ".run" + number);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)))) {
+      out.writeInt(entries.size());
+      for (Entry entry : entries) {
+        write(out, entry);
+      }
+    }
+    entries.clear();
+    return run;
+  }
+
+  /**
+   * Merges the sorted runs in the given output, holding only the next entry of each run in memory.
+   */
+  private static void merge(List<File> runs, DataOutputStream out) throws IOException {
+    List<DataInputStream> inputs = new ArrayList<>(runs.size());
+    try {
+      // next entry of each run, along with the run it comes from and how many entries it has left
+      PriorityQueue<RunHead> heads = new PriorityQueue<>(runs.size(), (h1, h2) -> ORDER.compare(h1.entry, h2.entry));
+      for (File run : runs) {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+        inputs.add(in);
+        RunHead head = new RunHead(in, in.readInt());
+        if (head.advance()) {
+          heads.add(head);
+        }
+      }
+      RunHead head;
+      while ((head = heads.poll()) != null) {
+        write(out, head.entry);
+        if (head.advance()) {
+          heads.add(head);
+        }
+      }
+    } finally {
+      for (DataInputStream in : inputs) {
+        in.close();
+      }
+    }
+  }
+
+  private static class RunHead {
+    private final DataInputStream in;
+    private int remaining;
+    private Entry entry;
+
+    RunHead(DataInputStream in, int remaining) {
+      this.in = in;
+      this.remaining = remaining;
+    }
+
+    boolean advance() throws IOException {
+      if (remaining == 0) {
+        return false;
+      }
+      remaining--;
+      entry = read(in);
+      return true;
+    }
+  }
+
+  private void load() throws IOException {
+    if (file.exists()) {
+      boolean valid;
+      try {
+        valid = open();
+      } catch (IOException ex) {
+        LOG.warn("Error while opening object index '{}': {}", file, ex.toString(), ex);
+        closeReader();
+        valid = false;
+      }
+      if (!valid) {
+        LOG.info("Discarding object index '{}'", file);
+        Files.delete(file.toPath());
+      }
+    }
+  }
+
+  /**
+   * Opens the index file at its first entry, returns false if it was created with other parameters.
+   */
+  private boolean open() throws IOException {
+    closeReader();
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    boolean valid = false;
+    try {
+      if (in.readInt() == VERSION && signature.equals(in.readUTF())) {
+        horizon = in.readLong();
+        baseTimestamp = in.readLong();
+        baseKey = in.readUTF();
+        remaining = in.readInt();
+        valid = true;
+      }
+    } finally {
+      if (valid) {
+        reader = in;
+      } else {
+        in.close();
+      }
+    }
+    return valid;
+  }
+
+  private void closeReader() {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (IOException ex) {
+        LOG.warn("Error while closing object index '{}': {}", file, ex.toString(), ex);
+      }
+      reader = null;
+    }
+    next = null;
+    last = null;
+  }
+
+  private Entry read() throws IOException {
+    if (remaining == 0) {
+      return null;
+    }
+    remaining--;
+    return read(reader);
+  }
+
+  private static Entry read(DataInputStream in) throws IOException {
+    long lastModified = in.readLong();
+    String key = in.readUTF();
+    long size = in.readLong();
+    String[] attributes = new String[in.readUnsignedByte()];
+    for (int i = 0; i < attributes.length; i++) {
+      attributes[i] = in.readBoolean() ? in.readUTF() : null;
+    }
+    return new Entry(key, lastModified, size, attributes);
+  }
+
+  private static void write(DataOutputStream out, Entry entry) throws IOException {
+    out.writeLong(entry.getLastModified());
+    out.writeUTF(entry.getKey());
+    out.writeLong(entry.getSize());
+    out.writeByte(entry.attributes.length);
+    for (String attribute : entry.attributes) {
+      out.writeBoolean(attribute != null);
+      if (attribute != null) {
+        out.writeUTF(attribute);
+      }
+    }
+  }
+
+  private static int compare(long timestamp1, String key1, long timestamp2, String key2) {
+    int result = Long.compare(timestamp1, timestamp2);
+    return (result != 0) ? result : key1.compareTo(key2);
+  }
+}
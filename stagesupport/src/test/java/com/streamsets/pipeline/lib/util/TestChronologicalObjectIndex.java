@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.util;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+public class TestChronologicalObjectIndex {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  // key to last modified time of the objects in the store, listed by key as object stores do
+  private TreeMap<String, Long> objects;
+  private ChronologicalObjectIndex.Lister lister;
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    objects = new TreeMap<>();
+    lister = consumer -> objects.forEach((key, lastModified) ->
+        consumer.accept(new ChronologicalObjectIndex.Entry(key, lastModified, 10, "etag-" + key, null))
+    );
+    file = new File(tempFolder.newFolder(), "index/objects");
+  }
+
+  private static List<String> keys(List<ChronologicalObjectIndex.Entry> entries) {
+    return entries.stream().map(ChronologicalObjectIndex.Entry::getKey).collect(Collectors.toList());
+  }
+
+  @Test
+  public void testChronologicalOrder() throws Exception {
+    objects.put("a", 3000L);
+    objects.put("b", 1000L);
+    objects.put("c", 2000L);
+    objects.put("d", 1000L);
+    objects.put("e", 2000L);
+    ChronologicalObjectIndex index = new ChronologicalObjectIndex(file, "bucket");
+
+    List<ChronologicalObjectIndex.Entry> entries = index.next(lister, 0, "", true, 2);
+    Assert.assertEquals(1, index.getListingCount());
+    Assert.assertEquals(2, entries.size());
+    Assert.assertEquals("b", entries.get(0).getKey());
+    Assert.assertEquals(1000L, entries.get(0).getLastModified());
+    Assert.assertEquals(10, entries.get(0).getSize());
+    Assert.assertEquals("etag-b", entries.get(0).getAttribute(0));
+    Assert.assertNull(entries.get(0).getAttribute(1));
+    Assert.assertEquals("d", entries.get(1).getKey());
+
+    // objects added after the listing are returned by the next one
+    objects.put("f", 1500L);
+    Assert.assertEquals(Arrays.asList("c", "e"), keys(index.next(lister, 1000, "d", false, 2)));
+    Assert.assertEquals(Collections.singletonList("a"), keys(index.next(lister, 2000, "e", false, 2)));
+    Assert.assertEquals(1, index.getListingCount());
+
+    // nothing left in the index, listing again, "f" is older than the offset
+    Assert.assertTrue(index.next(lister, 3000, "a", false, 2).isEmpty());
+    Assert.assertEquals(2, index.getListingCount());
+    index.close();
+  }
+
+  @Test
+  public void testPartiallyProcessedObject() throws Exception {
+    objects.put("a", 1000L);
+    objects.put("b", 2000L);
+    ChronologicalObjectIndex index = new ChronologicalObjectIndex(file, "bucket");
+    Assert.assertEquals(Collections.singletonList("a"), keys(index.next(lister, 0, "", false, 1)));
+    // the object of the offset was not completely processed
+    Assert.assertEquals(Arrays.asList("a", "b"), keys(index.next(lister, 1000, "a", true, 2)));
+    Assert.assertEquals(1, index.getListingCount());
+    index.close();
+  }
+
+  @Test
+  public void testOffsetGoingBack() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      objects.put("k" + i, 1000L + i);
+    }
+    ChronologicalObjectIndex index = new ChronologicalObjectIndex(file, "bucket");
+    Assert.assertEquals(5, index.next(lister, 1001, "k1", false, 5).size());
+
+    // still after the offset of the listing, reading the index again
+    Assert.assertEquals(Arrays.asList("k3", "k4"), keys(index.next(lister, 1002, "k2", false, 2)));
+    Assert.assertEquals(1, index.getListingCount());
+
+    // before the offset of the listing, listing again
+    Assert.assertEquals(Collections.singletonList("k0"), keys(index.next(lister, 0, "", false, 1)));
+    Assert.assertEquals(2, index.getListingCount());
+    index.close();
+  }
+
+  @Test
+  public void testRecentObjectsLeftForNextListing() throws Exception {
+    long now = System.currentTimeMillis();
+    objects.put("old", now - 60000);
+    objects.put("recent", now);
+    ChronologicalObjectIndex index = new ChronologicalObjectIndex(file, "bucket", 30000, ChronologicalObjectIndex.RUN_SIZE);
+    Assert.assertEquals(Collections.singletonList("old"), keys(index.next(lister, 0, "", false, 10)));
+    Assert.assertTrue(index.next(lister, now - 60000, "old", false, 10).isEmpty());
+    Assert.assertEquals(2, index.getListingCount());
+    index.close();
+  }
+
+  @Test
+  public void testPersistence() throws Exception {
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      objects.put("k" + i, 1000L + i);
+      expected.add("k" + i);
+    }
+    ChronologicalObjectIndex index = new ChronologicalObjectIndex(file, "bucket");
+    Assert.assertEquals(expected.subList(0, 10), keys(index.next(lister, 0, "", false, 10)));
+    index.close();
+
+    // reused after a restart
+    index = new ChronologicalObjectIndex(file, "bucket");
+    Assert.assertEquals(expected.subList(10, 20), keys(index.next(lister, 1009, "k9", false, 10)));
+    Assert.assertEquals(0, index.getListingCount());
+    index.close();
+
+    // not reused after the offset was reset
+    index = new ChronologicalObjectIndex(file, "bucket");
+    Assert.assertEquals(expected.subList(0, 10), keys(index.next(lister, 0, "", false, 10)));
+    Assert.assertEquals(1, index.getListingCount());
+    index.close();
+
+    // discarded if created for other objects
+    index = new ChronologicalObjectIndex(file, "other bucket");
+    Assert.assertEquals(expected.subList(10, 20), keys(index.next(lister, 1009, "k9", false, 10)));
+    Assert.assertEquals(1, index.getListingCount());
+    index.close();
+  }
+
+  @Test
+  public void testListingSortedInRuns() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      // timestamps not in key order, some of them shared by several objects
+      objects.put(String.format("k%03d", i), 1000L + (i * 37) % 101);
+    }
+    List<String> expected = objects.entrySet().stream()
+        .filter(e -> e.getValue() > 1000L)
+        .sorted((e1, e2) -> e1.getValue().equals(e2.getValue())
+            ? e1.getKey().compareTo(e2.getKey())
+            : Long.compare(e1.getValue(), e2.getValue()))
+        .map(e -> e.getKey())
+        .collect(Collectors.toList());
+
+    // runs of the same size and a smaller last run
+    for (int runSize : new int[] {10, 64}) {
+      ChronologicalObjectIndex index = new ChronologicalObjectIndex(
+          file,
+          "bucket",
+          ChronologicalObjectIndex.SETTLE_TIME_MS,
+          runSize
+      );
+      List<String> keys = new ArrayList<>();
+      List<ChronologicalObjectIndex.Entry> entries = index.next(lister, 1000, "k999", false, 7);
+      while (!entries.isEmpty()) {
+        keys.addAll(keys(entries));
+        ChronologicalObjectIndex.Entry last = entries.get(entries.size() - 1);
+        entries = index.next(lister, last.getLastModified(), last.getKey(), false, 7);
+      }
+      Assert.assertEquals(expected, keys);
+      // listed again from the start
+      Assert.assertEquals("etag-k000", index.next(lister, 0, "", false, 1).get(0).getAttribute(0));
+      index.close();
+      // only the index is left
+      Assert.assertEquals(Collections.singletonList(file.getName()), Arrays.asList(file.getParentFile().list()));
+    }
+  }
+}